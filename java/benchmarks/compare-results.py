@@ -0,0 +1,75 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+
+# Compares the JMH results (-rf json) of a benchmark run against a baseline run and exits with 1 if any benchmark
+# regressed by more than the threshold. A benchmark only counts as regressed if the difference is also larger than
+# the combined error of both scores, so noise on a shared machine doesn't fail the comparison.
+#
+# Usage: compare-results.py <baseline.json> <current.json> [threshold-percentage]
+
+import json
+import sys
+
+DEFAULT_THRESHOLD_PERCENTAGE = 20
+
+
+def load(path):
+    with open(path) as f:
+        results = json.load(f)
+
+    scores = {}
+    for result in results:
+        params = result.get("params")
+        name = result["benchmark"]
+        if params:
+            name += "(" + ",".join(f"{k}={v}" for k, v in sorted(params.items())) + ")"
+        name += f" [{result['mode']}]"
+        metric = result["primaryMetric"]
+        error = metric.get("scoreError")
+        # JMH writes 'NaN' as error if there are not enough samples
+        if not isinstance(error, (int, float)) or error != error:
+            error = 0
+        scores[name] = (result["mode"], metric["score"], error, metric["scoreUnit"])
+    return scores
+
+
+def main():
+    if len(sys.argv) < 3:
+        print(f"Usage: {sys.argv[0]} <baseline.json> <current.json> [threshold-percentage]")
+        sys.exit(2)
+
+    baseline = load(sys.argv[1])
+    current = load(sys.argv[2])
+    threshold = float(sys.argv[3]) if len(sys.argv) > 3 else DEFAULT_THRESHOLD_PERCENTAGE
+
+    regressions = []
+    for name, (mode, score, error, unit) in sorted(current.items()):
+        if name not in baseline:
+            print(f"{name}: {score:.3f} {unit} (new)")
+            continue
+
+        _, baseline_score, baseline_error, baseline_unit = baseline[name]
+        if unit != baseline_unit or baseline_score == 0:
+            print(f"{name}: {score:.3f} {unit} (not comparable with {baseline_score:.3f} {baseline_unit})")
+            continue
+
+        # for throughput higher is better, for all other modes (time per operation) lower is better
+        diff = baseline_score - score if mode == "thrpt" else score - baseline_score
+        change_percentage = 100 * diff / baseline_score
+        regressed = change_percentage > threshold and diff > error + baseline_error
+        print(f"{name}: {baseline_score:.3f} -> {score:.3f} {unit} "
+              f"({100 * (score - baseline_score) / baseline_score:+.1f}%){' REGRESSION' if regressed else ''}")
+        if regressed:
+            regressions.append(name)
+
+    if regressions:
+        print(f"\n{len(regressions)} benchmark(s) regressed more than {threshold:.0f}%:")
+        for name in regressions:
+            print(f"    {name}")
+        sys.exit(1)
+
+    print(f"\nNo benchmark regressed more than {threshold:.0f}%")
+
+
+if __name__ == '__main__':
+    main()
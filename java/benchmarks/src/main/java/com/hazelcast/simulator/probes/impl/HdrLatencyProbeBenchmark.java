@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Measures the cost of recording a latency in the {@link HdrLatencyProbe}, uncontended and with all timestep threads
+ * recording into the same probe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HdrLatencyProbeBenchmark {
+
+    private final HdrLatencyProbe probe = new HdrLatencyProbe("benchmark", true);
+
+    @Benchmark
+    @Threads(1)
+    public void recordValue() {
+        probe.recordValue(latencyNanos());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordValue_contended_4() {
+        probe.recordValue(latencyNanos());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void recordValue_contended_max() {
+        probe.recordValue(latencyNanos());
+    }
+
+    private static long latencyNanos() {
+        // a spread between 1us and 1ms so that different buckets of the histogram are hit.
+        return ThreadLocalRandom.current().nextLong(1_000, 1_000_000);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Measures the jitter of the metronomes.
+ * <p>
+ * Every call to {@link Metronome#waitForNext()} should take exactly the interval; so the sampled time above the
+ * interval (e.g. p99 - interval) is the jitter the metronome adds to a rate limited test.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetronomeBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public long intervalMicros;
+
+    private Metronome sleepingMetronome;
+    private Metronome busySpinningMetronome;
+
+    @Setup
+    public void setup() {
+        long intervalNanos = MICROSECONDS.toNanos(intervalMicros);
+        sleepingMetronome = new SleepingMetronome(intervalNanos, false);
+        busySpinningMetronome = new BusySpinningMetronome(intervalNanos, false);
+        // the first call has a random delay
+        sleepingMetronome.waitForNext();
+        busySpinningMetronome.waitForNext();
+    }
+
+    @Benchmark
+    public long sleeping() {
+        return sleepingMetronome.waitForNext();
+    }
+
+    @Benchmark
+    public long busySpinning() {
+        return busySpinningMetronome.waitForNext();
+    }
+}
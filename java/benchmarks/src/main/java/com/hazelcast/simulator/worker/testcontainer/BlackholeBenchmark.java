@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Compares the cost of consuming the result of a timestep method with the {@link Blackhole} to the lazySet on an
+ * atomic field the {@link TimeStepLoop} used before. The results are cheap to produce, like those of a fast
+ * operation, so the difference is the overhead per iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlackholeBenchmark {
+
+    private static final int OBJECT_COUNT = 1024;
+
+    private final Blackhole blackhole = new Blackhole();
+    private final AtomicLong atomicLong = new AtomicLong();
+    private final AtomicReference<Object> atomicReference = new AtomicReference<>();
+    private final Object[] objects = new Object[OBJECT_COUNT];
+    private long counter;
+
+    public BlackholeBenchmark() {
+        for (int k = 0; k < objects.length; k++) {
+            objects[k] = new Object();
+        }
+    }
+
+    @Benchmark
+    public void lazySet_long() {
+        atomicLong.lazySet(counter++);
+    }
+
+    @Benchmark
+    public void blackhole_long() {
+        blackhole.consume(counter++);
+    }
+
+    @Benchmark
+    public void lazySet_double() {
+        atomicLong.lazySet(Double.doubleToLongBits(counter++ * 0.5));
+    }
+
+    @Benchmark
+    public void blackhole_double() {
+        blackhole.consume(counter++ * 0.5);
+    }
+
+    @Benchmark
+    public void lazySet_object() {
+        atomicReference.lazySet(objects[(int) (counter++ & (OBJECT_COUNT - 1))]);
+    }
+
+    @Benchmark
+    public void blackhole_object() {
+        blackhole.consume(objects[(int) (counter++ & (OBJECT_COUNT - 1))]);
+    }
+}
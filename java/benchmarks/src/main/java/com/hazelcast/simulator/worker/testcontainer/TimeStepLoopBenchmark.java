@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Constructor;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Measures the overhead of the generated {@link TimeStepLoop} per iteration, using a test with timestep methods that
+ * don't do anything.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeStepLoopBenchmark {
+
+    private static final int ITERATIONS = 100_000;
+
+    @Param({"true", "false"})
+    public boolean measureLatency;
+
+    @Param({"false", "true"})
+    public boolean recordResourceUsage;
+
+    @Param({"false", "true"})
+    public boolean classifyOutcomes;
+
+    @Param({"1", "3"})
+    public int timeStepMethods;
+
+    private TestContextImpl testContext;
+    private PropertyBinding binding;
+    private TimeStepModel timeStepModel;
+    private Object testInstance;
+    private OutcomeClassifier outcomeClassifier;
+    private Constructor<TimeStepLoop> constructor;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        Class testClass = timeStepMethods == 1 ? SingleMethodTest.class : MultipleMethodsTest.class;
+        TestCase testCase = new TestCase("TimeStepLoopBenchmark")
+                .setProperty("class", testClass)
+                .setProperty("measureLatency", measureLatency)
+                .setProperty("recordResourceUsage", recordResourceUsage);
+        if (classifyOutcomes) {
+            testCase.setProperty("timeoutExceptions", "java.util.concurrent.TimeoutException");
+        }
+
+        testContext = new TestContextImpl(testCase.getId(), "localhost", null);
+        binding = new PropertyBinding(testCase).setTestContext(testContext);
+        testContext.setLatencyProbeClass(binding.getProbeClass());
+        testInstance = testClass.getConstructor().newInstance();
+        binding.bind(testInstance);
+        timeStepModel = new TimeStepModel(testClass, binding);
+        outcomeClassifier = OutcomeClassifier.create(binding.errorExceptions, binding.timeoutExceptions);
+
+        Class loopClass = new TimeStepLoopCodeGenerator().compile(
+                testCase.getId(),
+                "",
+                timeStepModel,
+                EmptyMetronome.class,
+                binding.getProbeClass(),
+                0,
+                0,
+                true,
+                recordResourceUsage,
+                false,
+                classifyOutcomes);
+        constructor = loopClass.getConstructor(testClass, TimeStepModel.class, String.class);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public long timeStepLoop() throws Exception {
+        TimeStepLoop loop = constructor.newInstance(testInstance, timeStepModel, "");
+        loop.testContext = testContext;
+        loop.metronome = EmptyMetronome.INSTANCE;
+        loop.maxIterations = ITERATIONS;
+        loop.outcomeClassifier = outcomeClassifier;
+        loop.bind(binding);
+        loop.run();
+        return loop.iteration();
+    }
+
+    public static class SingleMethodTest {
+
+        @TimeStep
+        public void method() {
+        }
+    }
+
+    public static class MultipleMethodsTest {
+
+        @TimeStep(prob = 0.5)
+        public void method0() {
+        }
+
+        @TimeStep(prob = 0.3)
+        public void method1() {
+        }
+
+        @TimeStep(prob = -1)
+        public void method2() {
+        }
+    }
+}
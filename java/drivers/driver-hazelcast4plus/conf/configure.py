@@ -55,13 +55,51 @@ def _configure_client_hazelcast_xml(nodes, args: DriverConfigureArgs):
 
     members_config = ""
     member_port = args.test.get('member_port', '5701')
-    for host in nodes:
-        members_config = f"{members_config}<address>{host['private_ip']}:{member_port}</address>"
+    if args.test.get('network_proxy', False):
+        # the clients connect to the shaping proxies of their agent, which forward to the members
+        proxy_port = int(args.test.get('network_proxy_port', 7701))
+        routes = []
+        for i, host in enumerate(nodes):
+            members_config = f"{members_config}<address>127.0.0.1:{proxy_port + i}</address>"
+            routes.append(f"{proxy_port + i}={host['private_ip']}:{member_port}")
+        args.coordinator_params['PROXY_ROUTES'] = ",".join(routes)
+        args.coordinator_params['PROXY_SHAPING'] = args.test.get('network_shaping', 'none')
+        # a smart client connects to the addresses the members advertise and would bypass the proxies
+        config = config.replace("</cluster-members>", "</cluster-members><smart-routing>false</smart-routing>")
+    else:
+        for host in nodes:
+            members_config = f"{members_config}<address>{host['private_ip']}:{member_port}</address>"
 
     config = config.replace("<!--MEMBERS-->", members_config)
+
+    # the near cache of a client can't be changed once the client is running, so it is added to the config up front
+    near_caches = args.test.get('client_near_cache')
+    if near_caches is not None:
+        config = config.replace("</hazelcast-client>", _client_near_cache_config(near_caches) + "</hazelcast-client>")
+
     args.coordinator_params['file:client-hazelcast.xml'] = config
 
 
+def _client_near_cache_config(near_caches):
+    if isinstance(near_caches, dict):
+        near_caches = [near_caches]
+
+    config = ""
+    for near_cache in near_caches:
+        name = near_cache.get('name', 'default')
+        in_memory_format = near_cache.get('in_memory_format', 'OBJECT')
+        invalidate_on_change = str(near_cache.get('invalidate_on_change', True)).lower()
+        max_size = near_cache.get('max_size', 10000)
+        eviction_policy = near_cache.get('eviction_policy', 'LRU')
+        config += (f"<near-cache name=\"{name}\">"
+                   f"<in-memory-format>{in_memory_format}</in-memory-format>"
+                   f"<invalidate-on-change>{invalidate_on_change}</invalidate-on-change>"
+                   f"<eviction size=\"{max_size}\" max-size-policy=\"ENTRY_COUNT\" "
+                   f"eviction-policy=\"{eviction_policy}\"/>"
+                   "</near-cache>")
+    return config
+
+
 def _configure_log4j_xml(args: DriverConfigureArgs):
     driver = args.driver
     log4j_xml = read_file(find_driver_config_file(driver, "log4j.xml"))
@@ -45,6 +45,7 @@ public class Hazelcast4PlusDriver extends Driver<HazelcastInstance> {
     private static final int PARTITION_WARMUP_SLEEP_INTERVAL_MILLIS = 500;
     private static final Logger LOGGER = LogManager.getLogger(Hazelcast4PlusDriver.class);
     private HazelcastInstance hazelcastInstance;
+    private MemberMetricsSampler memberMetricsSampler;
 
     @Override
     public HazelcastInstance getDriverInstance() {
@@ -104,10 +105,31 @@ public class Hazelcast4PlusDriver extends Driver<HazelcastInstance> {
         LOGGER.info(format("%s HazelcastInstance started", workerType));
         warmupPartitions(hazelcastInstance);
         LOGGER.info("Warmed up partitions");
+
+        if (!"javaclient".equals(workerType)) {
+            startMemberMetricsSampler();
+        }
+    }
+
+    private void startMemberMetricsSampler() {
+        String metrics = get("member_metrics", MemberMetricsSampler.DEFAULT_METRICS);
+        int intervalSeconds = Integer.parseInt(get("performance_monitor_interval_seconds", "0"));
+        if ("none".equals(metrics) || intervalSeconds < 1) {
+            LOGGER.info("Member metrics sampler disabled");
+            return;
+        }
+
+        memberMetricsSampler = new MemberMetricsSampler(
+                hazelcastInstance, metrics, intervalSeconds, new File(getUserDir(), "member-metrics.csv"));
+        memberMetricsSampler.start();
     }
 
     @Override
     public void close() throws IOException {
+        if (memberMetricsSampler != null) {
+            memberMetricsSampler.shutdown();
+        }
+
         LOGGER.info("Stopping HazelcastInstance...");
 
         if (hazelcastInstance != null) {
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.hazelcast4plus;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.metrics.MetricDescriptor;
+import com.hazelcast.internal.metrics.MetricsRegistry;
+import com.hazelcast.internal.metrics.collectors.MetricsCollector;
+import com.hazelcast.simulator.tests.helpers.HazelcastTestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.hazelcast.simulator.utils.CommonUtils.joinThread;
+import static com.hazelcast.simulator.utils.FileUtils.appendText;
+import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Samples the metrics registry of a member at the interval of the performance monitor and writes them to a csv file.
+ * <p>
+ * The samples are taken at multiples of the interval since the epoch, so a row lines up with the rows the workers write
+ * to their operations logs once the report has rounded the epochs to whole seconds. This makes it possible to put a
+ * latency spike of the clients next to what the members were doing at that moment.
+ * <p>
+ * A metric is named 'prefix.metric', e.g. 'operation.queueSize'; the values of the metrics with the same name, e.g. of
+ * every partition thread, are summed. A metric with the '-delta' suffix is a counter of which the increase during
+ * the interval is written.
+ */
+public class MemberMetricsSampler extends Thread {
+
+    /**
+     * The metrics that are sampled when the 'member_metrics' property isn't set.
+     */
+    public static final String DEFAULT_METRICS = "operation.queueSize,"
+            + "operation.priorityQueueSize,"
+            + "operation.genericQueueSize,"
+            + "operation.responseQueueSize,"
+            + "operation.runningPartitionCount,"
+            + "operation.invocations.pending,"
+            + "operation.completedCount-delta,"
+            + "operation.retryCount-delta,"
+            + "operation.invocations.normalTimeouts-delta,"
+            + "event.eventQueueSize,"
+            + "partitions.migrationQueueSize,"
+            + "partitions.totalCompletedMigrations-delta,"
+            + "gc.minorCount-delta,"
+            + "gc.minorTime-delta,"
+            + "gc.majorCount-delta,"
+            + "gc.majorTime-delta,"
+            + "memory.usedHeap";
+
+    static final String DELTA_SUFFIX = "-delta";
+
+    private static final Logger LOGGER = LogManager.getLogger(MemberMetricsSampler.class);
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final MetricsRegistry metricsRegistry;
+    private final File file;
+    private final long intervalMillis;
+    private final List<String> columns = new ArrayList<>();
+    private final Map<String, Double> previousCounters = new HashMap<>();
+    private final DecimalFormat format = new DecimalFormat("#.###", new DecimalFormatSymbols(Locale.ENGLISH));
+    private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+    private final StringBuilder sb = new StringBuilder();
+    private volatile boolean stopped;
+    private boolean missingMetricsLogged;
+
+    /**
+     * Creates a MemberMetricsSampler.
+     *
+     * @param hz              the member to sample.
+     * @param metrics         the comma separated names of the metrics to sample.
+     * @param intervalSeconds the interval between the samples in seconds.
+     * @param file            the csv file to write the samples to.
+     */
+    public MemberMetricsSampler(HazelcastInstance hz, String metrics, int intervalSeconds, File file) {
+        super("MemberMetricsSampler");
+        setDaemon(true);
+        if (intervalSeconds < 1) {
+            throw new IllegalArgumentException("intervalSeconds can't be smaller than 1, but was " + intervalSeconds);
+        }
+        this.metricsRegistry = checkNotNull(HazelcastTestUtils.getNode(hz), "hz isn't a member").getNodeEngine()
+                .getMetricsRegistry();
+        this.file = checkNotNull(file, "file can't be null");
+        this.intervalMillis = SECONDS.toMillis(intervalSeconds);
+        for (String metric : metrics.split(",")) {
+            metric = metric.trim();
+            if (!metric.isEmpty()) {
+                columns.add(metric);
+            }
+        }
+    }
+
+    /**
+     * Stops the sampling and waits for the sampler to complete.
+     */
+    public void shutdown() {
+        stopped = true;
+        interrupt();
+        joinThread(this, SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+    }
+
+    @Override
+    public void run() {
+        LOGGER.info("Sampling member metrics " + columns + " every " + intervalMillis + " ms to " + file.getAbsolutePath());
+        appendText("epoch,timestamp," + String.join(",", columns) + '\n', file);
+
+        long sampleMillis = nextSampleMillis(currentTimeMillis());
+        while (!stopped) {
+            try {
+                Thread.sleep(Math.max(0, sampleMillis - currentTimeMillis()));
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            try {
+                write(sampleMillis, collect());
+            } catch (Exception e) {
+                LOGGER.warn("Failed to sample the member metrics", e);
+            }
+
+            long nowMillis = currentTimeMillis();
+            sampleMillis += intervalMillis;
+            if (sampleMillis <= nowMillis) {
+                // sampling took longer than an interval; skip the missed samples instead of catching up
+                sampleMillis = nextSampleMillis(nowMillis);
+            }
+        }
+    }
+
+    private long nextSampleMillis(long nowMillis) {
+        return (nowMillis / intervalMillis + 1) * intervalMillis;
+    }
+
+    Map<String, Double> collect() {
+        Map<String, Double> values = new HashMap<>();
+        for (String column : columns) {
+            values.put(metricName(column), null);
+        }
+
+        metricsRegistry.collect(new MetricsCollector() {
+            @Override
+            public void collectLong(MetricDescriptor descriptor, long value) {
+                collectDouble(descriptor, value);
+            }
+
+            @Override
+            public void collectDouble(MetricDescriptor descriptor, double value) {
+                String name = descriptor.prefix() == null
+                        ? descriptor.metric()
+                        : descriptor.prefix() + '.' + descriptor.metric();
+                if (values.containsKey(name)) {
+                    Double sum = values.get(name);
+                    values.put(name, sum == null ? value : sum + value);
+                }
+            }
+
+            @Override
+            public void collectException(MetricDescriptor descriptor, Exception e) {
+            }
+
+            @Override
+            public void collectNoValue(MetricDescriptor descriptor) {
+            }
+        });
+        return values;
+    }
+
+    private void write(long sampleMillis, Map<String, Double> values) {
+        sb.setLength(0);
+        // ms are expressed in epoch time after the decimal point, like the operations log
+        sb.append(format.format(sampleMillis * 1d / SECONDS.toMillis(1)));
+        sb.append(',').append(simpleDateFormat.format(new Date(sampleMillis)));
+
+        List<String> missing = new ArrayList<>();
+        for (String column : columns) {
+            sb.append(',');
+            Double value = values.get(metricName(column));
+            if (value == null) {
+                missing.add(column);
+                continue;
+            }
+
+            if (column.endsWith(DELTA_SUFFIX)) {
+                Double previous = previousCounters.put(column, value);
+                if (previous != null) {
+                    sb.append(format.format(value - previous));
+                }
+            } else {
+                sb.append(format.format(value));
+            }
+        }
+        sb.append('\n');
+        appendText(sb.toString(), file);
+
+        if (!missing.isEmpty() && !missingMetricsLogged) {
+            missingMetricsLogged = true;
+            LOGGER.warn("Member metrics " + missing + " don't exist; they are written as empty values");
+        }
+    }
+
+    private static String metricName(String column) {
+        return column.endsWith(DELTA_SUFFIX) ? column.substring(0, column.length() - DELTA_SUFFIX.length()) : column;
+    }
+}
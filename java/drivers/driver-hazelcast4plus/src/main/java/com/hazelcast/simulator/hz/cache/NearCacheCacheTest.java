@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.hz.cache;
+
+import com.hazelcast.cache.ICache;
+import com.hazelcast.simulator.hz.HazelcastTest;
+import com.hazelcast.simulator.test.BaseThreadState;
+import com.hazelcast.simulator.test.annotations.Prepare;
+import com.hazelcast.simulator.test.annotations.Setup;
+import com.hazelcast.simulator.test.annotations.Teardown;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.tests.helpers.NearCacheUtils.InvalidationLag;
+import com.hazelcast.simulator.tests.map.helpers.ScrambledZipfianGenerator;
+import com.hazelcast.simulator.worker.loadsupport.Streamer;
+import com.hazelcast.simulator.worker.loadsupport.StreamerFactory;
+
+import java.util.Random;
+
+import static com.hazelcast.simulator.tests.helpers.HazelcastTestUtils.isClient;
+import static com.hazelcast.simulator.tests.helpers.NearCacheUtils.hasClientNearCache;
+import static com.hazelcast.simulator.tests.helpers.NearCacheUtils.registerNearCacheGauges;
+import static com.hazelcast.simulator.tests.icache.helpers.CacheUtils.getCache;
+import static com.hazelcast.simulator.utils.GeneratorUtils.generateAsciiStrings;
+
+/**
+ * Measures the effectiveness of the ICache near cache; the cache counterpart of the
+ * {@link com.hazelcast.simulator.hz.map.NearCacheMapTest}.
+ * <p>
+ * An ICache near cache is only available on clients. The near cache of a client can't be changed once the client is
+ * running, so it is configured in the client config, e.g. using 'client_near_cache' in the test yaml. With nearCache
+ * enabled, a warning is logged if the client config has no near cache for the cache.
+ */
+public class NearCacheCacheTest extends HazelcastTest {
+
+    // properties
+    public int keyDomain = 100_000;
+    public int valueCount = 1000;
+    public int minValueLength = 10;
+    public int maxValueLength = 10;
+    public boolean nearCache = true;
+    public int stampKeyCount = 10;
+    public boolean fillOnPrepare = true;
+
+    private ICache<Long, String> cache;
+    private ICache<Integer, Long> stampCache;
+    private String[] values;
+    private InvalidationLag invalidationLag;
+
+    @Setup
+    public void setUp() {
+        if (nearCache) {
+            if (!isClient(targetInstance)) {
+                logger.info(name + ": near cache is ignored on a member");
+            } else if (!hasClientNearCache(targetInstance, name)) {
+                logger.warn(name + ": no near cache found in the client config, see 'client_near_cache'");
+            }
+        }
+
+        cache = getCache(targetInstance, name);
+        stampCache = getCache(targetInstance, name + "-stamps");
+        values = generateAsciiStrings(valueCount, minValueLength, maxValueLength);
+        invalidationLag = new InvalidationLag(testContext);
+        registerNearCacheGauges(testContext, () -> cache.getLocalCacheStatistics().getNearCacheStatistics());
+    }
+
+    @Prepare(global = true)
+    public void prepare() {
+        if (!fillOnPrepare) {
+            return;
+        }
+
+        Random random = new Random();
+        Streamer<Long, String> streamer = StreamerFactory.getInstance(cache);
+        for (long key = 0; key < keyDomain; key++) {
+            String value = values[random.nextInt(valueCount)];
+            streamer.pushEntry(key, value);
+        }
+        streamer.await();
+    }
+
+    @TimeStep(prob = -1)
+    public String get(ThreadState state) {
+        return cache.get(state.randomKey());
+    }
+
+    @TimeStep(prob = 0.1)
+    public void put(ThreadState state) {
+        cache.put(state.randomKey(), state.randomValue());
+    }
+
+    @TimeStep(prob = 0)
+    public void writeStamp(ThreadState state) {
+        stampCache.put(state.randomStampKey(), invalidationLag.newStamp());
+    }
+
+    @TimeStep(prob = 0)
+    public void readStamp(ThreadState state) {
+        int key = state.randomStampKey();
+        invalidationLag.recordRead(state.lastStamps, key, stampCache.get(key));
+    }
+
+    public class ThreadState extends BaseThreadState {
+
+        private final ScrambledZipfianGenerator keyGenerator = new ScrambledZipfianGenerator(keyDomain);
+        private final long[] lastStamps = new long[stampKeyCount];
+
+        private long randomKey() {
+            return keyGenerator.nextLong();
+        }
+
+        private String randomValue() {
+            return values[randomInt(values.length)];
+        }
+
+        private int randomStampKey() {
+            return randomInt(stampKeyCount);
+        }
+    }
+
+    @Teardown
+    public void tearDown() {
+        cache.close();
+        stampCache.close();
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.hz.map;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.map.IMap;
+import com.hazelcast.partition.PartitionService;
+import com.hazelcast.simulator.hz.HazelcastTest;
+import com.hazelcast.simulator.probes.LatencyProbe;
+import com.hazelcast.simulator.test.BaseThreadState;
+import com.hazelcast.simulator.test.annotations.Prepare;
+import com.hazelcast.simulator.test.annotations.Setup;
+import com.hazelcast.simulator.test.annotations.StartNanos;
+import com.hazelcast.simulator.test.annotations.Teardown;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.tests.helpers.KeyLocality;
+import com.hazelcast.simulator.worker.loadsupport.Streamer;
+import com.hazelcast.simulator.worker.loadsupport.StreamerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static com.hazelcast.simulator.tests.helpers.KeyUtils.generateIntegerKeys;
+import static com.hazelcast.simulator.utils.GeneratorUtils.generateAsciiStrings;
+
+/**
+ * Measures the multi-key IMap operations getAll, putAll, setAll and executeOnKeys as a function of the batch size
+ * and the number of partitions a batch is spread over.
+ * <p>
+ * The batches are created in the setup, so the timed part only contains the IMap call. Every batch operation records
+ * its latency in the regular probe of the timestep method and the latency divided by the batch size in a
+ * '[method]PerEntry' probe; comparing the per entry latency of runs with different batch sizes shows where batching
+ * stops paying off.
+ */
+public class BatchMapTest extends HazelcastTest {
+
+    // properties
+    public int keyCount = 100_000;
+    public KeyLocality keyLocality = KeyLocality.SHARED;
+    // the number of keys in a batch
+    public int batchSize = 10;
+    // the number of different partitions the keys of a batch are taken from; 0 means the keys are taken from all partitions
+    public int partitionSpread = 0;
+    // the number of preallocated batches the timestep methods pick from
+    public int batchCount = 1000;
+    public int valueCount = 1000;
+    public int minValueLength = 10;
+    public int maxValueLength = 10;
+    public boolean fillOnPrepare = true;
+    public boolean destroyOnExit = true;
+
+    private IMap<Integer, String> map;
+    private Integer[] keys;
+    private String[] values;
+    private Set<Integer>[] keySets;
+    private Map<Integer, String>[] entryMaps;
+    private LatencyProbe getAllPerEntryProbe;
+    private LatencyProbe putAllPerEntryProbe;
+    private LatencyProbe setAllPerEntryProbe;
+    private LatencyProbe executeOnKeysPerEntryProbe;
+
+    @Setup
+    public void setUp() {
+        if (batchSize < 1 || batchSize > keyCount) {
+            throw new IllegalArgumentException("batchSize has to be between 1 and keyCount (" + keyCount + "), but was "
+                    + batchSize);
+        }
+        if (partitionSpread > batchSize) {
+            throw new IllegalArgumentException("partitionSpread can't be larger than batchSize (" + batchSize
+                    + ") since every partition gets at least one key, but was " + partitionSpread);
+        }
+
+        map = targetInstance.getMap(name);
+        keys = generateIntegerKeys(keyCount, keyLocality, targetInstance);
+        values = generateAsciiStrings(valueCount, minValueLength, maxValueLength);
+        createBatches();
+
+        getAllPerEntryProbe = testContext.getLatencyProbe("getAllPerEntry", false);
+        putAllPerEntryProbe = testContext.getLatencyProbe("putAllPerEntry", false);
+        setAllPerEntryProbe = testContext.getLatencyProbe("setAllPerEntry", false);
+        executeOnKeysPerEntryProbe = testContext.getLatencyProbe("executeOnKeysPerEntry", false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void createBatches() {
+        List<Integer>[] keysPerPartition = groupKeysByPartition();
+        Random random = new Random();
+
+        keySets = new Set[batchCount];
+        entryMaps = new Map[batchCount];
+        for (int i = 0; i < batchCount; i++) {
+            Set<Integer> keySet = new HashSet<>();
+            if (keysPerPartition == null) {
+                while (keySet.size() < batchSize) {
+                    keySet.add(keys[random.nextInt(keys.length)]);
+                }
+            } else {
+                fillFromPartitions(keySet, keysPerPartition, random);
+            }
+
+            Map<Integer, String> entryMap = new HashMap<>();
+            for (Integer key : keySet) {
+                entryMap.put(key, values[random.nextInt(values.length)]);
+            }
+            keySets[i] = keySet;
+            entryMaps[i] = entryMap;
+        }
+    }
+
+    /**
+     * Fills a batch with keys of partitionSpread distinct partitions. Every partition gets at least one key; the rest
+     * of the batch is filled round-robin over the partitions, skipping the partitions that ran out of keys.
+     */
+    private void fillFromPartitions(Set<Integer> keySet, List<Integer>[] keysPerPartition, Random random) {
+        // a partial shuffle of the partition indices picks partitionSpread distinct partitions
+        int[] partitions = new int[keysPerPartition.length];
+        for (int k = 0; k < partitions.length; k++) {
+            partitions[k] = k;
+        }
+        for (int k = 0; k < partitionSpread; k++) {
+            int swap = k + random.nextInt(partitions.length - k);
+            int tmp = partitions[k];
+            partitions[k] = partitions[swap];
+            partitions[swap] = tmp;
+        }
+
+        int[] taken = new int[partitionSpread];
+        int available = 0;
+        for (int k = 0; k < partitionSpread; k++) {
+            available += keysPerPartition[partitions[k]].size();
+        }
+        if (available < batchSize) {
+            throw new IllegalArgumentException("Not enough keys in " + partitionSpread + " partitions to fill a "
+                    + "batch of " + batchSize + " keys, increase keyCount or partitionSpread");
+        }
+
+        for (int k = 0; keySet.size() < batchSize; k = (k + 1) % partitionSpread) {
+            List<Integer> partitionKeys = keysPerPartition[partitions[k]];
+            if (taken[k] == partitionKeys.size()) {
+                continue;
+            }
+            // a key that was already taken is drawn again
+            Integer key;
+            do {
+                key = partitionKeys.get(random.nextInt(partitionKeys.size()));
+            } while (!keySet.add(key));
+            taken[k]++;
+        }
+    }
+
+    /**
+     * Groups the keys by partition id. Partitions without keys are left out, so a batch always gets keys from
+     * exactly the configured number of partitions.
+     *
+     * @return the keys per partition, or null if the keys should not be grouped.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Integer>[] groupKeysByPartition() {
+        if (partitionSpread <= 0) {
+            return null;
+        }
+
+        PartitionService partitionService = targetInstance.getPartitionService();
+        Map<Integer, List<Integer>> keysPerPartition = new HashMap<>();
+        for (Integer key : keys) {
+            int partitionId = partitionService.getPartition(key).getPartitionId();
+            keysPerPartition.computeIfAbsent(partitionId, id -> new ArrayList<>()).add(key);
+        }
+        logger.info(name + ": " + keys.length + " keys spread over " + keysPerPartition.size() + " partitions");
+        if (partitionSpread > keysPerPartition.size()) {
+            throw new IllegalArgumentException("partitionSpread can't be larger than the number of partitions with keys ("
+                    + keysPerPartition.size() + "), but was " + partitionSpread);
+        }
+        return keysPerPartition.values().toArray(new List[0]);
+    }
+
+    @Prepare(global = true)
+    public void prepare() {
+        if (!fillOnPrepare) {
+            return;
+        }
+
+        Random random = new Random();
+        Streamer<Integer, String> streamer = StreamerFactory.getInstance(map);
+        for (Integer key : keys) {
+            streamer.pushEntry(key, values[random.nextInt(values.length)]);
+        }
+        streamer.await();
+    }
+
+    @TimeStep(prob = -1)
+    public Map<Integer, String> getAll(ThreadState state, @StartNanos long startNanos) {
+        Map<Integer, String> result = map.getAll(state.randomKeySet());
+        state.recordPerEntry(getAllPerEntryProbe, startNanos);
+        return result;
+    }
+
+    @TimeStep(prob = 0)
+    public void putAll(ThreadState state, @StartNanos long startNanos) {
+        map.putAll(state.randomEntryMap());
+        state.recordPerEntry(putAllPerEntryProbe, startNanos);
+    }
+
+    @TimeStep(prob = 0)
+    public void setAll(ThreadState state, @StartNanos long startNanos) {
+        map.setAll(state.randomEntryMap());
+        state.recordPerEntry(setAllPerEntryProbe, startNanos);
+    }
+
+    @TimeStep(prob = 0)
+    public Map<Integer, Integer> executeOnKeys(ThreadState state, @StartNanos long startNanos) {
+        Map<Integer, Integer> result = map.executeOnKeys(state.randomKeySet(), ValueLengthEntryProcessor.INSTANCE);
+        state.recordPerEntry(executeOnKeysPerEntryProbe, startNanos);
+        return result;
+    }
+
+    public class ThreadState extends BaseThreadState {
+
+        private Set<Integer> randomKeySet() {
+            return keySets[randomInt(keySets.length)];
+        }
+
+        private Map<Integer, String> randomEntryMap() {
+            return entryMaps[randomInt(entryMaps.length)];
+        }
+
+        private void recordPerEntry(LatencyProbe probe, long startNanos) {
+            probe.recordValue((System.nanoTime() - startNanos) / batchSize);
+        }
+    }
+
+    private static final class ValueLengthEntryProcessor implements EntryProcessor<Integer, String, Integer> {
+
+        private static final ValueLengthEntryProcessor INSTANCE = new ValueLengthEntryProcessor();
+
+        @Override
+        public Integer process(Map.Entry<Integer, String> entry) {
+            String value = entry.getValue();
+            return value == null ? 0 : value.length();
+        }
+    }
+
+    @Teardown
+    public void tearDown() {
+        if (destroyOnExit) {
+            map.destroy();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.hz.map;
+
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.map.IMap;
+import com.hazelcast.simulator.hz.HazelcastTest;
+import com.hazelcast.simulator.test.BaseThreadState;
+import com.hazelcast.simulator.test.annotations.Prepare;
+import com.hazelcast.simulator.test.annotations.Setup;
+import com.hazelcast.simulator.test.annotations.Teardown;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.tests.helpers.NearCacheUtils.InvalidationLag;
+import com.hazelcast.simulator.tests.helpers.PartitionHeatmap;
+import com.hazelcast.simulator.tests.map.helpers.ScrambledZipfianGenerator;
+import com.hazelcast.simulator.worker.loadsupport.Streamer;
+import com.hazelcast.simulator.worker.loadsupport.StreamerFactory;
+
+import java.util.Random;
+
+import static com.hazelcast.simulator.tests.helpers.HazelcastTestUtils.isClient;
+import static com.hazelcast.simulator.tests.helpers.NearCacheUtils.addMapNearCacheConfig;
+import static com.hazelcast.simulator.tests.helpers.NearCacheUtils.hasClientNearCache;
+import static com.hazelcast.simulator.tests.helpers.NearCacheUtils.newNearCacheConfig;
+import static com.hazelcast.simulator.tests.helpers.NearCacheUtils.registerNearCacheGauges;
+import static com.hazelcast.simulator.utils.GeneratorUtils.generateAsciiStrings;
+
+/**
+ * Measures the effectiveness of the IMap near cache.
+ * <p>
+ * The keys are read with a zipfian distribution, so there is a set of hot keys that benefit from the near cache. The
+ * near cache statistics are written to the operations log of the test every interval, see
+ * {@link com.hazelcast.simulator.tests.helpers.NearCacheUtils#registerNearCacheGauges}. By running the test with
+ * different near cache sizes and eviction policies, the hit ratio can be compared with the get latency.
+ * <p>
+ * On a member the near cache is configured using the near cache properties. The near cache of a client can't be
+ * changed once the client is running, so on a client it is configured in the client config, e.g. using
+ * 'client_near_cache' in the test yaml, and the near cache properties are ignored.
+ * <p>
+ * The writeStamp and readStamp timestep methods measure how long it takes before a write is visible on a reader, see
+ * {@link InvalidationLag}. The measured lag includes the time between two reads of the same stamp entry and the error
+ * of the global clock, so the readStamp method should get a much higher probability than the writeStamp method.
+ * <p>
+ * With a heatmapSampleRate larger than 0, the keys of the get and set methods are sampled into a
+ * {@link PartitionHeatmap}, to see which partitions and members take the heat of the hot keys. A near cache hit doesn't
+ * go to the member that owns the key, so with a near cache only the latency of the set method is recorded per member.
+ */
+public class NearCacheMapTest extends HazelcastTest {
+
+    // properties
+    public int keyDomain = 100_000;
+    public int valueCount = 1000;
+    public int minValueLength = 10;
+    public int maxValueLength = 10;
+    public boolean nearCache = true;
+    public int nearCacheMaxSize = 10_000;
+    public EvictionPolicy nearCacheEvictionPolicy = EvictionPolicy.LRU;
+    public InMemoryFormat nearCacheInMemoryFormat = InMemoryFormat.OBJECT;
+    public boolean nearCacheInvalidateOnChange = true;
+    public int stampKeyCount = 10;
+    public boolean fillOnPrepare = true;
+    public double heatmapSampleRate = 0;
+    public boolean destroyOnExit = true;
+
+    private IMap<Long, String> map;
+    private IMap<Integer, Long> stampMap;
+    private String[] values;
+    private InvalidationLag invalidationLag;
+    private PartitionHeatmap heatmap;
+    private String getMemberProbeName;
+
+    @Setup
+    public void setUp() {
+        boolean nearCacheUsed;
+        if (!isClient(targetInstance)) {
+            nearCacheUsed = nearCache;
+            if (nearCache) {
+                // the wildcard makes sure the stamp map gets the same near cache
+                addMapNearCacheConfig(targetInstance, newNearCacheConfig(name + "*", nearCacheMaxSize,
+                        nearCacheEvictionPolicy, nearCacheInMemoryFormat, nearCacheInvalidateOnChange));
+            }
+        } else {
+            nearCacheUsed = hasClientNearCache(targetInstance, name);
+            if (nearCache && !nearCacheUsed) {
+                logger.warn(name + ": no near cache found in the client config, see 'client_near_cache'");
+            }
+        }
+        // the near cache hits would make the owners of the hot keys look faster than they are
+        getMemberProbeName = nearCacheUsed ? null : "get";
+
+        map = targetInstance.getMap(name);
+        stampMap = targetInstance.getMap(name + "-stamps");
+        values = generateAsciiStrings(valueCount, minValueLength, maxValueLength);
+        invalidationLag = new InvalidationLag(testContext);
+        registerNearCacheGauges(testContext, () -> map.getLocalMapStats().getNearCacheStats());
+        heatmap = PartitionHeatmap.register(targetInstance, testContext, heatmapSampleRate);
+    }
+
+    @Prepare(global = true)
+    public void prepare() {
+        if (!fillOnPrepare) {
+            return;
+        }
+
+        Random random = new Random();
+        Streamer<Long, String> streamer = StreamerFactory.getInstance(map);
+        for (long key = 0; key < keyDomain; key++) {
+            String value = values[random.nextInt(valueCount)];
+            streamer.pushEntry(key, value);
+        }
+        streamer.await();
+    }
+
+    @TimeStep(prob = -1)
+    public String get(ThreadState state) {
+        long key = state.randomKey();
+        long start = state.sampler.start();
+        String value = map.get(key);
+        state.sampler.end(getMemberProbeName, key, start);
+        return value;
+    }
+
+    @TimeStep(prob = 0.1)
+    public void set(ThreadState state) {
+        long key = state.randomKey();
+        long start = state.sampler.start();
+        map.set(key, state.randomValue());
+        state.sampler.end("set", key, start);
+    }
+
+    @TimeStep(prob = 0)
+    public void writeStamp(ThreadState state) {
+        stampMap.set(state.randomStampKey(), invalidationLag.newStamp());
+    }
+
+    @TimeStep(prob = 0)
+    public void readStamp(ThreadState state) {
+        int key = state.randomStampKey();
+        invalidationLag.recordRead(state.lastStamps, key, stampMap.get(key));
+    }
+
+    public class ThreadState extends BaseThreadState {
+
+        private final ScrambledZipfianGenerator keyGenerator = new ScrambledZipfianGenerator(keyDomain);
+        private final long[] lastStamps = new long[stampKeyCount];
+        private final PartitionHeatmap.Sampler sampler = heatmap.newSampler();
+
+        private long randomKey() {
+            return keyGenerator.nextLong();
+        }
+
+        private String randomValue() {
+            return values[randomInt(values.length)];
+        }
+
+        private int randomStampKey() {
+            return randomInt(stampKeyCount);
+        }
+    }
+
+    @Teardown
+    public void tearDown() {
+        if (destroyOnExit) {
+            map.destroy();
+            stampMap.destroy();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.tests.helpers;
+
+import com.hazelcast.client.impl.clientside.HazelcastClientProxy;
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.nearcache.NearCacheStats;
+import com.hazelcast.simulator.probes.LatencyProbe;
+import com.hazelcast.simulator.test.TestContext;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import static com.hazelcast.simulator.tests.helpers.HazelcastTestUtils.isClient;
+
+public final class NearCacheUtils {
+
+    private NearCacheUtils() {
+    }
+
+    /**
+     * Creates a {@link NearCacheConfig} with an entry count based eviction.
+     *
+     * @param name               the name of the near cache; may contain a wildcard
+     * @param maxSize            the maximum number of entries in the near cache
+     * @param evictionPolicy     the eviction policy
+     * @param inMemoryFormat     the in memory format of the near cache
+     * @param invalidateOnChange if the near cache should be invalidated when an entry changes
+     * @return the created NearCacheConfig
+     */
+    public static NearCacheConfig newNearCacheConfig(String name, int maxSize, EvictionPolicy evictionPolicy,
+                                                     InMemoryFormat inMemoryFormat, boolean invalidateOnChange) {
+        EvictionConfig evictionConfig = new EvictionConfig()
+                .setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+                .setSize(maxSize)
+                .setEvictionPolicy(evictionPolicy);
+        return new NearCacheConfig(name)
+                .setInMemoryFormat(inMemoryFormat)
+                .setInvalidateOnChange(invalidateOnChange)
+                .setEvictionConfig(evictionConfig);
+    }
+
+    /**
+     * Adds a near cache for an IMap to a member as dynamic map config. The near cache is only used by maps that are
+     * created afterwards.
+     *
+     * The near cache of a client can't be changed once the client is running; it is configured in the client config,
+     * e.g. using 'client_near_cache' in the test yaml. See {@link #hasClientNearCache(HazelcastInstance, String)}.
+     *
+     * @param hz     the HazelcastInstance, needs to be a member
+     * @param config the near cache config, the name is used as map name
+     * @throws IllegalArgumentException if the HazelcastInstance is a client
+     */
+    public static void addMapNearCacheConfig(HazelcastInstance hz, NearCacheConfig config) {
+        if (isClient(hz)) {
+            throw new IllegalArgumentException("The near cache of a client should be configured in the client config");
+        }
+        hz.getConfig().addMapConfig(new MapConfig(config.getName()).setNearCacheConfig(config));
+    }
+
+    /**
+     * Checks if the config of a client has a near cache for a data structure.
+     *
+     * @param hz   the HazelcastInstance, needs to be a client
+     * @param name the name of the data structure
+     * @return true if a near cache is configured, false otherwise
+     * @throws IllegalArgumentException if the HazelcastInstance isn't a client
+     */
+    public static boolean hasClientNearCache(HazelcastInstance hz, String name) {
+        if (!(hz instanceof HazelcastClientProxy)) {
+            throw new IllegalArgumentException("Expected a client, but found " + hz);
+        }
+        return ((HazelcastClientProxy) hz).getClientConfig().getNearCacheConfig(name) != null;
+    }
+
+    /**
+     * Registers gauges for the near cache statistics, so they are written to the operations log of the test every
+     * interval.
+     *
+     * The hit ratio is calculated over the interval; the hits and misses are totals.
+     *
+     * @param testContext the TestContext to register the gauges with
+     * @param stats       supplies the current near cache statistics; may return null if there is no near cache
+     */
+    public static void registerNearCacheGauges(TestContext testContext, Supplier<NearCacheStats> stats) {
+        IntervalHitRatio intervalHitRatio = new IntervalHitRatio(stats);
+        testContext.registerGauge("nearcache-hits", () -> value(stats.get(), NearCacheStats::getHits));
+        testContext.registerGauge("nearcache-misses", () -> value(stats.get(), NearCacheStats::getMisses));
+        testContext.registerGauge("nearcache-hit-ratio", intervalHitRatio::get);
+        testContext.registerGauge("nearcache-entries", () -> value(stats.get(), NearCacheStats::getOwnedEntryCount));
+        testContext.registerGauge("nearcache-memory-cost",
+                () -> value(stats.get(), NearCacheStats::getOwnedEntryMemoryCost));
+        testContext.registerGauge("nearcache-evictions", () -> value(stats.get(), NearCacheStats::getEvictions));
+        testContext.registerGauge("nearcache-invalidations", () -> value(stats.get(), NearCacheStats::getInvalidations));
+    }
+
+    private static double value(NearCacheStats stats, ToLongFunction<NearCacheStats> stat) {
+        return stats == null ? Double.NaN : stat.applyAsLong(stats);
+    }
+
+    /**
+     * Measures how long it takes before a write is visible on a reader, e.g. because the near cache of the reader
+     * needs to be invalidated.
+     *
+     * The writer stores a stamp with the global time of the worker and the reader records in the 'invalidationLag'
+     * probe how long ago the stamp was written, when it sees a new stamp for the first time. The global clocks of the
+     * writer and the reader are only synchronized within an error bound, so the lag can be negative. A histogram can't
+     * contain a negative value, so these are counted in the 'invalidation-lag-negatives' gauge instead of being
+     * recorded as 0.
+     */
+    public static final class InvalidationLag {
+
+        private final TestContext testContext;
+        private final LatencyProbe probe;
+        private final LongAdder negativeCount = new LongAdder();
+
+        public InvalidationLag(TestContext testContext) {
+            this.testContext = testContext;
+            this.probe = testContext.getLatencyProbe("invalidationLag", false);
+            testContext.registerGauge("invalidation-lag-negatives", negativeCount::sum);
+        }
+
+        /**
+         * @return the stamp for a write.
+         */
+        public long newStamp() {
+            return testContext.globalNanoTime();
+        }
+
+        /**
+         * Records the lag of a stamp that is read, if the reader hasn't seen the stamp before.
+         *
+         * @param lastStamps the last stamp that the reading thread has seen per stamp key
+         * @param key        the stamp key
+         * @param stamp      the stamp that is read; may be null if no stamp has been written yet
+         */
+        public void recordRead(long[] lastStamps, int key, Long stamp) {
+            if (stamp == null || stamp <= lastStamps[key]) {
+                return;
+            }
+
+            // the first stamp that is seen could have been written long before this thread started to read
+            if (lastStamps[key] != 0) {
+                long lagNanos = testContext.globalNanoTime() - stamp;
+                if (lagNanos < 0) {
+                    negativeCount.increment();
+                } else {
+                    probe.recordValue(lagNanos);
+                }
+            }
+            lastStamps[key] = stamp;
+        }
+    }
+
+    private static final class IntervalHitRatio {
+
+        private final Supplier<NearCacheStats> stats;
+        private long lastHits;
+        private long lastMisses;
+
+        private IntervalHitRatio(Supplier<NearCacheStats> stats) {
+            this.stats = stats;
+        }
+
+        synchronized double get() {
+            NearCacheStats current = stats.get();
+            if (current == null) {
+                return Double.NaN;
+            }
+
+            long hits = current.getHits();
+            long misses = current.getMisses();
+            long deltaHits = hits - lastHits;
+            long deltaMisses = misses - lastMisses;
+            lastHits = hits;
+            lastMisses = misses;
+
+            long total = deltaHits + deltaMisses;
+            return total == 0 ? Double.NaN : deltaHits / (double) total;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.tests.helpers;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.partition.Partition;
+import com.hazelcast.partition.PartitionService;
+import com.hazelcast.simulator.probes.LatencyProbe;
+import com.hazelcast.simulator.test.TestContext;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.hazelcast.simulator.utils.FileUtils.appendText;
+import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static java.lang.String.format;
+import static java.util.Locale.US;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Samples the keys of the operations of a test and maps them to their partition, to find out which partitions and
+ * members take the heat of a skewed workload, e.g. a zipfian key distribution or a {@link KeyLocality}.
+ * <p>
+ * Every test thread gets its own {@link Sampler} with primitive counters per partition. Only a fraction of the
+ * operations is sampled, so an operation that isn't sampled costs a single decrement:
+ * <pre>
+ * long start = state.sampler.start();
+ * map.get(key);
+ * state.sampler.end(key, start);
+ * </pre>
+ * Every performance monitor interval the counters are written next to the .hdr files of the test, from an interval
+ * listener (see {@link TestContext#registerIntervalListener}):
+ * <ul>
+ * <li>{@code <testId>.partition-heatmap.csv}: the estimated number of accesses of every partition in the interval</li>
+ * <li>{@code <testId>.member-heatmap.csv}: the accesses and the mean latency per member that owns the partitions at the
+ * end of the interval</li>
+ * </ul>
+ * The skew of the interval, the accesses of the hottest partition divided by the mean accesses of a partition, is
+ * written to the operations log of the test as the 'partition-skew' column; the gauge only reads the skew that was
+ * computed by the interval listener. Nothing is written when the performance monitor is disabled.
+ * <p>
+ * When the name of the probe is passed to {@link Sampler#end(String, Object, long)}, the latency of the sampled
+ * operations is also recorded per member that owns the partition of the key, see
+ * {@link TestContext#getMemberLatencyProbe}. So a single slow member doesn't disappear in the latency of all members.
+ */
+public final class PartitionHeatmap {
+
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+    private static final PartitionHeatmap DISABLED = new PartitionHeatmap();
+
+    private final List<Sampler> samplers = new CopyOnWriteArrayList<>();
+    private final TestContext testContext;
+    private final PartitionService partitionService;
+    private final int partitionCount;
+    private final int sampleInterval;
+    private final long[] lastAccesses;
+    private final long[] lastLatencies;
+    private final File partitionFile;
+    private final File memberFile;
+    private boolean headerWritten;
+    private volatile double skew = Double.NaN;
+
+    private PartitionHeatmap() {
+        this.testContext = null;
+        this.partitionService = null;
+        this.partitionCount = 0;
+        this.sampleInterval = 0;
+        this.lastAccesses = null;
+        this.lastLatencies = null;
+        this.partitionFile = null;
+        this.memberFile = null;
+    }
+
+    private PartitionHeatmap(HazelcastInstance hz, TestContext testContext, int sampleInterval) {
+        this.testContext = testContext;
+        this.partitionService = hz.getPartitionService();
+        this.partitionCount = partitionService.getPartitions().size();
+        this.sampleInterval = sampleInterval;
+        this.lastAccesses = new long[partitionCount];
+        this.lastLatencies = new long[partitionCount];
+        this.partitionFile = new File(getUserDir(), testContext.getTestId() + ".partition-heatmap.csv");
+        this.memberFile = new File(getUserDir(), testContext.getTestId() + ".member-heatmap.csv");
+    }
+
+    /**
+     * Creates a PartitionHeatmap and registers it with the TestContext, so it is written every performance monitor
+     * interval.
+     *
+     * @param hz          the HazelcastInstance to look up the partitions with
+     * @param testContext the TestContext of the test
+     * @param sampleRate  the fraction of the operations to sample; 0 disables the heatmap
+     * @return the created PartitionHeatmap
+     * @throws IllegalArgumentException if the sampleRate is smaller than 0 or larger than 1
+     */
+    public static PartitionHeatmap register(HazelcastInstance hz, TestContext testContext, double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate should be between 0 and 1, but was " + sampleRate);
+        }
+        if (sampleRate == 0) {
+            return DISABLED;
+        }
+
+        int sampleInterval = (int) Math.max(1, Math.round(1 / sampleRate));
+        PartitionHeatmap heatmap = new PartitionHeatmap(hz, testContext, sampleInterval);
+        testContext.registerIntervalListener(heatmap::writeInterval);
+        testContext.registerGauge("partition-skew", heatmap::skew);
+        return heatmap;
+    }
+
+    /**
+     * Creates a Sampler. A Sampler should only be used by a single thread, so every thread state should create one.
+     *
+     * @return the created Sampler
+     */
+    public Sampler newSampler() {
+        Sampler sampler = new Sampler(this);
+        if (sampleInterval > 0) {
+            samplers.add(sampler);
+        }
+        return sampler;
+    }
+
+    double skew() {
+        return skew;
+    }
+
+    synchronized void writeInterval() {
+        long[] accesses = new long[partitionCount];
+        long[] latencies = new long[partitionCount];
+        for (Sampler sampler : samplers) {
+            for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+                accesses[partitionId] += sampler.accesses.get(partitionId);
+                latencies[partitionId] += sampler.latencies.get(partitionId);
+            }
+        }
+
+        long[] intervalAccesses = new long[partitionCount];
+        long[] intervalLatencies = new long[partitionCount];
+        long maxAccesses = 0;
+        long totalAccesses = 0;
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            intervalAccesses[partitionId] = accesses[partitionId] - lastAccesses[partitionId];
+            intervalLatencies[partitionId] = latencies[partitionId] - lastLatencies[partitionId];
+            maxAccesses = Math.max(maxAccesses, intervalAccesses[partitionId]);
+            totalAccesses += intervalAccesses[partitionId];
+        }
+        System.arraycopy(accesses, 0, lastAccesses, 0, partitionCount);
+        System.arraycopy(latencies, 0, lastLatencies, 0, partitionCount);
+
+        long epochMillis = System.currentTimeMillis();
+        writeHeaderIfNeeded();
+        writePartitions(epochMillis, intervalAccesses);
+        writeMembers(epochMillis, intervalAccesses, intervalLatencies, totalAccesses);
+
+        skew = totalAccesses == 0 ? Double.NaN : maxAccesses * (double) partitionCount / totalAccesses;
+    }
+
+    private void writeHeaderIfNeeded() {
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+
+        StringBuilder sb = new StringBuilder("epoch");
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            sb.append(",p").append(partitionId);
+        }
+        appendText(sb.append('\n').toString(), partitionFile);
+        appendText("epoch,member,partitions,accesses,share,mean-latency-us\n", memberFile);
+    }
+
+    private void writePartitions(long epochMillis, long[] intervalAccesses) {
+        StringBuilder sb = new StringBuilder().append(epochMillis);
+        for (long partitionAccesses : intervalAccesses) {
+            sb.append(',').append(partitionAccesses * sampleInterval);
+        }
+        appendText(sb.append('\n').toString(), partitionFile);
+    }
+
+    private void writeMembers(long epochMillis, long[] intervalAccesses, long[] intervalLatencies, long totalAccesses) {
+        // the partitions, accesses and latencies per member
+        Map<String, long[]> members = new LinkedHashMap<>();
+        for (Partition partition : partitionService.getPartitions()) {
+            int partitionId = partition.getPartitionId();
+            Member owner = partition.getOwner();
+            String member = owner == null ? "unassigned" : memberId(owner);
+            long[] stats = members.computeIfAbsent(member, k -> new long[3]);
+            stats[0]++;
+            stats[1] += intervalAccesses[partitionId];
+            stats[2] += intervalLatencies[partitionId];
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : members.entrySet()) {
+            long[] stats = entry.getValue();
+            double share = totalAccesses == 0 ? 0 : stats[1] / (double) totalAccesses;
+            double meanLatencyUs = stats[1] == 0 ? 0 : NANOSECONDS.toMicros(stats[2]) / (double) stats[1];
+            sb.append(format(US, "%d,%s,%d,%d,%.4f,%.2f%n",
+                    epochMillis, entry.getKey(), stats[0], stats[1] * sampleInterval, share, meanLatencyUs));
+        }
+        appendText(sb.toString(), memberFile);
+    }
+
+    private static String memberId(Member member) {
+        // the id is part of the name of the histogram files, so it shouldn't contain a colon
+        return member.getAddress().getHost() + '_' + member.getAddress().getPort();
+    }
+
+    /**
+     * Samples the operations of a single thread. The counters only have a single writer; they are lazily published to
+     * the performance monitor thread.
+     */
+    public static final class Sampler {
+
+        private final PartitionHeatmap heatmap;
+        private final AtomicLongArray accesses;
+        private final AtomicLongArray latencies;
+        private final Map<String, Map<Member, LatencyProbe>> memberProbes = new HashMap<>();
+        private int countdown;
+
+        private Sampler(PartitionHeatmap heatmap) {
+            this.heatmap = heatmap;
+            this.accesses = new AtomicLongArray(heatmap.partitionCount);
+            this.latencies = new AtomicLongArray(heatmap.partitionCount);
+            // so the threads don't sample in lockstep
+            this.countdown = heatmap.sampleInterval == 0 ? 0 : ThreadLocalRandom.current().nextInt(heatmap.sampleInterval) + 1;
+        }
+
+        /**
+         * Starts an operation.
+         *
+         * @return the start time of the operation if it is sampled; otherwise a value that makes {@link #end} a no-op
+         */
+        public long start() {
+            if (heatmap.sampleInterval == 0 || --countdown > 0) {
+                return NOT_SAMPLED;
+            }
+            countdown = heatmap.sampleInterval;
+            return System.nanoTime();
+        }
+
+        /**
+         * Ends an operation on a key.
+         *
+         * @param key        the key of the operation
+         * @param startNanos the value returned by {@link #start()}
+         */
+        public void end(Object key, long startNanos) {
+            end(null, key, startNanos);
+        }
+
+        /**
+         * Ends an operation on a key and records its latency in the member latency probe of the owner of the key.
+         *
+         * @param probeName  the name of the probe, e.g. the name of the timestep method; null to only count the access
+         * @param key        the key of the operation
+         * @param startNanos the value returned by {@link #start()}
+         */
+        public void end(String probeName, Object key, long startNanos) {
+            if (startNanos == NOT_SAMPLED) {
+                return;
+            }
+
+            long latencyNanos = System.nanoTime() - startNanos;
+            Partition partition = heatmap.partitionService.getPartition(key);
+            int partitionId = partition.getPartitionId();
+            accesses.lazySet(partitionId, accesses.get(partitionId) + 1);
+            latencies.lazySet(partitionId, latencies.get(partitionId) + latencyNanos);
+
+            if (probeName != null) {
+                Member owner = partition.getOwner();
+                if (owner != null) {
+                    memberProbe(probeName, owner).recordValue(latencyNanos);
+                }
+            }
+        }
+
+        private LatencyProbe memberProbe(String probeName, Member member) {
+            return memberProbes.computeIfAbsent(probeName, k -> new HashMap<>())
+                    .computeIfAbsent(member, k -> heatmap.testContext.getMemberLatencyProbe(probeName, memberId(member)));
+        }
+    }
+}
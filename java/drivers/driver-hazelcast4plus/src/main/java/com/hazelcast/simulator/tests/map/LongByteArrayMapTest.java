@@ -28,6 +28,8 @@ import com.hazelcast.simulator.test.annotations.Setup;
 import com.hazelcast.simulator.test.annotations.StartNanos;
 import com.hazelcast.simulator.test.annotations.Teardown;
 import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.utils.PayloadPool;
+import com.hazelcast.simulator.utils.SizeDistribution;
 import com.hazelcast.simulator.worker.loadsupport.Streamer;
 import com.hazelcast.simulator.worker.loadsupport.StreamerFactory;
 
@@ -43,7 +45,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 
 import static com.hazelcast.simulator.tests.helpers.HazelcastTestUtils.assignKeyToIndex;
-import static com.hazelcast.simulator.utils.GeneratorUtils.generateByteArrays;
 import static java.lang.Thread.currentThread;
 
 public class LongByteArrayMapTest extends HazelcastTest {
@@ -53,6 +54,17 @@ public class LongByteArrayMapTest extends HazelcastTest {
     public int valueCount = 10000;
     public int minValueLength = 10;
     public int maxValueLength = 10;
+    /**
+     * The distribution of the value sizes, e.g. 'lognormal(1000,0.5)'. If not set, the sizes are uniformly
+     * distributed between {@code minValueLength} and {@code maxValueLength}.
+     *
+     * @see SizeDistribution#parse(String)
+     */
+    public String valueSizeDistribution;
+    /**
+     * The maximum size of a value drawn from the {@code valueSizeDistribution}; larger sizes are clamped.
+     */
+    public int maxValueSize = PayloadPool.DEFAULT_MAX_SIZE;
     public int pipelineDepth = 10;
     public int pipelineIterations = 100;
     public int getAllSize = 5;
@@ -69,7 +81,7 @@ public class LongByteArrayMapTest extends HazelcastTest {
      */
     public int fixedKeyProbability = 0;
 
-    private byte[][] values;
+    private PayloadPool values;
     private final List<List<IMap<Long, byte[]>>> maps = new ArrayList<>();
     private final Executor callerRuns = Runnable::run;
     private final Random random = new Random();
@@ -87,7 +99,10 @@ public class LongByteArrayMapTest extends HazelcastTest {
                 mapsForInstance.add(instance.getMap(mapName));
             }
         }
-        values = generateByteArrays(valueCount, minValueLength, maxValueLength);
+        SizeDistribution distribution = valueSizeDistribution == null
+                ? SizeDistribution.parse("uniform(" + minValueLength + "," + maxValueLength + ")")
+                : SizeDistribution.parse(valueSizeDistribution);
+        values = new PayloadPool(distribution, valueCount, maxValueSize, random, false);
     }
 
     @Prepare(global = true)
@@ -96,7 +111,7 @@ public class LongByteArrayMapTest extends HazelcastTest {
         for (IMap<Long, byte[]> map : maps.get(0)) {
             Streamer<Long, byte[]> streamer = StreamerFactory.getInstance(map);
             for (long key = 0; key < keyDomain; key++) {
-                byte[] value = values[random.nextInt(valueCount)];
+                byte[] value = values.next(random);
                 streamer.pushEntry(key, value);
             }
             streamer.await();
@@ -218,7 +233,7 @@ public class LongByteArrayMapTest extends HazelcastTest {
         }
 
         private byte[] randomValue() {
-            return values[randomInt(values.length)];
+            return values.next(random);
         }
     }
 
@@ -241,6 +256,7 @@ public class LongByteArrayMapTest extends HazelcastTest {
 
     @Teardown
     public void tearDown() {
+        logger.info("Value sizes: " + values);
         maps.stream().flatMap(Collection::stream).forEach(IMap::destroy);
     }
 }
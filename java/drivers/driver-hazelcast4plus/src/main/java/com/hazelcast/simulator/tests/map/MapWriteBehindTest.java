@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.tests.map;
+
+import com.hazelcast.config.MapStoreConfig;
+import com.hazelcast.map.IMap;
+import com.hazelcast.simulator.hz.HazelcastTest;
+import com.hazelcast.simulator.test.BaseThreadState;
+import com.hazelcast.simulator.test.annotations.Setup;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.test.annotations.Verify;
+import com.hazelcast.simulator.tests.map.helpers.BackingStoreEmulator;
+
+import static com.hazelcast.simulator.tests.helpers.HazelcastTestUtils.isClient;
+import static com.hazelcast.simulator.tests.map.helpers.MapStoreUtils.assertMapStoreConfiguration;
+import static com.hazelcast.simulator.utils.TestUtils.assertTrueEventually;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the throughput and latency of a map backed by the {@link BackingStoreEmulator}.
+ *
+ * The write-behind behavior is configured on the map-store configuration of the map, e.g. the write-delay-seconds and
+ * the write-batch-size. The behavior of the emulated database is configured using the properties of the map-store
+ * configuration; see {@link BackingStoreEmulator} for an example.
+ */
+public class MapWriteBehindTest extends HazelcastTest {
+
+    // properties
+    public int keyCount = 100_000;
+
+    private IMap<Integer, Long> map;
+
+    @Setup
+    public void setup() {
+        map = targetInstance.getMap(name);
+
+        assertMapStoreConfiguration(logger, targetInstance, name, BackingStoreEmulator.class);
+    }
+
+    @TimeStep(prob = 0.5)
+    public void set(ThreadState state) {
+        map.set(state.randomKey(), state.randomLong());
+    }
+
+    @TimeStep(prob = 0.4)
+    public Long get(ThreadState state) {
+        return map.get(state.randomKey());
+    }
+
+    @TimeStep(prob = 0.1)
+    public void delete(ThreadState state) {
+        map.delete(state.randomKey());
+    }
+
+    public class ThreadState extends BaseThreadState {
+
+        private int randomKey() {
+            return randomInt(keyCount);
+        }
+    }
+
+    @Verify(global = false)
+    public void verify() {
+        if (isClient(targetInstance)) {
+            return;
+        }
+
+        MapStoreConfig mapStoreConfig = targetInstance.getConfig().getMapConfig(name).getMapStoreConfig();
+        logger.info(name + ": MapStoreConfig: " + mapStoreConfig);
+
+        // wait till the write-behind queues have been written to the store.
+        assertTrueEventually(() -> assertEquals(0, map.getLocalMapStats().getDirtyEntryCount()));
+
+        BackingStoreEmulator mapStore = (BackingStoreEmulator) mapStoreConfig.getImplementation();
+        if (mapStore == null) {
+            return;
+        }
+        logger.info(name + ": map size = " + map.size());
+        logger.info(name + ": map store = " + mapStore);
+
+        for (Integer key : map.localKeySet()) {
+            assertEquals(map.get(key), mapStore.get(key));
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.hazelcast.simulator.test.annotations.Setup;
 import com.hazelcast.simulator.test.annotations.Teardown;
 import com.hazelcast.simulator.test.annotations.TimeStep;
 import com.hazelcast.simulator.tests.helpers.KeyLocality;
+import com.hazelcast.simulator.tests.helpers.PartitionHeatmap;
 import com.hazelcast.simulator.worker.loadsupport.Streamer;
 import com.hazelcast.simulator.worker.loadsupport.StreamerFactory;
 
@@ -43,14 +44,18 @@ public class StringStringMapTest extends HazelcastTest {
     public int maxValueLength = valueLength;
     public KeyLocality keyLocality = KeyLocality.SHARED;
     public int minNumberOfMembers = 0;
+    // the fraction of the operations sampled into the partition heatmap; 0 disables it
+    public double heatmapSampleRate = 0;
 
     private IMap<String, String> map;
+    private PartitionHeatmap heatmap;
     private String[] keys;
     private String[] values;
 
     @Setup
     public void setUp() {
         map = targetInstance.getMap(name);
+        heatmap = PartitionHeatmap.register(targetInstance, testContext, heatmapSampleRate);
     }
 
     @Prepare
@@ -75,25 +80,33 @@ public class StringStringMapTest extends HazelcastTest {
     @TimeStep(prob = -1)
     public void get(ThreadState state) {
         String key = state.randomKey();
+        long start = state.sampler.start();
         map.get(key);
+        state.sampler.end("get", key, start);
     }
 
     @TimeStep(prob = 0.1)
     public void put(ThreadState state) {
         String key = state.randomKey();
         String value = state.randomValue();
+        long start = state.sampler.start();
         map.put(key, value);
+        state.sampler.end("put", key, start);
     }
 
     @TimeStep(prob = 0)
     public void set(ThreadState state) {
         String key = state.randomKey();
         String value = state.randomValue();
+        long start = state.sampler.start();
         map.set(key, value);
+        state.sampler.end("set", key, start);
     }
 
     public class ThreadState extends BaseThreadState {
 
+        private final PartitionHeatmap.Sampler sampler = heatmap.newSampler();
+
         private String randomKey() {
             return keys[randomInt(keys.length)];
         }
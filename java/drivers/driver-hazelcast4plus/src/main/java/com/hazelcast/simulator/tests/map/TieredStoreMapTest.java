@@ -15,6 +15,8 @@ import com.hazelcast.simulator.tests.helpers.KeyLocality;
 import com.hazelcast.simulator.tests.map.helpers.tasks.ClearTsDirectoryTask;
 import com.hazelcast.simulator.tests.map.helpers.tasks.GetHybridLogLengthTask;
 import com.hazelcast.simulator.tests.map.helpers.tasks.GetMapConfigTask;
+import com.hazelcast.simulator.utils.PayloadPool;
+import com.hazelcast.simulator.utils.SizeDistribution;
 import com.hazelcast.simulator.worker.loadsupport.Streamer;
 import com.hazelcast.simulator.worker.loadsupport.StreamerFactory;
 import org.apache.commons.lang3.RandomUtils;
@@ -38,6 +40,19 @@ public class TieredStoreMapTest extends HazelcastTest {
     public int keyDomain = 1_500_000;
     public int minValueByteArrayLength = 1;
     public int maxValueByteArrayLength = 150_000;
+    /**
+     * The number of pre-generated values used by the timesteps. If 0, a new value is generated for every operation.
+     */
+    public int valuePoolSize = 0;
+    /**
+     * The distribution of the sizes of the pooled values, e.g. 'lognormal(10000,1)'. If not set, the sizes are
+     * uniformly distributed between {@code minValueByteArrayLength} and {@code maxValueByteArrayLength}.
+     */
+    public String valueSizeDistribution;
+    /**
+     * The maximum size of a value drawn from the {@code valueSizeDistribution}; larger sizes are clamped.
+     */
+    public int maxValueSize = PayloadPool.DEFAULT_MAX_SIZE;
     public boolean clearTsDirectoryOnPrepare = true;
     public boolean fillOnPrepare = true;
     public boolean destroyOnExit = true;
@@ -47,12 +62,19 @@ public class TieredStoreMapTest extends HazelcastTest {
     private IMap<Integer, byte[]> map;
     private int[] keys;
     private IExecutorService executor;
+    private PayloadPool valuePool;
 
     @Setup
     public void setUp() throws ReflectiveOperationException {
         keys = generateIntKeys(keyDomain, keyLocality, targetInstance);
         executor = targetInstance.getExecutorService(name);
         map = targetInstance.getMap(name);
+        if (valuePoolSize > 0) {
+            SizeDistribution distribution = valueSizeDistribution == null
+                    ? SizeDistribution.parse("uniform(" + minValueByteArrayLength + "," + maxValueByteArrayLength + ")")
+                    : SizeDistribution.parse(valueSizeDistribution);
+            valuePool = new PayloadPool(distribution, valuePoolSize, maxValueSize, new Random(), false);
+        }
         Assert.assertTrue("Disk Tier Config must be enabled for map: " + name, isTsEnabledForMap());
     }
 
@@ -79,6 +101,9 @@ public class TieredStoreMapTest extends HazelcastTest {
             map.destroy();
         }
         executor.shutdown();
+        if (valuePool != null) {
+            logger.info("Value sizes: " + valuePool);
+        }
     }
 
     @TimeStep(prob = -1)
@@ -183,6 +208,9 @@ public class TieredStoreMapTest extends HazelcastTest {
         }
 
         private byte[] randomValue() {
+            if (valuePool != null) {
+                return valuePool.next(random);
+            }
             return randomByteArray(RandomUtils.nextInt(minValueByteArrayLength, maxValueByteArrayLength));
         }
     }
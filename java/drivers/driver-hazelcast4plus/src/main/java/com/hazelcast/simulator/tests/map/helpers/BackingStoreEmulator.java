@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.tests.map.helpers;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.MapLoaderLifecycleSupport;
+import com.hazelcast.map.MapStore;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A {@link MapStore} that emulates a database, so that write-behind and read-through settings like the
+ * writeBatchSize and writeDelaySeconds can be tuned against a backend that behaves like a real one.
+ * <p>
+ * Every call to the store has a fixed cost (the round trip) and a cost per item; so unlike the {@link MapStoreWithCounter},
+ * the batch methods like {@link #storeAll(Map)} are a lot cheaper than calling {@link #store(Object, Object)} per item.
+ * The number of concurrent calls is limited by a connection pool; calls that can't get a connection wait for one, just
+ * like with a JDBC connection pool. Optionally the writes are appended to a file and forced to disk once per call.
+ * <p>
+ * The store is configured using the properties of the map-store configuration:
+ * <pre>{@code
+ * <map name="MapWriteBehindTest*">
+ *     <map-store enabled="true">
+ *         <class-name>com.hazelcast.simulator.tests.map.helpers.BackingStoreEmulator</class-name>
+ *         <write-delay-seconds>1</write-delay-seconds>
+ *         <write-batch-size>100</write-batch-size>
+ *         <properties>
+ *             <property name="callLatencyMicros">500</property>
+ *             <property name="itemLatencyMicros">20</property>
+ *             <property name="jitterMicros">100</property>
+ *             <property name="maxConnections">8</property>
+ *             <property name="appendOnlyFile">true</property>
+ *         </properties>
+ *     </map-store>
+ * </map>
+ * }</pre>
+ * The latency of every call, including the time waiting for a connection, is recorded and written every second to a
+ * '[mapName].backingstore.[operation].hdr' file in the worker directory, so they are part of the report.
+ */
+public class BackingStoreEmulator implements MapStore<Object, Object>, MapLoaderLifecycleSupport {
+
+    static final long DEFAULT_CALL_LATENCY_MICROS = 500;
+    static final long DEFAULT_ITEM_LATENCY_MICROS = 20;
+    static final int DEFAULT_MAX_CONNECTIONS = 16;
+
+    private static final Logger LOGGER = LogManager.getLogger(BackingStoreEmulator.class);
+    private static final long HIGHEST_TRACKABLE_VALUE_NANOS = HOURS.toNanos(1);
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+
+    enum Operation {
+        STORE("store"),
+        STORE_ALL("storeAll"),
+        DELETE("delete"),
+        DELETE_ALL("deleteAll"),
+        LOAD("load"),
+        LOAD_ALL("loadAll"),
+        LOAD_ALL_KEYS("loadAllKeys");
+
+        private final String probeName;
+
+        Operation(String probeName) {
+            this.probeName = probeName;
+        }
+
+        String probeName() {
+            return probeName;
+        }
+    }
+
+    private final Map<Object, Object> store = new ConcurrentHashMap<>();
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, HistogramLogWriter> histogramLogWriters = new EnumMap<>(Operation.class);
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong itemCount = new AtomicLong();
+    private long callLatencyNanos = MICROSECONDS.toNanos(DEFAULT_CALL_LATENCY_MICROS);
+    private long itemLatencyNanos = MICROSECONDS.toNanos(DEFAULT_ITEM_LATENCY_MICROS);
+    private long jitterNanos;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private Semaphore connections = new Semaphore(maxConnections, true);
+    private String mapName = "unknown";
+    private FileChannel appendOnlyFile;
+    private ScheduledExecutorService histogramWriter;
+    private long startMillis;
+
+    public BackingStoreEmulator() {
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_VALUE_NANOS, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS));
+        }
+    }
+
+    @Override
+    public void init(HazelcastInstance hazelcastInstance, Properties properties, String mapName) {
+        this.mapName = mapName;
+        this.callLatencyNanos = MICROSECONDS.toNanos(getLong(properties, "callLatencyMicros", DEFAULT_CALL_LATENCY_MICROS));
+        this.itemLatencyNanos = MICROSECONDS.toNanos(getLong(properties, "itemLatencyMicros", DEFAULT_ITEM_LATENCY_MICROS));
+        this.jitterNanos = MICROSECONDS.toNanos(getLong(properties, "jitterMicros", 0));
+        this.maxConnections = (int) getLong(properties, "maxConnections", DEFAULT_MAX_CONNECTIONS);
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections can't be smaller than 1, but was " + maxConnections);
+        }
+        this.connections = new Semaphore(maxConnections, true);
+
+        if (Boolean.parseBoolean(properties.getProperty("appendOnlyFile", "false"))) {
+            File file = new File(getUserDir(), mapName + ".backingstore.aof");
+            try {
+                appendOnlyFile = FileChannel.open(file.toPath(), CREATE, WRITE, APPEND);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to open the append only file " + file.getAbsolutePath(), e);
+            }
+        }
+
+        startHistogramWriter();
+        LOGGER.info("Started " + this);
+    }
+
+    @Override
+    public void destroy() {
+        if (histogramWriter != null && !histogramWriter.isShutdown()) {
+            histogramWriter.shutdownNow();
+            writeHistograms();
+            for (HistogramLogWriter histogramLogWriter : histogramLogWriters.values()) {
+                histogramLogWriter.close();
+            }
+        }
+        closeQuietly(appendOnlyFile);
+        LOGGER.info("Stopped " + this);
+    }
+
+    public Object get(Object key) {
+        return store.get(key);
+    }
+
+    public Set<Map.Entry<Object, Object>> entrySet() {
+        return store.entrySet();
+    }
+
+    @Override
+    public void store(Object key, Object value) {
+        long startNanos = acquireConnection();
+        try {
+            delay(1);
+            append("S", key, value);
+            force();
+            store.put(key, value);
+        } finally {
+            releaseConnection(Operation.STORE, startNanos, 1);
+        }
+    }
+
+    @Override
+    public void storeAll(Map<Object, Object> map) {
+        long startNanos = acquireConnection();
+        try {
+            delay(map.size());
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                append("S", entry.getKey(), entry.getValue());
+            }
+            force();
+            store.putAll(map);
+        } finally {
+            releaseConnection(Operation.STORE_ALL, startNanos, map.size());
+        }
+    }
+
+    @Override
+    public void delete(Object key) {
+        long startNanos = acquireConnection();
+        try {
+            delay(1);
+            append("D", key, null);
+            force();
+            store.remove(key);
+        } finally {
+            releaseConnection(Operation.DELETE, startNanos, 1);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<Object> keys) {
+        long startNanos = acquireConnection();
+        try {
+            delay(keys.size());
+            for (Object key : keys) {
+                append("D", key, null);
+            }
+            force();
+            for (Object key : keys) {
+                store.remove(key);
+            }
+        } finally {
+            releaseConnection(Operation.DELETE_ALL, startNanos, keys.size());
+        }
+    }
+
+    @Override
+    public Object load(Object key) {
+        long startNanos = acquireConnection();
+        try {
+            delay(1);
+            return store.get(key);
+        } finally {
+            releaseConnection(Operation.LOAD, startNanos, 1);
+        }
+    }
+
+    @Override
+    public Map<Object, Object> loadAll(Collection<Object> keys) {
+        long startNanos = acquireConnection();
+        try {
+            delay(keys.size());
+            Map<Object, Object> result = new HashMap<>();
+            for (Object key : keys) {
+                Object value = store.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        } finally {
+            releaseConnection(Operation.LOAD_ALL, startNanos, keys.size());
+        }
+    }
+
+    @Override
+    public Set<Object> loadAllKeys() {
+        long startNanos = acquireConnection();
+        Set<Object> keys = new HashSet<>(store.keySet());
+        try {
+            delay(keys.size());
+            return keys;
+        } finally {
+            releaseConnection(Operation.LOAD_ALL_KEYS, startNanos, keys.size());
+        }
+    }
+
+    private long acquireConnection() {
+        long startNanos = System.nanoTime();
+        connections.acquireUninterruptibly();
+        return startNanos;
+    }
+
+    private void releaseConnection(Operation operation, long startNanos, int items) {
+        connections.release();
+        long latencyNanos = System.nanoTime() - startNanos;
+        recorders.get(operation).recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_VALUE_NANOS));
+        callCount.incrementAndGet();
+        itemCount.addAndGet(items);
+    }
+
+    private void delay(int items) {
+        long delayNanos = callLatencyNanos + items * itemLatencyNanos;
+        if (jitterNanos > 0) {
+            // exponentially distributed, so most calls have a small jitter and a few a large one
+            delayNanos += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * jitterNanos);
+        }
+
+        long deadline = System.nanoTime() + delayNanos;
+        for (long remaining = delayNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void append(String type, Object key, Object value) {
+        if (appendOnlyFile == null) {
+            return;
+        }
+
+        String record = value == null ? type + ' ' + key + '\n' : type + ' ' + key + ' ' + value + '\n';
+        ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                appendOnlyFile.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write to the append only file of " + mapName, e);
+        }
+    }
+
+    private void force() {
+        if (appendOnlyFile == null) {
+            return;
+        }
+
+        try {
+            appendOnlyFile.force(false);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to force the append only file of " + mapName, e);
+        }
+    }
+
+    private void startHistogramWriter() {
+        startMillis = System.currentTimeMillis();
+        histogramWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BackingStoreEmulator-" + mapName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        histogramWriter.scheduleAtFixedRate(this::writeHistograms, 1, 1, SECONDS);
+    }
+
+    private synchronized void writeHistograms() {
+        for (Operation operation : Operation.values()) {
+            HistogramLogWriter histogramLogWriter = histogramLogWriters.get(operation);
+            if (histogramLogWriter == null) {
+                histogramLogWriter = createHistogramLogWriter(operation);
+                if (histogramLogWriter == null) {
+                    continue;
+                }
+                histogramLogWriters.put(operation, histogramLogWriter);
+            }
+
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            histogramLogWriter.outputIntervalHistogram(histogram);
+        }
+    }
+
+    private HistogramLogWriter createHistogramLogWriter(Operation operation) {
+        File file = new File(getUserDir(), mapName + ".backingstore." + operation.probeName + ".hdr");
+        try {
+            HistogramLogWriter histogramLogWriter = new HistogramLogWriter(file);
+            histogramLogWriter.setBaseTime(startMillis);
+            histogramLogWriter.outputStartTime(startMillis);
+            histogramLogWriter.outputComment("[Backing store latency histograms for " + mapName + '.'
+                    + operation.probeName + ']');
+            histogramLogWriter.outputLogFormatVersion();
+            histogramLogWriter.outputLegend();
+            return histogramLogWriter;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to create " + file.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    private static long getLong(Properties properties, String name, long defaultValue) {
+        String value = properties.getProperty(name);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    @Override
+    public String toString() {
+        return "BackingStoreEmulator{"
+                + "mapName=" + mapName
+                + ", callLatencyMicros=" + NANOSECONDS.toMicros(callLatencyNanos)
+                + ", itemLatencyMicros=" + NANOSECONDS.toMicros(itemLatencyNanos)
+                + ", jitterMicros=" + NANOSECONDS.toMicros(jitterNanos)
+                + ", maxConnections=" + maxConnections
+                + ", appendOnlyFile=" + (appendOnlyFile != null)
+                + ", size=" + store.size()
+                + ", callCount=" + callCount
+                + ", itemCount=" + itemCount
+                + '}';
+    }
+}
@@ -24,7 +24,6 @@ import com.hazelcast.simulator.hz.HazelcastTest;
 import com.hazelcast.simulator.test.BaseThreadState;
 import com.hazelcast.simulator.test.TestException;
 import com.hazelcast.simulator.test.annotations.AfterRun;
-import com.hazelcast.simulator.test.annotations.BeforeRun;
 import com.hazelcast.simulator.test.annotations.Setup;
 import com.hazelcast.simulator.test.annotations.TimeStep;
 import com.hazelcast.simulator.test.annotations.Verify;
@@ -81,20 +80,12 @@ public class ReliableTopicTest extends HazelcastTest {
         }
     }
 
-    @BeforeRun
-    public void beforeRun(ThreadState state) {
-        for (ITopic<?> topic : topics) {
-            state.counterMap.put(topic, new AtomicLong());
-        }
-    }
-
     @TimeStep
     public void timeStep(ThreadState state) throws Exception {
-        ITopic<MessageEntity> topic = state.getRandomTopic();
-        AtomicLong counter = state.counterMap.get(topic);
-        MessageEntity msg = new MessageEntity(state.id, counter.incrementAndGet());
+        int index = state.randomInt(topics.length);
+        MessageEntity msg = new MessageEntity(state.id, ++state.counters[index]);
         state.messagesSend++;
-        topic.publish(msg);
+        topics[index].publish(msg);
     }
 
     @AfterRun
@@ -105,13 +96,9 @@ public class ReliableTopicTest extends HazelcastTest {
     public class ThreadState extends BaseThreadState {
 
         private long messagesSend = 0;
-        private final Map<ITopic<?>, AtomicLong> counterMap = new HashMap<>();
+        // the last value published per topic, indexed like the topics
+        private final long[] counters = new long[topics.length];
         private final String id = newSecureUuidString();
-
-        private ITopic<MessageEntity> getRandomTopic() {
-            int index = randomInt(topics.length);
-            return topics[index];
-        }
     }
 
     private static class MessageDataSerializableFactory implements DataSerializableFactory {
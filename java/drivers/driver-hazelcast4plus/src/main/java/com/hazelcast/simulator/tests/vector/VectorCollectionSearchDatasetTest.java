@@ -10,6 +10,7 @@ import com.hazelcast.simulator.test.annotations.Setup;
 import com.hazelcast.simulator.test.annotations.Teardown;
 import com.hazelcast.simulator.test.annotations.TimeStep;
 import com.hazelcast.simulator.tests.vector.model.TestDataset;
+import com.hazelcast.simulator.utils.IntArrayList;
 import com.hazelcast.vector.SearchOptions;
 import com.hazelcast.vector.SearchOptionsBuilder;
 import com.hazelcast.vector.SearchResults;
@@ -21,7 +22,6 @@ import com.hazelcast.vector.impl.Hints;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -158,9 +158,10 @@ public class VectorCollectionSearchDatasetTest extends VectorCollectionDatasetTe
 
     @Teardown(global = true)
     public void afterRun() {
+        IntArrayList ids = new IntArrayList();
         searchResults.forEach(testSearchResult -> {
             int index = testSearchResult.index();
-            List<Integer> ids = new ArrayList<>();
+            ids.clear();
             VectorUtils.forEach(testSearchResult.results, r -> ids.add((Integer) r.getKey()));
             scoreMetrics.set((int) (testDataset.getPrecision(ids, index, limit) * 100));
         });
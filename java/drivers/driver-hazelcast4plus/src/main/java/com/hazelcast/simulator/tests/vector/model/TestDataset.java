@@ -1,9 +1,7 @@
 package com.hazelcast.simulator.tests.vector.model;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.stream.Collectors;
+import com.hazelcast.simulator.utils.IntArrayList;
+import com.hazelcast.simulator.utils.IntHashSet;
 
 public class TestDataset {
 
@@ -34,10 +32,20 @@ public class TestDataset {
         return searchVectors.length;
     }
 
-    public float getPrecision(List<Integer> actualVectorsIds, int index, int top) {
-        var actualSet = new HashSet<>(actualVectorsIds);
-        var expectedSet = Arrays.stream(Arrays.copyOfRange(closestIds[index], 0, top)).boxed().collect(Collectors.toSet());
-        actualSet.retainAll(expectedSet);
-        return ((float) actualSet.size()) / top;
+    public float getPrecision(IntArrayList actualVectorsIds, int index, int top) {
+        int[] expectedIds = closestIds[index];
+        int expectedCount = Math.min(top, expectedIds.length);
+        var expectedSet = new IntHashSet(expectedCount);
+        for (int i = 0; i < expectedCount; i++) {
+            expectedSet.add(expectedIds[i]);
+        }
+        // removing a found id makes sure a duplicate in the actual ids isn't counted twice
+        int found = 0;
+        for (int i = 0; i < actualVectorsIds.size(); i++) {
+            if (expectedSet.remove(actualVectorsIds.get(i))) {
+                found++;
+            }
+        }
+        return ((float) found) / top;
     }
 }
@@ -0,0 +1,102 @@
+package com.hazelcast.simulator.tests.map.helpers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BackingStoreEmulatorTest {
+
+    private static final String MAP_NAME = "BackingStoreEmulatorTest";
+
+    private final BackingStoreEmulator mapStore = new BackingStoreEmulator();
+
+    @Before
+    public void before() {
+        Properties properties = new Properties();
+        properties.setProperty("callLatencyMicros", "10");
+        properties.setProperty("itemLatencyMicros", "1");
+        properties.setProperty("maxConnections", "2");
+        properties.setProperty("appendOnlyFile", "true");
+        mapStore.init(null, properties, MAP_NAME);
+    }
+
+    @After
+    public void after() {
+        mapStore.destroy();
+        deleteQuiet(new File(getUserDir(), MAP_NAME + ".backingstore.aof"));
+        for (BackingStoreEmulator.Operation operation : BackingStoreEmulator.Operation.values()) {
+            deleteQuiet(new File(getUserDir(), MAP_NAME + ".backingstore." + operation.probeName() + ".hdr"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInit_invalidMaxConnections() {
+        Properties properties = new Properties();
+        properties.setProperty("maxConnections", "0");
+        new BackingStoreEmulator().init(null, properties, MAP_NAME);
+    }
+
+    @Test
+    public void testStoreAndLoad() {
+        mapStore.store(1, "a");
+
+        assertEquals("a", mapStore.load(1));
+        assertNull(mapStore.load(2));
+    }
+
+    @Test
+    public void testStoreAllAndLoadAll() {
+        Map<Object, Object> map = new HashMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        mapStore.storeAll(map);
+
+        Map<Object, Object> loaded = mapStore.loadAll(asList(1, 2, 3));
+
+        assertEquals(map, loaded);
+        assertEquals(2, mapStore.loadAllKeys().size());
+    }
+
+    @Test
+    public void testDelete() {
+        mapStore.store(1, "a");
+        mapStore.store(2, "b");
+        mapStore.store(3, "c");
+
+        mapStore.delete(1);
+        mapStore.deleteAll(asList(2, 3));
+
+        assertTrue(mapStore.loadAllKeys().isEmpty());
+    }
+
+    @Test
+    public void testAppendOnlyFile() {
+        mapStore.store(1, "a");
+        mapStore.delete(1);
+
+        String content = fileAsText(new File(getUserDir(), MAP_NAME + ".backingstore.aof"));
+        assertEquals("S 1 a\nD 1\n", content);
+    }
+
+    @Test
+    public void testHistograms() {
+        mapStore.store(1, "a");
+        mapStore.destroy();
+
+        File file = new File(getUserDir(), MAP_NAME + ".backingstore.store.hdr");
+        assertTrue(file.exists());
+    }
+}
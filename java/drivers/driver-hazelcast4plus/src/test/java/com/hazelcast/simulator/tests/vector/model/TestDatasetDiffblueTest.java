@@ -1,9 +1,8 @@
 package com.hazelcast.simulator.tests.vector.model;
 
+import com.hazelcast.simulator.utils.IntArrayList;
 import org.junit.Test;
 
-import java.util.List;
-
 import static org.junit.Assert.assertEquals;
 
 public class TestDatasetDiffblueTest {
@@ -15,7 +14,7 @@ public class TestDatasetDiffblueTest {
                         new int[][]{new int[]{1, 2, 3, 4}},
                         new float[][]{new float[]{0f}}
                 )
-        ).getPrecision(List.of(1, 2), 0, 2);
+        ).getPrecision(IntArrayList.of(1, 2), 0, 2);
         assertEquals(1, actual, 0.0f);
     }
 
@@ -28,7 +27,7 @@ public class TestDatasetDiffblueTest {
                                 new int[][]{new int[]{1, 2, 3, 4}, new int[]{1, 2, 1, 2}},
                                 new float[][]{new float[]{0f}}
                         )
-                ).getPrecision(List.of(2), 0, 1),
+                ).getPrecision(IntArrayList.of(2), 0, 1),
                 0.0f);
     }
 
@@ -41,7 +40,7 @@ public class TestDatasetDiffblueTest {
                                 new int[][]{new int[]{1, 2, 3, 4}, new int[]{2, 5, 6}},
                                 new float[][]{new float[]{0f}}
                         )
-                ).getPrecision(List.of(2, 6), 0, 2),
+                ).getPrecision(IntArrayList.of(2, 6), 0, 2),
                 0.1f);
     }
 }
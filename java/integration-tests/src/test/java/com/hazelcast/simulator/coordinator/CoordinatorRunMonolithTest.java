@@ -42,7 +42,7 @@ public class CoordinatorRunMonolithTest {
                 .setSimulatorProperties(simulatorProperties)
                 .setSkipShutdownHook(true);
 
-        agent = new Agent(1, "127.0.0.1", simulatorProperties.getAgentPort(), 60, null);
+        agent = new Agent(1, "127.0.0.1", simulatorProperties.getAgentPort(), null);
         agent.start();
 
         registry = new Registry();
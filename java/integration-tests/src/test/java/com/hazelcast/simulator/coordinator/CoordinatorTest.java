@@ -53,7 +53,7 @@ public class CoordinatorTest {
                 .setSimulatorProperties(simulatorProperties)
                 .setSkipShutdownHook(true);
 
-        agent = new Agent(1, "127.0.0.1", simulatorProperties.getAgentPort(), 60, null);
+        agent = new Agent(1, "127.0.0.1", simulatorProperties.getAgentPort(), null);
         agent.start();
 
         registry = new Registry();
@@ -15,6 +15,7 @@
  */
 package com.hazelcast.simulator.agent;
 
+import com.hazelcast.simulator.agent.proxy.ProxyManager;
 import com.hazelcast.simulator.agent.workerprocess.WorkerProcessFailureHandler;
 import com.hazelcast.simulator.agent.workerprocess.WorkerProcessFailureMonitor;
 import com.hazelcast.simulator.agent.workerprocess.WorkerProcessManager;
@@ -43,6 +44,7 @@ public class Agent implements Closeable {
 
     private final AtomicBoolean shutdownStarted = new AtomicBoolean();
     private final WorkerProcessManager processManager;
+    private final ProxyManager proxyManager = new ProxyManager();
     private final String publicAddress;
     private final File pidFile = new File(getUserDir(), "agent.pid");
 
@@ -54,7 +56,6 @@ public class Agent implements Closeable {
     public Agent(int addressIndex,
                  String publicAddress,
                  int port,
-                 int workerLastSeenTimeoutSeconds,
                  String parentPid) {
         SimulatorAddress agentAddress = agentAddress(addressIndex);
         this.publicAddress = publicAddress;
@@ -71,9 +72,9 @@ public class Agent implements Closeable {
 
         this.workerProcessFailureMonitor = new WorkerProcessFailureMonitor(
                 new WorkerProcessFailureHandler(publicAddress, server),
-                processManager, workerLastSeenTimeoutSeconds);
+                processManager);
 
-        server.setProcessor(new AgentMessageHandler(processManager, workerProcessFailureMonitor));
+        server.setProcessor(new AgentMessageHandler(processManager, workerProcessFailureMonitor, proxyManager));
 
         Runtime.getRuntime().addShutdownHook(new AgentShutdownThread(true));
     }
@@ -124,6 +125,9 @@ public class Agent implements Closeable {
             LOGGER.info("Stopping WorkerProcessFailureMonitor...");
             workerProcessFailureMonitor.shutdown();
 
+            LOGGER.info("Stopping proxies...");
+            proxyManager.shutdown();
+
             closeQuietly(server);
             closeQuietly(broker);
 
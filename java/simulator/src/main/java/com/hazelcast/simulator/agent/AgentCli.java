@@ -33,8 +33,6 @@ import static java.lang.String.format;
 public final class AgentCli {
     private static final Logger LOGGER = LogManager.getLogger(AgentCli.class);
 
-    private static final int DEFAULT_WORKER_LAST_SEEN_TIMEOUT_SECONDS = 180;
-
     final Agent agent;
 
     private final OptionParser parser = new OptionParser();
@@ -51,10 +49,6 @@ public final class AgentCli {
             "Port of this Agent.")
             .withRequiredArg().ofType(Integer.class);
 
-    private final OptionSpec<Integer> workerLastSeenTimeoutSecondsSpec = parser.accepts("workerLastSeenTimeoutSeconds",
-            "Timeout value for worker timeout detection.")
-            .withRequiredArg().ofType(Integer.class).defaultsTo(DEFAULT_WORKER_LAST_SEEN_TIMEOUT_SECONDS);
-
     private final OptionSpec<String> parentPidSpec = parser.accepts("parentPid",
             "The parentPid. Useful if the agent needs to terminate itself when the parent process has terminated. "
                     + "Only makes sense to be used for local instance.")
@@ -81,9 +75,8 @@ public final class AgentCli {
             throw new CommandLineExitException("Missing parameter: --port");
         }
         int port = options.valueOf(portSpec);
-        int workerLastSeenTimeoutSeconds = options.valueOf(workerLastSeenTimeoutSecondsSpec);
         String parentPid = options.valueOf(parentPidSpec);
-        this.agent = new Agent(addressIndex, publicAddress, port, workerLastSeenTimeoutSeconds, parentPid);
+        this.agent = new Agent(addressIndex, publicAddress, port, parentPid);
     }
 
     private static void logHeader() {
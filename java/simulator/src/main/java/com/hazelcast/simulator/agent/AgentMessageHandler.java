@@ -16,8 +16,12 @@
 package com.hazelcast.simulator.agent;
 
 import com.hazelcast.simulator.agent.messages.CreateWorkerMessage;
+import com.hazelcast.simulator.agent.messages.InjectFaultMessage;
+import com.hazelcast.simulator.agent.messages.ShapeProxyMessage;
 import com.hazelcast.simulator.agent.messages.StartTimeoutDetectionMessage;
 import com.hazelcast.simulator.agent.messages.StopTimeoutDetectionMessage;
+import com.hazelcast.simulator.agent.proxy.ProxyManager;
+import com.hazelcast.simulator.agent.workerprocess.WorkerParameters;
 import com.hazelcast.simulator.agent.workerprocess.WorkerProcessFailureMonitor;
 import com.hazelcast.simulator.agent.workerprocess.WorkerProcessManager;
 import com.hazelcast.simulator.protocol.MessageHandler;
@@ -28,27 +32,48 @@ import com.hazelcast.simulator.protocol.message.SimulatorMessage;
 
 class AgentMessageHandler implements MessageHandler {
 
+    static final String PROXY_ROUTES = "PROXY_ROUTES";
+    static final String PROXY_SHAPING = "PROXY_SHAPING";
+
     private final WorkerProcessManager processManager;
     private final WorkerProcessFailureMonitor failureMonitor;
+    private final ProxyManager proxyManager;
 
     AgentMessageHandler(WorkerProcessManager processManager,
-                        WorkerProcessFailureMonitor failureMonitor) {
+                        WorkerProcessFailureMonitor failureMonitor,
+                        ProxyManager proxyManager) {
         this.processManager = processManager;
         this.failureMonitor = failureMonitor;
+        this.proxyManager = proxyManager;
     }
 
     @Override
     public void process(SimulatorMessage msg, SimulatorAddress source, Promise promise) throws Exception {
         if (msg instanceof CreateWorkerMessage) {
-            processManager.launch((CreateWorkerMessage) msg, promise);
-        } else if (msg instanceof StartTimeoutDetectionMessage) {
-            failureMonitor.startTimeoutDetection();
+            CreateWorkerMessage createWorkerMessage = (CreateWorkerMessage) msg;
+            startProxies(createWorkerMessage.getWorkerParameters());
+            processManager.launch(createWorkerMessage, promise);
+        } else if (msg instanceof StartTimeoutDetectionMessage || msg instanceof StopTimeoutDetectionMessage) {
+            // the failure monitor detects a dead worker by the exit of its process, there is no timeout to toggle
+            promise.answer("ok");
+        } else if (msg instanceof InjectFaultMessage) {
+            InjectFaultMessage injectFaultMessage = (InjectFaultMessage) msg;
+            processManager.injectFault(
+                    SimulatorAddress.fromString(injectFaultMessage.getWorkerAddress()), injectFaultMessage.getFault());
             promise.answer("ok");
-        } else if (msg instanceof StopTimeoutDetectionMessage) {
-            failureMonitor.stopTimeoutDetection();
+        } else if (msg instanceof ShapeProxyMessage) {
+            proxyManager.setShaping(((ShapeProxyMessage) msg).getShaping());
             promise.answer("ok");
         } else {
             throw new HandleException("Unknown message:" + msg);
         }
     }
+
+    private void startProxies(WorkerParameters parameters) {
+        // the members are the targets of the proxies, so only the clients connect through them
+        String routes = parameters.get(PROXY_ROUTES);
+        if (routes != null && !routes.isEmpty() && !"member".equals(parameters.getWorkerType())) {
+            proxyManager.start(routes, parameters.get(PROXY_SHAPING));
+        }
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.agent;
+
+import com.hazelcast.simulator.agent.proxy.ProxyManager;
+import com.hazelcast.simulator.agent.workerprocess.WorkerProcessFailureHandler;
+import com.hazelcast.simulator.agent.workerprocess.WorkerProcessFailureMonitor;
+import com.hazelcast.simulator.agent.workerprocess.WorkerProcessManager;
+import com.hazelcast.simulator.protocol.InMemoryBroker;
+import com.hazelcast.simulator.protocol.InMemoryServer;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.hazelcast.simulator.protocol.core.SimulatorAddress.agentAddress;
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+
+/**
+ * An agent that runs embedded in the JVM of the coordinator.
+ * <p>
+ * It handles the same messages as the {@link Agent}, but they are exchanged through an {@link InMemoryBroker} and the
+ * workers it creates are embedded in the same JVM instead of being launched as worker processes.
+ */
+public class EmbeddedAgent implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(EmbeddedAgent.class);
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final SimulatorAddress agentAddress;
+    private final WorkerProcessManager processManager;
+    private final WorkerProcessFailureMonitor workerProcessFailureMonitor;
+    private final ProxyManager proxyManager = new ProxyManager();
+    private final Server server;
+
+    public EmbeddedAgent(int addressIndex, String publicAddress, InMemoryBroker broker) {
+        this.agentAddress = agentAddress(addressIndex);
+        this.server = new InMemoryServer("agents", broker)
+                .setSelfAddress(agentAddress);
+
+        this.processManager = new WorkerProcessManager(server, agentAddress, publicAddress, broker);
+
+        this.workerProcessFailureMonitor = new WorkerProcessFailureMonitor(
+                new WorkerProcessFailureHandler(publicAddress, server),
+                processManager);
+
+        server.setProcessor(new AgentMessageHandler(processManager, workerProcessFailureMonitor, proxyManager));
+    }
+
+    public WorkerProcessManager getProcessManager() {
+        return processManager;
+    }
+
+    public void start() {
+        server.start();
+        workerProcessFailureMonitor.start();
+        LOGGER.info("Embedded agent " + agentAddress + " started");
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        LOGGER.info("Stopping embedded agent " + agentAddress + "...");
+        processManager.shutdown();
+        workerProcessFailureMonitor.shutdown();
+        proxyManager.shutdown();
+        closeQuietly(server);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.agent.messages;
+
+import com.hazelcast.simulator.protocol.message.SimulatorMessage;
+
+/**
+ * Injects a fault in a {@link com.hazelcast.simulator.agent.workerprocess.WorkerProcess} on the Simulator Agent, e.g.
+ * to measure how long the cluster needs to recover after a member died.
+ */
+public class InjectFaultMessage implements SimulatorMessage {
+
+    /**
+     * The fault to inject.
+     */
+    public enum Fault {
+        /**
+         * Kills the worker with SIGKILL, like a crashing machine.
+         */
+        KILL,
+        /**
+         * Terminates the worker with SIGTERM, so the shutdown hooks of the worker run.
+         */
+        SHUTDOWN,
+        /**
+         * Suspends the worker with SIGSTOP, like a long GC pause or an unresponsive machine.
+         */
+        PAUSE,
+        /**
+         * Resumes a paused worker with SIGCONT.
+         */
+        RESUME
+    }
+
+    private final String workerAddress;
+    private final Fault fault;
+
+    public InjectFaultMessage(String workerAddress, Fault fault) {
+        this.workerAddress = workerAddress;
+        this.fault = fault;
+    }
+
+    public String getWorkerAddress() {
+        return workerAddress;
+    }
+
+    public Fault getFault() {
+        return fault;
+    }
+
+    @Override
+    public String toString() {
+        return "InjectFaultMessage{"
+                + "workerAddress='" + workerAddress + '\''
+                + ", fault=" + fault
+                + '}';
+    }
+}
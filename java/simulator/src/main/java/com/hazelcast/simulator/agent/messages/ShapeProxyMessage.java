@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.agent.messages;
+
+import com.hazelcast.simulator.protocol.message.SimulatorMessage;
+
+/**
+ * Changes the shaping of the {@link com.hazelcast.simulator.agent.proxy.ShapingProxy} instances on the Simulator Agent,
+ * e.g. to add latency during the run phase of a single test.
+ */
+public class ShapeProxyMessage implements SimulatorMessage {
+
+    private final String shaping;
+
+    /**
+     * Creates a ShapeProxyMessage.
+     *
+     * @param shaping the shaping, or null to restore the shaping the proxies were started with.
+     */
+    public ShapeProxyMessage(String shaping) {
+        this.shaping = shaping;
+    }
+
+    public String getShaping() {
+        return shaping;
+    }
+
+    @Override
+    public String toString() {
+        return "ShapeProxyMessage{"
+                + "shaping='" + shaping + '\''
+                + '}';
+    }
+}
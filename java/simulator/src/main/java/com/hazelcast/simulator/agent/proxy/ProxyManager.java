@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.agent.proxy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static java.lang.String.format;
+
+/**
+ * Manages the {@link ShapingProxy} instances of a Simulator Agent.
+ * <p>
+ * The proxies are started when the first client worker that needs them is created, and are shared by all client workers
+ * of the agent. The routes are formatted as a comma separated list of {@code <local port>=<host>:<port>}, e.g.
+ * {@code 7701=10.0.0.1:5701,7702=10.0.0.2:5701}.
+ */
+public class ProxyManager {
+
+    private static final Logger LOGGER = LogManager.getLogger(ProxyManager.class);
+
+    private final List<ShapingProxy> proxies = new ArrayList<>();
+    private Shaping defaultShaping = Shaping.NONE;
+
+    /**
+     * Starts a proxy for every route. If the proxies already have been started, the call is ignored.
+     *
+     * @param routes  the routes to proxy.
+     * @param shaping the default shaping of the proxies.
+     * @throws IllegalArgumentException if the routes or the shaping can't be parsed.
+     * @throws UncheckedIOException     if a proxy can't be started.
+     */
+    public synchronized void start(String routes, String shaping) {
+        if (!proxies.isEmpty()) {
+            return;
+        }
+
+        defaultShaping = Shaping.parse(shaping);
+        try {
+            for (String route : routes.split(",")) {
+                int indexOfIs = route.indexOf('=');
+                int indexOfColon = route.lastIndexOf(':');
+                if (indexOfIs < 0 || indexOfColon < indexOfIs) {
+                    throw new IllegalArgumentException(
+                            format("Route [%s] should be formatted as <local port>=<host>:<port>", route));
+                }
+                int localPort = Integer.parseInt(route.substring(0, indexOfIs).trim());
+                InetSocketAddress target = new InetSocketAddress(
+                        route.substring(indexOfIs + 1, indexOfColon).trim(),
+                        Integer.parseInt(route.substring(indexOfColon + 1).trim()));
+                proxies.add(new ShapingProxy(localPort, target, defaultShaping).start());
+            }
+        } catch (IOException e) {
+            shutdown();
+            throw new UncheckedIOException("Failed to start proxies for routes [" + routes + "]", e);
+        } catch (RuntimeException e) {
+            shutdown();
+            throw e;
+        }
+    }
+
+    /**
+     * Changes the shaping of all proxies.
+     *
+     * @param shaping the new shaping, or null to restore the shaping the proxies were started with.
+     * @throws IllegalArgumentException if the shaping can't be parsed.
+     */
+    public synchronized void setShaping(String shaping) {
+        Shaping newShaping = shaping == null ? defaultShaping : Shaping.parse(shaping);
+        if (proxies.isEmpty()) {
+            LOGGER.info("No proxies are running, ignoring shaping [" + newShaping + "]");
+            return;
+        }
+        for (ShapingProxy proxy : proxies) {
+            proxy.setShaping(newShaping);
+        }
+    }
+
+    public synchronized List<ShapingProxy> getProxies() {
+        return new ArrayList<>(proxies);
+    }
+
+    public synchronized void shutdown() {
+        closeQuietly(proxies);
+        proxies.clear();
+    }
+}
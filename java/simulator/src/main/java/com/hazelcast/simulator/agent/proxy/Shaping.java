@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.agent.proxy;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static java.lang.Math.max;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * The conditions of a link emulated by the {@link ShapingProxy}.
+ * <p>
+ * A Shaping is parsed from a comma separated list of settings, e.g.
+ * {@code delay=20ms,jitter=5ms,bandwidth=100mbit,stall=0.001:200ms}:
+ * <ul>
+ * <li>delay: the one-way delay added to every direction of a connection.</li>
+ * <li>jitter: the maximum random deviation of the delay; the data of a connection is never reordered.</li>
+ * <li>bandwidth: the maximum bandwidth of every direction of a connection in bit/s, kbit/s, mbit/s or gbit/s.</li>
+ * <li>stall: the probability that a chunk of data is stalled and the duration of the stall; like a dropped packet
+ * that needs to be retransmitted, the stall also holds up all the data behind it.</li>
+ * </ul>
+ * Durations can be given in us, ms or s. A setting that isn't given, isn't applied.
+ * <p>
+ * This class is immutable.
+ */
+public final class Shaping {
+
+    /**
+     * Passes the data through unchanged.
+     */
+    public static final Shaping NONE = new Shaping(0, 0, 0, 0, 0);
+
+    private final long delayNanos;
+    private final long jitterNanos;
+    private final long bandwidthBitsPerSecond;
+    private final double stallProbability;
+    private final long stallNanos;
+
+    Shaping(long delayNanos, long jitterNanos, long bandwidthBitsPerSecond, double stallProbability, long stallNanos) {
+        this.delayNanos = delayNanos;
+        this.jitterNanos = jitterNanos;
+        this.bandwidthBitsPerSecond = bandwidthBitsPerSecond;
+        this.stallProbability = stallProbability;
+        this.stallNanos = stallNanos;
+    }
+
+    /**
+     * Parses a Shaping.
+     *
+     * @param spec the comma separated settings; null or empty means {@link #NONE}.
+     * @return the parsed Shaping.
+     * @throws IllegalArgumentException if the spec can't be parsed.
+     */
+    public static Shaping parse(String spec) {
+        if (spec == null || spec.trim().isEmpty() || "none".equals(spec.trim())) {
+            return NONE;
+        }
+
+        long delayNanos = 0;
+        long jitterNanos = 0;
+        long bandwidthBitsPerSecond = 0;
+        double stallProbability = 0;
+        long stallNanos = 0;
+        for (String setting : spec.split(",")) {
+            int indexOfIs = setting.indexOf('=');
+            if (indexOfIs < 0) {
+                throw new IllegalArgumentException(format("Setting [%s] of shaping [%s] has no value", setting, spec));
+            }
+            String name = setting.substring(0, indexOfIs).trim();
+            String value = setting.substring(indexOfIs + 1).trim().toLowerCase(Locale.ENGLISH);
+            switch (name) {
+                case "delay":
+                    delayNanos = parseNanos(value);
+                    break;
+                case "jitter":
+                    jitterNanos = parseNanos(value);
+                    break;
+                case "bandwidth":
+                    bandwidthBitsPerSecond = parseBandwidth(value);
+                    break;
+                case "stall":
+                    int indexOfColon = value.indexOf(':');
+                    if (indexOfColon < 0) {
+                        throw new IllegalArgumentException(
+                                format("Stall [%s] should be formatted as <probability>:<duration>", value));
+                    }
+                    stallProbability = Double.parseDouble(value.substring(0, indexOfColon));
+                    if (stallProbability < 0 || stallProbability > 1) {
+                        throw new IllegalArgumentException(
+                                format("Stall probability [%s] should be between 0 and 1", stallProbability));
+                    }
+                    stallNanos = parseNanos(value.substring(indexOfColon + 1));
+                    break;
+                default:
+                    throw new IllegalArgumentException(format("Unknown setting [%s] in shaping [%s],"
+                            + " expected delay, jitter, bandwidth or stall", name, spec));
+            }
+        }
+        return new Shaping(delayNanos, jitterNanos, bandwidthBitsPerSecond, stallProbability, stallNanos);
+    }
+
+    private static long parseNanos(String value) {
+        try {
+            if (value.endsWith("us")) {
+                return MICROSECONDS.toNanos(Long.parseLong(value.substring(0, value.length() - 2)));
+            } else if (value.endsWith("ms")) {
+                return MILLISECONDS.toNanos(Long.parseLong(value.substring(0, value.length() - 2)));
+            } else if (value.endsWith("s")) {
+                return SECONDS.toNanos(Long.parseLong(value.substring(0, value.length() - 1)));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("Failed to parse duration [%s]", value), e);
+        }
+        throw new IllegalArgumentException(format("Duration [%s] should end with us, ms or s", value));
+    }
+
+    private static long parseBandwidth(String value) {
+        try {
+            if (value.endsWith("gbit")) {
+                return Long.parseLong(value.substring(0, value.length() - 4)) * 1000 * 1000 * 1000;
+            } else if (value.endsWith("mbit")) {
+                return Long.parseLong(value.substring(0, value.length() - 4)) * 1000 * 1000;
+            } else if (value.endsWith("kbit")) {
+                return Long.parseLong(value.substring(0, value.length() - 4)) * 1000;
+            } else if (value.endsWith("bit")) {
+                return Long.parseLong(value.substring(0, value.length() - 3));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("Failed to parse bandwidth [%s]", value), e);
+        }
+        throw new IllegalArgumentException(format("Bandwidth [%s] should end with bit, kbit, mbit or gbit", value));
+    }
+
+    public long delayNanos() {
+        return delayNanos;
+    }
+
+    public long jitterNanos() {
+        return jitterNanos;
+    }
+
+    public long bandwidthBitsPerSecond() {
+        return bandwidthBitsPerSecond;
+    }
+
+    public double stallProbability() {
+        return stallProbability;
+    }
+
+    public long stallNanos() {
+        return stallNanos;
+    }
+
+    /**
+     * Returns the delay of a chunk of data; including the jitter and the stall if the chunk is stalled.
+     *
+     * @param random the random to determine the jitter and stall with.
+     * @return the delay in nanoseconds.
+     */
+    long nextDelayNanos(Random random) {
+        long delay = delayNanos;
+        if (jitterNanos > 0) {
+            delay = max(0, delay + (long) ((random.nextDouble() * 2 - 1) * jitterNanos));
+        }
+        if (stallProbability > 0 && random.nextDouble() < stallProbability) {
+            delay += stallNanos;
+        }
+        return delay;
+    }
+
+    /**
+     * Returns the time needed to transmit a number of bytes with the bandwidth of this Shaping.
+     *
+     * @param bytes the number of bytes.
+     * @return the transmission time in nanoseconds; 0 if the bandwidth isn't limited.
+     */
+    long transmissionNanos(int bytes) {
+        return bandwidthBitsPerSecond == 0 ? 0 : bytes * 8L * SECONDS.toNanos(1) / bandwidthBitsPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        if (this == NONE) {
+            return "none";
+        }
+        return format(Locale.ENGLISH, "delay=%dus,jitter=%dus,bandwidth=%dbit,stall=%s:%dus",
+                NANOSECONDS.toMicros(delayNanos), NANOSECONDS.toMicros(jitterNanos), bandwidthBitsPerSecond,
+                stallProbability, NANOSECONDS.toMicros(stallNanos));
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.agent.proxy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A TCP proxy that forwards the connections made to a local port to a target address and applies a {@link Shaping} to
+ * the data of every direction of every connection.
+ * <p>
+ * All connections of a proxy are handled by a single selector thread. Data that is read is queued with the time it may
+ * be released to the other side; so the delay is added without blocking the thread and the bandwidth is enforced by
+ * spacing the release times. When too much data is queued for a direction, reading from its source is suspended, so
+ * the sender sees the same back pressure as it would on a slow link.
+ * <p>
+ * The shaping can be changed while the proxy is running; the new shaping applies to data read after the change.
+ * <p>
+ * The connection to the target is made without blocking, so a slow or unreachable target doesn't stall the other
+ * connections of the proxy.
+ */
+public class ShapingProxy implements Closeable {
+
+    static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    static final int READ_BUFFER_SIZE = 64 * 1024;
+    static final int MAX_PENDING_BYTES = 4 * 1024 * 1024;
+
+    private static final Logger LOGGER = LogManager.getLogger(ShapingProxy.class);
+
+    private final int localPort;
+    private final InetSocketAddress target;
+    private final Set<Connection> connections = new HashSet<>();
+    private final Random random = new Random();
+    private volatile Shaping shaping;
+    private volatile boolean closed;
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private Thread thread;
+
+    /**
+     * Creates a ShapingProxy.
+     *
+     * @param localPort the local port to listen on; 0 to pick a free port.
+     * @param target    the address to forward the connections to.
+     * @param shaping   the initial shaping.
+     */
+    public ShapingProxy(int localPort, InetSocketAddress target, Shaping shaping) {
+        this.localPort = localPort;
+        this.target = target;
+        this.shaping = shaping;
+    }
+
+    /**
+     * Binds the local port and starts forwarding.
+     *
+     * @return this ShapingProxy.
+     * @throws IOException if the local port can't be bound.
+     */
+    public ShapingProxy start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(new InetSocketAddress(localPort));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            closeQuietly(serverChannel);
+            closeQuietly(selector);
+            throw e;
+        }
+
+        thread = new Thread(this::run, "ShapingProxy-" + getLocalPort());
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("Forwarding port " + getLocalPort() + " to " + target + " with shaping [" + shaping + "]");
+        return this;
+    }
+
+    /**
+     * Returns the port the proxy is listening on.
+     *
+     * @return the local port.
+     */
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public InetSocketAddress getTarget() {
+        return target;
+    }
+
+    public Shaping getShaping() {
+        return shaping;
+    }
+
+    public void setShaping(Shaping shaping) {
+        this.shaping = shaping;
+        LOGGER.info("Changed shaping of port " + getLocalPort() + " to [" + shaping + "]");
+    }
+
+    /**
+     * Stops forwarding and closes all connections.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (thread == null) {
+            return;
+        }
+        selector.wakeup();
+        try {
+            thread.join(CONNECT_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                long nowNanos = System.nanoTime();
+                long nextReleaseNanos = Long.MAX_VALUE;
+                for (Iterator<Connection> it = connections.iterator(); it.hasNext(); ) {
+                    Connection connection = it.next();
+                    if (!connection.flush(nowNanos)) {
+                        it.remove();
+                        continue;
+                    }
+                    nextReleaseNanos = min(nextReleaseNanos, connection.nextWakeupNanos());
+                }
+
+                if (nextReleaseNanos == Long.MAX_VALUE) {
+                    selector.select();
+                } else {
+                    long waitNanos = nextReleaseNanos - nowNanos;
+                    if (waitNanos <= 0) {
+                        selector.selectNow();
+                    } else {
+                        // rounded up, so we don't spin until the release time is reached
+                        selector.select(max(1, NANOSECONDS.toMillis(waitNanos + MILLISECONDS.toNanos(1) - 1)));
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.channel() == serverChannel) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isValid() && key.isConnectable() && !connection.finishConnect()) {
+                            connections.remove(connection);
+                            continue;
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.writable(key);
+                        }
+                        if (key.isValid() && key.isReadable() && !connection.read(key)) {
+                            connections.remove(connection);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Proxy on port " + getLocalPort() + " failed", e);
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            connections.clear();
+            closeQuietly(serverChannel);
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client = serverChannel.accept();
+        if (client == null) {
+            return;
+        }
+
+        SocketChannel server = SocketChannel.open();
+        boolean connected;
+        try {
+            server.configureBlocking(false);
+            connected = server.connect(target);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to connect " + client.getRemoteAddress() + " to " + target, e);
+            closeQuietly(server);
+            closeQuietly(client);
+            return;
+        }
+
+        client.configureBlocking(false);
+        client.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(client, server, connected);
+        connections.add(connection);
+        LOGGER.debug("Forwarding " + client.getRemoteAddress() + " to " + target);
+    }
+
+    /**
+     * A chunk of data waiting to be released.
+     */
+    private static final class Chunk {
+        private final ByteBuffer buffer;
+        private final long releaseNanos;
+
+        private Chunk(ByteBuffer buffer, long releaseNanos) {
+            this.buffer = buffer;
+            this.releaseNanos = releaseNanos;
+        }
+    }
+
+    /**
+     * One direction of a connection.
+     */
+    private final class Pipe {
+        private final SocketChannel source;
+        private final SocketChannel sink;
+        // reused for every read; only the bytes that were read are copied into the queued chunk
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+        private long pendingBytes;
+        private long linkFreeNanos;
+        private long lastReleaseNanos;
+        private boolean eof;
+        private boolean done;
+        private boolean blocked;
+
+        private Pipe(SocketChannel source, SocketChannel sink) {
+            this.source = source;
+            this.sink = sink;
+        }
+
+        private boolean wantsRead() {
+            return !eof && pendingBytes < MAX_PENDING_BYTES;
+        }
+
+        private void read() throws IOException {
+            readBuffer.clear();
+            int bytes = source.read(readBuffer);
+            if (bytes < 0) {
+                eof = true;
+                return;
+            } else if (bytes == 0) {
+                return;
+            }
+            readBuffer.flip();
+            ByteBuffer buffer = ByteBuffer.allocate(bytes);
+            buffer.put(readBuffer).flip();
+
+            Shaping shaping = ShapingProxy.this.shaping;
+            long nowNanos = System.nanoTime();
+            linkFreeNanos = max(linkFreeNanos, nowNanos) + shaping.transmissionNanos(bytes);
+            // the data of a connection is never reordered, so a chunk is never released before its predecessor
+            long releaseNanos = max(linkFreeNanos + shaping.nextDelayNanos(random), lastReleaseNanos);
+            lastReleaseNanos = releaseNanos;
+            chunks.add(new Chunk(buffer, releaseNanos));
+            pendingBytes += bytes;
+        }
+
+        private void flush(long nowNanos) throws IOException {
+            Chunk chunk;
+            if (blocked) {
+                return;
+            }
+            while ((chunk = chunks.peek()) != null && chunk.releaseNanos - nowNanos <= 0) {
+                int bytes = sink.write(chunk.buffer);
+                pendingBytes -= bytes;
+                if (chunk.buffer.hasRemaining()) {
+                    // the socket buffer is full; retried when the sink becomes writable
+                    blocked = true;
+                    return;
+                }
+                chunks.poll();
+            }
+            if (eof && chunks.isEmpty() && !done) {
+                done = true;
+                sink.shutdownOutput();
+            }
+        }
+
+        private long nextReleaseNanos() {
+            Chunk chunk = chunks.peek();
+            return chunk == null || blocked ? Long.MAX_VALUE : chunk.releaseNanos;
+        }
+    }
+
+    /**
+     * A connection from a client to the target.
+     */
+    private final class Connection {
+        private final SocketChannel client;
+        private final SocketChannel server;
+        private final Pipe upstream;
+        private final Pipe downstream;
+        private final SelectionKey clientKey;
+        private final SelectionKey serverKey;
+        private final long connectDeadlineNanos;
+        private boolean connecting;
+
+        private Connection(SocketChannel client, SocketChannel server, boolean connected) throws IOException {
+            this.client = client;
+            this.server = server;
+            this.upstream = new Pipe(client, server);
+            this.downstream = new Pipe(server, client);
+            this.connecting = !connected;
+            this.connectDeadlineNanos = System.nanoTime() + MILLISECONDS.toNanos(CONNECT_TIMEOUT_MILLIS);
+            // the client is only read once the target is connected
+            this.clientKey = client.register(selector, connecting ? 0 : SelectionKey.OP_READ, this);
+            this.serverKey = server.register(selector, connecting ? SelectionKey.OP_CONNECT : SelectionKey.OP_READ, this);
+            if (!connecting) {
+                server.socket().setTcpNoDelay(true);
+            }
+        }
+
+        private boolean finishConnect() {
+            try {
+                if (!server.finishConnect()) {
+                    return true;
+                }
+                connecting = false;
+                server.socket().setTcpNoDelay(true);
+                updateInterest();
+                return true;
+            } catch (IOException e) {
+                LOGGER.warn("Failed to connect " + client.socket().getRemoteSocketAddress() + " to " + target, e);
+                close();
+                return false;
+            }
+        }
+
+        private boolean read(SelectionKey key) {
+            try {
+                if (key == clientKey) {
+                    upstream.read();
+                } else {
+                    downstream.read();
+                }
+                updateInterest();
+                return true;
+            } catch (IOException e) {
+                LOGGER.debug("Connection to " + target + " failed", e);
+                close();
+                return false;
+            }
+        }
+
+        private void writable(SelectionKey key) {
+            if (key == clientKey) {
+                downstream.blocked = false;
+            } else {
+                upstream.blocked = false;
+            }
+            updateInterest();
+        }
+
+        private boolean flush(long nowNanos) {
+            if (connecting) {
+                if (nowNanos - connectDeadlineNanos < 0) {
+                    return true;
+                }
+                LOGGER.warn("Failed to connect " + client.socket().getRemoteSocketAddress() + " to " + target
+                        + " within " + CONNECT_TIMEOUT_MILLIS + " ms");
+                close();
+                return false;
+            }
+
+            try {
+                upstream.flush(nowNanos);
+                downstream.flush(nowNanos);
+                if (upstream.done && downstream.done) {
+                    close();
+                    return false;
+                }
+                updateInterest();
+                return true;
+            } catch (IOException e) {
+                LOGGER.debug("Connection to " + target + " failed", e);
+                close();
+                return false;
+            }
+        }
+
+        private long nextWakeupNanos() {
+            if (connecting) {
+                return connectDeadlineNanos;
+            }
+            return min(upstream.nextReleaseNanos(), downstream.nextReleaseNanos());
+        }
+
+        private void updateInterest() {
+            if (connecting) {
+                return;
+            }
+
+            clientKey.interestOps((upstream.wantsRead() ? SelectionKey.OP_READ : 0)
+                    | (downstream.blocked ? SelectionKey.OP_WRITE : 0));
+            serverKey.interestOps((downstream.wantsRead() ? SelectionKey.OP_READ : 0)
+                    | (upstream.blocked ? SelectionKey.OP_WRITE : 0));
+        }
+
+        private void close() {
+            closeQuietly(client);
+            closeQuietly(server);
+        }
+    }
+}
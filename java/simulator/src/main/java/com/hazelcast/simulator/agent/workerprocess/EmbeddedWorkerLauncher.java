@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.agent.workerprocess;
+
+import com.hazelcast.simulator.protocol.InMemoryBroker;
+import com.hazelcast.simulator.protocol.InMemoryServer;
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import com.hazelcast.simulator.worker.Worker;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.hazelcast.simulator.agent.workerprocess.WorkerProcessLauncher.FILE_PREFIX;
+import static com.hazelcast.simulator.utils.FileUtils.ensureFreshDirectory;
+import static com.hazelcast.simulator.utils.FileUtils.setEmbeddedWorkerHome;
+import static com.hazelcast.simulator.utils.FileUtils.writeText;
+import static java.lang.String.format;
+
+/**
+ * Launches a {@link Worker} embedded in the JVM of its agent, instead of in a JVM of its own.
+ * <p>
+ * The home directory of the worker is created in the run directory, so the files of the worker end up in the same place as
+ * the files downloaded from the agents. The worker and the threads it creates write their files to the home directory; see
+ * {@link com.hazelcast.simulator.utils.FileUtils#getUserDir()}.
+ */
+class EmbeddedWorkerLauncher implements WorkerLauncher {
+
+    private static final Logger LOGGER = LogManager.getLogger(EmbeddedWorkerLauncher.class);
+
+    private final WorkerProcessManager processManager;
+    private final WorkerParameters parameters;
+    private final InMemoryBroker broker;
+    private final SimulatorAddress workerAddress;
+
+    EmbeddedWorkerLauncher(WorkerProcessManager processManager, WorkerParameters parameters, InMemoryBroker broker) {
+        this.processManager = processManager;
+        this.parameters = parameters;
+        this.broker = broker;
+        this.workerAddress = SimulatorAddress.fromString(parameters.get("WORKER_ADDRESS"));
+    }
+
+    @Override
+    public void launch() throws Exception {
+        String workerName = parameters.get("WORKER_NAME");
+        File workerHome = ensureFreshDirectory(new File(parameters.get("run_path"), workerName).getAbsoluteFile());
+
+        // the files are written to the worker home like for a worker process; the other parameters are passed as they are
+        Map<String, String> workerParameters = new HashMap<>();
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith(FILE_PREFIX)) {
+                writeText(entry.getValue(), new File(workerHome, key.substring(FILE_PREFIX.length())));
+            } else {
+                workerParameters.put(key, entry.getValue());
+            }
+        }
+
+        LOGGER.info(format("Starting embedded %s Worker %s in %s",
+                parameters.getWorkerType(), workerAddress, workerHome.getAbsolutePath()));
+
+        WorkerProcess workerProcess = new WorkerProcess(workerAddress, workerName, workerHome);
+        setEmbeddedWorkerHome(workerHome);
+        try {
+            Worker worker = new Worker(new WorkerParameters(workerParameters), new InMemoryServer("workers", broker),
+                    () -> processManager.onEmbeddedWorkerShutdown(workerProcess));
+            workerProcess.setEmbeddedWorker(worker);
+            processManager.add(workerAddress, workerProcess);
+            worker.start();
+        } catch (Exception e) {
+            processManager.remove(workerProcess);
+            throw e;
+        } finally {
+            setEmbeddedWorkerHome(null);
+        }
+
+        LOGGER.info(format("Embedded Worker %s started", workerAddress));
+    }
+}
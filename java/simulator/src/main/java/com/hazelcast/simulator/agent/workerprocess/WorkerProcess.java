@@ -15,14 +15,19 @@
  */
 package com.hazelcast.simulator.agent.workerprocess;
 
+import com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import com.hazelcast.simulator.worker.Worker;
 
 import java.io.File;
+import java.nio.file.WatchKey;
 
 import static java.lang.System.currentTimeMillis;
 
 /**
  * Represents a worker process. So the process that does the actual work.
+ * <p>
+ * An embedded worker runs in the JVM of its agent; it has no process, but the {@link Worker} itself.
  */
 public class WorkerProcess {
 
@@ -32,7 +37,11 @@ public class WorkerProcess {
     private volatile long lastSeen = currentTimeMillis();
     private volatile boolean oomeDetected;
     private volatile boolean isFinished;
+    private volatile boolean isStopped;
+    private volatile Fault injectedFault;
     private volatile Process process;
+    private volatile Worker embeddedWorker;
+    private volatile WatchKey watchKey;
 
     public WorkerProcess(SimulatorAddress address, String workerName, File workerHome) {
         this.address = address;
@@ -80,6 +89,32 @@ public class WorkerProcess {
         isFinished = true;
     }
 
+    /**
+     * Checks if the worker was stopped on purpose, e.g. when the agent shuts down, so its exit is not a failure.
+     *
+     * @return true if stopped.
+     */
+    public boolean isStopped() {
+        return isStopped;
+    }
+
+    public void setStopped() {
+        isStopped = true;
+    }
+
+    /**
+     * Returns the fault that was injected to terminate the worker.
+     *
+     * @return the injected kill or shutdown fault, or null if no such fault was injected.
+     */
+    public Fault getInjectedFault() {
+        return injectedFault;
+    }
+
+    public void setInjectedFault(Fault injectedFault) {
+        this.injectedFault = injectedFault;
+    }
+
     public Process getProcess() {
         return process;
     }
@@ -87,4 +122,20 @@ public class WorkerProcess {
     public void setProcess(Process process) {
         this.process = process;
     }
+
+    public Worker getEmbeddedWorker() {
+        return embeddedWorker;
+    }
+
+    public void setEmbeddedWorker(Worker embeddedWorker) {
+        this.embeddedWorker = embeddedWorker;
+    }
+
+    WatchKey getWatchKey() {
+        return watchKey;
+    }
+
+    void setWatchKey(WatchKey watchKey) {
+        this.watchKey = watchKey;
+    }
 }
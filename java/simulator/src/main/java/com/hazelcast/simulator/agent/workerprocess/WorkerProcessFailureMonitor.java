@@ -15,6 +15,7 @@
  */
 package com.hazelcast.simulator.agent.workerprocess;
 
+import com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault;
 import com.hazelcast.simulator.common.FailureType;
 import com.hazelcast.simulator.utils.FileUtils;
 import com.hazelcast.simulator.utils.UncheckedIOException;
@@ -23,226 +24,283 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.hazelcast.simulator.common.FailureType.WORKER_ABNORMAL_EXIT;
 import static com.hazelcast.simulator.common.FailureType.WORKER_EXCEPTION;
 import static com.hazelcast.simulator.common.FailureType.WORKER_NORMAL_EXIT;
 import static com.hazelcast.simulator.common.FailureType.WORKER_OOME;
-import static com.hazelcast.simulator.common.FailureType.WORKER_TIMEOUT;
-import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
 import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
 import static com.hazelcast.simulator.utils.FormatUtils.NEW_LINE;
 import static java.lang.String.format;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
-import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 
+/**
+ * Detects failures of the worker processes running on this agent.
+ *
+ * Instead of periodically scanning the worker directories, the home directory of every worker is registered
+ * with a {@link WatchService} (inotify on Linux) so that exception files and OOME markers are picked up as soon
+ * as they are written. The termination of a worker is detected using {@link Process#onExit()}, so a crashing
+ * worker is reported immediately instead of on the next scan.
+ */
 public class WorkerProcessFailureMonitor {
 
-    private static final int DEFAULT_CHECK_INTERVAL_MILLIS = (int) SECONDS.toMillis(1);
-
     private static final Logger LOGGER = LogManager.getLogger(WorkerProcessFailureMonitor.class);
 
+    private final WorkerProcessFailureHandler failureHandler;
+    private final WorkerProcessManager workerProcessManager;
+    private final ConcurrentMap<WatchKey, WorkerProcess> watchedWorkers = new ConcurrentHashMap<>();
+    private final WatchService watchService;
     private final MonitorThread monitorThread;
 
-    public WorkerProcessFailureMonitor(WorkerProcessFailureHandler failureHandler,
-                                       WorkerProcessManager workerProcessManager,
-                                       int lastSeenTimeoutSeconds) {
-        this(failureHandler, workerProcessManager, lastSeenTimeoutSeconds, DEFAULT_CHECK_INTERVAL_MILLIS);
-    }
+    private volatile boolean shutdown;
 
-    WorkerProcessFailureMonitor(WorkerProcessFailureHandler failureHandler,
-                                WorkerProcessManager workerProcessManager,
-                                int lastSeenTimeoutSeconds,
-                                int checkIntervalMillis) {
-        monitorThread = new MonitorThread(failureHandler, workerProcessManager, lastSeenTimeoutSeconds, checkIntervalMillis);
+    public WorkerProcessFailureMonitor(WorkerProcessFailureHandler failureHandler,
+                                       WorkerProcessManager workerProcessManager) {
+        this.failureHandler = failureHandler;
+        this.workerProcessManager = workerProcessManager;
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.monitorThread = new MonitorThread();
     }
 
     public void start() {
+        workerProcessManager.setWorkerProcessListener(this::register);
+        for (WorkerProcess workerProcess : workerProcessManager.getWorkerProcesses()) {
+            register(workerProcess);
+        }
         monitorThread.start();
     }
 
     public void shutdown() {
+        shutdown = true;
         monitorThread.running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close WatchService", e);
+        }
         monitorThread.interrupt();
     }
 
-    public void startTimeoutDetection() {
-        if (monitorThread.lastSeenTimeoutSeconds > 0) {
-            LOGGER.info("Starting timeout detection for Workers...");
-            monitorThread.updateLastSeen();
-            monitorThread.detectTimeouts = true;
+    /**
+     * Starts monitoring the given worker process.
+     *
+     * The worker home is registered with the {@link WatchService} before it is scanned once, so files written between
+     * the creation of the worker directory and the registration are not missed.
+     *
+     * @param workerProcess the worker process to monitor
+     */
+    void register(WorkerProcess workerProcess) {
+        File workerHome = workerProcess.getWorkerHome();
+        if (workerHome.exists()) {
+            try {
+                WatchKey watchKey = workerHome.toPath().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+                workerProcess.setWatchKey(watchKey);
+                watchedWorkers.put(watchKey, workerProcess);
+            } catch (ClosedWatchServiceException e) {
+                LOGGER.debug("Can't register Worker " + workerProcess.getWorkerName() + ", monitor is shut down");
+                return;
+            } catch (IOException e) {
+                LOGGER.fatal("Failed to watch Worker home " + workerHome.getAbsolutePath(), e);
+            }
+            scan(workerProcess);
         }
-    }
 
-    public void stopTimeoutDetection() {
-        if (monitorThread.lastSeenTimeoutSeconds > 0) {
-            LOGGER.info("Stopping timeout detection for Workers...");
-            monitorThread.detectTimeouts = false;
+        Process process = workerProcess.getProcess();
+        if (process != null) {
+            process.onExit().thenRun(() -> onExit(workerProcess));
         }
     }
 
-    private final class MonitorThread extends Thread {
-
-        private final WorkerProcessFailureHandler failureHandler;
-        private final WorkerProcessManager workerProcessManager;
-        private final int lastSeenTimeoutSeconds;
-        private final int checkIntervalMillis;
-
-        private volatile boolean running = true;
-        private volatile boolean detectTimeouts;
-
-        private MonitorThread(WorkerProcessFailureHandler failureHandler,
-                              WorkerProcessManager workerProcessManager,
-                              int lastSeenTimeoutSeconds,
-                              int checkIntervalMillis) {
-            super("WorkerJvmFailureMonitorThread");
-            setDaemon(true);
-            this.failureHandler = failureHandler;
-            this.workerProcessManager = workerProcessManager;
-            this.lastSeenTimeoutSeconds = lastSeenTimeoutSeconds;
-            this.checkIntervalMillis = checkIntervalMillis;
+    private synchronized void scan(WorkerProcess workerProcess) {
+        try {
+            for (File exceptionFile : ExceptionExtensionFilter.listFiles(workerProcess.getWorkerHome())) {
+                handleExceptionFile(workerProcess, exceptionFile);
+            }
+            detectOomeFailure(workerProcess);
+        } catch (Exception e) {
+            LOGGER.fatal("Failed to scan for failures", e);
         }
+    }
 
-        @Override
-        public void run() {
-            while (running) {
-                try {
-                    for (WorkerProcess workerProcess : workerProcessManager.getWorkerProcesses()) {
-
-                        detectFailures(workerProcess);
-
-                        if (workerProcess.isFinished()) {
-                            workerProcessManager.remove(workerProcess);
-                        }
-                    }
-                } catch (Exception e) {
-                    LOGGER.fatal("Failed to scan for failures", e);
+    private synchronized void onFileEvent(WorkerProcess workerProcess, String fileName) {
+        try {
+            if (fileName.endsWith(".exception")) {
+                File exceptionFile = new File(workerProcess.getWorkerHome(), fileName);
+                if (exceptionFile.exists()) {
+                    handleExceptionFile(workerProcess, exceptionFile);
                 }
-                sleepMillis(checkIntervalMillis);
+            } else if ("worker.oome".equals(fileName) || fileName.endsWith(".hprof")) {
+                detectOomeFailure(workerProcess);
             }
+        } catch (Exception e) {
+            LOGGER.fatal("Failed to process failure file " + fileName, e);
         }
+    }
 
-        private void updateLastSeen() {
-            for (WorkerProcess workerProcess : workerProcessManager.getWorkerProcesses()) {
-                workerProcess.updateLastSeen();
+    private synchronized void onExit(WorkerProcess workerProcess) {
+        try {
+            WatchKey watchKey = workerProcess.getWatchKey();
+            if (watchKey != null) {
+                watchKey.cancel();
+                watchedWorkers.remove(watchKey);
             }
-        }
 
-        private void detectFailures(WorkerProcess workerProcess) {
-            detectExceptions(workerProcess);
+            // a worker that was stopped on purpose, e.g. by the shutdown of the agent, has not failed
+            if (shutdown || workerProcess.isStopped() || !workerProcessManager.contains(workerProcess)) {
+                return;
+            }
+
+            // the worker could have written an exception or OOME marker just before it died
+            scan(workerProcess);
 
             if (workerProcess.isOomeDetected()) {
+                workerProcessManager.remove(workerProcess);
                 return;
             }
 
-            detectOomeFailure(workerProcess);
-
-            //detectInactivity(workerProcess);
+            Fault injectedFault = workerProcess.getInjectedFault();
+            if (injectedFault != null) {
+                // the coordinator still needs to know the worker is gone, but the exit is expected
+                workerProcess.setFinished();
+                workerProcessManager.remove(workerProcess);
+                sendFailureOperation(format("Worker terminated by injected fault %s", injectedFault), WORKER_NORMAL_EXIT,
+                        workerProcess);
+                return;
+            }
 
             detectUnexpectedExit(workerProcess);
+        } catch (Exception e) {
+            LOGGER.fatal("Failed to process exit of Worker " + workerProcess.getWorkerName(), e);
         }
+    }
 
-        private void detectExceptions(WorkerProcess workerProcess) {
-            File workerHome = workerProcess.getWorkerHome();
-            if (!workerHome.exists()) {
-                return;
-            }
+    private void handleExceptionFile(WorkerProcess workerProcess, File exceptionFile) {
+        String content = fileAsText(exceptionFile);
 
-            File[] exceptionFiles = ExceptionExtensionFilter.listFiles(workerHome);
-            for (File exceptionFile : exceptionFiles) {
-                String content = fileAsText(exceptionFile);
+        int indexOf = content.indexOf(NEW_LINE);
+        String testId = content.substring(0, indexOf);
+        String cause = content.substring(indexOf + 1);
 
-                int indexOf = content.indexOf(NEW_LINE);
-                String testId = content.substring(0, indexOf);
-                String cause = content.substring(indexOf + 1);
+        if (testId.isEmpty() || "null".equals(testId)) {
+            testId = null;
+        }
 
-                if (testId.isEmpty() || "null".equals(testId)) {
-                    testId = null;
-                }
+        failureHandler.handle("Worked ran into an unhandled exception", WORKER_EXCEPTION, workerProcess,
+                testId, cause);
 
-                failureHandler.handle("Worked ran into an unhandled exception", WORKER_EXCEPTION, workerProcess,
-                        testId, cause);
+        move(exceptionFile);
+    }
 
-                move(exceptionFile);
-            }
+    // we rename the exception file so that we don't detect the same exception again
+    // moving it to the exception directory also means that we don't loose the exception if there is
+    // some kind of messaging error and it will be easy to find the exceptions thrown by a worker for further analysis.
+    private static void move(File exceptionFile) {
+        // we create an exceptions directory
+        File exceptionDir = new File(exceptionFile.getParent(), "exceptions");
+        FileUtils.ensureExistingDirectory(exceptionDir);
+
+        // and then move the file into that directory
+        File newExceptionFile = new File(exceptionDir, exceptionFile.getName());
+        if (!exceptionFile.renameTo(newExceptionFile)) {
+            throw new UncheckedIOException(
+                    format(
+                            "Failed to move exception file [%s] to [%s]",
+                            exceptionFile.getAbsolutePath(), exceptionDir.getAbsolutePath()));
         }
+    }
 
-        // we rename the exception file so that we don't detect the same exception again
-        // moving it to the exception directory also means that we don't loose the exception if there is
-        // some kind of messaging error and it will be easy to find the exceptions thrown by a worker for further analysis.
-        private void move(File exceptionFile) {
-            // we create an exceptions directory
-            File exceptionDir = new File(exceptionFile.getParent(), "exceptions");
-            FileUtils.ensureExistingDirectory(exceptionDir);
-
-            // and then move the file into that directory
-            File newExceptionFile = new File(exceptionDir, exceptionFile.getName());
-            if (!exceptionFile.renameTo(newExceptionFile)) {
-                throw new UncheckedIOException(
-                        format(
-                                "Failed to move exception file [%s] to [%s]",
-                                exceptionFile.getAbsolutePath(), exceptionDir.getAbsolutePath()));
-            }
+    private void detectOomeFailure(WorkerProcess workerProcess) {
+        if (workerProcess.isOomeDetected() || !isOomeFound(workerProcess.getWorkerHome())) {
+            return;
         }
+        workerProcess.setOomeDetected();
 
-        private void detectOomeFailure(WorkerProcess workerProcess) {
-            if (!isOomeFound(workerProcess.getWorkerHome())) {
-                return;
-            }
-            workerProcess.setOomeDetected();
+        sendFailureOperation("Worker ran into an OOME", WORKER_OOME, workerProcess);
+    }
 
-            sendFailureOperation("Worker ran into an OOME", WORKER_OOME, workerProcess);
+    private static boolean isOomeFound(File workerHome) {
+        File oomeFile = new File(workerHome, "worker.oome");
+        if (oomeFile.exists()) {
+            return true;
         }
 
-        private boolean isOomeFound(File workerHome) {
-            File oomeFile = new File(workerHome, "worker.oome");
-            if (oomeFile.exists()) {
-                return true;
-            }
+        // if we find the hprof file, we also know there is an OOME. The problem with the worker.oome file is that it is
+        // created after the heap dump is done, and creating the heap dump can take a lot of time. And then the system could
+        // think there is another problem (e.g. lack of inactivity; or timeouts). This hides the OOME.
+        File[] hprofFiles = HProfExtensionFilter.listFiles(workerHome);
+        return (hprofFiles.length > 0);
+    }
+
+    private void detectUnexpectedExit(WorkerProcess workerProcess) {
+        int exitCode = workerProcess.getProcess().exitValue();
 
-            // if we find the hprof file, we also know there is an OOME. The problem with the worker.oome file is that it is
-            // created after the heap dump is done, and creating the heap dump can take a lot of time. And then the system could
-            // think there is another problem (e.g. lack of inactivity; or timeouts). This hides the OOME.
-            File[] hprofFiles = HProfExtensionFilter.listFiles(workerHome);
-            return (hprofFiles.length > 0);
+        if (exitCode == 0) {
+            workerProcess.setFinished();
+            workerProcessManager.remove(workerProcess);
+            sendFailureOperation("Worker terminated normally", WORKER_NORMAL_EXIT, workerProcess);
+            return;
         }
 
-        private void detectInactivity(WorkerProcess workerProcess) {
-            if (!detectTimeouts) {
-                return;
-            }
+        workerProcessManager.shutdown(workerProcess);
 
-            long elapsed = MILLISECONDS.toSeconds(System.currentTimeMillis() - workerProcess.getLastSeen());
-            if (elapsed > 0 && elapsed % lastSeenTimeoutSeconds == 0) {
-                sendFailureOperation(format("Worker has not sent a message for %d seconds", elapsed), WORKER_TIMEOUT,
-                        workerProcess);
-            }
-        }
+        sendFailureOperation(format("Worker terminated with exit code %d instead of 0", exitCode), WORKER_ABNORMAL_EXIT,
+                workerProcess);
+    }
 
-        private void detectUnexpectedExit(WorkerProcess workerProcess) {
-            Process process = workerProcess.getProcess();
-            int exitCode;
-            try {
-                exitCode = process.exitValue();
-            } catch (IllegalThreadStateException ignore) {
-                // process is still running
-                return;
-            }
+    private void sendFailureOperation(String message, FailureType type, WorkerProcess workerProcess) {
+        failureHandler.handle(message, type, workerProcess, null, null);
+    }
 
-            if (exitCode == 0) {
-                workerProcess.setFinished();
-                sendFailureOperation("Worker terminated normally", WORKER_NORMAL_EXIT, workerProcess);
-                return;
-            }
+    private final class MonitorThread extends Thread {
 
-            workerProcessManager.shutdown(workerProcess);
+        private volatile boolean running = true;
 
-            sendFailureOperation(format("Worker terminated with exit code %d instead of 0", exitCode), WORKER_ABNORMAL_EXIT,
-                    workerProcess);
+        private MonitorThread() {
+            super("WorkerJvmFailureMonitorThread");
+            setDaemon(true);
         }
 
-        private void sendFailureOperation(String message, FailureType type, WorkerProcess workerProcess) {
-            failureHandler.handle(message, type, workerProcess, null, null);
+        @Override
+        public void run() {
+            while (running) {
+                WatchKey watchKey;
+                try {
+                    watchKey = watchService.take();
+                } catch (InterruptedException | ClosedWatchServiceException e) {
+                    break;
+                }
+
+                WorkerProcess workerProcess = watchedWorkers.get(watchKey);
+                if (workerProcess != null) {
+                    for (WatchEvent<?> event : watchKey.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            // events have been lost, so we fall back to a full scan of the worker home
+                            scan(workerProcess);
+                        } else {
+                            onFileEvent(workerProcess, ((Path) event.context()).getFileName().toString());
+                        }
+                    }
+                }
+
+                if (!watchKey.reset()) {
+                    watchedWorkers.remove(watchKey);
+                }
+            }
         }
     }
 
@@ -40,7 +40,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 /**
  * Responsible for launching {@link WorkerProcess} instances.
  */
-public class WorkerProcessLauncher {
+public class WorkerProcessLauncher implements WorkerLauncher {
 
     public static final String WORKERS_HOME_NAME = "workers";
 
@@ -48,7 +48,7 @@ public class WorkerProcessLauncher {
     private static final String CLASSPATH = System.getProperty("java.class.path");
     private static final String CLASSPATH_SEPARATOR = System.getProperty("path.separator");
     private static final Logger LOGGER = LogManager.getLogger(WorkerProcessLauncher.class);
-    private static final String FILE_PREFIX = "file:";
+    static final String FILE_PREFIX = "file:";
 
     private final AtomicBoolean javaHomePrinted = new AtomicBoolean();
     private final WorkerProcessManager processManager;
@@ -64,7 +64,8 @@ public class WorkerProcessLauncher {
         this.workerAddress = SimulatorAddress.fromString(parameters.get("WORKER_ADDRESS"));
     }
 
-    void launch() throws Exception {
+    @Override
+    public void launch() throws Exception {
         WorkerProcess process = null;
         try {
             runDir = getRunDir();
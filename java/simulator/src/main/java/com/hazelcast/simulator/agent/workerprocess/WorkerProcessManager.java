@@ -16,12 +16,17 @@
 package com.hazelcast.simulator.agent.workerprocess;
 
 import com.hazelcast.simulator.agent.messages.CreateWorkerMessage;
+import com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault;
 import com.hazelcast.simulator.coordinator.messages.FailureMessage;
+import com.hazelcast.simulator.protocol.InMemoryBroker;
 import com.hazelcast.simulator.protocol.Promise;
 import com.hazelcast.simulator.protocol.Server;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.protocol.message.LogMessage;
+import com.hazelcast.simulator.utils.BashCommand;
 import com.hazelcast.simulator.utils.ThreadSpawner;
+import com.hazelcast.simulator.worker.Worker;
+import com.hazelcast.simulator.worker.messages.TerminateWorkerMessage;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -32,8 +37,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
 
 import static com.hazelcast.simulator.common.FailureType.WORKER_CREATE_ERROR;
+import static com.hazelcast.simulator.common.FailureType.WORKER_NORMAL_EXIT;
 import static com.hazelcast.simulator.protocol.core.SimulatorAddress.workerAddress;
 import static com.hazelcast.simulator.utils.NativeUtils.getPID;
 import static java.lang.String.format;
@@ -51,11 +58,28 @@ public class WorkerProcessManager {
     private final Server server;
     private final SimulatorAddress agentAddress;
     private final String publicAddress;
+    private final InMemoryBroker embeddedBroker;
+    private volatile Consumer<WorkerProcess> workerProcessListener = workerProcess -> {
+    };
 
     public WorkerProcessManager(Server server, SimulatorAddress agentAddress, String publicAddress) {
+        this(server, agentAddress, publicAddress, null);
+    }
+
+    /**
+     * Creates a WorkerProcessManager.
+     *
+     * @param server         the server of the agent.
+     * @param agentAddress   the address of the agent.
+     * @param publicAddress  the public address of the agent.
+     * @param embeddedBroker the broker to connect embedded workers to, or null to launch every worker in its own JVM.
+     */
+    public WorkerProcessManager(Server server, SimulatorAddress agentAddress, String publicAddress,
+                                InMemoryBroker embeddedBroker) {
         this.server = server;
         this.agentAddress = agentAddress;
         this.publicAddress = publicAddress;
+        this.embeddedBroker = embeddedBroker;
     }
 
     public String getPublicAddress() {
@@ -73,13 +97,25 @@ public class WorkerProcessManager {
         // we add the pid to the worker-parameters so the worker can check if the agent is still alive.
         workerParameters.set("agent_pid", getPID());
 
-        WorkerProcessLauncher launcher = new WorkerProcessLauncher(WorkerProcessManager.this, workerParameters);
+        WorkerLauncher launcher = embeddedBroker == null
+                ? new WorkerProcessLauncher(WorkerProcessManager.this, workerParameters)
+                : new EmbeddedWorkerLauncher(WorkerProcessManager.this, workerParameters, embeddedBroker);
         LaunchSingleWorkerTask task = new LaunchSingleWorkerTask(launcher, workerParameters, promise);
         executorService.schedule(task, msg.getDelayMs(), MILLISECONDS);
     }
 
+    /**
+     * Sets the listener that is notified when a worker process is added, e.g. to start monitoring it for failures.
+     *
+     * @param workerProcessListener the listener
+     */
+    public void setWorkerProcessListener(Consumer<WorkerProcess> workerProcessListener) {
+        this.workerProcessListener = workerProcessListener;
+    }
+
     public void add(SimulatorAddress workerAddress, WorkerProcess workerProcess) {
         workerProcesses.put(workerAddress, workerProcess);
+        workerProcessListener.accept(workerProcess);
     }
 
     public void remove(WorkerProcess process) {
@@ -90,6 +126,10 @@ public class WorkerProcessManager {
         return workerProcesses.values();
     }
 
+    boolean contains(WorkerProcess workerProcess) {
+        return workerProcesses.get(workerProcess.getAddress()) == workerProcess;
+    }
+
     public void updateLastSeenTimestamp(SimulatorAddress workerAddress) {
         WorkerProcess workerProcess = workerProcesses.get(workerAddress);
         if (workerProcess == null) {
@@ -103,6 +143,54 @@ public class WorkerProcessManager {
         workerProcess.updateLastSeen();
     }
 
+    /**
+     * Injects a fault in a worker process.
+     *
+     * A killed or shut down worker is detected by the {@link WorkerProcessFailureMonitor}, which reports it as finished
+     * instead of as an abnormal exit.
+     *
+     * @param workerAddress the address of the worker
+     * @param fault         the fault to inject
+     * @throws IllegalArgumentException if the worker is unknown or isn't running in its own process
+     */
+    public void injectFault(SimulatorAddress workerAddress, Fault fault) {
+        WorkerProcess workerProcess = workerProcesses.get(workerAddress);
+        Process process = workerProcess == null ? null : workerProcess.getProcess();
+        if (process == null) {
+            throw new IllegalArgumentException(format("Can't inject %s, Worker %s has no process", fault, workerAddress));
+        }
+
+        LOGGER.info(format("Injecting %s in Worker %s (pid %d)", fault, workerAddress, process.pid()));
+        switch (fault) {
+            case KILL:
+                workerProcess.setInjectedFault(fault);
+                // this sends SIGKILL on *nix
+                process.destroyForcibly();
+                break;
+            case SHUTDOWN:
+                workerProcess.setInjectedFault(fault);
+                // this sends SIGTERM on *nix
+                process.destroy();
+                break;
+            case PAUSE:
+                signal(process, "STOP");
+                break;
+            case RESUME:
+                // the paused worker didn't send any messages; so it should not be seen as timed out once resumed
+                workerProcess.updateLastSeen();
+                signal(process, "CONT");
+                break;
+            default:
+                throw new IllegalArgumentException("Unhandled fault: " + fault);
+        }
+    }
+
+    private static void signal(Process process, String signal) {
+        new BashCommand("kill -" + signal + " " + process.pid())
+                .setThrowsExceptionOnError(true)
+                .execute();
+    }
+
     public void shutdown() {
         executorService.shutdown();
         ThreadSpawner spawner = new ThreadSpawner("workerJvmManagerShutdown", true);
@@ -113,13 +201,17 @@ public class WorkerProcessManager {
     }
 
     void shutdown(WorkerProcess workerProcess) {
+        // the exit of a stopped worker isn't a failure
+        workerProcess.setStopped();
         workerProcesses.remove(workerProcess.getAddress());
         try {
             // this sends SIGTERM on *nix
             Process process = workerProcess.getProcess();
-            if (process == null) {
-                LOGGER.error("TODO: Embedded worker not SHUTDOWN!!!");
-            } else {
+            Worker embeddedWorker = workerProcess.getEmbeddedWorker();
+            if (embeddedWorker != null) {
+                embeddedWorker.shutdown(new TerminateWorkerMessage(false));
+                embeddedWorker.awaitShutdown();
+            } else if (process != null) {
                 process.destroy();
                 process.waitFor();
             }
@@ -128,13 +220,25 @@ public class WorkerProcessManager {
         }
     }
 
+    /**
+     * Is called when an embedded worker has shut down, like the exit of a worker process.
+     *
+     * @param workerProcess the embedded worker
+     */
+    void onEmbeddedWorkerShutdown(WorkerProcess workerProcess) {
+        workerProcess.setFinished();
+        remove(workerProcess);
+        new WorkerProcessFailureHandler(publicAddress, server)
+                .handle("Worker terminated normally", WORKER_NORMAL_EXIT, workerProcess, null, null);
+    }
+
     final class LaunchSingleWorkerTask implements Runnable {
 
-        private final WorkerProcessLauncher launcher;
+        private final WorkerLauncher launcher;
         private final WorkerParameters parameters;
         private final Promise promise;
 
-        private LaunchSingleWorkerTask(WorkerProcessLauncher launcher,
+        private LaunchSingleWorkerTask(WorkerLauncher launcher,
                                        WorkerParameters parameters,
                                        Promise promise) {
             this.launcher = launcher;
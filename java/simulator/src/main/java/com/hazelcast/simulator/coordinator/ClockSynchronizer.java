@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.coordinator;
+
+import com.hazelcast.simulator.coordinator.registry.Registry;
+import com.hazelcast.simulator.coordinator.registry.WorkerData;
+import com.hazelcast.simulator.protocol.CoordinatorClient;
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import com.hazelcast.simulator.worker.messages.ClockOffsetMessage;
+import com.hazelcast.simulator.worker.messages.ClockProbeMessage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import static com.hazelcast.simulator.utils.FileUtils.appendText;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Periodically estimates the offset and drift between the clock of every worker and the clock of the coordinator and
+ * sends the estimate to the worker; so tests can use {@link com.hazelcast.simulator.test.TestContext#globalNanoTime()}
+ * to compare times taken on different workers.
+ * <p>
+ * The estimation works like NTP. The coordinator sends a burst of probes to the worker and takes the probe with the
+ * shortest round trip. The offset is the difference between the middle of the round trip and the time of the worker,
+ * the error bound is half the round trip. The drift is the slope of the offsets of the last probes. The estimates are
+ * written to the clock_sync.csv file in the run directory.
+ * <p>
+ * The probes travel over the message broker, so the round trips are in the order of milliseconds. The error bound is
+ * reported honestly, so latencies smaller than the error bound should not be trusted.
+ */
+public class ClockSynchronizer extends Thread {
+
+    static final int PROBES_PER_ROUND = 8;
+    static final int MAX_SAMPLES = 16;
+    static final long MIN_DRIFT_SPAN_NANOS = SECONDS.toNanos(1);
+
+    private static final Logger LOGGER = LogManager.getLogger(ClockSynchronizer.class);
+    private static final long PROBE_TIMEOUT_MILLIS = SECONDS.toMillis(10);
+    private static final long CHECK_INTERVAL_MILLIS = SECONDS.toMillis(1);
+
+    private final CoordinatorClient client;
+    private final Registry registry;
+    private final long intervalNanos;
+    private final File file;
+    private final long epochNanos = MILLISECONDS.toNanos(System.currentTimeMillis());
+    private final long startNanos = System.nanoTime();
+    private final Map<SimulatorAddress, WorkerClock> clocks = new HashMap<>();
+    private volatile boolean stop;
+
+    /**
+     * Creates a ClockSynchronizer.
+     *
+     * @param client          the client to send the probes with.
+     * @param registry        the registry containing the workers.
+     * @param intervalSeconds the interval between the synchronizations of a worker.
+     * @param runPath         the directory to write the clock_sync.csv to.
+     */
+    public ClockSynchronizer(CoordinatorClient client, Registry registry, int intervalSeconds, String runPath) {
+        super("ClockSynchronizer");
+        setDaemon(true);
+        this.client = client;
+        this.registry = registry;
+        this.intervalNanos = SECONDS.toNanos(intervalSeconds);
+        this.file = new File(runPath, "clock_sync.csv");
+    }
+
+    public void shutdown() throws InterruptedException {
+        stop = true;
+        interrupt();
+        join();
+    }
+
+    @Override
+    public void run() {
+        appendText("epoch,worker,offset_nanos,drift_ppm,error_bound_nanos\n", file);
+        while (!stop) {
+            for (WorkerData worker : registry.getWorkers()) {
+                if (stop) {
+                    return;
+                }
+
+                WorkerClock clock = clocks.computeIfAbsent(worker.getAddress(), k -> new WorkerClock());
+                if (clock.lastSyncNanos != 0 && System.nanoTime() - clock.lastSyncNanos < intervalNanos) {
+                    continue;
+                }
+
+                try {
+                    synchronize(worker.getAddress(), clock);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    LOGGER.debug("Failed to synchronize the clock of " + worker.getAddress(), e);
+                    clocks.remove(worker.getAddress());
+                }
+            }
+
+            try {
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void synchronize(SimulatorAddress address, WorkerClock clock) throws Exception {
+        Sample best = null;
+        for (int k = 0; k < PROBES_PER_ROUND; k++) {
+            long t0 = coordinatorNanos();
+            Future<String> f = client.submit(address, new ClockProbeMessage());
+            long workerNanos = Long.parseLong(f.get(PROBE_TIMEOUT_MILLIS, MILLISECONDS));
+            long t3 = coordinatorNanos();
+
+            long halfRtt = (t3 - t0) / 2;
+            if (best == null || halfRtt < best.errorBoundNanos) {
+                best = new Sample(workerNanos, t0 + halfRtt - workerNanos, halfRtt);
+            }
+        }
+
+        ClockOffsetMessage msg = clock.add(best);
+        clock.lastSyncNanos = System.nanoTime();
+        client.submit(address, msg).get(PROBE_TIMEOUT_MILLIS, MILLISECONDS);
+
+        appendText(format("%d,%s,%d,%.3f,%d%n", MILLISECONDS.toSeconds(System.currentTimeMillis()), address,
+                msg.getOffsetNanos(), msg.getDriftPpm(), msg.getErrorBoundNanos()), file);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(format("Synchronized clock of %s: error bound %d us, drift %.3f ppm",
+                    address, msg.getErrorBoundNanos() / 1000, msg.getDriftPpm()));
+        }
+    }
+
+    private long coordinatorNanos() {
+        return epochNanos + System.nanoTime() - startNanos;
+    }
+
+    static final class Sample {
+        final long workerNanos;
+        final long offsetNanos;
+        final long errorBoundNanos;
+
+        Sample(long workerNanos, long offsetNanos, long errorBoundNanos) {
+            this.workerNanos = workerNanos;
+            this.offsetNanos = offsetNanos;
+            this.errorBoundNanos = errorBoundNanos;
+        }
+    }
+
+    /**
+     * The samples of a single worker.
+     */
+    static final class WorkerClock {
+        private final Deque<Sample> samples = new ArrayDeque<>();
+        private long lastSyncNanos;
+
+        /**
+         * Adds a sample and returns the new estimate. The offset is the offset of the latest sample; the drift is
+         * the least squares slope of the offsets over the worker time of the retained samples.
+         */
+        ClockOffsetMessage add(Sample sample) {
+            samples.addLast(sample);
+            if (samples.size() > MAX_SAMPLES) {
+                samples.removeFirst();
+            }
+            return new ClockOffsetMessage(sample.workerNanos, sample.offsetNanos, driftPpm(), sample.errorBoundNanos);
+        }
+
+        private double driftPpm() {
+            Sample first = samples.getFirst();
+            Sample last = samples.getLast();
+            if (last.workerNanos - first.workerNanos < MIN_DRIFT_SPAN_NANOS) {
+                return 0;
+            }
+
+            // relative to the first sample to keep the values small enough for doubles
+            double meanX = 0;
+            double meanY = 0;
+            for (Sample s : samples) {
+                meanX += s.workerNanos - first.workerNanos;
+                meanY += s.offsetNanos - first.offsetNanos;
+            }
+            meanX /= samples.size();
+            meanY /= samples.size();
+
+            double sxy = 0;
+            double sxx = 0;
+            for (Sample s : samples) {
+                double dx = s.workerNanos - first.workerNanos - meanX;
+                double dy = s.offsetNanos - first.offsetNanos - meanY;
+                sxy += dx * dy;
+                sxx += dx * dx;
+            }
+            return sxx == 0 ? 0 : sxy / sxx * 1_000_000;
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.hazelcast.simulator.coordinator;
 
+import com.hazelcast.simulator.agent.EmbeddedAgent;
 import com.hazelcast.simulator.agent.workerprocess.WorkerParameters;
 import com.hazelcast.simulator.common.SimulatorProperties;
 import com.hazelcast.simulator.coordinator.registry.AgentData;
@@ -25,6 +26,8 @@ import com.hazelcast.simulator.coordinator.tasks.RunTestSuiteTask;
 import com.hazelcast.simulator.coordinator.tasks.StartWorkersTask;
 import com.hazelcast.simulator.coordinator.tasks.TerminateWorkersTask;
 import com.hazelcast.simulator.protocol.CoordinatorClient;
+import com.hazelcast.simulator.protocol.InMemoryBroker;
+import com.hazelcast.simulator.protocol.InMemoryCoordinatorClient;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.utils.CommandLineExitException;
 import com.hazelcast.simulator.utils.CommonUtils;
@@ -56,6 +59,7 @@ public class Coordinator implements Closeable {
 
     private static final Logger LOGGER = LogManager.getLogger(Coordinator.class);
     private static final int PARALLEL_CONNECT = 16;
+    private static final int DEFAULT_CLOCK_SYNC_INTERVAL_SECONDS = 10;
 
     private final PerformanceStatsCollector performanceStatsCollector = new PerformanceStatsCollector();
     private final Registry registry;
@@ -64,20 +68,48 @@ public class Coordinator implements Closeable {
     private final SimulatorProperties properties;
     private final int testCompletionTimeoutSeconds;
     private final CoordinatorClient client;
+    private final InMemoryBroker embeddedBroker;
+    private final List<EmbeddedAgent> embeddedAgents = new ArrayList<>();
+    private final LiveReport liveReport;
+    private ClockSynchronizer clockSynchronizer;
 
     public Coordinator(Registry registry, CoordinatorParameters parameters) {
+        this(registry, parameters, null);
+    }
+
+    /**
+     * Creates a Coordinator.
+     *
+     * @param registry       the registry with the agents.
+     * @param parameters     the parameters of the coordinator.
+     * @param embeddedBroker the broker for running the agents and workers embedded in the JVM of the coordinator, or null
+     *                       to run them on the agent machines.
+     */
+    public Coordinator(Registry registry, CoordinatorParameters parameters, InMemoryBroker embeddedBroker) {
         this.registry = registry;
         this.parameters = parameters;
         this.failureCollector = new FailureCollector(parameters.getSimulatorProperties().get("run_path"), registry);
         this.properties = parameters.getSimulatorProperties();
         this.testCompletionTimeoutSeconds = properties.getTestCompletionTimeoutSeconds();
+        this.liveReport = createLiveReport();
 
-        this.client = new CoordinatorClient()
+        this.embeddedBroker = embeddedBroker;
+        this.client = (embeddedBroker == null ? new CoordinatorClient() : new InMemoryCoordinatorClient(embeddedBroker))
                 .setAgentBrokerPort(properties.getAgentPort())
-                .setProcessor(new CoordinatorMessageHandler(failureCollector, performanceStatsCollector))
+                .setProcessor(new CoordinatorMessageHandler(failureCollector, performanceStatsCollector, liveReport))
                 .setFailureCollector(failureCollector);
     }
 
+    private LiveReport createLiveReport() {
+        // the workers only send their latency histograms along with the performance stats
+        int intervalSeconds = properties.getInt("live_report_interval_seconds", 0);
+        int performanceIntervalSeconds = properties.getInt("performance_monitor_interval_seconds");
+        if (intervalSeconds <= 0 || performanceIntervalSeconds <= 0) {
+            return null;
+        }
+        return new LiveReport(intervalSeconds, performanceIntervalSeconds, properties.get("run_path"));
+    }
+
     FailureCollector getFailureCollector() {
         return failureCollector;
     }
@@ -91,18 +123,61 @@ public class Coordinator implements Closeable {
 
         log("Coordinator starting...");
 
-        startAgents(registry);
+        if (embeddedBroker == null) {
+            startAgents(registry);
+        } else {
+            startEmbeddedAgents();
+        }
 
         startClient();
 
-        new PrepareRunTask(
-                registry.getAgents(),
-                properties.asMap(),
-                new File(getUserDir(), "upload").getAbsoluteFile()).run();
+        startLiveReport();
+
+        if (embeddedBroker == null) {
+            // the embedded agents share the clock and the files of the coordinator
+            startClockSynchronizer();
+
+            new PrepareRunTask(
+                    registry.getAgents(),
+                    properties.asMap(),
+                    new File(getUserDir(), "upload").getAbsoluteFile()).run();
+        }
 
         log("Coordinator started...");
     }
 
+    private void startEmbeddedAgents() {
+        for (AgentData agent : registry.getAgents()) {
+            EmbeddedAgent embeddedAgent = new EmbeddedAgent(
+                    agent.getAddressIndex(), agent.getPublicAddress(), embeddedBroker);
+            embeddedAgent.start();
+            embeddedAgents.add(embeddedAgent);
+        }
+        log("Embedded agents started, agents and workers run in the JVM of the coordinator");
+    }
+
+    private void startClockSynchronizer() {
+        int intervalSeconds = properties.getInt("clock_sync_interval_seconds", DEFAULT_CLOCK_SYNC_INTERVAL_SECONDS);
+        if (intervalSeconds <= 0) {
+            log("Clock synchronization disabled");
+            return;
+        }
+
+        clockSynchronizer = new ClockSynchronizer(client, registry, intervalSeconds, properties.get("run_path"));
+        clockSynchronizer.start();
+        log("Clock synchronization enabled (%d seconds interval)", intervalSeconds);
+    }
+
+    private void startLiveReport() {
+        if (liveReport == null) {
+            log("Live report disabled");
+            return;
+        }
+
+        liveReport.start();
+        log("Live report enabled, open %s/index.html to follow the run", liveReport.getDirectory().getAbsolutePath());
+    }
+
     private void registerShutdownHook() {
         if (parameters.skipShutdownHook()) {
             return;
@@ -136,15 +211,48 @@ public class Coordinator implements Closeable {
     public void close() {
         stopTests();
 
+        stopClockSynchronizer();
+
+        stopLiveReport();
+
         new TerminateWorkersTask(properties, registry, client).run();
 
         client.close();
 
-        stopAgents(registry);
+        if (embeddedBroker == null) {
+            stopAgents(registry);
+        } else {
+            CommonUtils.closeQuietly(embeddedAgents);
+            embeddedBroker.close();
+        }
 
         failureCollector.logFailureInfo();
     }
 
+    private void stopClockSynchronizer() {
+        if (clockSynchronizer == null) {
+            return;
+        }
+
+        try {
+            clockSynchronizer.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stopLiveReport() {
+        if (liveReport == null) {
+            return;
+        }
+
+        try {
+            liveReport.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void stopTests() {
         Collection<TestData> tests = registry.getTests();
         for (TestData test : tests) {
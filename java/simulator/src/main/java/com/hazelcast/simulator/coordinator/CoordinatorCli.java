@@ -20,6 +20,7 @@ import com.hazelcast.simulator.common.TestCase;
 import com.hazelcast.simulator.common.TestPhase;
 import com.hazelcast.simulator.coordinator.registry.Registry;
 import com.hazelcast.simulator.coordinator.registry.WorkerQuery;
+import com.hazelcast.simulator.protocol.InMemoryBroker;
 import com.hazelcast.simulator.utils.CommandLineExitException;
 import com.hazelcast.simulator.utils.FileUtils;
 import joptsimple.OptionParser;
@@ -52,6 +53,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 @SuppressWarnings("FieldCanBeLocal")
 final class CoordinatorCli {
     private static final Logger LOGGER = LogManager.getLogger(CoordinatorCli.class);
+    private static final String EMBEDDED_AGENT_ADDRESS = "127.0.0.1";
 
     CoordinatorRunMonolith runMonolith;
     Coordinator coordinator;
@@ -120,16 +122,23 @@ final class CoordinatorCli {
 //            properties.set("driver", options.valueOf(driverSpec));
 //        }
 
-        this.registry = Registry.loadInventoryYaml(
-                locateInventoryFile(),
-                properties.get("loadgenerator_hosts"),
-                properties.get("node_hosts"));
+        boolean embedded = Boolean.parseBoolean(properties.get("embedded", "false"));
+        if (embedded) {
+            // a single local agent that runs all workers in the JVM of the coordinator
+            this.registry = new Registry();
+            registry.addAgent(EMBEDDED_AGENT_ADDRESS, EMBEDDED_AGENT_ADDRESS);
+        } else {
+            this.registry = Registry.loadInventoryYaml(
+                    locateInventoryFile(),
+                    properties.get("loadgenerator_hosts"),
+                    properties.get("node_hosts"));
+        }
 
         String runPath = properties.get("run_path");
         FileUtils.ensureExistingDirectory(new File(runPath));
 
         this.coordinatorParameters = loadCoordinatorParameters();
-        this.coordinator = new Coordinator(registry, coordinatorParameters);
+        this.coordinator = new Coordinator(registry, coordinatorParameters, embedded ? new InMemoryBroker() : null);
         this.testSuite = loadTestSuite();
 
         if (testSuite == null) {
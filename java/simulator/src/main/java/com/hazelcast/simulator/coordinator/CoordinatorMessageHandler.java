@@ -23,19 +23,38 @@ import com.hazelcast.simulator.protocol.exception.HandleException;
 import com.hazelcast.simulator.protocol.message.LogMessage;
 import com.hazelcast.simulator.protocol.message.SimulatorMessage;
 import com.hazelcast.simulator.worker.messages.PerformanceStatsMessage;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Map;
+
 public class CoordinatorMessageHandler implements MessageHandler {
     private static final Logger LOGGER = LogManager.getLogger(CoordinatorMessageHandler.class);
 
     private final FailureCollector failureCollector;
     private final PerformanceStatsCollector performanceStatsCollector;
+    private final LiveReport liveReport;
 
     public CoordinatorMessageHandler(FailureCollector failureCollector,
                                      PerformanceStatsCollector performanceStatsCollector) {
+        this(failureCollector, performanceStatsCollector, null);
+    }
+
+    /**
+     * Creates a CoordinatorMessageHandler.
+     *
+     * @param failureCollector          the collector for the failures.
+     * @param performanceStatsCollector the collector for the performance stats.
+     * @param liveReport                the live report to add the latency histograms of the workers to, or null if
+     *                                  the live report is disabled.
+     */
+    public CoordinatorMessageHandler(FailureCollector failureCollector,
+                                     PerformanceStatsCollector performanceStatsCollector,
+                                     LiveReport liveReport) {
         this.failureCollector = failureCollector;
         this.performanceStatsCollector = performanceStatsCollector;
+        this.liveReport = liveReport;
     }
 
     @Override
@@ -43,7 +62,11 @@ public class CoordinatorMessageHandler implements MessageHandler {
         if (msg instanceof FailureMessage) {
             failureCollector.notify((FailureMessage) msg);
         } else if (msg instanceof PerformanceStatsMessage) {
-            performanceStatsCollector.update(source, ((PerformanceStatsMessage) msg).getPerformanceStats());
+            Map<String, PerformanceStats> performanceStats = ((PerformanceStatsMessage) msg).getPerformanceStats();
+            performanceStatsCollector.update(source, performanceStats);
+            if (liveReport != null) {
+                liveReport.update(performanceStats);
+            }
         } else if (msg instanceof LogMessage) {
             LogMessage logMsg = (LogMessage) msg;
             LOGGER.log(logMsg.getLevel(), logMsg.getMessage());
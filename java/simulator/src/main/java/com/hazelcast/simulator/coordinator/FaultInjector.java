@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.coordinator;
+
+import com.hazelcast.simulator.agent.messages.InjectFaultMessage;
+import com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault;
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.coordinator.registry.Registry;
+import com.hazelcast.simulator.coordinator.registry.WorkerData;
+import com.hazelcast.simulator.protocol.CoordinatorClient;
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault.PAUSE;
+import static com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault.RESUME;
+import static com.hazelcast.simulator.coordinator.CoordinatorCli.getDurationSeconds;
+import static com.hazelcast.simulator.utils.FileUtils.appendText;
+import static com.hazelcast.simulator.utils.FormatUtils.formatDouble;
+import static com.hazelcast.simulator.utils.FormatUtils.formatLong;
+import static com.hazelcast.simulator.worker.performance.PerformanceStats.INTERVAL_LATENCY_PERCENTILE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Comparator.comparingLong;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Injects the faults configured for a test in a worker during the run phase and measures how the test recovers from
+ * them; so failover behavior is measured on every run instead of eyeballed.
+ * <p>
+ * The faults are configured with the 'faults' property of the test: a comma separated list of
+ * {@code <fault>@<offset>} entries, e.g. {@code kill@2m} or {@code pause@1m:30s}. The fault is kill (SIGKILL),
+ * shutdown (SIGTERM) or pause (SIGSTOP, followed by SIGCONT after the given duration) and the offset is relative to the
+ * start of the run phase. The faults are injected by the agent of the worker configured with 'faultTarget', by default
+ * the last member that doesn't run the test. A worker running the test can't be the target, since the coordinator waits
+ * for all workers running the test to complete the run phase.
+ * <p>
+ * Every fault is compared with the baseline; the average interval throughput and latency of the test in the
+ * {@value #BASELINE_SECONDS} seconds before the fault:
+ * <ul>
+ * <li>the dip is how far the interval throughput dropped below the baseline</li>
+ * <li>the recovery time is the time from the fault until the interval throughput is back at
+ * {@value #RECOVERY_THRESHOLD_PERCENT}% of the baseline and stays there until the next fault or the end of the run</li>
+ * <li>the latency spike is the highest interval latency percentile after the fault</li>
+ * </ul>
+ * The results are logged and written to the faults.csv file in the run directory. The resolution is bound by the
+ * performance monitor interval, since the interval numbers are the numbers the workers send to the coordinator.
+ */
+final class FaultInjector {
+
+    static final String FAULTS_PROPERTY = "faults";
+    static final String FAULT_TARGET_PROPERTY = "faultTarget";
+    static final int BASELINE_SECONDS = 10;
+    static final int RECOVERY_THRESHOLD_PERCENT = 90;
+
+    private static final Logger LOGGER = LogManager.getLogger(FaultInjector.class);
+    private static final long INJECT_TIMEOUT_MILLIS = MINUTES.toMillis(1);
+
+    private final String testId;
+    private final List<ScheduledFault> schedule;
+    private final WorkerData target;
+    private final CoordinatorClient client;
+    private final PerformanceStatsCollector performanceStatsCollector;
+    private final File file;
+    private final List<Sample> samples = new ArrayList<>();
+    private int nextFault;
+
+    FaultInjector(String testId,
+                  List<ScheduledFault> schedule,
+                  WorkerData target,
+                  CoordinatorClient client,
+                  PerformanceStatsCollector performanceStatsCollector,
+                  String runPath) {
+        this.testId = testId;
+        this.schedule = schedule;
+        this.target = target;
+        this.client = client;
+        this.performanceStatsCollector = performanceStatsCollector;
+        this.file = new File(runPath, "faults.csv");
+    }
+
+    /**
+     * Creates the FaultInjector for a test.
+     *
+     * @param testCase                  the test.
+     * @param targets                   the workers running the test.
+     * @param registry                  the registry containing the workers.
+     * @param client                    the client to send the faults with.
+     * @param performanceStatsCollector the collector to take the interval numbers of the test from.
+     * @param runPath                   the directory to write the faults.csv to.
+     * @return the created FaultInjector or null if the test has no faults.
+     * @throws IllegalArgumentException if the faults can't be parsed or there is no valid target.
+     */
+    static FaultInjector create(TestCase testCase,
+                                List<WorkerData> targets,
+                                Registry registry,
+                                CoordinatorClient client,
+                                PerformanceStatsCollector performanceStatsCollector,
+                                String runPath) {
+        String faults = testCase.getProperty(FAULTS_PROPERTY);
+        if (faults == null) {
+            return null;
+        }
+
+        List<ScheduledFault> schedule = parse(faults);
+        WorkerData target = findTarget(testCase.getProperty(FAULT_TARGET_PROPERTY), targets, registry);
+        return new FaultInjector(testCase.getId(), schedule, target, client, performanceStatsCollector, runPath);
+    }
+
+    static List<ScheduledFault> parse(String faults) {
+        List<ScheduledFault> schedule = new ArrayList<>();
+        for (String entry : faults.split(",")) {
+            entry = entry.trim();
+            int indexOfAt = entry.indexOf('@');
+            if (indexOfAt < 1) {
+                throw new IllegalArgumentException(format("Fault [%s] should be formatted as <fault>@<offset>", entry));
+            }
+
+            Fault fault = parseFault(entry.substring(0, indexOfAt));
+            String timing = entry.substring(indexOfAt + 1);
+            int indexOfColon = timing.indexOf(':');
+            if (fault == PAUSE) {
+                if (indexOfColon < 0) {
+                    throw new IllegalArgumentException(format("Fault [%s] has no duration, e.g. pause@1m:30s", entry));
+                }
+                long offsetMs = SECONDS.toMillis(getDurationSeconds(timing.substring(0, indexOfColon)));
+                long durationMs = SECONDS.toMillis(getDurationSeconds(timing.substring(indexOfColon + 1)));
+                schedule.add(new ScheduledFault(PAUSE, offsetMs));
+                schedule.add(new ScheduledFault(RESUME, offsetMs + durationMs));
+            } else {
+                if (indexOfColon >= 0) {
+                    throw new IllegalArgumentException(format("Fault [%s] can't have a duration", entry));
+                }
+                schedule.add(new ScheduledFault(fault, SECONDS.toMillis(getDurationSeconds(timing))));
+            }
+        }
+        schedule.sort(comparingLong(scheduledFault -> scheduledFault.offsetMs));
+        return schedule;
+    }
+
+    private static Fault parseFault(String name) {
+        try {
+            Fault fault = Fault.valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+            if (fault != RESUME) {
+                return fault;
+            }
+        } catch (IllegalArgumentException e) {
+            // handled below
+        }
+        throw new IllegalArgumentException(format("Unknown fault [%s], expected kill, shutdown or pause", name));
+    }
+
+    static WorkerData findTarget(String address, List<WorkerData> targets, Registry registry) {
+        if (address != null) {
+            WorkerData worker = registry.findWorker(SimulatorAddress.fromString(address));
+            if (worker == null) {
+                throw new IllegalArgumentException(format("%s [%s] is not a known worker", FAULT_TARGET_PROPERTY, address));
+            }
+            if (targets.contains(worker)) {
+                throw new IllegalArgumentException(
+                        format("%s [%s] can't be a worker running the test", FAULT_TARGET_PROPERTY, address));
+            }
+            return worker;
+        }
+
+        WorkerData target = null;
+        for (WorkerData worker : registry.getWorkers()) {
+            if (worker.isMemberWorker() && !targets.contains(worker)) {
+                target = worker;
+            }
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("There is no member to inject faults in that isn't running the test;"
+                    + " run the test on clients or configure " + FAULT_TARGET_PROPERTY);
+        }
+        return target;
+    }
+
+    WorkerData getTarget() {
+        return target;
+    }
+
+    /**
+     * Takes a sample of the interval numbers of the test and injects the faults that are due.
+     *
+     * @param elapsedMs the time in milliseconds since the start of the run phase.
+     */
+    void tick(long elapsedMs) {
+        PerformanceStats latest = performanceStatsCollector.get(testId, false);
+        if (!latest.isEmpty()) {
+            samples.add(new Sample(elapsedMs, latest.getIntervalThroughput(), latest.getIntervalLatency999PercentileNanos()));
+        }
+
+        while (nextFault < schedule.size() && schedule.get(nextFault).offsetMs <= elapsedMs) {
+            inject(schedule.get(nextFault++), elapsedMs);
+        }
+    }
+
+    /**
+     * Resumes the target if it is still paused and reports the recovery from every injected fault.
+     *
+     * @param elapsedMs the time in milliseconds since the start of the run phase.
+     */
+    void complete(long elapsedMs) {
+        for (; nextFault < schedule.size(); nextFault++) {
+            ScheduledFault scheduledFault = schedule.get(nextFault);
+            if (scheduledFault.fault == RESUME) {
+                inject(scheduledFault, elapsedMs);
+            } else {
+                LOGGER.info(format("%s Skipping %s at %ds, the run completed before", testId, scheduledFault.fault,
+                        MILLISECONDS.toSeconds(scheduledFault.offsetMs)));
+            }
+        }
+
+        if (!file.exists()) {
+            appendText("test_id,fault,worker,offset_seconds,baseline_throughput,min_throughput,dip_percent,"
+                    + "recovery_seconds,baseline_latency_" + INTERVAL_LATENCY_PERCENTILE + "_us,"
+                    + "max_latency_" + INTERVAL_LATENCY_PERCENTILE + "_us\n", file);
+        }
+
+        for (int i = 0; i < schedule.size(); i++) {
+            ScheduledFault scheduledFault = schedule.get(i);
+            if (scheduledFault.fault == RESUME || scheduledFault.injectedMs < 0) {
+                continue;
+            }
+
+            long endMs = elapsedMs;
+            for (int k = i + 1; k < schedule.size(); k++) {
+                ScheduledFault next = schedule.get(k);
+                if (next.fault != RESUME && next.injectedMs >= 0) {
+                    endMs = next.injectedMs;
+                    break;
+                }
+            }
+
+            Recovery recovery = analyze(samples, scheduledFault.injectedMs, endMs);
+            if (recovery == null) {
+                LOGGER.warn(format("%s No baseline for %s at %ds, the test had no performance numbers before the fault",
+                        testId, scheduledFault.fault, MILLISECONDS.toSeconds(scheduledFault.injectedMs)));
+                continue;
+            }
+            report(scheduledFault, recovery);
+        }
+    }
+
+    private void inject(ScheduledFault scheduledFault, long elapsedMs) {
+        Fault fault = scheduledFault.fault;
+        SimulatorAddress address = target.getAddress();
+        if (fault != RESUME) {
+            // the failures of the target are caused by the fault, so they should not fail the test
+            target.setIgnoreFailures(true);
+        }
+
+        LOGGER.info(format("%s Injecting %s in %s", testId, fault, address));
+        try {
+            client.submit(address.getParent(), new InjectFaultMessage(address.toString(), fault))
+                    .get(INJECT_TIMEOUT_MILLIS, MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.warn(format("%s Failed to inject %s in %s", testId, fault, address), e);
+            return;
+        }
+        scheduledFault.injectedMs = elapsedMs;
+
+        if (fault == RESUME) {
+            target.setIgnoreFailures(false);
+        }
+    }
+
+    private void report(ScheduledFault scheduledFault, Recovery recovery) {
+        long offsetSeconds = MILLISECONDS.toSeconds(scheduledFault.injectedMs);
+        String recoveryTime = recovery.recoveryMs < 0
+                ? "not recovered"
+                : format(Locale.ENGLISH, "recovered after %.1fs", recovery.recoveryMs / (double) SECONDS.toMillis(1));
+        LOGGER.info(format("%s %s at %ds: baseline %s ops/s, dip %s%% (min %s ops/s), %s,"
+                        + " %sth percentile %s µs (baseline) %s µs (max)",
+                testId, scheduledFault.fault, offsetSeconds,
+                formatDouble(recovery.baselineThroughput, 0),
+                formatDouble(recovery.dipPercent(), 0),
+                formatDouble(recovery.minThroughput, 0),
+                recoveryTime,
+                INTERVAL_LATENCY_PERCENTILE,
+                formatLong(NANOSECONDS.toMicros(Math.round(recovery.baselineLatencyNanos)), 0),
+                formatLong(NANOSECONDS.toMicros(recovery.maxLatencyNanos), 0)));
+
+        appendText(format(Locale.ENGLISH, "%s,%s,%s,%d,%.2f,%.2f,%.2f,%s,%d,%d%n",
+                testId,
+                scheduledFault.fault.name().toLowerCase(Locale.ENGLISH),
+                target.getAddress(),
+                offsetSeconds,
+                recovery.baselineThroughput,
+                recovery.minThroughput,
+                recovery.dipPercent(),
+                recovery.recoveryMs < 0 ? "" : format(Locale.ENGLISH, "%.3f", recovery.recoveryMs / (double) SECONDS.toMillis(1)),
+                NANOSECONDS.toMicros(Math.round(recovery.baselineLatencyNanos)),
+                NANOSECONDS.toMicros(recovery.maxLatencyNanos)), file);
+    }
+
+    /**
+     * Compares the samples after a fault with the samples before the fault.
+     *
+     * @param samples the samples of the interval numbers of the test.
+     * @param faultMs the time of the fault.
+     * @param endMs   the end of the samples that belong to the fault.
+     * @return the recovery, or null if there is no sample before the fault.
+     */
+    static Recovery analyze(List<Sample> samples, long faultMs, long endMs) {
+        long baselineStartMs = faultMs - SECONDS.toMillis(BASELINE_SECONDS);
+        double throughputSum = 0;
+        double latencySum = 0;
+        int baselineCount = 0;
+        for (Sample sample : samples) {
+            if (sample.timeMs >= baselineStartMs && sample.timeMs < faultMs) {
+                throughputSum += sample.throughput;
+                latencySum += sample.latencyNanos;
+                baselineCount++;
+            }
+        }
+        if (baselineCount == 0) {
+            return null;
+        }
+
+        Recovery recovery = new Recovery(throughputSum / baselineCount, latencySum / baselineCount);
+        double threshold = recovery.baselineThroughput * RECOVERY_THRESHOLD_PERCENT / 100;
+        boolean recovered = true;
+        long recoveredMs = faultMs;
+        for (Sample sample : samples) {
+            if (sample.timeMs < faultMs || sample.timeMs >= endMs) {
+                continue;
+            }
+
+            recovery.minThroughput = min(recovery.minThroughput, sample.throughput);
+            recovery.maxLatencyNanos = max(recovery.maxLatencyNanos, sample.latencyNanos);
+            if (sample.throughput < threshold) {
+                recovered = false;
+            } else if (!recovered) {
+                recovered = true;
+                recoveredMs = sample.timeMs;
+            }
+        }
+        recovery.recoveryMs = recovered ? recoveredMs - faultMs : -1;
+        return recovery;
+    }
+
+    static final class ScheduledFault {
+
+        final Fault fault;
+        final long offsetMs;
+        // the time the fault was injected since the start of the run phase; -1 if not injected
+        long injectedMs = -1;
+
+        ScheduledFault(Fault fault, long offsetMs) {
+            this.fault = fault;
+            this.offsetMs = offsetMs;
+        }
+    }
+
+    static final class Sample {
+
+        final long timeMs;
+        final double throughput;
+        final long latencyNanos;
+
+        Sample(long timeMs, double throughput, long latencyNanos) {
+            this.timeMs = timeMs;
+            this.throughput = throughput;
+            this.latencyNanos = latencyNanos;
+        }
+    }
+
+    static final class Recovery {
+
+        final double baselineThroughput;
+        final double baselineLatencyNanos;
+        double minThroughput;
+        long maxLatencyNanos;
+        // the time from the fault until the throughput recovered; -1 if not recovered
+        long recoveryMs;
+
+        Recovery(double baselineThroughput, double baselineLatencyNanos) {
+            this.baselineThroughput = baselineThroughput;
+            this.baselineLatencyNanos = baselineLatencyNanos;
+            this.minThroughput = baselineThroughput;
+        }
+
+        double dipPercent() {
+            return baselineThroughput <= 0 ? 0 : max(0, 100 * (1 - minThroughput / baselineThroughput));
+        }
+    }
+}
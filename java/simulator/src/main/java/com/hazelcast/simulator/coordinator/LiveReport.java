@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.coordinator;
+
+import com.hazelcast.simulator.utils.LongArrayList;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.hazelcast.simulator.utils.FileUtils.appendText;
+import static com.hazelcast.simulator.utils.FileUtils.ensureExistingDirectory;
+import static com.hazelcast.simulator.utils.FileUtils.rename;
+import static com.hazelcast.simulator.utils.FileUtils.writeText;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Builds a report while the tests are running; so a long run that goes bad can be aborted early instead of after the
+ * report is generated at the end of the run.
+ * <p>
+ * The workers send the latency histogram of every performance monitor interval along with their performance stats. The
+ * histograms of all workers are merged per interval and every report interval the completed intervals are written to
+ * the live directory in the run directory. A histogram is put in a bucket based on the scheduled end of the interval
+ * it describes, not on when it arrived; so the jitter of the workers and the network doesn't put two intervals of a
+ * worker in the same bucket. The live report contains:
+ * <ul>
+ * <li>{@code <testId>.csv} with the throughput and latency percentiles per interval.</li>
+ * <li>{@code <testId>.hdr} with the merged interval histograms, which can be processed with the HdrHistogram tools.</li>
+ * <li>{@code index.html} with the totals and charts of all tests, which refreshes itself in the browser.</li>
+ * </ul>
+ * An interval is completed once it ended more than a few seconds ago, so the histograms of the workers that report a
+ * bit later still end up in the same interval. A histogram that arrives after its interval was written is dropped.
+ */
+public class LiveReport extends Thread {
+
+    static final int MAX_CHART_POINTS = 600;
+
+    private static final Logger LOGGER = LogManager.getLogger(LiveReport.class);
+    // a worker sends an interval up to a second after it ended, plus the time the message is underway
+    private static final long GRACE_MILLIS = SECONDS.toMillis(3);
+    private static final int CHART_WIDTH = 800;
+    private static final int CHART_HEIGHT = 200;
+
+    private final long intervalMillis;
+    private final long bucketMillis;
+    private final File dir;
+    // guarded by this
+    private final Map<String, TestReport> tests = new TreeMap<>();
+    private volatile boolean stop;
+
+    /**
+     * Creates a LiveReport.
+     *
+     * @param intervalSeconds                   the interval between the updates of the report.
+     * @param performanceMonitorIntervalSeconds the interval of the performance monitor of the workers.
+     * @param runPath                           the run directory to create the live directory in.
+     */
+    public LiveReport(int intervalSeconds, int performanceMonitorIntervalSeconds, String runPath) {
+        super("LiveReport");
+        setDaemon(true);
+        this.intervalMillis = SECONDS.toMillis(intervalSeconds);
+        this.bucketMillis = SECONDS.toMillis(performanceMonitorIntervalSeconds);
+        this.dir = new File(runPath, "live");
+    }
+
+    public File getDirectory() {
+        return dir;
+    }
+
+    /**
+     * Adds the interval latency histograms of a worker.
+     *
+     * @param performanceStatsMap the performance stats of the worker per test id.
+     */
+    public void update(Map<String, PerformanceStats> performanceStatsMap) {
+        for (Map.Entry<String, PerformanceStats> entry : performanceStatsMap.entrySet()) {
+            Histogram histogram;
+            try {
+                histogram = entry.getValue().getIntervalLatencyHistogram();
+            } catch (IllegalStateException e) {
+                LOGGER.warn(e.getMessage(), e);
+                continue;
+            }
+
+            if (histogram != null) {
+                long endMillis = histogram.getEndTimeStamp();
+                if (endMillis == 0) {
+                    // a histogram without a stamped interval; the best guess is that the interval just ended
+                    endMillis = System.currentTimeMillis();
+                }
+                // the end of the interval is at the end of the bucket
+                long bucket = (endMillis - 1) / bucketMillis * bucketMillis;
+                synchronized (this) {
+                    tests.computeIfAbsent(entry.getKey(), TestReport::new).add(bucket, histogram);
+                }
+            }
+        }
+    }
+
+    public void shutdown() throws InterruptedException {
+        stop = true;
+        interrupt();
+        join();
+    }
+
+    @Override
+    public void run() {
+        ensureExistingDirectory(dir);
+        while (!stop) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            try {
+                write(System.currentTimeMillis() - GRACE_MILLIS);
+            } catch (Exception e) {
+                LOGGER.warn("Failed to write the live report", e);
+            }
+        }
+
+        // the run is over, so no more histograms are coming
+        write(Long.MAX_VALUE);
+        synchronized (this) {
+            for (TestReport test : tests.values()) {
+                test.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the intervals that ended before the cutoff and the html page.
+     *
+     * @param cutoffMillis the time before which the intervals are completed.
+     */
+    synchronized void write(long cutoffMillis) {
+        for (TestReport test : tests.values()) {
+            test.flush(cutoffMillis);
+        }
+        writeHtml();
+    }
+
+    synchronized TestReport getTestReport(String testId) {
+        return tests.get(testId);
+    }
+
+    private void writeHtml() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n")
+                .append("<meta http-equiv=\"refresh\" content=\"").append(MILLISECONDS.toSeconds(intervalMillis)).append("\">\n")
+                .append("<title>Simulator live report</title>\n")
+                .append("<style>body{font-family:sans-serif} table{border-collapse:collapse} ")
+                .append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:right} svg{border:1px solid #ccc}</style>\n")
+                .append("</head>\n<body>\n<h1>Simulator live report</h1>\n")
+                .append("<p>Updated ").append(new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new Date())).append("</p>\n");
+        if (tests.isEmpty()) {
+            sb.append("<p>No latency histograms received yet.</p>\n");
+        }
+        for (TestReport test : tests.values()) {
+            test.appendHtml(sb);
+        }
+        sb.append("</body>\n</html>\n");
+
+        // written to a temporary file first, so the browser never shows a half written page
+        File tmp = new File(dir, "index.html.tmp");
+        writeText(sb.toString(), tmp);
+        rename(tmp, new File(dir, "index.html"));
+    }
+
+    /**
+     * The live report of a single test.
+     */
+    final class TestReport {
+
+        private final String testId;
+        private final TreeMap<Long, Histogram> pending = new TreeMap<>();
+        private final LongArrayList epochs = new LongArrayList();
+        private final LongArrayList throughputs = new LongArrayList();
+        private final LongArrayList p999Micros = new LongArrayList();
+        private final LongArrayList maxMicros = new LongArrayList();
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+        private Histogram total;
+        private HistogramLogWriter histogramLogWriter;
+        // the buckets before this one have been written
+        private long flushedBucket = Long.MIN_VALUE;
+        private long droppedCount;
+
+        private TestReport(String testId) {
+            this.testId = testId;
+        }
+
+        private void add(long bucket, Histogram histogram) {
+            if (bucket < flushedBucket) {
+                droppedCount++;
+                if (droppedCount == 1) {
+                    LOGGER.warn("Dropped a latency histogram of " + testId + " that arrived after its interval was "
+                            + "written to the live report");
+                } else if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Dropped " + droppedCount + " late latency histograms of " + testId);
+                }
+                return;
+            }
+
+            Histogram merged = pending.get(bucket);
+            if (merged == null) {
+                merged = new Histogram(
+                        histogram.getLowestDiscernibleValue(),
+                        histogram.getHighestTrackableValue(),
+                        histogram.getNumberOfSignificantValueDigits());
+                merged.setStartTimeStamp(bucket);
+                merged.setEndTimeStamp(bucket + bucketMillis);
+                pending.put(bucket, merged);
+            }
+            merged.add(histogram);
+        }
+
+        private void flush(long cutoffMillis) {
+            Iterator<Map.Entry<Long, Histogram>> it = pending.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Histogram> entry = it.next();
+                long end = entry.getKey() + bucketMillis;
+                if (end > cutoffMillis) {
+                    break;
+                }
+                it.remove();
+                flushedBucket = end;
+                write(end, entry.getValue());
+            }
+        }
+
+        private void write(long end, Histogram histogram) {
+            if (total == null) {
+                total = new Histogram(
+                        histogram.getLowestDiscernibleValue(),
+                        histogram.getHighestTrackableValue(),
+                        histogram.getNumberOfSignificantValueDigits());
+                appendText("epoch,timestamp,operations,operations/second,p50(us),p99(us),p99.9(us),max(us)\n", csvFile());
+            }
+            total.add(histogram);
+
+            long throughput = histogram.getTotalCount() * SECONDS.toMillis(1) / bucketMillis;
+            long p999 = micros(histogram.getValueAtPercentile(PerformanceStats.INTERVAL_LATENCY_PERCENTILE));
+            long max = micros(histogram.getMaxValue());
+            epochs.add(MILLISECONDS.toSeconds(end));
+            throughputs.add(throughput);
+            p999Micros.add(p999);
+            maxMicros.add(max);
+
+            appendText(format("%d,%s,%d,%d,%d,%d,%d,%d%n",
+                    MILLISECONDS.toSeconds(end),
+                    dateFormat.format(new Date(end)),
+                    histogram.getTotalCount(),
+                    throughput,
+                    micros(histogram.getValueAtPercentile(50)),
+                    micros(histogram.getValueAtPercentile(99)),
+                    p999,
+                    max), csvFile());
+
+            try {
+                if (histogramLogWriter == null) {
+                    histogramLogWriter = new HistogramLogWriter(new File(dir, testId + ".hdr"));
+                    histogramLogWriter.setBaseTime(histogram.getStartTimeStamp());
+                    histogramLogWriter.outputStartTime(histogram.getStartTimeStamp());
+                    histogramLogWriter.outputLogFormatVersion();
+                    histogramLogWriter.outputLegend();
+                }
+                histogramLogWriter.outputIntervalHistogram(histogram);
+            } catch (FileNotFoundException e) {
+                LOGGER.warn("Failed to write the live histograms of " + testId, e);
+            }
+        }
+
+        private File csvFile() {
+            return new File(dir, testId + ".csv");
+        }
+
+        private void close() {
+            if (histogramLogWriter != null) {
+                histogramLogWriter.close();
+            }
+        }
+
+        long getTotalCount() {
+            return total == null ? 0 : total.getTotalCount();
+        }
+
+        long getDroppedCount() {
+            return droppedCount;
+        }
+
+        int getIntervalCount() {
+            return epochs.size();
+        }
+
+        private void appendHtml(StringBuilder sb) {
+            sb.append("<h2>").append(escape(testId)).append("</h2>\n");
+            if (total == null) {
+                sb.append("<p>No completed intervals yet.</p>\n");
+                return;
+            }
+
+            int last = epochs.size() - 1;
+            sb.append("<table>\n<tr><th></th><th>operations</th><th>operations/second</th><th>p50</th><th>p99</th>")
+                    .append("<th>p99.9</th><th>max</th></tr>\n")
+                    .append(format("<tr><th>last interval</th><td></td><td>%d</td><td></td><td></td><td>%d us</td>"
+                            + "<td>%d us</td></tr>%n", throughputs.get(last), p999Micros.get(last), maxMicros.get(last)))
+                    .append(format("<tr><th>run so far</th><td>%d</td><td>%d</td><td>%d us</td><td>%d us</td><td>%d us</td>"
+                                    + "<td>%d us</td></tr>%n",
+                            total.getTotalCount(),
+                            total.getTotalCount() / Math.max(1, epochs.get(last) - epochs.get(0) + bucketSeconds()),
+                            micros(total.getValueAtPercentile(50)),
+                            micros(total.getValueAtPercentile(99)),
+                            micros(total.getValueAtPercentile(PerformanceStats.INTERVAL_LATENCY_PERCENTILE)),
+                            micros(total.getMaxValue())))
+                    .append("</table>\n");
+
+            appendChart(sb, "operations/second", throughputs, false);
+            appendChart(sb, "p99.9 latency (us)", p999Micros, true);
+            appendChart(sb, "max latency (us)", maxMicros, true);
+        }
+
+        private long bucketSeconds() {
+            return MILLISECONDS.toSeconds(bucketMillis);
+        }
+
+        /**
+         * Appends a line chart. Long runs are downsampled to at most {@link #MAX_CHART_POINTS} points; a latency point
+         * takes the maximum of the intervals it covers, so a spike never disappears from the chart.
+         */
+        private void appendChart(StringBuilder sb, String title, LongArrayList values, boolean takeMax) {
+            int size = values.size();
+            int step = (size + MAX_CHART_POINTS - 1) / MAX_CHART_POINTS;
+            LongArrayList points = new LongArrayList(MAX_CHART_POINTS);
+            long maxValue = 1;
+            for (int i = 0; i < size; i += step) {
+                int end = Math.min(size, i + step);
+                long point = 0;
+                for (int k = i; k < end; k++) {
+                    point = takeMax ? Math.max(point, values.get(k)) : point + values.get(k);
+                }
+                if (!takeMax) {
+                    point /= end - i;
+                }
+                points.add(point);
+                maxValue = Math.max(maxValue, point);
+            }
+
+            sb.append("<h3>").append(title).append(" (max ").append(maxValue).append(")</h3>\n")
+                    .append(format("<svg width=\"%d\" height=\"%d\"><polyline fill=\"none\" stroke=\"steelblue\" points=\"",
+                            CHART_WIDTH, CHART_HEIGHT));
+            int pointCount = points.size();
+            for (int i = 0; i < pointCount; i++) {
+                long x = pointCount == 1 ? 0 : (long) i * CHART_WIDTH / (pointCount - 1);
+                long y = CHART_HEIGHT - points.get(i) * CHART_HEIGHT / maxValue;
+                sb.append(x).append(',').append(y).append(' ');
+            }
+            sb.append("\"/></svg>\n");
+        }
+    }
+
+    private static long micros(long nanos) {
+        return NANOSECONDS.toMicros(nanos);
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -47,6 +47,7 @@ public class PerformanceStatsCollector {
     public static final int OPERATION_COUNT_FORMAT_LENGTH = 14;
     public static final int THROUGHPUT_FORMAT_LENGTH = 12;
     public static final int LATENCY_FORMAT_LENGTH = 10;
+    public static final int ERROR_RATE_FORMAT_LENGTH = 6;
 
     private static final long DISPLAY_LATENCY_AS_MICROS_MAX_VALUE = MILLISECONDS.toMicros(10);
 
@@ -75,7 +76,7 @@ public class PerformanceStatsCollector {
         double latency999PercentileNs = latest.getIntervalLatency999PercentileNanos();
         double latencyMaxNs = latest.getIntervalLatencyMaxNanos();
 
-        return format("%s ops %s ops/s %s %s (avg) %s %s (%sth) %s %s (max)",
+        String numbers = format("%s ops %s ops/s %s %s (avg) %s %s (%sth) %s %s (max)",
                 formatLong(latest.getOperationCount(), OPERATION_COUNT_FORMAT_LENGTH),
                 formatDouble(latest.getIntervalThroughput(), THROUGHPUT_FORMAT_LENGTH),
                 formatLong(toPrettyValue(latencyAvgNs), LATENCY_FORMAT_LENGTH),
@@ -85,6 +86,37 @@ public class PerformanceStatsCollector {
                 INTERVAL_LATENCY_PERCENTILE,
                 formatLong(toPrettyValue(latencyMaxNs), LATENCY_FORMAT_LENGTH),
                 toPrettyUnit(latencyMaxNs));
+
+        // only tests with a metronome have a schedule lag
+        double scheduleLagMaxNs = latest.getIntervalScheduleLagMaxNanos();
+        if (scheduleLagMaxNs > 0 || latest.getMissedSlotCount() > 0) {
+            numbers += format(" %s %s (max lag) %s missed",
+                    formatLong(toPrettyValue(scheduleLagMaxNs), LATENCY_FORMAT_LENGTH),
+                    toPrettyUnit(scheduleLagMaxNs),
+                    formatLong(latest.getMissedSlotCount(), OPERATION_COUNT_FORMAT_LENGTH));
+        }
+
+        // only tests with errorExceptions or timeoutExceptions have failed operations
+        if (latest.getErrorCount() > 0 || latest.getTimeoutCount() > 0) {
+            double failedThroughput = latest.getIntervalErrorThroughput() + latest.getIntervalTimeoutThroughput();
+            double errorRate = latest.getIntervalThroughput() > 0
+                    ? (100 * failedThroughput) / latest.getIntervalThroughput()
+                    : 0;
+            numbers += format(" %s ops/s (goodput) %s%% (errors)",
+                    formatDouble(latest.getIntervalGoodput(), THROUGHPUT_FORMAT_LENGTH),
+                    formatDouble(errorRate, ERROR_RATE_FORMAT_LENGTH));
+        }
+
+        // only tests with member latency probes know which member served the operations
+        if (latest.getIntervalSlowestMember() != null) {
+            double slowestMemberLatencyNs = latest.getIntervalSlowestMemberLatency999PercentileNanos();
+            numbers += format(" %s %s (%sth) %s (slowest member)",
+                    formatLong(toPrettyValue(slowestMemberLatencyNs), LATENCY_FORMAT_LENGTH),
+                    toPrettyUnit(slowestMemberLatencyNs),
+                    INTERVAL_LATENCY_PERCENTILE,
+                    latest.getIntervalSlowestMember());
+        }
+        return numbers;
     }
 
     /**
@@ -148,6 +180,21 @@ public class PerformanceStatsCollector {
                 formatLong(totalOperationCount, OPERATION_COUNT_FORMAT_LENGTH),
                 formatDouble(throughput, THROUGHPUT_FORMAT_LENGTH)));
 
+        long errorCount = totalPerformanceStats.getErrorCount();
+        long timeoutCount = totalPerformanceStats.getTimeoutCount();
+        if (errorCount > 0 || timeoutCount > 0) {
+            long goodCount = totalOperationCount - errorCount - timeoutCount;
+            sb.append(format("Total goodput           %s%% %s ops %s ops/s\n",
+                    formatPercentage(goodCount, totalOperationCount),
+                    formatLong(goodCount, OPERATION_COUNT_FORMAT_LENGTH),
+                    formatDouble(goodCount / runningTimeSeconds, THROUGHPUT_FORMAT_LENGTH)));
+            sb.append(format("Total errors            %s%% %s ops\n",
+                    formatPercentage(errorCount, totalOperationCount),
+                    formatLong(errorCount, OPERATION_COUNT_FORMAT_LENGTH)));
+            sb.append(format("Total timeouts          %s%% %s ops\n",
+                    formatPercentage(timeoutCount, totalOperationCount),
+                    formatLong(timeoutCount, OPERATION_COUNT_FORMAT_LENGTH)));
+        }
 
         for (SimulatorAddress address : sort(agentPerformanceStatsMap.keySet())) {
             PerformanceStats performanceStats = agentPerformanceStatsMap.get(address);
@@ -15,6 +15,7 @@
  */
 package com.hazelcast.simulator.coordinator;
 
+import com.hazelcast.simulator.agent.messages.ShapeProxyMessage;
 import com.hazelcast.simulator.common.TestCase;
 import com.hazelcast.simulator.common.TestPhase;
 import com.hazelcast.simulator.coordinator.registry.Registry;
@@ -59,6 +60,7 @@ import static java.lang.Math.min;
 import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -68,6 +70,8 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  */
 public final class TestCaseRunner {
 
+    static final String PROXY_SHAPING_PROPERTY = "proxyShaping";
+
     private static final int RUN_PHASE_LOG_INTERVAL_SECONDS = 30;
     private static final int WAIT_FOR_PHASE_COMPLETION_LOG_INTERVAL_SECONDS = 30;
     private static final int WAIT_FOR_PHASE_COMPLETION_LOG_VERBOSE_DELAY_SECONDS = 300;
@@ -88,6 +92,8 @@ public final class TestCaseRunner {
     private final int logRunPhaseIntervalSeconds;
     private final List<WorkerData> targets;
     private final WorkerData globalTarget;
+    private final FaultInjector faultInjector;
+    private final String proxyShaping;
 
     @SuppressWarnings("checkstyle:parameternumber")
     public TestCaseRunner(TestData test,
@@ -118,6 +124,9 @@ public final class TestCaseRunner {
         } else {
             this.logRunPhaseIntervalSeconds = RUN_PHASE_LOG_INTERVAL_SECONDS;
         }
+        this.faultInjector = FaultInjector.create(testCase, targets, registry, client, performanceStatsCollector,
+                coordinatorParameters.getSimulatorProperties().get("run_path"));
+        this.proxyShaping = testCase.getProperty(PROXY_SHAPING_PROPERTY);
     }
 
     public boolean run() {
@@ -232,6 +241,10 @@ public final class TestCaseRunner {
         }
 
         test.setTestPhase(RUN);
+        if (proxyShaping != null) {
+            log(format("Shaping proxies with [%s]", proxyShaping));
+            shapeProxies(proxyShaping);
+        }
         Map<WorkerData, Future> futures = startRun();
 
         long startMs = currentTimeMillis();
@@ -266,21 +279,42 @@ public final class TestCaseRunner {
                 break;
             }
 
+            if (faultInjector != null) {
+                faultInjector.tick(nowMs - startMs);
+            }
+
             iteration++;
             if (iteration % logRunPhaseIntervalSeconds == 0) {
                 logProgress(nowMs - startMs, durationMs);
             }
         }
 
+        if (faultInjector != null) {
+            faultInjector.complete(currentTimeMillis() - startMs);
+        }
+
         stopRun();
 
         waitForPhaseCompletion(RUN, futures);
 
+        if (proxyShaping != null) {
+            log("Restoring shaping of proxies");
+            shapeProxies(null);
+        }
+
         logFinalPerformanceInfo(startMs);
 
         waitForGlobalTestPhaseCompletion(RUN);
     }
 
+    private void shapeProxies(String shaping) {
+        try {
+            client.invokeOnAllAgents(new ShapeProxyMessage(shaping), MINUTES.toMillis(1));
+        } catch (Exception e) {
+            throw rethrow(e);
+        }
+    }
+
     private boolean isAllDone(Map<WorkerData, Future> futures) {
         for (Future f : futures.values()) {
             if (!f.isDone()) {
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import org.HdrHistogram.Recorder;
+
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Records the latency of the calls of a timestep method that failed with an expected exception, e.g. a timeout
+ * under overload. These calls are not recorded in the latency probe of the method, so the latency probe only
+ * contains the successful calls.
+ * <p>
+ * The errors and timeouts are recorded in separate histograms; the number of errors and timeouts in an interval is
+ * the total count of the interval histogram.
+ * <p>
+ * This class is thread-safe.
+ */
+public class OutcomeProbe {
+
+    /**
+     * The outcome of a failed call.
+     */
+    public enum Outcome {
+        ERROR,
+        TIMEOUT
+    }
+
+    static final long HIGHEST_TRACKABLE_VALUE_NANOS = DAYS.toNanos(1);
+
+    private static final long LOWEST_DISCERNIBLE_VALUE = MICROSECONDS.toNanos(1);
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private final Recorder errorRecorder = newRecorder();
+    private final Recorder timeoutRecorder = newRecorder();
+    private final String name;
+
+    public OutcomeProbe(String name) {
+        this.name = name;
+    }
+
+    private static Recorder newRecorder() {
+        return new Recorder(LOWEST_DISCERNIBLE_VALUE, HIGHEST_TRACKABLE_VALUE_NANOS, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Records the latency of a failed call.
+     *
+     * @param outcome      the outcome of the call.
+     * @param latencyNanos the latency of the call in nanoseconds.
+     */
+    public void record(Outcome outcome, long latencyNanos) {
+        if (latencyNanos < 0) {
+            latencyNanos = 0;
+        } else if (latencyNanos > HIGHEST_TRACKABLE_VALUE_NANOS) {
+            latencyNanos = HIGHEST_TRACKABLE_VALUE_NANOS;
+        }
+
+        if (outcome == Outcome.TIMEOUT) {
+            timeoutRecorder.recordValue(latencyNanos);
+        } else {
+            errorRecorder.recordValue(latencyNanos);
+        }
+    }
+
+    public Recorder getErrorRecorder() {
+        return errorRecorder;
+    }
+
+    public Recorder getTimeoutRecorder() {
+        return timeoutRecorder;
+    }
+
+    public void reset() {
+        errorRecorder.reset();
+        timeoutRecorder.reset();
+    }
+}
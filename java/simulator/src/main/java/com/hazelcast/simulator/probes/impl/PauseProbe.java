@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import org.HdrHistogram.Recorder;
+
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Records the pauses of the JVM of the worker, so the latency of an interval can be compared with the time the
+ * timestep threads were stopped by the JVM.
+ * <p>
+ * Every kind of pause is recorded in a separate histogram; a gc pause is also a safepoint, so the kinds overlap.
+ * <p>
+ * This class is thread-safe.
+ */
+public class PauseProbe {
+
+    /**
+     * The kind of pause.
+     */
+    public enum Pause {
+        /**
+         * A stop the world pause of the garbage collector.
+         */
+        GC("gc"),
+        /**
+         * A safepoint, from the moment the JVM starts stopping the threads until they are released.
+         */
+        SAFEPOINT("safepoint"),
+        /**
+         * The part of a safepoint it takes until all threads have stopped.
+         */
+        TIME_TO_SAFEPOINT("ttsp");
+
+        private final String suffix;
+
+        Pause(String suffix) {
+            this.suffix = suffix;
+        }
+
+        /**
+         * Returns the suffix that is added to the name of the probe for the histogram of this kind of pause.
+         *
+         * @return the suffix.
+         */
+        public String suffix() {
+            return suffix;
+        }
+    }
+
+    static final long HIGHEST_TRACKABLE_VALUE_NANOS = DAYS.toNanos(1);
+
+    private static final long LOWEST_DISCERNIBLE_VALUE = MICROSECONDS.toNanos(1);
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private final Recorder[] recorders = new Recorder[Pause.values().length];
+    private final String name;
+
+    public PauseProbe(String name) {
+        this.name = name;
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new Recorder(LOWEST_DISCERNIBLE_VALUE, HIGHEST_TRACKABLE_VALUE_NANOS,
+                    NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Records a pause.
+     *
+     * @param pause         the kind of pause.
+     * @param durationNanos the duration of the pause in nanoseconds.
+     */
+    public void record(Pause pause, long durationNanos) {
+        if (durationNanos < 0) {
+            durationNanos = 0;
+        } else if (durationNanos > HIGHEST_TRACKABLE_VALUE_NANOS) {
+            durationNanos = HIGHEST_TRACKABLE_VALUE_NANOS;
+        }
+        recorders[pause.ordinal()].recordValue(durationNanos);
+    }
+
+    public Recorder getRecorder(Pause pause) {
+        return recorders[pause.ordinal()];
+    }
+
+    public void reset() {
+        for (Recorder recorder : recorders) {
+            recorder.reset();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import org.HdrHistogram.Recorder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static java.util.concurrent.TimeUnit.DAYS;
+
+/**
+ * Records the number of bytes allocated and the CPU time consumed per operation.
+ * <p>
+ * The values are measured using the {@link com.sun.management.ThreadMXBean} of the calling thread; so only work done by
+ * the calling thread is included. Work offloaded to other threads (e.g. the io threads of a Hazelcast client) is not
+ * visible.
+ * <p>
+ * Measuring is too expensive to do for every operation, so every thread gets its own {@link Sampler} that only samples
+ * a fraction of the operations.
+ */
+public class ResourceUsageProbe {
+
+    static final long HIGHEST_TRACKABLE_CPU_NANOS = DAYS.toNanos(1);
+    static final long HIGHEST_TRACKABLE_ALLOCATED_BYTES = 1L << 40;
+
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private final Recorder allocatedBytesRecorder = new Recorder(
+            1, HIGHEST_TRACKABLE_ALLOCATED_BYTES, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+    private final Recorder cpuNanosRecorder = new Recorder(
+            1, HIGHEST_TRACKABLE_CPU_NANOS, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+    private final String name;
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final boolean allocationSupported;
+    private final boolean cpuTimeSupported;
+
+    public ResourceUsageProbe(String name) {
+        this.name = name;
+        this.allocationSupported = threadMXBean instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()
+                && bean.isThreadAllocatedMemoryEnabled();
+        this.cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean isAllocationSupported() {
+        return allocationSupported;
+    }
+
+    public boolean isCpuTimeSupported() {
+        return cpuTimeSupported;
+    }
+
+    public Recorder getAllocatedBytesRecorder() {
+        return allocatedBytesRecorder;
+    }
+
+    public Recorder getCpuNanosRecorder() {
+        return cpuNanosRecorder;
+    }
+
+    public void reset() {
+        allocatedBytesRecorder.reset();
+        cpuNanosRecorder.reset();
+    }
+
+    /**
+     * Creates a new {@link Sampler}. A sampler should only be used by a single thread.
+     *
+     * @param sampleRate the fraction of operations to sample; a value between 0 (exclusive) and 1 (inclusive)
+     * @return the created Sampler
+     */
+    public Sampler newSampler(double sampleRate) {
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate should be larger than 0 and not larger than 1, but was "
+                    + sampleRate);
+        }
+        return new Sampler(Math.max(1, Math.round(1 / sampleRate)));
+    }
+
+    /**
+     * Samples every n-th operation of a single thread.
+     * <p>
+     * Typical usage:
+     * <pre>
+     * boolean sampled = sampler.begin();
+     * doOperation();
+     * if (sampled) {
+     *     sampler.end();
+     * }
+     * </pre>
+     * So for the operations that are not sampled, the only overhead is decrementing a counter.
+     */
+    public final class Sampler {
+
+        private final com.sun.management.ThreadMXBean allocationMXBean = allocationSupported
+                ? (com.sun.management.ThreadMXBean) threadMXBean
+                : null;
+        private final long sampleInterval;
+        private long countdown;
+        private long startAllocatedBytes;
+        private long startCpuNanos;
+
+        private Sampler(long sampleInterval) {
+            this.sampleInterval = sampleInterval;
+            // a random offset to prevent all threads sampling the same iterations
+            this.countdown = 1 + (long) (Math.random() * sampleInterval);
+        }
+
+        /**
+         * Begins measuring an operation if it should be sampled.
+         *
+         * @return true if the operation is sampled and {@link #end()} needs to be called when it completes.
+         */
+        public boolean begin() {
+            if (--countdown > 0) {
+                return false;
+            }
+
+            countdown = sampleInterval;
+            if (cpuTimeSupported) {
+                startCpuNanos = threadMXBean.getCurrentThreadCpuTime();
+            }
+            // the allocated bytes are read last so the reading of the CPU time is excluded
+            if (allocationMXBean != null) {
+                startAllocatedBytes = allocationMXBean.getCurrentThreadAllocatedBytes();
+            }
+            return true;
+        }
+
+        /**
+         * Ends measuring the sampled operation and records the allocated bytes and the consumed CPU time.
+         */
+        public void end() {
+            if (allocationMXBean != null) {
+                long allocatedBytes = allocationMXBean.getCurrentThreadAllocatedBytes() - startAllocatedBytes;
+                allocatedBytesRecorder.recordValue(clamp(allocatedBytes, HIGHEST_TRACKABLE_ALLOCATED_BYTES));
+            }
+            if (cpuTimeSupported) {
+                long cpuNanos = threadMXBean.getCurrentThreadCpuTime() - startCpuNanos;
+                cpuNanosRecorder.recordValue(clamp(cpuNanos, HIGHEST_TRACKABLE_CPU_NANOS));
+            }
+        }
+
+        private long clamp(long value, long max) {
+            return value < 0 ? 0 : Math.min(value, max);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Records how far the timestep threads of an execution group fall behind the schedule of their
+ * {@link com.hazelcast.simulator.worker.metronome.Metronome}.
+ * <p>
+ * The schedule lag is the time between the intended start of an operation, as returned by the metronome, and the
+ * moment the thread actually starts it. A thread that can't keep up with the configured rate gets a growing lag, so the
+ * load generator itself is the bottleneck and the measured throughput is lower than the configured rate.
+ * <p>
+ * An operation that starts more than one slot (the interval between the operations of a single thread) after its
+ * intended start counts as a missed slot.
+ * <p>
+ * This class is thread-safe.
+ */
+public class ScheduleLagProbe {
+
+    static final long HIGHEST_TRACKABLE_VALUE_NANOS = DAYS.toNanos(1);
+
+    private static final long LOWEST_DISCERNIBLE_VALUE = MICROSECONDS.toNanos(1);
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private final Recorder recorder = new Recorder(
+            LOWEST_DISCERNIBLE_VALUE,
+            HIGHEST_TRACKABLE_VALUE_NANOS,
+            NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+    private final LongAdder missedSlots = new LongAdder();
+    private final String name;
+    private final long slotNanos;
+
+    /**
+     * Creates a ScheduleLagProbe.
+     *
+     * @param name      the name of the probe.
+     * @param slotNanos the interval between the operations of a single thread, or 0 if unknown; in which case no
+     *                  missed slots are counted.
+     */
+    public ScheduleLagProbe(String name, long slotNanos) {
+        this.name = name;
+        this.slotNanos = slotNanos;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Records the lag of an operation that starts now.
+     *
+     * @param intendedStartNanos the intended start of the operation as returned by the metronome.
+     */
+    public void record(long intendedStartNanos) {
+        recordLag(System.nanoTime() - intendedStartNanos);
+    }
+
+    void recordLag(long lagNanos) {
+        if (lagNanos < 0) {
+            // the metronome returned the actual start
+            lagNanos = 0;
+        } else if (lagNanos > HIGHEST_TRACKABLE_VALUE_NANOS) {
+            lagNanos = HIGHEST_TRACKABLE_VALUE_NANOS;
+        }
+        recorder.recordValue(lagNanos);
+
+        if (slotNanos > 0 && lagNanos >= slotNanos) {
+            missedSlots.increment();
+        }
+    }
+
+    public Recorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Returns the number of operations that started more than one slot after their intended start.
+     *
+     * @return the number of missed slots.
+     */
+    public long missedSlotCount() {
+        return missedSlots.sum();
+    }
+
+    public void reset() {
+        recorder.reset();
+        missedSlots.reset();
+    }
+}
@@ -110,6 +110,10 @@ public class CoordinatorClient implements Closeable {
         return this;
     }
 
+    MessageHandler getProcessor() {
+        return processor;
+    }
+
     public CoordinatorClient start() {
         responseHandlerThread.start();
         sendThread.start();
@@ -141,8 +145,7 @@ public class CoordinatorClient implements Closeable {
     public List<String> invokeOnAllAgents(SimulatorMessage msg, long timeoutMillis)
             throws TimeoutException, InterruptedException, ExecutionException {
         Map<SimulatorAddress, Future<String>> futures = new HashMap<>();
-        for (RemoteBroker broker : remoteBrokers.values()) {
-            SimulatorAddress agent = broker.agentAddress;
+        for (SimulatorAddress agent : getAgentAddresses()) {
             futures.put(agent, submit(agent, msg));
         }
 
@@ -163,6 +166,14 @@ public class CoordinatorClient implements Closeable {
         return responses;
     }
 
+    List<SimulatorAddress> getAgentAddresses() {
+        List<SimulatorAddress> agents = new ArrayList<>();
+        for (RemoteBroker broker : remoteBrokers.values()) {
+            agents.add(broker.agentAddress);
+        }
+        return agents;
+    }
+
     private RemoteBroker getRemoteBroker(SimulatorAddress target) {
         RemoteBroker broker = remoteBrokers.get(target.getAgentIndex());
 
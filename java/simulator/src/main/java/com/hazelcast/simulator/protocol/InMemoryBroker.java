@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import com.hazelcast.simulator.protocol.message.SimulatorMessage;
+import com.hazelcast.simulator.protocol.message.SimulatorMessageCodec;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static com.hazelcast.simulator.protocol.message.MessageType.getMessageType;
+import static java.lang.String.format;
+
+/**
+ * Delivers the messages between a coordinator, agents and workers that run embedded in a single JVM; it replaces the
+ * ActiveMQ brokers of the agents, so no broker, connections or serialization to JMS messages are needed.
+ * <p>
+ * Every coordinator, agent and worker registers itself with its {@link SimulatorAddress} and the {@link MessageHandler}
+ * that processes its messages. Like with the {@link Server}, the messages for a single address are processed one at a
+ * time and in order by a dedicated thread. Messages are copied using the {@link SimulatorMessageCodec}, so a sender and
+ * a receiver never share a message.
+ */
+public class InMemoryBroker implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(InMemoryBroker.class);
+
+    private final ConcurrentMap<SimulatorAddress, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the {@link MessageHandler} of an address.
+     * <p>
+     * The thread processing the messages is created by the calling thread, so it inherits the inheritable thread locals
+     * of the caller.
+     *
+     * @param address the address to register.
+     * @param handler the handler that processes the messages sent to the address.
+     * @throws IllegalStateException if the address already is registered.
+     */
+    public void register(SimulatorAddress address, MessageHandler handler) {
+        Endpoint endpoint = new Endpoint(address, handler);
+        if (endpoints.putIfAbsent(address, endpoint) != null) {
+            throw new IllegalStateException(format("Address [%s] already is registered", address));
+        }
+        endpoint.start();
+    }
+
+    /**
+     * Unregisters an address. Messages that are still queued for the address are discarded.
+     *
+     * @param address the address to unregister.
+     */
+    public void unregister(SimulatorAddress address) {
+        Endpoint endpoint = endpoints.remove(address);
+        if (endpoint != null) {
+            endpoint.shutdown();
+        }
+    }
+
+    public boolean isRegistered(SimulatorAddress address) {
+        return endpoints.containsKey(address);
+    }
+
+    /**
+     * Sends a message without waiting for a response.
+     *
+     * @param source the address of the sender.
+     * @param target the address of the receiver.
+     * @param msg    the message.
+     */
+    public void send(SimulatorAddress source, SimulatorAddress target, SimulatorMessage msg) {
+        Endpoint endpoint = endpoints.get(target);
+        if (endpoint == null) {
+            // like a message sent to a topic without subscriber, it is lost
+            LOGGER.debug(format("Dropping [%s] from [%s], no endpoint for [%s]", msg, source, target));
+            return;
+        }
+        endpoint.queue.add(new Delivery(source, copy(msg), null));
+    }
+
+    /**
+     * Sends a message and returns a future with the response.
+     *
+     * @param source the address of the sender.
+     * @param target the address of the receiver.
+     * @param msg    the message.
+     * @return the future completed with the response or with the exception the receiver failed with.
+     */
+    public Future<String> submit(SimulatorAddress source, SimulatorAddress target, SimulatorMessage msg) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        Endpoint endpoint = endpoints.get(target);
+        if (endpoint == null) {
+            future.completeExceptionally(new IllegalStateException(format("No endpoint for [%s]", target)));
+        } else {
+            endpoint.queue.add(new Delivery(source, copy(msg), future));
+        }
+        return future;
+    }
+
+    private static SimulatorMessage copy(SimulatorMessage msg) {
+        return SimulatorMessageCodec.fromJson(SimulatorMessageCodec.toJson(msg), getMessageType(msg).getClassType());
+    }
+
+    @Override
+    public void close() {
+        for (SimulatorAddress address : new ArrayList<>(endpoints.keySet())) {
+            unregister(address);
+        }
+    }
+
+    private static final class Delivery {
+        private final SimulatorAddress source;
+        private final SimulatorMessage msg;
+        private final CompletableFuture<String> future;
+
+        private Delivery(SimulatorAddress source, SimulatorMessage msg, CompletableFuture<String> future) {
+            this.source = source;
+            this.msg = msg;
+            this.future = future;
+        }
+    }
+
+    private static final class DeliveryPromise implements Promise {
+        private final CompletableFuture<String> future;
+
+        private DeliveryPromise(CompletableFuture<String> future) {
+            this.future = future;
+        }
+
+        @Override
+        public void answer(Object o) {
+            if (future == null) {
+                return;
+            }
+
+            // the same as the reply of a Server, only the message of an exception is returned
+            if (o instanceof Throwable) {
+                future.completeExceptionally(new Exception(((Throwable) o).getMessage()));
+            } else {
+                future.complete("" + o);
+            }
+        }
+    }
+
+    private static final class Endpoint extends Thread {
+        private final BlockingQueue<Delivery> queue = new LinkedBlockingQueue<>();
+        private final MessageHandler handler;
+        private volatile boolean stop;
+
+        private Endpoint(SimulatorAddress address, MessageHandler handler) {
+            super("InMemoryBroker-" + address);
+            setDaemon(true);
+            this.handler = handler;
+        }
+
+        private void shutdown() {
+            stop = true;
+            // an endpoint can unregister itself while processing a message, e.g. a terminating worker
+            if (Thread.currentThread() != this) {
+                interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!stop) {
+                Delivery delivery;
+                try {
+                    delivery = queue.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Received msg:" + delivery.msg);
+                }
+                Promise promise = new DeliveryPromise(delivery.future);
+                try {
+                    handler.process(delivery.msg, delivery.source, promise);
+                } catch (Exception e) {
+                    if (!stop) {
+                        LOGGER.warn(e.getMessage(), e);
+                        promise.answer(e);
+                    }
+                }
+            }
+
+            // nobody is going to answer the remaining requests
+            for (Delivery delivery : queue) {
+                new DeliveryPromise(delivery.future).answer(new IllegalStateException("Endpoint " + getName() + " closed"));
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import com.hazelcast.simulator.protocol.message.SimulatorMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+import static com.hazelcast.simulator.protocol.core.SimulatorAddress.coordinatorAddress;
+import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
+
+/**
+ * A {@link CoordinatorClient} for a coordinator that runs its agents and workers embedded in its own JVM; the messages are
+ * exchanged through an {@link InMemoryBroker} instead of the ActiveMQ brokers of the agents.
+ */
+public class InMemoryCoordinatorClient extends CoordinatorClient {
+
+    private final InMemoryBroker broker;
+    private final List<SimulatorAddress> agents = new CopyOnWriteArrayList<>();
+
+    public InMemoryCoordinatorClient(InMemoryBroker broker) {
+        this.broker = checkNotNull(broker, "broker can't be null");
+    }
+
+    @Override
+    public CoordinatorClient connectToAgentBroker(SimulatorAddress agentAddress, String agentIp) {
+        if (!broker.isRegistered(agentAddress)) {
+            throw new IllegalStateException("Embedded agent [" + agentAddress + "] isn't started");
+        }
+        agents.add(agentAddress);
+        return this;
+    }
+
+    @Override
+    public CoordinatorClient start() {
+        broker.register(coordinatorAddress(), getProcessor());
+        return this;
+    }
+
+    @Override
+    public void send(SimulatorAddress target, SimulatorMessage msg) {
+        broker.send(coordinatorAddress(), target, msg);
+    }
+
+    @Override
+    public Future<String> submit(SimulatorAddress target, SimulatorMessage msg) {
+        return broker.submit(coordinatorAddress(), target, msg);
+    }
+
+    @Override
+    List<SimulatorAddress> getAgentAddresses() {
+        return new ArrayList<>(agents);
+    }
+
+    @Override
+    public void close() {
+        broker.unregister(coordinatorAddress());
+        agents.clear();
+        super.close();
+    }
+}
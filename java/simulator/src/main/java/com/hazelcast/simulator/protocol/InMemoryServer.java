@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.protocol.message.SimulatorMessage;
+
+import static com.hazelcast.simulator.protocol.core.SimulatorAddress.coordinatorAddress;
+import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
+
+/**
+ * A {@link Server} for an agent or worker that runs embedded in the JVM of the coordinator; the messages are exchanged
+ * through an {@link InMemoryBroker} instead of the ActiveMQ broker of an agent.
+ */
+public class InMemoryServer extends Server {
+
+    private final InMemoryBroker broker;
+
+    public InMemoryServer(String topic, InMemoryBroker broker) {
+        super(topic);
+        this.broker = checkNotNull(broker, "broker can't be null");
+    }
+
+    @Override
+    public Server start() {
+        broker.register(getSelfAddress(), getProcessor());
+        return this;
+    }
+
+    @Override
+    public void close() {
+        broker.unregister(getSelfAddress());
+    }
+
+    @Override
+    public void sendCoordinator(SimulatorMessage msg) {
+        broker.send(getSelfAddress(), coordinatorAddress(), msg);
+    }
+}
@@ -107,6 +107,14 @@ public class Server implements Closeable {
         return this;
     }
 
+    public SimulatorAddress getSelfAddress() {
+        return selfAddress;
+    }
+
+    public MessageHandler getProcessor() {
+        return processor;
+    }
+
     public Server setBrokerURL(String brokerURL) {
         this.brokerURL = brokerURL;
         return this;
@@ -16,9 +16,13 @@
 package com.hazelcast.simulator.protocol.message;
 
 import com.hazelcast.simulator.agent.messages.CreateWorkerMessage;
+import com.hazelcast.simulator.agent.messages.InjectFaultMessage;
+import com.hazelcast.simulator.agent.messages.ShapeProxyMessage;
 import com.hazelcast.simulator.agent.messages.StartTimeoutDetectionMessage;
 import com.hazelcast.simulator.agent.messages.StopTimeoutDetectionMessage;
 import com.hazelcast.simulator.coordinator.messages.FailureMessage;
+import com.hazelcast.simulator.worker.messages.ClockOffsetMessage;
+import com.hazelcast.simulator.worker.messages.ClockProbeMessage;
 import com.hazelcast.simulator.worker.messages.CreateTestMessage;
 import com.hazelcast.simulator.worker.messages.ExecuteScriptMessage;
 import com.hazelcast.simulator.worker.messages.PerformanceStatsMessage;
@@ -47,13 +51,17 @@ public enum MessageType {
     CREATE_WORKER(CreateWorkerMessage.class, 3000),
     START_TIMEOUT_DETECTION(StartTimeoutDetectionMessage.class, 3001),
     STOP_TIMEOUT_DETECTION(StopTimeoutDetectionMessage.class, 3002),
+    INJECT_FAULT(InjectFaultMessage.class, 3003),
+    SHAPE_PROXY(ShapeProxyMessage.class, 3004),
 
     // Worker-Messages
     TERMINATE_WORKER(TerminateWorkerMessage.class, 4001),
     CREATE_TEST(CreateTestMessage.class, 4002),
     EXECUTE_SCRIPT(ExecuteScriptMessage.class, 4003),
     START_TEST_PHASE(StartPhaseMessage.class, 4004),
-    STOP_TEST(StopRunMessage.class, 4005);
+    STOP_TEST(StopRunMessage.class, 4005),
+    CLOCK_PROBE(ClockProbeMessage.class, 4006),
+    CLOCK_OFFSET(ClockOffsetMessage.class, 4007);
 
     private final Class<? extends SimulatorMessage> classType;
     private final int classId;
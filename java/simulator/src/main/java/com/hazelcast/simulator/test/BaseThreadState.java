@@ -29,9 +29,22 @@ import java.util.Random;
 @SuppressWarnings("unused")
 public class BaseThreadState implements Serializable {
 
+    /**
+     * Indicates that no key has been traced for the current operation.
+     */
+    public static final long NO_TRACED_KEY = Long.MIN_VALUE;
+
+    /**
+     * Indicates that no value size has been traced for the current operation.
+     */
+    public static final int NO_TRACED_VALUE_SIZE = -1;
+
     @SuppressWarnings("checkstyle:visibilitymodifier")
     public final Random random = new Random();
 
+    private long tracedKey = NO_TRACED_KEY;
+    private int tracedValueSize = NO_TRACED_VALUE_SIZE;
+
     /**
      * @return random generated double
      */
@@ -82,4 +95,33 @@ public class BaseThreadState implements Serializable {
     public boolean randomBoolean() {
         return random.nextBoolean();
     }
+
+    /**
+     * Reports the key and the value size of the current operation, so they are written to the workload trace when
+     * 'recordTrace' is enabled. When the trace is replayed, the reported keys are compared against the trace to
+     * detect that the replay has diverged.
+     * <p>
+     * Calling this method is optional and cheap.
+     *
+     * @param key       the key of the operation or {@link #NO_TRACED_KEY}.
+     * @param valueSize the size of the value of the operation or {@link #NO_TRACED_VALUE_SIZE}.
+     */
+    public void traceOperation(long key, int valueSize) {
+        this.tracedKey = key;
+        this.tracedValueSize = valueSize;
+    }
+
+    /**
+     * @return the key reported for the current operation or {@link #NO_TRACED_KEY}.
+     */
+    public long tracedKey() {
+        return tracedKey;
+    }
+
+    /**
+     * @return the value size reported for the current operation or {@link #NO_TRACED_VALUE_SIZE}.
+     */
+    public int tracedValueSize() {
+        return tracedValueSize;
+    }
 }
@@ -17,6 +17,8 @@ package com.hazelcast.simulator.test;
 
 import com.hazelcast.simulator.probes.LatencyProbe;
 
+import java.util.function.DoubleSupplier;
+
 /**
  * The TestContext is they way for a test to get access to test related
  * information. Most importantly if a test is running.
@@ -53,6 +55,55 @@ public interface TestContext {
      */
     LatencyProbe getLatencyProbe(String name, boolean includeInThroughput);
 
+    /**
+     * Gets a {@link LatencyProbe} for the operations of a probe that were served by a single member, so a slow member
+     * doesn't disappear in the latency of all members.
+     * <p/>
+     * The probe is written as a separate '&lt;probe&gt;@&lt;member&gt;' histogram next to the histogram of the probe.
+     * It is not included in the throughput and in the latency of the test; the member with the highest latency is
+     * shown by the coordinator. The operations are typically recorded in the probe of the timestep method and a sample
+     * of them in the member probe as well.
+     * <p/>
+     * This method is threadsafe.
+     *
+     * @param name   the name of the probe, e.g. the name of the timestep method
+     * @param member the id of the member, e.g. its address; may not contain '@'
+     * @return the Probe
+     * @throws NullPointerException if name or member is null.
+     */
+    LatencyProbe getMemberLatencyProbe(String name, String member);
+
+    /**
+     * Registers a gauge that is sampled every performance monitor interval and written as an additional column
+     * to the operations log of the test. This makes it possible to put metrics of the system under test, e.g. the
+     * hit ratio of a near cache, next to the throughput of the test.
+     * <p/>
+     * Gauges should be registered in the setup; gauges registered after the run phase has started are not written.
+     * The gauge is called by the performance monitor thread, so it needs to be threadsafe and cheap.
+     * <p/>
+     * This method is threadsafe.
+     *
+     * @param name  the name of the column
+     * @param gauge the gauge
+     * @throws NullPointerException if name or gauge is null.
+     */
+    void registerGauge(String name, DoubleSupplier gauge);
+
+    /**
+     * Registers a listener that is called every performance monitor interval, right before the gauges are sampled.
+     * This makes it possible to do the work of an interval, e.g. writing a file with the statistics of the interval,
+     * outside of the gauges; so a gauge only needs to read the last computed value.
+     * <p/>
+     * Like gauges, listeners should be registered in the setup and are called by the performance monitor thread, so
+     * they need to be threadsafe and cheap.
+     * <p/>
+     * This method is threadsafe.
+     *
+     * @param listener the listener
+     * @throws NullPointerException if listener is null.
+     */
+    void registerIntervalListener(Runnable listener);
+
     /**
      * Returns the id of the current test.
      *
@@ -91,6 +142,28 @@ public interface TestContext {
      */
     void stop();
 
+    /**
+     * Returns the time of a clock that is synchronized between all workers, so that timestamps taken on different
+     * workers can be compared; e.g. to measure the latency between publishing a message on one worker and
+     * receiving it on another.
+     * <p/>
+     * The coordinator periodically estimates the offset and drift of the clock of each worker, see
+     * {@link #globalNanoTimeErrorBound()} for the accuracy. Just like {@link System#nanoTime()}, this method is cheap
+     * and can be called from the timestep methods.
+     * <p/>
+     * This method is threadsafe.
+     *
+     * @return the global time in nanoseconds since the epoch.
+     */
+    long globalNanoTime();
+
+    /**
+     * Returns the estimated maximum error of {@link #globalNanoTime()} compared to the clock of the coordinator.
+     *
+     * @return the error bound in nanoseconds, or -1 if the clock has not been synchronized yet.
+     */
+    long globalNanoTimeErrorBound();
+
     /**
      * Echoes a message to coordinator.
      * <p/>
@@ -51,6 +51,9 @@ public final class FileUtils {
 
     private static final Pattern VALID_FILE_NAME_PATTERN = Pattern.compile("^[a-zA-Z0-9-_]+$");
 
+    // the home directory of the embedded worker a thread belongs to; it is inherited by the threads the worker creates
+    private static final InheritableThreadLocal<File> EMBEDDED_WORKER_HOME = new InheritableThreadLocal<>();
+
     private FileUtils() {
     }
 
@@ -334,11 +337,37 @@ public final class FileUtils {
         }
     }
 
+    /**
+     * Returns the directory a process writes its files to.
+     * <p>
+     * For the threads of an embedded worker, this is the home directory of the worker, so that multiple workers can run in
+     * the same JVM without overwriting each others files. See {@link #setEmbeddedWorkerHome(File)}.
+     *
+     * @return the user directory.
+     */
     public static File getUserDir() {
+        File embeddedWorkerHome = EMBEDDED_WORKER_HOME.get();
+        if (embeddedWorkerHome != null) {
+            return embeddedWorkerHome;
+        }
         String userDirTest = System.getProperty("user.dir.test");
         return userDirTest == null ? new File(System.getProperty("user.dir")) : new File(userDirTest);
     }
 
+    /**
+     * Sets the home directory of the embedded worker the current thread belongs to. The threads created by the current
+     * thread from now on inherit the home directory.
+     *
+     * @param workerHome the home directory, or null if the thread doesn't belong to an embedded worker.
+     */
+    public static void setEmbeddedWorkerHome(File workerHome) {
+        if (workerHome == null) {
+            EMBEDDED_WORKER_HOME.remove();
+        } else {
+            EMBEDDED_WORKER_HOME.set(workerHome);
+        }
+    }
+
     public static File getSimulatorHome() {
         String home = System.getProperty("SIMULATOR_HOME");
         if (home != null) {
@@ -21,7 +21,6 @@ import org.HdrHistogram.HistogramLogReader;
 import org.HdrHistogram.HistogramLogWriter;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
@@ -29,6 +28,7 @@ import java.util.List;
 
 import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
 import static com.hazelcast.simulator.utils.FileUtils.ensureExistingFile;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * The HistogramLogMerger merges the Histograms of multiple HDR files. This will be done based under the assumption that
@@ -37,6 +37,9 @@ import static com.hazelcast.simulator.utils.FileUtils.ensureExistingFile;
  * It works like this; from each HistogramLogReader a Histogram is read and merged into a final Histogram and this Histogram
  * is written into the merged HDR. Once round is complete, the next Histogram is retrieved. The different HDR files don't need
  * to have the same length; as soon as a HDR is finished, it is ignored and this continues till all HDR files are fully processed.
+ * <p>
+ * If the HDR files contain {@link MeasurementWindow} markers, the merged HDR gets the window in which all of them were
+ * measuring.
  */
 public final class HistogramLogMerger {
 
@@ -61,17 +64,15 @@ public final class HistogramLogMerger {
 
         List<String> inputFiles = Files.readAllLines(inputFilesListFile.toPath());
         ArrayList<HistogramLogReader> readers = new ArrayList<>(inputFiles.size());
-        inputFiles.forEach(p -> {
+        MeasurementWindow measurementWindow = new MeasurementWindow(Double.NaN, Double.NaN);
+        for (String p : inputFiles) {
             File file = new File(p);
             if (!file.exists()) {
                 throw new IllegalArgumentException("File [" + file + "] doesn't exist");
             }
-            try {
-                readers.add(new HistogramLogReader(p));
-            } catch (FileNotFoundException e) {
-                throw new RuntimeException(e);
-            }
-        });
+            measurementWindow = measurementWindow.intersect(MeasurementWindow.read(file));
+            readers.add(new HistogramLogReader(p));
+        }
 
         HistogramLogWriter writer = new HistogramLogWriter(outputFile);
         String comment = "[Latency histograms for " + getBaseName(outputFile) + ']';
@@ -79,6 +80,12 @@ public final class HistogramLogMerger {
         writer.outputComment(comment);
         writer.outputLogFormatVersion();
         writer.outputLegend();
+        if (measurementWindow.hasStart()) {
+            writer.outputComment(MeasurementWindow.startComment(toMillis(measurementWindow.getStartSec())));
+        }
+        if (measurementWindow.hasEnd()) {
+            writer.outputComment(MeasurementWindow.endComment(toMillis(measurementWindow.getEndSec())));
+        }
 
         int numberOfMergedHistograms = 0;
         for (; ; ) {
@@ -111,6 +118,10 @@ public final class HistogramLogMerger {
         System.out.println("[HistogramLogMerger] " + log);
     }
 
+    private static long toMillis(double seconds) {
+        return Math.round(seconds * SECONDS.toMillis(1));
+    }
+
     private static String getBaseName(File file) {
         String name = file.getName();
         int pos = name.lastIndexOf('.');
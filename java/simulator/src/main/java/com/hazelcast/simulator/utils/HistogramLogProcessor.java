@@ -5,6 +5,7 @@ import org.HdrHistogram.EncodableHistogram;
 import org.HdrHistogram.Histogram;
 import org.HdrHistogram.HistogramLogReader;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
@@ -35,6 +36,8 @@ public class HistogramLogProcessor implements Runnable {
 
     protected HistogramLogReader logReader;
 
+    protected MeasurementWindow measurementWindow;
+
     protected static class HistogramLogProcessorConfiguration {
         public boolean verbose = false;
         public String outputFileName = null;
@@ -43,6 +46,7 @@ public class HistogramLogProcessor implements Runnable {
 
         public double rangeStartTimeSec = 0.0;
         public double rangeEndTimeSec = Double.MAX_VALUE;
+        public boolean measurementWindow = false;
 
         public boolean logFormatCsv = false;
         public boolean listTags = false;
@@ -74,6 +78,8 @@ public class HistogramLogProcessor implements Runnable {
                         rangeStartTimeSec = Double.parseDouble(args[++i]);
                     } else if (args[i].equals("-end")) {
                         rangeEndTimeSec = Double.parseDouble(args[++i]);
+                    } else if (args[i].equals("-measurementWindow")) {
+                        measurementWindow = true;
                     } else if (args[i].equals("-o")) {
                         outputFileName = args[++i];
                     } else if (args[i].equals("-percentilesOutputTicksPerHalf")) {
@@ -101,7 +107,7 @@ public class HistogramLogProcessor implements Runnable {
 
                 final String validArgs =
                         "\"[-csv] [-v] [-i inputFileName] [-o outputFileName] [-tag tag] " +
-                                "[-start rangeStartTimeSec] [-end rangeEndTimeSec] " +
+                                "[-start rangeStartTimeSec] [-end rangeEndTimeSec] [-measurementWindow] " +
                                 "[-outputValueUnitRatio r] [-listtags]";
 
                 System.err.println("valid arguments = " + validArgs);
@@ -115,6 +121,7 @@ public class HistogramLogProcessor implements Runnable {
                                 " [-tag tag]                  The tag (default no tag) of the histogram lines to be processed\n" +
                                 " [-start rangeStartTimeSec]  The start time for the range in the file, in seconds (default 0.0)\n" +
                                 " [-end rangeEndTimeSec]      The end time for the range in the file, in seconds (default is infinite)\n" +
+                                " [-measurementWindow]        Use the measurement window markers in the file instead of -start/-end\n" +
                                 " [-outputValueUnitRatio r]   The scaling factor by which to divide histogram recorded values units\n" +
                                 "                             in output. [default = 1000000.0 (1 msec in nsec)]\n" +
                                 " [-listtags]                 list all tags found on histogram lines the input file."
@@ -144,7 +151,13 @@ public class HistogramLogProcessor implements Runnable {
     private EncodableHistogram getIntervalHistogram() {
         EncodableHistogram histogram = null;
         try {
-            histogram = logReader.nextIntervalHistogram(config.rangeStartTimeSec, config.rangeEndTimeSec);
+            if (measurementWindow == null) {
+                histogram = logReader.nextIntervalHistogram(config.rangeStartTimeSec, config.rangeEndTimeSec);
+            } else {
+                histogram = logReader.nextAbsoluteIntervalHistogram(
+                        measurementWindow.hasStart() ? measurementWindow.getStartSec() : 0.0,
+                        measurementWindow.hasEnd() ? measurementWindow.getEndSec() : Double.MAX_VALUE);
+            }
         } catch (RuntimeException ex) {
             System.err.println("Log file parsing error at line number " + lineNumber +
                     ": line appears to be malformed. " + "Log file: " + config.inputFileName);
@@ -367,6 +380,7 @@ public class HistogramLogProcessor implements Runnable {
      *                             (will replace occurrences of %pid and %date with appropriate information)
      * [-start rangeStartTimeSec]  The start time for the range in the file, in seconds (default 0.0)
      * [-end rangeEndTimeSec]      The end time for the range in the file, in seconds (default is infinite)
+     * [-measurementWindow]        Use the measurement window markers in the file instead of -start/-end
      * [-outputValueUnitRatio r]   The scaling factor by which to divide histogram recorded values units
      *                             in output. [default = 1000000.0 (1 msec in nsec)]"
      * </pre>
@@ -378,6 +392,13 @@ public class HistogramLogProcessor implements Runnable {
         config = new HistogramLogProcessorConfiguration(args);
         if (config.inputFileName != null) {
             logReader = new HistogramLogReader(config.inputFileName);
+            if (config.measurementWindow) {
+                // files without markers are processed using the -start/-end range
+                MeasurementWindow window = MeasurementWindow.read(new File(config.inputFileName));
+                if (window.hasStart() || window.hasEnd()) {
+                    measurementWindow = window;
+                }
+            }
         } else {
             logReader = new HistogramLogReader(System.in);
         }
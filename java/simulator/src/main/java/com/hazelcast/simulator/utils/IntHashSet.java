@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of ints that doesn't box its values.
+ * <p>
+ * The values are stored in an open-addressing hash table with linear probing. A slot containing 0 is free, so the value
+ * 0 itself is tracked separately. The table is doubled when it gets half full; {@link #clear()} keeps the table, so a set
+ * that is cleared between operations stops allocating once it has grown to the largest size needed.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class IntHashSet {
+
+    private static final int MIN_CAPACITY = 8;
+    private static final int FREE = 0;
+
+    private int[] values;
+    private int mask;
+    // the number of values in the table; so excluding the 0
+    private int tableSize;
+    private boolean containsZero;
+
+    public IntHashSet() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Creates an IntHashSet that can hold the expected number of values without growing.
+     *
+     * @param expectedSize the expected number of values.
+     */
+    public IntHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize can't be smaller than 0, but was " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    static int capacityFor(int expectedSize) {
+        // the table is kept at most half full
+        long capacity = Long.highestOneBit(Math.max(MIN_CAPACITY, 2L * expectedSize) - 1) << 1;
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("expectedSize " + expectedSize + " is too large");
+        }
+        return (int) capacity;
+    }
+
+    private void allocate(int capacity) {
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value to add.
+     * @return true if the value was added, false if it already was in the set.
+     */
+    public boolean add(int value) {
+        if (value == FREE) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+
+        int index = hash(value) & mask;
+        for (int current = values[index]; current != FREE; current = values[index]) {
+            if (current == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        values[index] = value;
+        if (++tableSize > (mask + 1) >> 1) {
+            grow();
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value == FREE) {
+            return containsZero;
+        }
+
+        int index = hash(value) & mask;
+        for (int current = values[index]; current != FREE; current = values[index]) {
+            if (current == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value the value to remove.
+     * @return true if the value was removed, false if it wasn't in the set.
+     */
+    public boolean remove(int value) {
+        if (value == FREE) {
+            boolean removed = containsZero;
+            containsZero = false;
+            return removed;
+        }
+
+        int index = hash(value) & mask;
+        for (int current = values[index]; current != FREE; current = values[index]) {
+            if (current == value) {
+                removeAt(index);
+                tableSize--;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    private void removeAt(int index) {
+        // shift the following values of the probe sequence back, so no value becomes unreachable
+        int gap = index;
+        int next = (index + 1) & mask;
+        for (int current = values[next]; current != FREE; current = values[next]) {
+            int home = hash(current) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                values[gap] = current;
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = FREE;
+    }
+
+    private void grow() {
+        int[] oldValues = values;
+        allocate(oldValues.length << 1);
+        for (int value : oldValues) {
+            if (value != FREE) {
+                int index = hash(value) & mask;
+                while (values[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                values[index] = value;
+            }
+        }
+    }
+
+    public int size() {
+        return containsZero ? tableSize + 1 : tableSize;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes all values, but keeps the capacity.
+     */
+    public void clear() {
+        if (tableSize > 0) {
+            Arrays.fill(values, FREE);
+            tableSize = 0;
+        }
+        containsZero = false;
+    }
+
+    /**
+     * Calls the consumer for every value in the set, in no particular order.
+     *
+     * @param consumer the consumer.
+     */
+    public void forEach(IntConsumer consumer) {
+        if (containsZero) {
+            consumer.accept(FREE);
+        }
+        for (int value : values) {
+            if (value != FREE) {
+                consumer.accept(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Locale;
+
+import static java.lang.String.format;
+
+/**
+ * The measurement window of a test; so the period after the warmup that should be included in the results.
+ * <p>
+ * The window is marked in the HDR files using comments, e.g.:
+ * <pre>
+ * #[MeasurementWindowStart: 1700000012.000 (seconds since epoch)]
+ * #[MeasurementWindowEnd: 1700000312.000 (seconds since epoch)]
+ * </pre>
+ * Comments are ignored by the HDR readers, so files containing these markers can still be processed by any HDR tool.
+ */
+public final class MeasurementWindow {
+
+    static final String START_PREFIX = "[MeasurementWindowStart: ";
+    static final String END_PREFIX = "[MeasurementWindowEnd: ";
+    private static final String SUFFIX = " (seconds since epoch)]";
+    private static final double MILLIS_PER_SECOND = 1000d;
+
+    private final double startSec;
+    private final double endSec;
+
+    public MeasurementWindow(double startSec, double endSec) {
+        this.startSec = startSec;
+        this.endSec = endSec;
+    }
+
+    /**
+     * Returns the start of the window in seconds since epoch, or {@link Double#NaN} if the start isn't known.
+     *
+     * @return the start of the window
+     */
+    public double getStartSec() {
+        return startSec;
+    }
+
+    /**
+     * Returns the end of the window in seconds since epoch, or {@link Double#NaN} if the end isn't known.
+     *
+     * @return the end of the window
+     */
+    public double getEndSec() {
+        return endSec;
+    }
+
+    public boolean hasStart() {
+        return !Double.isNaN(startSec);
+    }
+
+    public boolean hasEnd() {
+        return !Double.isNaN(endSec);
+    }
+
+    /**
+     * Returns the intersection of this and the other window; so the period in which both windows are measuring.
+     *
+     * @param other the other window
+     * @return the intersection
+     */
+    public MeasurementWindow intersect(MeasurementWindow other) {
+        return new MeasurementWindow(max(startSec, other.startSec), min(endSec, other.endSec));
+    }
+
+    private static double max(double a, double b) {
+        return Double.isNaN(a) ? b : Double.isNaN(b) ? a : Math.max(a, b);
+    }
+
+    private static double min(double a, double b) {
+        return Double.isNaN(a) ? b : Double.isNaN(b) ? a : Math.min(a, b);
+    }
+
+    public static String startComment(long timeMillis) {
+        return START_PREFIX + format(Locale.US, "%.3f", timeMillis / MILLIS_PER_SECOND) + SUFFIX;
+    }
+
+    public static String endComment(long timeMillis) {
+        return END_PREFIX + format(Locale.US, "%.3f", timeMillis / MILLIS_PER_SECOND) + SUFFIX;
+    }
+
+    /**
+     * Reads the measurement window markers from an HDR file.
+     *
+     * @param hdrFile the HDR file to read
+     * @return the found MeasurementWindow; the start and/or end are {@link Double#NaN} if no marker was found
+     */
+    public static MeasurementWindow read(File hdrFile) {
+        double startSec = Double.NaN;
+        double endSec = Double.NaN;
+        try (BufferedReader reader = new BufferedReader(new FileReader(hdrFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("#")) {
+                    continue;
+                }
+                String comment = line.substring(1);
+                if (comment.startsWith(START_PREFIX)) {
+                    startSec = parse(comment, START_PREFIX);
+                } else if (comment.startsWith(END_PREFIX)) {
+                    endSec = parse(comment, END_PREFIX);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new MeasurementWindow(startSec, endSec);
+    }
+
+    private static double parse(String comment, String prefix) {
+        int end = comment.indexOf(' ', prefix.length());
+        return Double.parseDouble(comment.substring(prefix.length(), end == -1 ? comment.length() : end));
+    }
+
+    @Override
+    public String toString() {
+        return "MeasurementWindow{startSec=" + startSec + ", endSec=" + endSec + '}';
+    }
+}
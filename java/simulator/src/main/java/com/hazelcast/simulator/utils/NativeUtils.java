@@ -19,16 +19,23 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
 import static com.hazelcast.simulator.utils.FileUtils.writeText;
 
 public final class NativeUtils {
 
     private static final Logger LOGGER = LogManager.getLogger(NativeUtils.class);
+    private static final String NUMA_NODE_PREFIX = "node";
 
     private NativeUtils() {
     }
@@ -112,4 +119,106 @@ public final class NativeUtils {
         writeText("" + getPID(), pidFile);
         return pidFile;
     }
+
+    /**
+     * Returns the id of the calling thread as known by the OS, e.g. to pass it to taskset. Only supported on Linux.
+     *
+     * @return the native thread id or <tt>-1</tt> if it could not be determined.
+     */
+    public static int getNativeThreadId() {
+        try {
+            // links to <pid>/task/<tid>
+            Path path = Files.readSymbolicLink(Paths.get("/proc/thread-self"));
+            return Integer.parseInt(path.getFileName().toString());
+        } catch (IOException | UnsupportedOperationException | NumberFormatException e) {
+            LOGGER.debug(e);
+            return -1;
+        }
+    }
+
+    /**
+     * Parses a cpu affinity. The affinity is either a cpu list like '0-3,8,10-11' or a NUMA node like 'node1'; in
+     * which case the cpus of the node are looked up in /sys/devices/system/node.
+     *
+     * @param affinity the affinity to parse.
+     * @return the cpus.
+     * @throws IllegalArgumentException if the affinity is invalid or the NUMA node doesn't exist.
+     */
+    public static int[] parseAffinity(String affinity) {
+        String value = affinity.trim();
+        if (value.startsWith(NUMA_NODE_PREFIX)) {
+            File file = new File("/sys/devices/system/node/" + value + "/cpulist");
+            if (!file.exists()) {
+                throw new IllegalArgumentException("NUMA node [" + value + "] doesn't exist; " + file + " not found");
+            }
+            return parseCpuList(fileAsText(file).trim());
+        }
+        return parseCpuList(value);
+    }
+
+    /**
+     * Parses a cpu list in the format used by taskset and /sys, e.g. '0-3,8,10-11'.
+     *
+     * @param cpuList the cpu list to parse.
+     * @return the cpus in the order of the list.
+     * @throws IllegalArgumentException if the cpu list is invalid.
+     */
+    public static int[] parseCpuList(String cpuList) {
+        List<Integer> cpus = new ArrayList<>();
+        try {
+            for (String item : cpuList.split(",")) {
+                String[] range = item.trim().split("-");
+                if (range.length > 2) {
+                    throw new IllegalArgumentException("Invalid cpu list [" + cpuList + "]");
+                }
+                int from = Integer.parseInt(range[0].trim());
+                int to = range.length == 2 ? Integer.parseInt(range[1].trim()) : from;
+                if (from < 0 || to < from) {
+                    throw new IllegalArgumentException("Invalid cpu list [" + cpuList + "]");
+                }
+                for (int cpu = from; cpu <= to; cpu++) {
+                    cpus.add(cpu);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cpu list [" + cpuList + "]", e);
+        }
+        return cpus.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Formats cpus as a cpu list that can be passed to taskset.
+     *
+     * @param cpus the cpus.
+     * @return the cpu list.
+     */
+    public static String toCpuList(int[] cpus) {
+        StringBuilder sb = new StringBuilder();
+        for (int cpu : cpus) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(cpu);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Binds the calling thread to the given cpus using taskset.
+     *
+     * @param cpus the cpus the thread is allowed to run on.
+     * @return the affinity list of the thread as reported by taskset.
+     * @throws ScriptException if the native thread id could not be determined or taskset failed.
+     */
+    public static String setThreadAffinity(int[] cpus) {
+        int tid = getNativeThreadId();
+        if (tid == -1) {
+            throw new ScriptException("Failed to determine the native thread id");
+        }
+        // output: pid 1234's new affinity list: 0-3
+        String output = execute("taskset -pc " + toCpuList(cpus) + " " + tid, true).trim();
+        String[] lines = output.split("\n");
+        String last = lines[lines.length - 1];
+        return last.substring(last.lastIndexOf(':') + 1).trim();
+    }
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static com.hazelcast.simulator.utils.Preconditions.checkPositive;
+import static java.lang.String.format;
+
+/**
+ * A pool of pre-generated payloads with sizes drawn from a {@link SizeDistribution}.
+ * <p>
+ * Generating a value for every operation causes allocations and GC on the load generator, which end up in the measured
+ * latency. The payloads in the pool are generated once and handed out without allocating. They are shared between
+ * threads and should not be modified.
+ * <p>
+ * The sizes of the payloads are recorded when the pool is built, so the realized size distribution can be compared
+ * with the intended one. Since the payloads are picked uniformly from the pool, this is also the distribution of the
+ * handed out payloads, and the pool size determines how well the tail of the distribution is represented.
+ * <p>
+ * The sizes are clamped to a maximum size, so a long tailed distribution like a lognormal can't draw a payload that
+ * exhausts the memory of the load generator.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class PayloadPool {
+
+    /**
+     * The default maximum size of a payload in bytes.
+     */
+    public static final int DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    private final SizeDistribution distribution;
+    private final int maxSize;
+    private final byte[][] payloads;
+    private final ByteBuffer[] buffers;
+    private final Histogram sizeHistogram = new Histogram(3);
+    private final long pooledBytes;
+    private final int clampedCount;
+
+    /**
+     * Creates a pool of on-heap payloads.
+     *
+     * @param distribution the distribution of the payload sizes.
+     * @param poolSize     the number of payloads in the pool.
+     * @param random       the random used to draw the sizes and the content of the payloads.
+     */
+    public PayloadPool(SizeDistribution distribution, int poolSize, Random random) {
+        this(distribution, poolSize, DEFAULT_MAX_SIZE, random, false);
+    }
+
+    /**
+     * Creates a pool of payloads that are at most {@link #DEFAULT_MAX_SIZE} bytes.
+     *
+     * @param distribution the distribution of the payload sizes.
+     * @param poolSize     the number of payloads in the pool.
+     * @param random       the random used to draw the sizes and the content of the payloads.
+     * @param offHeap      true if the payloads should be stored in direct buffers, which keeps large pools out of the
+     *                     heap; the payloads are only available using {@link #nextBuffer(Random)}.
+     */
+    public PayloadPool(SizeDistribution distribution, int poolSize, Random random, boolean offHeap) {
+        this(distribution, poolSize, DEFAULT_MAX_SIZE, random, offHeap);
+    }
+
+    /**
+     * Creates a pool of payloads.
+     *
+     * @param distribution the distribution of the payload sizes.
+     * @param poolSize     the number of payloads in the pool.
+     * @param maxSize      the maximum size of a payload in bytes; larger sizes drawn from the distribution are clamped.
+     * @param random       the random used to draw the sizes and the content of the payloads.
+     * @param offHeap      true if the payloads should be stored in direct buffers, which keeps large pools out of the
+     *                     heap; the payloads are only available using {@link #nextBuffer(Random)}.
+     */
+    public PayloadPool(SizeDistribution distribution, int poolSize, int maxSize, Random random, boolean offHeap) {
+        this.distribution = distribution;
+        checkPositive(poolSize, "poolSize");
+        checkPositive(maxSize, "maxSize");
+        this.maxSize = maxSize;
+        this.payloads = offHeap ? null : new byte[poolSize][];
+        this.buffers = offHeap ? new ByteBuffer[poolSize] : null;
+
+        long bytes = 0;
+        int clamped = 0;
+        for (int i = 0; i < poolSize; i++) {
+            int size = distribution.nextSize(random);
+            if (size > maxSize) {
+                size = maxSize;
+                clamped++;
+            }
+            byte[] payload = GeneratorUtils.generateByteArray(random, size);
+            sizeHistogram.recordValue(size);
+            bytes += size;
+            if (offHeap) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(payload.length);
+                buffer.put(payload).flip();
+                buffers[i] = buffer.asReadOnlyBuffer();
+            } else {
+                payloads[i] = payload;
+            }
+        }
+        this.pooledBytes = bytes;
+        this.clampedCount = clamped;
+    }
+
+    /**
+     * Creates a pool of on-heap payloads from a distribution specification.
+     *
+     * @param spec     the specification of the size distribution; see {@link SizeDistribution#parse(String)}.
+     * @param poolSize the number of payloads in the pool.
+     * @return the created pool.
+     */
+    public static PayloadPool create(String spec, int poolSize) {
+        return new PayloadPool(SizeDistribution.parse(spec), poolSize, new Random());
+    }
+
+    /**
+     * Returns a random payload from the pool.
+     *
+     * @param random the random used to pick the payload.
+     * @return the payload; should not be modified.
+     * @throws IllegalStateException if the pool is off-heap.
+     */
+    public byte[] next(Random random) {
+        if (payloads == null) {
+            throw new IllegalStateException("Pool is off-heap, use nextBuffer");
+        }
+        return payloads[random.nextInt(payloads.length)];
+    }
+
+    /**
+     * Returns a random payload from an off-heap pool.
+     * <p>
+     * The returned buffer is read-only and shared, so it should only be read using absolute get methods, or after
+     * taking a {@link ByteBuffer#duplicate()}.
+     *
+     * @param random the random used to pick the payload.
+     * @return the payload.
+     * @throws IllegalStateException if the pool is on-heap.
+     */
+    public ByteBuffer nextBuffer(Random random) {
+        if (buffers == null) {
+            throw new IllegalStateException("Pool is on-heap, use next");
+        }
+        return buffers[random.nextInt(buffers.length)];
+    }
+
+    public SizeDistribution getDistribution() {
+        return distribution;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getPoolSize() {
+        return payloads == null ? buffers.length : payloads.length;
+    }
+
+    /**
+     * @return the total number of bytes of the payloads in the pool.
+     */
+    public long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    /**
+     * @return the number of payloads whose size was clamped to the maximum size.
+     */
+    public int getClampedCount() {
+        return clampedCount;
+    }
+
+    /**
+     * Returns the sizes of the payloads in the pool.
+     *
+     * @return a copy of the realized size histogram.
+     */
+    public Histogram getSizeHistogram() {
+        return sizeHistogram.copy();
+    }
+
+    /**
+     * Writes the realized size histogram in the HdrHistogram log format, so it can be processed with the same
+     * tools as the latency histograms.
+     *
+     * @param file the file to write to.
+     * @throws UncheckedIOException if the file can't be written.
+     */
+    public void writeSizeHistogram(File file) {
+        Histogram histogram = getSizeHistogram();
+        try (PrintStream out = new PrintStream(file)) {
+            HistogramLogWriter writer = new HistogramLogWriter(out);
+            writer.outputComment("Realized payload sizes in bytes of " + distribution);
+            writer.outputLogFormatVersion();
+            writer.outputLegend();
+            writer.outputIntervalHistogram(histogram);
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        Histogram histogram = getSizeHistogram();
+        return format("PayloadPool{distribution=%s, poolSize=%d, maxSize=%d, clamped=%d, pooledBytes=%d, mean=%.1f,"
+                        + " p50=%d, p99=%d, max=%d}",
+                distribution, getPoolSize(), maxSize, clampedCount, pooledBytes, histogram.getMean(),
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99), histogram.getMaxValue());
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static java.lang.String.format;
+
+/**
+ * A distribution of value sizes in bytes.
+ * <p>
+ * A distribution is normally created from a test property using {@link #parse(String)}. The following distributions
+ * are supported:
+ * <ol>
+ * <li>{@code fixed(size)}</li>
+ * <li>{@code uniform(min,max)}: uniformly distributed between min and max, both inclusive.</li>
+ * <li>{@code lognormal(median,sigma)}: the usual shape of value sizes in production, with most values around
+ * the median and a long tail. Sigma is the standard deviation of the natural logarithm of the size.</li>
+ * <li>{@code bimodal(smallMedian,largeMedian,largeFraction)}: a mix of two lognormal distributions with a sigma of
+ * {@value #BIMODAL_SIGMA}, e.g. small records with a fraction of large documents.</li>
+ * <li>{@code pareto(min,max,alpha)}: a heavy tailed distribution starting at min and truncated at max. The smaller
+ * alpha, the heavier the tail.</li>
+ * <li>{@code empirical(size:cumulativeProbability,...)} or {@code empirical(/path/to/cdf)}: an empirical cumulative
+ * distribution function, e.g. taken from a production system. Sizes between the points are linearly interpolated.
+ * The file contains a 'size cumulativeProbability' pair per line; lines starting with '#' are ignored.</li>
+ * </ol>
+ * Sizes are never negative.
+ */
+public abstract class SizeDistribution {
+
+    static final double BIMODAL_SIGMA = 0.25;
+
+    /**
+     * Returns the next size.
+     *
+     * @param random the random to draw from.
+     * @return the size in bytes.
+     */
+    public abstract int nextSize(Random random);
+
+    /**
+     * Parses a distribution.
+     *
+     * @param spec the specification of the distribution, e.g. 'lognormal(1000,0.5)'.
+     * @return the parsed distribution.
+     * @throws IllegalArgumentException if the specification is invalid.
+     */
+    public static SizeDistribution parse(String spec) {
+        String trimmed = spec.trim();
+        int open = trimmed.indexOf('(');
+        if (open <= 0 || !trimmed.endsWith(")")) {
+            throw new IllegalArgumentException(format("Invalid size distribution [%s], expected e.g. 'uniform(10,100)'",
+                    spec));
+        }
+        String name = trimmed.substring(0, open).trim().toLowerCase();
+        String[] args = trimmed.substring(open + 1, trimmed.length() - 1).split(",");
+        for (int i = 0; i < args.length; i++) {
+            args[i] = args[i].trim();
+        }
+
+        switch (name) {
+            case "fixed":
+                checkArgCount(spec, args, 1);
+                return new Uniform(parseSize(spec, args[0]), parseSize(spec, args[0]));
+            case "uniform":
+                checkArgCount(spec, args, 2);
+                return new Uniform(parseSize(spec, args[0]), parseSize(spec, args[1]));
+            case "lognormal":
+                checkArgCount(spec, args, 2);
+                return new LogNormal(parseSize(spec, args[0]), parseDouble(spec, args[1]));
+            case "bimodal":
+                checkArgCount(spec, args, 3);
+                return new Bimodal(parseSize(spec, args[0]), parseSize(spec, args[1]), parseDouble(spec, args[2]));
+            case "pareto":
+                checkArgCount(spec, args, 3);
+                return new Pareto(parseSize(spec, args[0]), parseSize(spec, args[1]), parseDouble(spec, args[2]));
+            case "empirical":
+                if (args.length == 1 && !args[0].contains(":")) {
+                    String text = fileAsText(new File(args[0]));
+                    return new Empirical(spec, text.split("\n"));
+                }
+                return new Empirical(spec, args);
+            default:
+                throw new IllegalArgumentException(format("Unknown size distribution [%s] in [%s]", name, spec));
+        }
+    }
+
+    private static void checkArgCount(String spec, String[] args, int expected) {
+        if (args.length != expected) {
+            throw new IllegalArgumentException(format("Size distribution [%s] requires %d arguments", spec, expected));
+        }
+    }
+
+    private static int parseSize(String spec, String arg) {
+        int size;
+        try {
+            size = Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("Size [%s] in [%s] is not an int", arg, spec));
+        }
+        if (size < 0) {
+            throw new IllegalArgumentException(format("Size [%s] in [%s] can't be smaller than 0", arg, spec));
+        }
+        return size;
+    }
+
+    private static double parseDouble(String spec, String arg) {
+        try {
+            return Double.parseDouble(arg);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("Value [%s] in [%s] is not a double", arg, spec));
+        }
+    }
+
+    private static int toSize(double size) {
+        if (size >= Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        return size <= 0 ? 0 : (int) Math.round(size);
+    }
+
+    static final class Uniform extends SizeDistribution {
+        private final int min;
+        private final int max;
+
+        Uniform(int min, int max) {
+            if (min > max) {
+                throw new IllegalArgumentException(format("min [%d] can't be larger than max [%d]", min, max));
+            }
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int nextSize(Random random) {
+            return min == max ? min : min + random.nextInt(max - min + 1);
+        }
+
+        @Override
+        public String toString() {
+            return min == max ? "fixed(" + min + ")" : "uniform(" + min + "," + max + ")";
+        }
+    }
+
+    static final class LogNormal extends SizeDistribution {
+        private final int median;
+        private final double mu;
+        private final double sigma;
+
+        LogNormal(int median, double sigma) {
+            if (median <= 0) {
+                throw new IllegalArgumentException("median should be larger than 0");
+            }
+            if (sigma < 0) {
+                throw new IllegalArgumentException("sigma can't be smaller than 0");
+            }
+            this.median = median;
+            this.mu = Math.log(median);
+            this.sigma = sigma;
+        }
+
+        @Override
+        public int nextSize(Random random) {
+            return toSize(Math.exp(mu + sigma * random.nextGaussian()));
+        }
+
+        @Override
+        public String toString() {
+            return "lognormal(" + median + "," + sigma + ")";
+        }
+    }
+
+    static final class Bimodal extends SizeDistribution {
+        private final LogNormal small;
+        private final LogNormal large;
+        private final double largeFraction;
+
+        Bimodal(int smallMedian, int largeMedian, double largeFraction) {
+            if (largeFraction < 0 || largeFraction > 1) {
+                throw new IllegalArgumentException("largeFraction should be between 0 and 1");
+            }
+            this.small = new LogNormal(smallMedian, BIMODAL_SIGMA);
+            this.large = new LogNormal(largeMedian, BIMODAL_SIGMA);
+            this.largeFraction = largeFraction;
+        }
+
+        @Override
+        public int nextSize(Random random) {
+            return random.nextDouble() < largeFraction ? large.nextSize(random) : small.nextSize(random);
+        }
+
+        @Override
+        public String toString() {
+            return "bimodal(" + small.median + "," + large.median + "," + largeFraction + ")";
+        }
+    }
+
+    static final class Pareto extends SizeDistribution {
+        private final int min;
+        private final int max;
+        private final double alpha;
+
+        Pareto(int min, int max, double alpha) {
+            if (min <= 0) {
+                throw new IllegalArgumentException("min should be larger than 0");
+            }
+            if (min > max) {
+                throw new IllegalArgumentException(format("min [%d] can't be larger than max [%d]", min, max));
+            }
+            if (alpha <= 0) {
+                throw new IllegalArgumentException("alpha should be larger than 0");
+            }
+            this.min = min;
+            this.max = max;
+            this.alpha = alpha;
+        }
+
+        @Override
+        public int nextSize(Random random) {
+            // inverse transform sampling; 1 - nextDouble() is in (0, 1] so the division is safe
+            double size = min / Math.pow(1 - random.nextDouble(), 1 / alpha);
+            return Math.min(max, toSize(size));
+        }
+
+        @Override
+        public String toString() {
+            return "pareto(" + min + "," + max + "," + alpha + ")";
+        }
+    }
+
+    static final class Empirical extends SizeDistribution {
+        private final int[] sizes;
+        private final double[] probabilities;
+
+        Empirical(String spec, String[] points) {
+            List<Integer> sizeList = new ArrayList<>();
+            List<Double> probabilityList = new ArrayList<>();
+            for (String point : points) {
+                String line = point.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] pair = line.split("[:,\\s]+");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException(format("Invalid point [%s] in [%s], expected"
+                            + " 'size:cumulativeProbability'", line, spec));
+                }
+                sizeList.add(parseSize(spec, pair[0]));
+                probabilityList.add(parseDouble(spec, pair[1]));
+            }
+            if (sizeList.isEmpty()) {
+                throw new IllegalArgumentException(format("Size distribution [%s] has no points", spec));
+            }
+
+            this.sizes = new int[sizeList.size()];
+            this.probabilities = new double[sizeList.size()];
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = sizeList.get(i);
+                probabilities[i] = probabilityList.get(i);
+                if (i > 0 && (sizes[i] < sizes[i - 1] || probabilities[i] < probabilities[i - 1])) {
+                    throw new IllegalArgumentException(format("Size distribution [%s] should have increasing sizes"
+                            + " and cumulative probabilities", spec));
+                }
+            }
+            if (probabilities[probabilities.length - 1] != 1) {
+                throw new IllegalArgumentException(format("Size distribution [%s] should end with a cumulative"
+                        + " probability of 1", spec));
+            }
+        }
+
+        @Override
+        public int nextSize(Random random) {
+            double p = random.nextDouble();
+            int index = Arrays.binarySearch(probabilities, p);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            if (index == 0) {
+                return sizes[0];
+            }
+
+            double lowerP = probabilities[index - 1];
+            double upperP = probabilities[index];
+            double fraction = upperP == lowerP ? 1 : (p - lowerP) / (upperP - lowerP);
+            return toSize(sizes[index - 1] + fraction * (sizes[index] - sizes[index - 1]));
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("empirical(");
+            for (int i = 0; i < sizes.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(sizes[i]).append(':').append(probabilities[i]);
+            }
+            return sb.append(')').toString();
+        }
+    }
+}
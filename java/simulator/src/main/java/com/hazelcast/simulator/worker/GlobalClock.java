@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker;
+
+import com.hazelcast.simulator.worker.messages.ClockOffsetMessage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A clock that is shared by all workers, so that times taken on different JVMs can be compared; e.g. to determine
+ * the latency between publishing a message on one worker and receiving it on another.
+ * <p>
+ * The global time is the time of the coordinator in nanoseconds since the epoch. The coordinator periodically
+ * estimates the offset and drift of the worker clock and sends it using the {@link ClockOffsetMessage}. Until the
+ * first estimate has been received, the global time is based on the wall clock of the worker and the error bound is
+ * unknown.
+ * <p>
+ * This class is thread-safe.
+ */
+public class GlobalClock {
+
+    /**
+     * The error bound when the clock has not been synchronized.
+     */
+    public static final long UNKNOWN_ERROR_BOUND = -1;
+
+    private static final Logger LOGGER = LogManager.getLogger(GlobalClock.class);
+
+    private volatile Estimate estimate;
+
+    public GlobalClock() {
+        long refNanos = System.nanoTime();
+        long offsetNanos = MILLISECONDS.toNanos(System.currentTimeMillis()) - refNanos;
+        this.estimate = new Estimate(refNanos, offsetNanos, 0, UNKNOWN_ERROR_BOUND);
+    }
+
+    /**
+     * Returns the global time.
+     *
+     * @return the global time in nanoseconds since the epoch.
+     */
+    public long nanoTime() {
+        Estimate estimate = this.estimate;
+        long now = System.nanoTime();
+        return now + estimate.offsetNanos + (long) ((now - estimate.refNanos) * estimate.drift);
+    }
+
+    /**
+     * Returns the maximum error of {@link #nanoTime()} compared to the clock of the coordinator, at the moment the
+     * offset was estimated.
+     *
+     * @return the error bound in nanoseconds or {@link #UNKNOWN_ERROR_BOUND} if the clock has not been synchronized.
+     */
+    public long errorBoundNanos() {
+        return estimate.errorBoundNanos;
+    }
+
+    public void update(ClockOffsetMessage msg) {
+        estimate = new Estimate(msg.getRefNanos(), msg.getOffsetNanos(), msg.getDriftPpm() / 1_000_000,
+                msg.getErrorBoundNanos());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Updated global clock " + msg);
+        }
+    }
+
+    private static final class Estimate {
+        private final long refNanos;
+        private final long offsetNanos;
+        private final double drift;
+        private final long errorBoundNanos;
+
+        private Estimate(long refNanos, long offsetNanos, double drift, long errorBoundNanos) {
+            this.refNanos = refNanos;
+            this.offsetNanos = offsetNanos;
+            this.drift = drift;
+            this.errorBoundNanos = errorBoundNanos;
+        }
+    }
+}
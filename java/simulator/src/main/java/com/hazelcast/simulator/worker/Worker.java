@@ -61,26 +61,47 @@ public class Worker {
     private final Driver driver;
     private final WorkerParameters parameters;
     private final SimulatorAddress workerAddress;
-    private ShutdownThread shutdownThread;
+    private final Runnable embeddedShutdownListener;
+    private volatile ShutdownThread shutdownThread;
 
     public Worker(WorkerParameters parameters) throws Exception {
+        this(parameters, new Server("workers").setBrokerURL(localIp(), parseInt(parameters.get("AGENT_PORT"))), null);
+    }
+
+    /**
+     * Creates a Worker.
+     *
+     * @param parameters               the parameters of the worker.
+     * @param server                   the server to receive the messages of the coordinator with.
+     * @param embeddedShutdownListener null if the worker runs in its own JVM; otherwise the worker runs embedded in the
+     *                                 JVM of its agent and the listener is called once the worker has shut down, since
+     *                                 the JVM is left running.
+     * @throws Exception if the driver can't be loaded.
+     */
+    public Worker(WorkerParameters parameters, Server server, Runnable embeddedShutdownListener) throws Exception {
         this.parameters = parameters;
         this.publicAddress = parameters.get("PUBLIC_ADDRESS");
         this.workerAddress = SimulatorAddress.fromString(parameters.get("WORKER_ADDRESS"));
+        this.embeddedShutdownListener = embeddedShutdownListener;
 
         this.driver = loadDriver(parameters.findDriverClass()).setAll(parameters.asMap());
-        this.server = new Server("workers")
-                .setBrokerURL(localIp(), parseInt(parameters.get("AGENT_PORT")))
-                .setSelfAddress(workerAddress);
-        this.testManager = new TestManager(server, driver);
+        this.server = server.setSelfAddress(workerAddress);
+        GlobalClock globalClock = new GlobalClock();
+        this.testManager = new TestManager(server, driver, globalClock);
 
         ScriptExecutor scriptExecutor = new ScriptExecutor(driver);
-        server.setProcessor(new WorkerMessageHandler(this, testManager, scriptExecutor));
+        server.setProcessor(new WorkerMessageHandler(this, testManager, scriptExecutor, globalClock));
 
-        Runtime.getRuntime().addShutdownHook(new WorkerShutdownThread(true));
+        if (embeddedShutdownListener == null) {
+            Runtime.getRuntime().addShutdownHook(new WorkerShutdownThread(true));
+        }
 
         int performanceMonitorIntervalSeconds = Integer.parseInt(parameters.get("performance_monitor_interval_seconds"));
-        this.performanceMonitor = new OperationsMonitor(server, testManager, performanceMonitorIntervalSeconds);
+        // the coordinator needs the latency histograms of the workers to build the live report
+        String liveReportIntervalSeconds = parameters.get("live_report_interval_seconds");
+        boolean sendLatencyHistograms = liveReportIntervalSeconds != null && Integer.parseInt(liveReportIntervalSeconds) > 0;
+        this.performanceMonitor = new OperationsMonitor(
+                server, testManager, performanceMonitorIntervalSeconds, sendLatencyHistograms);
     }
 
     public void start() throws Exception {
@@ -99,15 +120,20 @@ public class Worker {
         logHeader("Successfully started Worker #" + workerAddress);
     }
 
-    public void shutdown(TerminateWorkerMessage msg) {
+    public synchronized void shutdown(TerminateWorkerMessage msg) {
+        if (shutdownThread != null) {
+            // already terminating, e.g. an embedded worker that is terminated by the coordinator and its agent
+            return;
+        }
+
         LOGGER.warn("Terminating worker");
         closeQuietly(server);
-        shutdownThread = new WorkerShutdownThread(msg.isRealShutdown());
+        // an embedded worker must not shut down the logging of the JVM it shares with its agent
+        shutdownThread = new WorkerShutdownThread(msg.isRealShutdown() && embeddedShutdownListener == null);
         shutdownThread.start();
     }
 
-    // just for testing
-    void awaitShutdown() throws Exception {
+    public void awaitShutdown() throws Exception {
         if (shutdownThread != null) {
             shutdownThread.awaitShutdown();
         }
@@ -182,6 +208,9 @@ public class Worker {
         public void doRun() {
             closeQuietly(driver);
             closeQuietly(performanceMonitor);
+            if (embeddedShutdownListener != null) {
+                embeddedShutdownListener.run();
+            }
         }
     }
 }
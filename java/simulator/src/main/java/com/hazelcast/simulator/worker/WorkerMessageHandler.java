@@ -21,6 +21,8 @@ import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.protocol.exception.HandleException;
 import com.hazelcast.simulator.protocol.message.SimulatorMessage;
 import com.hazelcast.simulator.utils.ExceptionReporter;
+import com.hazelcast.simulator.worker.messages.ClockOffsetMessage;
+import com.hazelcast.simulator.worker.messages.ClockProbeMessage;
 import com.hazelcast.simulator.worker.messages.CreateTestMessage;
 import com.hazelcast.simulator.worker.messages.ExecuteScriptMessage;
 import com.hazelcast.simulator.worker.messages.StartPhaseMessage;
@@ -33,12 +35,19 @@ public class WorkerMessageHandler implements MessageHandler {
     private final TestManager testManager;
     private final Worker worker;
     private final ScriptExecutor scriptExecutor;
+    private final GlobalClock globalClock;
 
     public WorkerMessageHandler(Worker worker, TestManager testManager,
                                 ScriptExecutor scriptExecutor) {
+        this(worker, testManager, scriptExecutor, new GlobalClock());
+    }
+
+    public WorkerMessageHandler(Worker worker, TestManager testManager,
+                                ScriptExecutor scriptExecutor, GlobalClock globalClock) {
         this.worker = worker;
         this.testManager = testManager;
         this.scriptExecutor = scriptExecutor;
+        this.globalClock = globalClock;
     }
 
     @Override
@@ -58,6 +67,11 @@ public class WorkerMessageHandler implements MessageHandler {
             } else if (msg instanceof StopRunMessage) {
                 testManager.stopRun((StopRunMessage) msg);
                 promise.answer("ok");
+            } else if (msg instanceof ClockProbeMessage) {
+                promise.answer(Long.toString(System.nanoTime()));
+            } else if (msg instanceof ClockOffsetMessage) {
+                globalClock.update((ClockOffsetMessage) msg);
+                promise.answer("ok");
             } else {
                 throw new HandleException("Unknown message:" + msg);
             }
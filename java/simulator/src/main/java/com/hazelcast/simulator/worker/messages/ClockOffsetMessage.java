@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.messages;
+
+import com.google.gson.annotations.SerializedName;
+import com.hazelcast.simulator.protocol.message.SimulatorMessage;
+
+/**
+ * Sends the estimated offset and drift between the clock of the worker and the clock of the coordinator to the
+ * worker; so the worker can provide a global clock to the tests.
+ * <p/>
+ * At worker time refNanos, the global time is refNanos + offsetNanos. The drift corrects the offset for the time
+ * elapsed since refNanos.
+ */
+public class ClockOffsetMessage implements SimulatorMessage {
+
+    /**
+     * The {@link System#nanoTime()} of the worker the offset was measured at.
+     */
+    @SerializedName("refNanos")
+    private final long refNanos;
+
+    /**
+     * The offset to add to the {@link System#nanoTime()} of the worker at refNanos to get the global time.
+     */
+    @SerializedName("offsetNanos")
+    private final long offsetNanos;
+
+    /**
+     * The drift of the worker clock compared to the coordinator clock in parts per million.
+     */
+    @SerializedName("driftPpm")
+    private final double driftPpm;
+
+    /**
+     * The maximum error of the offset; half of the round trip time of the probe the offset is based on.
+     */
+    @SerializedName("errorBoundNanos")
+    private final long errorBoundNanos;
+
+    public ClockOffsetMessage(long refNanos, long offsetNanos, double driftPpm, long errorBoundNanos) {
+        this.refNanos = refNanos;
+        this.offsetNanos = offsetNanos;
+        this.driftPpm = driftPpm;
+        this.errorBoundNanos = errorBoundNanos;
+    }
+
+    public long getRefNanos() {
+        return refNanos;
+    }
+
+    public long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    public double getDriftPpm() {
+        return driftPpm;
+    }
+
+    public long getErrorBoundNanos() {
+        return errorBoundNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ClockOffsetMessage{"
+                + "refNanos=" + refNanos
+                + ", offsetNanos=" + offsetNanos
+                + ", driftPpm=" + driftPpm
+                + ", errorBoundNanos=" + errorBoundNanos
+                + '}';
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.messages;
+
+import com.hazelcast.simulator.protocol.message.SimulatorMessage;
+
+/**
+ * Asks the worker for its {@link System#nanoTime()}. The worker answers with the time as a decimal string.
+ * <p/>
+ * The coordinator sends a burst of these probes and uses the one with the shortest round trip to estimate the
+ * offset between the clock of the worker and its own clock; like NTP does.
+ */
+public class ClockProbeMessage implements SimulatorMessage {
+
+    @Override
+    public String toString() {
+        return "ClockProbeMessage{}";
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Math.max;
+import static java.lang.Math.round;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+/**
+ * A rate budget shared by all {@link SharedRateMetronome} instances of a worker with the same budget name; so tests
+ * running in parallel together can't exceed a total throughput. The governors of a worker are kept by its
+ * {@link RateGovernors}.
+ * <p>
+ * The governor is a token bucket in its virtual scheduling form: there is a timeline of slots, one slot per token,
+ * and every operation claims the next free slot. Up to {@value #BURST_SLOTS} slots of unused capacity can be caught up
+ * with; older unused capacity is lost like tokens overflowing a full bucket.
+ * <p>
+ * Every caller has a priority class. A caller with priority 0 only claims a slot when it is due. A caller with a
+ * higher priority may claim slots up to priority * {@value #LOOKAHEAD_SLOTS} slots ahead and then waits for the slot.
+ * So a higher priority class always gets the next free slot before a lower priority class and the lower priority
+ * classes get the remaining capacity.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class RateGovernor {
+
+    static final int BURST_SLOTS = 4;
+    static final int LOOKAHEAD_SLOTS = 4;
+    static final long NO_SLOT = Long.MIN_VALUE;
+
+    private static final long MAX_PARK_NANOS = MILLISECONDS.toNanos(100);
+
+    private final double ratePerSecond;
+    private final long slotNanos;
+    private final long burstNanos;
+    private final long lookaheadNanos;
+    private final AtomicLong nextSlotNanos;
+
+    RateGovernor(double ratePerSecond) {
+        this(ratePerSecond, nanoTime());
+    }
+
+    RateGovernor(double ratePerSecond, long startNanos) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond should be larger than 0");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.slotNanos = max(1, round(SECONDS.toNanos(1) / ratePerSecond));
+        this.burstNanos = BURST_SLOTS * slotNanos;
+        this.lookaheadNanos = LOOKAHEAD_SLOTS * slotNanos;
+        this.nextSlotNanos = new AtomicLong(startNanos);
+    }
+
+    /**
+     * Claims the next free slot and waits till it is due.
+     *
+     * @param priority the priority class of the caller; 0 is the lowest priority.
+     * @return the time in nanos the slot was due.
+     */
+    public long acquire(int priority) {
+        for (; ; ) {
+            long now = nanoTime();
+            long slot = tryAcquire(priority, now);
+            if (slot == NO_SLOT) {
+                // the slot is too far in the future for this priority class; wait till it comes within reach
+                parkNanos(Math.min(nextSlotNanos.get() - now - priority * lookaheadNanos, MAX_PARK_NANOS));
+            } else {
+                while ((now = nanoTime()) < slot) {
+                    parkNanos(slot - now);
+                }
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Claims the next free slot if it is within reach of the priority class, without waiting for it.
+     *
+     * @param priority the priority class of the caller; 0 is the lowest priority.
+     * @param nowNanos the current time in nanos.
+     * @return the time in nanos the slot is due, or {@link #NO_SLOT} if the next free slot is too far in the future.
+     */
+    long tryAcquire(int priority, long nowNanos) {
+        long horizonNanos = priority * lookaheadNanos;
+        for (; ; ) {
+            long observed = nextSlotNanos.get();
+            long slot = max(observed, nowNanos - burstNanos);
+            if (slot - nowNanos > horizonNanos) {
+                return NO_SLOT;
+            }
+            if (nextSlotNanos.compareAndSet(observed, slot + slotNanos)) {
+                return slot;
+            }
+        }
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public long getSlotNanos() {
+        return slotNanos;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * The named {@link RateGovernor} instances of a worker.
+ * <p>
+ * A governor is created by the first test that asks for its name and is released once the last test using it is
+ * released; so the rate budget doesn't leak into the tests that run later in the same worker.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class RateGovernors {
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Returns the governor with the given name and registers the test as one of its users.
+     *
+     * @param name          the name of the rate budget.
+     * @param ratePerSecond the total rate per second of the budget.
+     * @param testId        the id of the test using the governor.
+     * @return the governor.
+     * @throws IllegalArgumentException if the governor already exists with a different rate.
+     */
+    public synchronized RateGovernor acquire(String name, double ratePerSecond, String testId) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            entry = new Entry(new RateGovernor(ratePerSecond));
+            entries.put(name, entry);
+        } else if (entry.governor.getRatePerSecond() != ratePerSecond) {
+            throw new IllegalArgumentException(format("Rate budget [%s] is already used with rate %s by %s, not %s",
+                    name, entry.governor.getRatePerSecond(), entry.testIds, ratePerSecond));
+        }
+        entry.testIds.add(testId);
+        return entry.governor;
+    }
+
+    /**
+     * Releases the governors used by the given test. A governor that isn't used by any test anymore is removed.
+     *
+     * @param testId the id of the test.
+     */
+    public synchronized void release(String testId) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.testIds.remove(testId) && entry.testIds.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final RateGovernor governor;
+        private final Set<String> testIds = new HashSet<>();
+
+        private Entry(RateGovernor governor) {
+            this.governor = governor;
+        }
+    }
+}
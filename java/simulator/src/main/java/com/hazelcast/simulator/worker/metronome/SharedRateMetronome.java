@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
+import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
+import com.hazelcast.simulator.worker.testcontainer.TestContextImpl;
+
+import java.util.concurrent.locks.LockSupport;
+
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static java.lang.System.nanoTime;
+import static org.apache.commons.lang3.RandomUtils.nextLong;
+
+/**
+ * A {@link Metronome} that draws from a {@link RateGovernor} shared by all tests in the worker that configure the same
+ * 'sharedRateName'; the total rate of the budget is configured using 'sharedRatePerSecond'. This makes it possible to
+ * run tests in parallel with a precise total offered load. Tests using the same name with a different rate fail.
+ * <p>
+ * The priority class is configured using 'ratePriority'; 0 is the lowest priority. A latency sensitive foreground test
+ * can be given a higher priority than a background test, so the foreground test gets the capacity it needs and the
+ * background test soaks up the remaining capacity.
+ * <p>
+ * If the test also configures its own rate using 'interval' or 'ratePerSecond', the test is paced at that rate first,
+ * like the {@link SleepingMetronome}, and then draws from the shared budget. Without its own rate, the test takes
+ * whatever the shared budget allows.
+ */
+public final class SharedRateMetronome implements Metronome {
+
+    private final RateGovernor governor;
+    private final int priority;
+    private final long intervalNanos;
+    private final boolean accountForCoordinatedOmission;
+    private long nextNanos;
+
+    SharedRateMetronome(RateGovernor governor, int priority, long intervalNanos, boolean accountForCoordinatedOmission) {
+        this.governor = governor;
+        this.priority = priority;
+        this.intervalNanos = intervalNanos;
+        this.accountForCoordinatedOmission = accountForCoordinatedOmission;
+    }
+
+    public SharedRateMetronome(long intervalNanos, int threadCount, PropertyBinding binding, String prefix) {
+        this(loadGovernor(binding, prefix),
+                loadPriority(binding, prefix),
+                intervalNanos * threadCount,
+                binding.loadAsBoolean(toPropertyName(prefix, "accountForCoordinatedOmission"), true));
+    }
+
+    public SharedRateMetronome(Metronome m) {
+        SharedRateMetronome master = (SharedRateMetronome) m;
+        this.governor = master.governor;
+        this.priority = master.priority;
+        this.intervalNanos = master.intervalNanos;
+        this.accountForCoordinatedOmission = master.accountForCoordinatedOmission;
+    }
+
+    private static RateGovernor loadGovernor(PropertyBinding binding, String prefix) {
+        String property = toPropertyName(prefix, "sharedRatePerSecond");
+        double ratePerSecond = binding.loadAsDouble(property, 0);
+        if (ratePerSecond <= 0) {
+            throw new IllegalTestException(property + " should be larger than 0");
+        }
+
+        String nameProperty = toPropertyName(prefix, "sharedRateName");
+        String name = binding.load(nameProperty);
+        if (name == null || name.isEmpty()) {
+            throw new IllegalTestException(nameProperty + " should be set to name the rate budget of " + property);
+        }
+
+        TestContextImpl testContext = binding.getTestContext();
+        if (testContext == null) {
+            // the binding doesn't belong to a test running in a worker, so there is no budget to share
+            return new RateGovernor(ratePerSecond);
+        }
+        try {
+            return testContext.getRateGovernors().acquire(name, ratePerSecond, testContext.getTestId());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalTestException(e.getMessage());
+        }
+    }
+
+    private static int loadPriority(PropertyBinding binding, String prefix) {
+        String property = toPropertyName(prefix, "ratePriority");
+        int priority = binding.loadAsInt(property, 0);
+        if (priority < 0) {
+            throw new IllegalTestException(property + " can't be smaller than 0");
+        }
+        return priority;
+    }
+
+    @Override
+    public long waitForNext() {
+        long expectedStartNanos = 0;
+        if (intervalNanos > 0) {
+            // set random interval on the first run
+            if (nextNanos == 0) {
+                nextNanos = nanoTime() + nextLong(0, intervalNanos);
+            }
+
+            long now;
+            while ((now = nanoTime()) < nextNanos) {
+                LockSupport.parkNanos(nextNanos - now);
+            }
+            expectedStartNanos = nextNanos;
+            nextNanos += intervalNanos;
+        }
+
+        long slotNanos = governor.acquire(priority);
+        if (!accountForCoordinatedOmission) {
+            return nanoTime();
+        }
+        return intervalNanos > 0 ? expectedStartNanos : slotNanos;
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public RateGovernor getGovernor() {
+        return governor;
+    }
+}
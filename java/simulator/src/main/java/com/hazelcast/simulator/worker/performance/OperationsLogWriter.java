@@ -18,7 +18,13 @@ package com.hazelcast.simulator.worker.performance;
 import java.io.File;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import static com.hazelcast.simulator.utils.FileUtils.appendText;
 import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
@@ -26,21 +32,55 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Responsible for writing to performance stats to disk in csv format.
+ * <p>
+ * If the writer has a 'measurement-window' column, that column is derived from the start and end of the measurement
+ * window, see {@link #startMeasurementWindow(long)} and {@link #endMeasurementWindow(long)}. A row is within the window if
+ * its time is after the start and not after the end. Since the start is only known after the steady state has been
+ * detected, the rows that could still end up in the window are buffered until the start or end is set.
  */
 final class OperationsLogWriter {
 
     private final StringBuffer sb = new StringBuffer();
     private final DecimalFormat format = new DecimalFormat("#.###", new DecimalFormatSymbols(Locale.ENGLISH));
     private final File file;
+    private final boolean measurementWindowColumn;
+    private final int maxBufferedRows;
+    private final Deque<Row> bufferedRows = new ArrayDeque<>();
+    private final List<String> gaugeColumns = new ArrayList<>();
     private boolean headerWritten;
+    private long measurementStartMillis;
+    private long measurementEndMillis;
 
     OperationsLogWriter(File file) {
+        this(file, 0);
+    }
+
+    /**
+     * Creates an OperationsLogWriter.
+     *
+     * @param file            the file to write to
+     * @param maxBufferedRows if larger than 0, a 'measurement-window' column is added that contains 1 for every row
+     *                        within the measurement window, and 0 otherwise. This is the maximum number of rows before
+     *                        the moment the steady state is detected that can be part of the window, so the number of
+     *                        rows that is buffered while the start of the window isn't known.
+     */
+    OperationsLogWriter(File file, int maxBufferedRows) {
         this.file = checkNotNull(file, "file can't be null");
+        this.measurementWindowColumn = maxBufferedRows > 0;
+        this.maxBufferedRows = maxBufferedRows;
     }
 
-    private void writeHeader() {
-        String columns = "epoch,timestamp,operations,operations-delta,operations/second\n";
-        appendText(columns, file);
+    private void writeHeader(Map<String, Double> gauges) {
+        String columns = "epoch,timestamp,operations,operations-delta,operations/second";
+        if (measurementWindowColumn) {
+            columns += ",measurement-window";
+        }
+        // the gauge columns are fixed by the first row; gauges that show up later are not written
+        for (String gauge : gauges.keySet()) {
+            gaugeColumns.add(gauge);
+            columns += "," + gauge;
+        }
+        appendText(columns + '\n', file);
     }
 
     void write(long timeMillis,
@@ -48,9 +88,24 @@ final class OperationsLogWriter {
                long operationsTotal,
                long operationsDelta,
                double operationsPerSecond) {
+        write(timeMillis, timestamp, operationsTotal, operationsDelta, operationsPerSecond, Collections.emptyMap());
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param gauges the sampled gauges of the test; a gauge without a sample or with a NaN sample is written as an
+     *               empty value
+     */
+    void write(long timeMillis,
+               String timestamp,
+               long operationsTotal,
+               long operationsDelta,
+               double operationsPerSecond,
+               Map<String, Double> gauges) {
 
         if (!headerWritten) {
-            writeHeader();
+            writeHeader(gauges);
             headerWritten = true;
         }
 
@@ -61,7 +116,77 @@ final class OperationsLogWriter {
         sb.append(',').append(operationsTotal);
         sb.append(',').append(operationsDelta);
         sb.append(',').append(format.format(operationsPerSecond));
+        String head = sb.toString();
+
+        sb.setLength(0);
+        for (String gauge : gaugeColumns) {
+            sb.append(',');
+            Double value = gauges.get(gauge);
+            if (value != null && !value.isNaN()) {
+                sb.append(format.format(value));
+            }
+        }
         sb.append('\n');
-        appendText(sb.toString(), file);
+        Row row = new Row(timeMillis, head, sb.toString());
+
+        if (!measurementWindowColumn) {
+            appendText(row.head + row.tail, file);
+        } else if (measurementStartMillis == 0 && measurementEndMillis == 0) {
+            bufferedRows.add(row);
+            if (bufferedRows.size() > maxBufferedRows) {
+                // the row is too old to become part of the window
+                writeRow(bufferedRows.poll());
+            }
+        } else {
+            writeRow(row);
+        }
+    }
+
+    /**
+     * Sets the start of the measurement window and writes the buffered rows.
+     *
+     * @param startMillis the start of the window in millis
+     */
+    void startMeasurementWindow(long startMillis) {
+        measurementStartMillis = startMillis;
+        flush();
+    }
+
+    /**
+     * Sets the end of the measurement window and writes the buffered rows. If the start of the window has not been set,
+     * none of the rows are within the window.
+     *
+     * @param endMillis the end of the window in millis
+     */
+    void endMeasurementWindow(long endMillis) {
+        measurementEndMillis = endMillis;
+        flush();
+    }
+
+    private void flush() {
+        Row row;
+        while ((row = bufferedRows.poll()) != null) {
+            writeRow(row);
+        }
+    }
+
+    private void writeRow(Row row) {
+        boolean inMeasurementWindow = measurementStartMillis > 0
+                && row.timeMillis > measurementStartMillis
+                && (measurementEndMillis == 0 || row.timeMillis <= measurementEndMillis);
+        appendText(row.head + ',' + (inMeasurementWindow ? 1 : 0) + row.tail, file);
+    }
+
+    private static final class Row {
+        private final long timeMillis;
+        // the columns before and after the measurement window column
+        private final String head;
+        private final String tail;
+
+        private Row(long timeMillis, String head, String tail) {
+            this.timeMillis = timeMillis;
+            this.head = head;
+            this.tail = tail;
+        }
     }
 }
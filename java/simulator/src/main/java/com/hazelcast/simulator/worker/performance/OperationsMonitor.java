@@ -55,13 +55,31 @@ public class OperationsMonitor implements Closeable {
     private final TestManager testManager;
     private final Server server;
     private final int updateIntervalSeconds;
+    private final boolean sendLatencyHistograms;
 
     public OperationsMonitor(Server server,
                              TestManager testManager,
                              int updateIntervalSeconds) {
+        this(server, testManager, updateIntervalSeconds, false);
+    }
+
+    /**
+     * Creates an OperationsMonitor.
+     *
+     * @param server                the server to send the performance stats to the coordinator with.
+     * @param testManager           the manager of the running tests.
+     * @param updateIntervalSeconds the interval between the updates.
+     * @param sendLatencyHistograms true if the latency histogram of every interval should be sent to the coordinator
+     *                              for the live report.
+     */
+    public OperationsMonitor(Server server,
+                             TestManager testManager,
+                             int updateIntervalSeconds,
+                             boolean sendLatencyHistograms) {
         this.testManager = testManager;
         this.server = server;
         this.updateIntervalSeconds = updateIntervalSeconds;
+        this.sendLatencyHistograms = sendLatencyHistograms;
         this.thread = new OperationsMonitorThread();
         thread.setUncaughtExceptionHandler((t, e) -> LOGGER.fatal(e.getMessage(), e));
     }
@@ -149,7 +167,7 @@ public class OperationsMonitor implements Closeable {
 
             for (TestContainer container : dirtyContainers) {
                 TestOperationsTracker tracker = container.getTestOperationsTracker();
-                msg.addPerformanceStats(container.getTestCase().getId(), tracker.createPerformanceStats());
+                msg.addPerformanceStats(container.getTestCase().getId(), tracker.createPerformanceStats(sendLatencyHistograms));
             }
 
             if (!msg.getPerformanceStats().isEmpty()) {
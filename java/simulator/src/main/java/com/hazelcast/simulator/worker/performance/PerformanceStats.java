@@ -16,6 +16,12 @@
 package com.hazelcast.simulator.worker.performance;
 
 import com.hazelcast.simulator.common.TestPhase;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
 
 import static java.lang.Math.max;
 
@@ -39,6 +45,19 @@ public class PerformanceStats {
     private double intervalLatencyAvgNanos;
     private long intervalLatencyMaxNanos;
     private long intervalLatency999PercentileNanos;
+    private long intervalScheduleLagMaxNanos;
+    private long missedSlotCount;
+    private long errorCount;
+    private long timeoutCount;
+    private double intervalErrorThroughput;
+    private double intervalTimeoutThroughput;
+    private String intervalSlowestMember;
+    private long intervalSlowestMemberLatency999PercentileNanos;
+    // the compressed and base64 encoded latency histogram of the interval; only set when a live report is requested
+    private String intervalLatencyHistogram;
+    // the compressed encoding doesn't contain the start and end of the interval, so they are sent separately
+    private long intervalLatencyHistogramStartMillis;
+    private long intervalLatencyHistogramEndMillis;
 
     /**
      * Creates an empty {@link PerformanceStats} instance.
@@ -66,12 +85,83 @@ public class PerformanceStats {
                             double intervalLatencyAvgNanos,
                             long intervalLatency999PercentileNanos,
                             long intervalLatencyMaxNanos) {
+        this(operationCount, intervalThroughput, totalThroughput, intervalLatencyAvgNanos,
+                intervalLatency999PercentileNanos, intervalLatencyMaxNanos, 0, 0);
+    }
+
+    /**
+     * Creates a {@link PerformanceStats} instance with values, including the schedule lag of the metronomes.
+     *
+     * @param operationCount                    Operation count value.
+     * @param intervalThroughput                Throughput value for an interval.
+     * @param totalThroughput                   Total throughput value.
+     * @param intervalLatencyAvgNanos           Average latency for an interval.
+     * @param intervalLatency999PercentileNanos 99.9 Percentile latency for an interval
+     *                                          ({@link PerformanceStats#INTERVAL_LATENCY_PERCENTILE}).
+     * @param intervalLatencyMaxNanos           Maximum latency for an interval.
+     * @param intervalScheduleLagMaxNanos       Maximum schedule lag for an interval.
+     * @param missedSlotCount                   Number of missed metronome slots.
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    public PerformanceStats(long operationCount,
+                            double intervalThroughput,
+                            double totalThroughput,
+                            double intervalLatencyAvgNanos,
+                            long intervalLatency999PercentileNanos,
+                            long intervalLatencyMaxNanos,
+                            long intervalScheduleLagMaxNanos,
+                            long missedSlotCount) {
+        this(operationCount, intervalThroughput, totalThroughput, intervalLatencyAvgNanos,
+                intervalLatency999PercentileNanos, intervalLatencyMaxNanos, intervalScheduleLagMaxNanos, missedSlotCount,
+                0, 0, 0, 0);
+    }
+
+    /**
+     * Creates a {@link PerformanceStats} instance with values, including the schedule lag of the metronomes and the
+     * operations that failed with an expected error or timeout.
+     * <p>
+     * The operation count and throughput include the failed operations; the goodput is the throughput minus the
+     * error and timeout throughput.
+     *
+     * @param operationCount                    Operation count value.
+     * @param intervalThroughput                Throughput value for an interval.
+     * @param totalThroughput                   Total throughput value.
+     * @param intervalLatencyAvgNanos           Average latency for an interval.
+     * @param intervalLatency999PercentileNanos 99.9 Percentile latency for an interval
+     *                                          ({@link PerformanceStats#INTERVAL_LATENCY_PERCENTILE}).
+     * @param intervalLatencyMaxNanos           Maximum latency for an interval.
+     * @param intervalScheduleLagMaxNanos       Maximum schedule lag for an interval.
+     * @param missedSlotCount                   Number of missed metronome slots.
+     * @param errorCount                        Number of operations that failed with an error.
+     * @param timeoutCount                      Number of operations that failed with a timeout.
+     * @param intervalErrorThroughput           Errors per second for an interval.
+     * @param intervalTimeoutThroughput         Timeouts per second for an interval.
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    public PerformanceStats(long operationCount,
+                            double intervalThroughput,
+                            double totalThroughput,
+                            double intervalLatencyAvgNanos,
+                            long intervalLatency999PercentileNanos,
+                            long intervalLatencyMaxNanos,
+                            long intervalScheduleLagMaxNanos,
+                            long missedSlotCount,
+                            long errorCount,
+                            long timeoutCount,
+                            double intervalErrorThroughput,
+                            double intervalTimeoutThroughput) {
         this.operationCount = operationCount;
         this.intervalThroughput = intervalThroughput;
         this.totalThroughput = totalThroughput;
         this.intervalLatencyAvgNanos = intervalLatencyAvgNanos;
         this.intervalLatency999PercentileNanos = intervalLatency999PercentileNanos;
         this.intervalLatencyMaxNanos = intervalLatencyMaxNanos;
+        this.intervalScheduleLagMaxNanos = intervalScheduleLagMaxNanos;
+        this.missedSlotCount = missedSlotCount;
+        this.errorCount = errorCount;
+        this.timeoutCount = timeoutCount;
+        this.intervalErrorThroughput = intervalErrorThroughput;
+        this.intervalTimeoutThroughput = intervalTimeoutThroughput;
     }
 
     public PerformanceStats(PerformanceStats original) {
@@ -81,6 +171,63 @@ public class PerformanceStats {
         this.intervalLatencyAvgNanos = original.intervalLatencyAvgNanos;
         this.intervalLatency999PercentileNanos = original.intervalLatency999PercentileNanos;
         this.intervalLatencyMaxNanos = original.intervalLatencyMaxNanos;
+        this.intervalScheduleLagMaxNanos = original.intervalScheduleLagMaxNanos;
+        this.missedSlotCount = original.missedSlotCount;
+        this.errorCount = original.errorCount;
+        this.timeoutCount = original.timeoutCount;
+        this.intervalErrorThroughput = original.intervalErrorThroughput;
+        this.intervalTimeoutThroughput = original.intervalTimeoutThroughput;
+        this.intervalSlowestMember = original.intervalSlowestMember;
+        this.intervalSlowestMemberLatency999PercentileNanos = original.intervalSlowestMemberLatency999PercentileNanos;
+    }
+
+    /**
+     * Sets the member with the highest latency in an interval, see
+     * {@link com.hazelcast.simulator.test.TestContext#getMemberLatencyProbe}.
+     *
+     * @param member                    the id of the member
+     * @param latency999PercentileNanos 99.9 Percentile latency of the member for the interval
+     */
+    public void setIntervalSlowestMember(String member, long latency999PercentileNanos) {
+        this.intervalSlowestMember = member;
+        this.intervalSlowestMemberLatency999PercentileNanos = latency999PercentileNanos;
+    }
+
+    /**
+     * Sets the latency histogram of the interval, so the coordinator can merge the histograms of all workers while
+     * the test is running. The start and end timestamp of the histogram are kept. The histogram isn't combined by
+     * {@link #add(PerformanceStats)}.
+     *
+     * @param histogram the latency histogram of the interval
+     */
+    public void setIntervalLatencyHistogram(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        this.intervalLatencyHistogram = Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+        this.intervalLatencyHistogramStartMillis = histogram.getStartTimeStamp();
+        this.intervalLatencyHistogramEndMillis = histogram.getEndTimeStamp();
+    }
+
+    /**
+     * Returns the latency histogram of the interval.
+     *
+     * @return the histogram, or null if no histogram was set.
+     * @throws IllegalStateException if the histogram can't be decoded.
+     */
+    public Histogram getIntervalLatencyHistogram() {
+        if (intervalLatencyHistogram == null) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(intervalLatencyHistogram));
+            Histogram histogram = Histogram.decodeFromCompressedByteBuffer(buffer, 0);
+            histogram.setStartTimeStamp(intervalLatencyHistogramStartMillis);
+            histogram.setEndTimeStamp(intervalLatencyHistogramEndMillis);
+            return histogram;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Failed to decode the interval latency histogram", e);
+        }
     }
 
     /**
@@ -121,20 +268,45 @@ public class PerformanceStats {
             intervalLatencyAvgNanos = other.intervalLatencyAvgNanos;
             intervalLatency999PercentileNanos = other.intervalLatency999PercentileNanos;
             intervalLatencyMaxNanos = other.intervalLatencyMaxNanos;
+            intervalScheduleLagMaxNanos = other.intervalScheduleLagMaxNanos;
+            missedSlotCount = other.missedSlotCount;
+            errorCount = other.errorCount;
+            timeoutCount = other.timeoutCount;
+            intervalErrorThroughput = other.intervalErrorThroughput;
+            intervalTimeoutThroughput = other.intervalTimeoutThroughput;
+            intervalSlowestMember = other.intervalSlowestMember;
+            intervalSlowestMemberLatency999PercentileNanos = other.intervalSlowestMemberLatency999PercentileNanos;
         } else {
             if (addOperationCountAndThroughput) {
                 operationCount += other.operationCount;
                 intervalThroughput += other.intervalThroughput;
                 totalThroughput += other.totalThroughput;
+                missedSlotCount += other.missedSlotCount;
+                errorCount += other.errorCount;
+                timeoutCount += other.timeoutCount;
+                intervalErrorThroughput += other.intervalErrorThroughput;
+                intervalTimeoutThroughput += other.intervalTimeoutThroughput;
             } else {
                 operationCount = max(operationCount, other.operationCount);
                 intervalThroughput = max(intervalThroughput, other.intervalThroughput);
                 totalThroughput = max(totalThroughput, other.totalThroughput);
+                missedSlotCount = max(missedSlotCount, other.missedSlotCount);
+                errorCount = max(errorCount, other.errorCount);
+                timeoutCount = max(timeoutCount, other.timeoutCount);
+                intervalErrorThroughput = max(intervalErrorThroughput, other.intervalErrorThroughput);
+                intervalTimeoutThroughput = max(intervalTimeoutThroughput, other.intervalTimeoutThroughput);
             }
 
             intervalLatencyAvgNanos = max(intervalLatencyAvgNanos, other.intervalLatencyAvgNanos);
             intervalLatency999PercentileNanos = max(intervalLatency999PercentileNanos, other.intervalLatency999PercentileNanos);
             intervalLatencyMaxNanos = max(intervalLatencyMaxNanos, other.intervalLatencyMaxNanos);
+            intervalScheduleLagMaxNanos = max(intervalScheduleLagMaxNanos, other.intervalScheduleLagMaxNanos);
+            if (other.intervalSlowestMember != null
+                    && (intervalSlowestMember == null
+                    || other.intervalSlowestMemberLatency999PercentileNanos > intervalSlowestMemberLatency999PercentileNanos)) {
+                intervalSlowestMember = other.intervalSlowestMember;
+                intervalSlowestMemberLatency999PercentileNanos = other.intervalSlowestMemberLatency999PercentileNanos;
+            }
         }
     }
 
@@ -171,6 +343,67 @@ public class PerformanceStats {
         return intervalLatencyMaxNanos;
     }
 
+    public long getIntervalScheduleLagMaxNanos() {
+        return intervalScheduleLagMaxNanos;
+    }
+
+    /**
+     * Returns the number of operations that started more than one metronome interval after their intended start.
+     *
+     * @return the number of missed slots since the start of the run.
+     */
+    public long getMissedSlotCount() {
+        return missedSlotCount;
+    }
+
+    /**
+     * Returns the number of operations that failed with an exception configured in errorExceptions.
+     *
+     * @return the number of errors since the start of the run.
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Returns the number of operations that failed with an exception configured in timeoutExceptions.
+     *
+     * @return the number of timeouts since the start of the run.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public double getIntervalErrorThroughput() {
+        return intervalErrorThroughput;
+    }
+
+    public double getIntervalTimeoutThroughput() {
+        return intervalTimeoutThroughput;
+    }
+
+    /**
+     * Returns the member with the highest latency in the interval.
+     *
+     * @return the id of the member, or null if the test has no member latency probes.
+     */
+    public String getIntervalSlowestMember() {
+        return intervalSlowestMember;
+    }
+
+    public long getIntervalSlowestMemberLatency999PercentileNanos() {
+        return intervalSlowestMemberLatency999PercentileNanos;
+    }
+
+    /**
+     * Returns the throughput of the operations that didn't fail with an error or timeout.
+     *
+     * @return the goodput for an interval.
+     */
+    public double getIntervalGoodput() {
+        return max(0, intervalThroughput - intervalErrorThroughput - intervalTimeoutThroughput);
+    }
+
     @Override
     public String toString() {
         return "PerformanceStats{"
@@ -180,6 +413,14 @@ public class PerformanceStats {
                 + ", intervalAvgLatencyNanos=" + intervalLatencyAvgNanos
                 + ", intervalLatency999PercentileNanos=" + intervalLatency999PercentileNanos
                 + ", intervalMaxLatencyNanos=" + intervalLatencyMaxNanos
+                + ", intervalScheduleLagMaxNanos=" + intervalScheduleLagMaxNanos
+                + ", missedSlotCount=" + missedSlotCount
+                + ", errorCount=" + errorCount
+                + ", timeoutCount=" + timeoutCount
+                + ", intervalErrorThroughput=" + intervalErrorThroughput
+                + ", intervalTimeoutThroughput=" + intervalTimeoutThroughput
+                + ", intervalSlowestMember=" + intervalSlowestMember
+                + ", intervalSlowestMemberLatency999PercentileNanos=" + intervalSlowestMemberLatency999PercentileNanos
                 + '}';
     }
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.performance;
+
+import static com.hazelcast.simulator.utils.Preconditions.checkPositive;
+
+/**
+ * Detects when a test has reached a steady state, so the warmup (JIT compilation, partition migrations, cache fill etc.)
+ * can be excluded from the results.
+ * <p>
+ * A rolling window of the most recent intervals is kept. The test is considered to be in a steady state as soon as the
+ * coefficient of variation (standard deviation divided by the mean) of both the interval throughput and the interval
+ * p99 latency within that window, are below their configured thresholds. The measurement window then starts at the
+ * beginning of the oldest interval in the rolling window.
+ * <p>
+ * This class is not thread-safe; it is only accessed by the {@link OperationsMonitor} thread.
+ */
+final class SteadyStateDetector {
+
+    private final int windowSize;
+    private final double maxThroughputCv;
+    private final double maxLatencyCv;
+    private final long[] startMillis;
+    private final double[] throughputs;
+    private final double[] latencies;
+    private int count;
+    private int index;
+
+    SteadyStateDetector(int windowSize, double maxThroughputCv, double maxLatencyCv) {
+        this.windowSize = checkPositive(windowSize, "windowSize");
+        this.maxThroughputCv = maxThroughputCv;
+        this.maxLatencyCv = maxLatencyCv;
+        this.startMillis = new long[windowSize];
+        this.throughputs = new double[windowSize];
+        this.latencies = new double[windowSize];
+    }
+
+    /**
+     * Adds the results of an interval.
+     *
+     * @param intervalStartMillis the start of the interval in millis
+     * @param throughput          the throughput of the interval in operations/second
+     * @param latencyNanos        the p99 latency of the interval in nanos, or -1 if no latency is recorded
+     * @return the start of the measurement window in millis if the steady state has been reached, -1 otherwise
+     */
+    long add(long intervalStartMillis, double throughput, long latencyNanos) {
+        startMillis[index] = intervalStartMillis;
+        throughputs[index] = throughput;
+        latencies[index] = latencyNanos;
+        index = (index + 1) % windowSize;
+        if (count < windowSize) {
+            count++;
+        }
+
+        if (count < windowSize) {
+            return -1;
+        }
+
+        if (throughput <= 0 || coefficientOfVariation(throughputs) > maxThroughputCv) {
+            return -1;
+        }
+
+        if (latencyNanos >= 0 && coefficientOfVariation(latencies) > maxLatencyCv) {
+            return -1;
+        }
+
+        // the index now points to the oldest interval in the window
+        return startMillis[index];
+    }
+
+    static double coefficientOfVariation(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        double mean = sum / values.length;
+        if (mean == 0) {
+            return 0;
+        }
+
+        double squaredDiffSum = 0;
+        for (double value : values) {
+            double diff = value - mean;
+            squaredDiffSum += diff * diff;
+        }
+        return Math.sqrt(squaredDiffSum / values.length) / mean;
+    }
+}
@@ -17,19 +17,34 @@ package com.hazelcast.simulator.worker.performance;
 
 import com.hazelcast.simulator.probes.LatencyProbe;
 import com.hazelcast.simulator.probes.impl.HdrLatencyProbe;
+import com.hazelcast.simulator.probes.impl.OutcomeProbe;
+import com.hazelcast.simulator.probes.impl.PauseProbe;
+import com.hazelcast.simulator.probes.impl.ResourceUsageProbe;
+import com.hazelcast.simulator.probes.impl.ScheduleLagProbe;
 import com.hazelcast.simulator.test.TestException;
+import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
 import com.hazelcast.simulator.worker.testcontainer.TestContainer;
 import com.hazelcast.simulator.worker.testcontainer.TestContextImpl;
 import org.HdrHistogram.Histogram;
 import org.HdrHistogram.HistogramLogWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.DoubleSupplier;
 
+import static com.hazelcast.simulator.probes.impl.PauseProbe.Pause.TIME_TO_SAFEPOINT;
 import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static com.hazelcast.simulator.utils.MeasurementWindow.endComment;
+import static com.hazelcast.simulator.utils.MeasurementWindow.startComment;
 import static com.hazelcast.simulator.worker.performance.PerformanceStats.INTERVAL_LATENCY_PERCENTILE;
+import static com.hazelcast.simulator.worker.testcontainer.TestContextImpl.MEMBER_SEPARATOR;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -42,34 +57,84 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * This class has a shitty design due to conflated concerns due to file writing and remoting sending the histograms.
  * This is caused by the Recorder that gets reset when getIntervalHistogram is called. Meaning that writing to file
  * and sending to remote, needs to rely on the same set of Histograms to write/send.
+ *
+ * By default only the first interval is considered to be warmup. If steady state detection is enabled (see
+ * {@link PropertyBinding#detectSteadyState}), a {@link SteadyStateDetector} determines when the measurement window
+ * starts. The start and end of the measurement window are written as comments to the HDR files so the report only
+ * includes that window, and the operations log gets an additional 'measurement-window' column that marks the rows within
+ * the same window. The rows that could still be part of the window are buffered until the steady state is detected. The
+ * window is closed when the run phase of the test completes, see {@link #closeMeasurementWindow()}.
+ *
+ * The gauges registered with {@link com.hazelcast.simulator.test.TestContext#registerGauge} are sampled on every update
+ * and written as additional columns of the operations log. The interval listeners, see
+ * {@link com.hazelcast.simulator.test.TestContext#registerIntervalListener}, are called right before.
+ *
+ * The member latency probes, see {@link com.hazelcast.simulator.test.TestContext#getMemberLatencyProbe}, are persisted
+ * next to the latency histograms, but they are not included in the latency statistics of the test. Instead the member
+ * with the highest interval latency is sent to the coordinator.
+ *
+ * The pause histograms, see {@link PropertyBinding#recordPauses}, are persisted next to the latency histograms. The
+ * total duration of every kind of pause and the longest pause of the interval are written as additional columns of the
+ * operations log, together with a column that is 1 when the longest pause is long enough to explain the p99.9 latency
+ * of the interval.
  */
 public final class TestOperationsTracker {
 
     private static final long ONE_SECOND_IN_MILLIS = SECONDS.toMillis(1);
+    private static final double INTERVAL_STEADY_STATE_PERCENTILE = 99;
+    // a pause explains the p99.9 latency of an interval if it takes at least this fraction of that latency
+    private static final double PAUSE_EXPLAINS_LATENCY_FRACTION = 0.5;
+    private static final double NANOS_PER_MILLI = MILLISECONDS.toNanos(1);
+    private static final Logger LOGGER = LogManager.getLogger(TestOperationsTracker.class);
 
     private final TestContainer testContainer;
     private final Map<String, HistogramLogWriter> histogramLogWriterMap = new HashMap<>();
     private final OperationsLogWriter performanceLogWriter;
     private final TestContextImpl testContext;
+    private final SteadyStateDetector steadyStateDetector;
     private long lastUpdateMillis;
     private Map<String, Histogram> intervalHistogramMap;
+    // the kind of histogram per probe name, e.g. 'Latency', for the header of the histogram log
+    private final Map<String, String> histogramKindMap = new HashMap<>();
+    private Map<String, Double> intervalGauges = new LinkedHashMap<>();
 
     private long iterationsDuringWarmup;
     private long lastIterations;
     private double intervalLatencyAvgNanos;
     private long intervalLatency999PercentileNanos;
+    private String intervalSlowestMember;
+    private long intervalSlowestMemberLatency999PercentileNanos;
     private long intervalLatencyMaxNanos;
+    private long intervalScheduleLagMaxNanos;
+    private long missedSlotCount;
+    private long errorCount;
+    private long timeoutCount;
+    private double intervalErrorThroughput;
+    private double intervalTimeoutThroughput;
     private long intervalOperationCount;
     private long totalOperationCount;
     private double intervalThroughput;
     private double totalThroughput;
     private long nextUpdateMillis;
+    // the scheduled start and end of the last interval; unlike the time the update ran, the scheduled intervals of the
+    // tracker are exactly one update interval apart
+    private long intervalStartMillis;
+    private long intervalEndMillis;
+    private long measurementStartMillis;
+    private boolean measurementStartPending;
+    private boolean measurementWindowClosed;
 
     public TestOperationsTracker(TestContainer container) {
         this.testContainer = container;
         this.testContext = container.getTestContext();
+        PropertyBinding propertyBinding = container.getPropertyBinding();
+        this.steadyStateDetector = propertyBinding.detectSteadyState
+                ? new SteadyStateDetector(propertyBinding.steadyStateWindow,
+                propertyBinding.steadyStateMaxThroughputCv, propertyBinding.steadyStateMaxLatencyCv)
+                : null;
         this.performanceLogWriter = new OperationsLogWriter(
-                new File(getUserDir(), container.getTestCase().getId() + ".operations.csv"));
+                new File(getUserDir(), container.getTestCase().getId() + ".operations.csv"),
+                steadyStateDetector != null ? propertyBinding.steadyStateWindow : 0);
     }
 
     /**
@@ -79,7 +144,7 @@ public final class TestOperationsTracker {
      * @param currentTimeMillis current time in millis
      * @return true if anything needs to be written; false otherwise
      */
-    public boolean update(long updateIntervalMillis, long currentTimeMillis) {
+    public synchronized boolean update(long updateIntervalMillis, long currentTimeMillis) {
         if (skipUpdate(updateIntervalMillis, currentTimeMillis)) {
             return false;
         }
@@ -92,7 +157,7 @@ public final class TestOperationsTracker {
         long runStartedMillis = testContainer.getRunStartedMillis();
 
         if (!testContainer.isRunning() || runStartedMillis == 0) {
-            // the test hasn't started
+            // the test isn't running
             return true;
         }
 
@@ -102,6 +167,21 @@ public final class TestOperationsTracker {
             for (LatencyProbe probe : testContext.getLatencyProbes().values()) {
                 probe.reset();
             }
+            for (LatencyProbe probe : testContext.getMemberLatencyProbes().values()) {
+                probe.reset();
+            }
+            for (ResourceUsageProbe probe : testContext.getResourceUsageProbes().values()) {
+                probe.reset();
+            }
+            for (PauseProbe probe : testContext.getPauseProbes().values()) {
+                probe.reset();
+            }
+            for (ScheduleLagProbe probe : testContext.getScheduleLagProbes().values()) {
+                probe.reset();
+            }
+            for (OutcomeProbe probe : testContext.getOutcomeProbes().values()) {
+                probe.reset();
+            }
             lastUpdateMillis = currentTimeMillis;
             nextUpdateMillis = lastUpdateMillis + updateIntervalMillis;
             return true;
@@ -115,6 +195,7 @@ public final class TestOperationsTracker {
         Map<String, Histogram> intervalHistograms = new HashMap<>(latencyProbes.size());
 
         long intervalPercentileLatency = -1;
+        long intervalSteadyStateLatency = -1;
         double intervalMean = -1;
         long intervalMaxLatency = -1;
 
@@ -133,12 +214,18 @@ public final class TestOperationsTracker {
             intervalHistogram.setStartTimeStamp(lastUpdateMillis);
             intervalHistogram.setEndTimeStamp(currentTimeMillis);
             intervalHistograms.put(probeName, intervalHistogram);
+            histogramKindMap.put(probeName, "Latency");
 
             long percentileValue = intervalHistogram.getValueAtPercentile(INTERVAL_LATENCY_PERCENTILE);
             if (percentileValue > intervalPercentileLatency) {
                 intervalPercentileLatency = percentileValue;
             }
 
+            long steadyStateValue = intervalHistogram.getValueAtPercentile(INTERVAL_STEADY_STATE_PERCENTILE);
+            if (steadyStateValue > intervalSteadyStateLatency) {
+                intervalSteadyStateLatency = steadyStateValue;
+            }
+
             double meanLatency = intervalHistogram.getMean();
             if (meanLatency > intervalMean) {
                 intervalMean = meanLatency;
@@ -154,7 +241,100 @@ public final class TestOperationsTracker {
             }
         }
 
+        // the member latency histograms are a breakdown of the latency histograms, so they are only used to find the
+        // member with the highest latency.
+        String slowestMember = null;
+        long slowestMemberLatency = -1;
+        for (Map.Entry<String, LatencyProbe> entry : testContext.getMemberLatencyProbes().entrySet()) {
+            if (!(entry.getValue() instanceof HdrLatencyProbe)) {
+                continue;
+            }
+
+            String probeName = entry.getKey();
+            Histogram histogram = ((HdrLatencyProbe) entry.getValue()).getRecorder().getIntervalHistogram();
+            addIntervalHistogram(intervalHistograms, probeName, "Latency", histogram, currentTimeMillis);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+
+            long percentileValue = histogram.getValueAtPercentile(INTERVAL_LATENCY_PERCENTILE);
+            if (percentileValue > slowestMemberLatency) {
+                slowestMemberLatency = percentileValue;
+                slowestMember = probeName.substring(probeName.lastIndexOf(MEMBER_SEPARATOR) + 1);
+            }
+        }
+        this.intervalSlowestMember = slowestMember;
+        this.intervalSlowestMemberLatency999PercentileNanos = slowestMemberLatency;
+
+        // the resource usage histograms are persisted next to the latency histograms, but they are not
+        // included in the throughput and latency statistics.
+        for (ResourceUsageProbe probe : testContext.getResourceUsageProbes().values()) {
+            addIntervalHistogram(intervalHistograms, probe.name() + ".alloc", "Allocation",
+                    probe.getAllocatedBytesRecorder().getIntervalHistogram(), currentTimeMillis);
+            addIntervalHistogram(intervalHistograms, probe.name() + ".cpu", "CPU time",
+                    probe.getCpuNanosRecorder().getIntervalHistogram(), currentTimeMillis);
+        }
+
+        // the schedule lag histograms are persisted next to the latency histograms; the maximum lag and the missed
+        // slots are sent to the coordinator so it can show when the load generator can't keep up with the rate.
+        long intervalScheduleLagMax = 0;
+        long missedSlotCount = 0;
+        for (ScheduleLagProbe probe : testContext.getScheduleLagProbes().values()) {
+            Histogram histogram = probe.getRecorder().getIntervalHistogram();
+            addIntervalHistogram(intervalHistograms, probe.name(), "Schedule lag", histogram, currentTimeMillis);
+            intervalScheduleLagMax = Math.max(intervalScheduleLagMax, histogram.getMaxValue());
+            missedSlotCount += probe.missedSlotCount();
+        }
+        this.intervalScheduleLagMaxNanos = intervalScheduleLagMax;
+        this.missedSlotCount = missedSlotCount;
+
+        // the error and timeout histograms are persisted next to the latency histograms; they are not included in the
+        // latency statistics, so the latency only covers the successful operations.
+        long intervalErrorCount = 0;
+        long intervalTimeoutCount = 0;
+        for (OutcomeProbe probe : testContext.getOutcomeProbes().values()) {
+            Histogram errorHistogram = probe.getErrorRecorder().getIntervalHistogram();
+            addIntervalHistogram(intervalHistograms, probe.name() + ".error", "Error latency", errorHistogram,
+                    currentTimeMillis);
+            intervalErrorCount += errorHistogram.getTotalCount();
+
+            Histogram timeoutHistogram = probe.getTimeoutRecorder().getIntervalHistogram();
+            addIntervalHistogram(intervalHistograms, probe.name() + ".timeout", "Timeout latency", timeoutHistogram,
+                    currentTimeMillis);
+            intervalTimeoutCount += timeoutHistogram.getTotalCount();
+        }
+        this.errorCount += intervalErrorCount;
+        this.timeoutCount += intervalTimeoutCount;
+
+        Map<String, Double> pauseColumns = new LinkedHashMap<>();
+        for (PauseProbe probe : testContext.getPauseProbes().values()) {
+            long maxPauseNanos = 0;
+            for (PauseProbe.Pause pause : PauseProbe.Pause.values()) {
+                Histogram histogram = probe.getRecorder(pause).getIntervalHistogram();
+                addIntervalHistogram(intervalHistograms, probe.name() + '.' + pause.suffix(), "Pause", histogram,
+                        currentTimeMillis);
+                double totalNanos = histogram.getTotalCount() == 0 ? 0 : histogram.getMean() * histogram.getTotalCount();
+                pauseColumns.put(probe.name() + '-' + pause.suffix() + "-ms", totalNanos / NANOS_PER_MILLI);
+                if (pause != TIME_TO_SAFEPOINT) {
+                    // the time to safepoint is part of the safepoint
+                    maxPauseNanos = Math.max(maxPauseNanos, histogram.getMaxValue());
+                }
+            }
+            boolean explainsLatency = intervalPercentileLatency > 0
+                    && maxPauseNanos >= PAUSE_EXPLAINS_LATENCY_FRACTION * intervalPercentileLatency;
+            pauseColumns.put(probe.name() + "-max-ms", maxPauseNanos / NANOS_PER_MILLI);
+            pauseColumns.put(probe.name() + "-explains-p99.9", explainsLatency ? 1d : 0d);
+            if (explainsLatency) {
+                LOGGER.debug(testContainer.getTestCase().getId() + " interval p99.9 latency of "
+                        + NANOSECONDS.toMicros(intervalPercentileLatency) + " us is explained by a pause of "
+                        + NANOSECONDS.toMicros(maxPauseNanos) + " us");
+            }
+        }
+
         this.intervalHistogramMap = intervalHistograms;
+        notifyIntervalListeners();
+        this.intervalGauges = sampleGauges();
+        this.intervalGauges.putAll(pauseColumns);
 
         this.intervalLatency999PercentileNanos = intervalPercentileLatency;
         this.intervalLatencyAvgNanos = intervalMean;
@@ -167,13 +347,62 @@ public final class TestOperationsTracker {
         long totalTimeDelta = currentTimeMillis - testContainer.getRunStartedMillis();
 
         this.intervalThroughput = (intervalOperationCount * ONE_SECOND_IN_MILLIS) / (double) intervalTimeDelta;
+        this.intervalErrorThroughput = (intervalErrorCount * ONE_SECOND_IN_MILLIS) / (double) intervalTimeDelta;
+        this.intervalTimeoutThroughput = (intervalTimeoutCount * ONE_SECOND_IN_MILLIS) / (double) intervalTimeDelta;
         this.totalThroughput = (totalOperationCount * ONE_SECOND_IN_MILLIS / (double) totalTimeDelta);
 
+        if (steadyStateDetector != null && measurementStartMillis == 0) {
+            long startMillis = steadyStateDetector.add(lastUpdateMillis, intervalThroughput, intervalSteadyStateLatency);
+            if (startMillis > 0) {
+                measurementStartMillis = startMillis;
+                measurementStartPending = true;
+                performanceLogWriter.startMeasurementWindow(startMillis);
+                LOGGER.info(testContainer.getTestCase().getId() + " reached steady state, measurement window starts "
+                        + MILLISECONDS.toSeconds(startMillis - testContainer.getRunStartedMillis()) + "s after run start");
+            }
+        }
+
         this.lastIterations = iterations;
+        this.intervalEndMillis = nextUpdateMillis;
+        this.intervalStartMillis = nextUpdateMillis - updateIntervalMillis;
         this.nextUpdateMillis += updateIntervalMillis;
         this.lastUpdateMillis = currentTimeMillis;
     }
 
+    private void notifyIntervalListeners() {
+        for (Runnable listener : testContext.getIntervalListeners()) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Interval listener of " + testContainer.getTestCase().getId() + " failed", e);
+            }
+        }
+    }
+
+    private Map<String, Double> sampleGauges() {
+        Map<String, DoubleSupplier> gauges = testContext.getGauges();
+        Map<String, Double> samples = new LinkedHashMap<>(gauges.size());
+        for (Map.Entry<String, DoubleSupplier> entry : gauges.entrySet()) {
+            double value;
+            try {
+                value = entry.getValue().getAsDouble();
+            } catch (RuntimeException e) {
+                LOGGER.debug("Failed to sample gauge " + entry.getKey(), e);
+                value = Double.NaN;
+            }
+            samples.put(entry.getKey(), value);
+        }
+        return samples;
+    }
+
+    private void addIntervalHistogram(Map<String, Histogram> intervalHistograms, String name, String kind,
+                                      Histogram histogram, long currentTimeMillis) {
+        histogram.setStartTimeStamp(lastUpdateMillis);
+        histogram.setEndTimeStamp(currentTimeMillis);
+        intervalHistograms.put(name, histogram);
+        histogramKindMap.put(name, kind);
+    }
+
     long intervalOperationCount() {
         return intervalOperationCount;
     }
@@ -186,47 +415,137 @@ public final class TestOperationsTracker {
         return intervalThroughput;
     }
 
-    void persist(long currentTimeMillis, String currentTimeString) {
+    synchronized void persist(long currentTimeMillis, String currentTimeString) {
         performanceLogWriter.write(
                 currentTimeMillis,
                 currentTimeString,
                 totalOperationCount,
                 intervalOperationCount,
-                intervalThroughput);
+                intervalThroughput,
+                intervalGauges);
 
         // dumps all the Histograms that have been collected to file.
         for (Map.Entry<String, Histogram> histogramEntry : intervalHistogramMap.entrySet()) {
             String probeName = histogramEntry.getKey();
             HistogramLogWriter histogramLogWriter = histogramLogWriterMap.get(probeName);
             if (histogramLogWriter == null) {
-                histogramLogWriter = createHistogramLogWriter(probeName);
+                histogramLogWriter = createHistogramLogWriter(probeName, histogramKindMap.get(probeName));
                 histogramLogWriterMap.put(probeName, histogramLogWriter);
             }
             Histogram intervalHistogram = histogramEntry.getValue();
             histogramLogWriter.outputIntervalHistogram(intervalHistogram);
         }
+
+        if (measurementStartPending) {
+            measurementStartPending = false;
+            for (HistogramLogWriter histogramLogWriter : histogramLogWriterMap.values()) {
+                histogramLogWriter.outputComment(startComment(measurementStartMillis));
+            }
+        }
+    }
+
+    /**
+     * Closes the measurement window at the last update. Is called when the run phase of the test completes; calling it
+     * more than once has no effect.
+     */
+    public synchronized void closeMeasurementWindow() {
+        if (steadyStateDetector == null || measurementWindowClosed) {
+            return;
+        }
+        measurementWindowClosed = true;
+        performanceLogWriter.endMeasurementWindow(lastUpdateMillis);
+
+        String testId = testContainer.getTestCase().getId();
+        if (measurementStartMillis == 0) {
+            LOGGER.warn(testId + " never reached steady state, the measurement window includes the warmup");
+            return;
+        }
+
+        for (HistogramLogWriter histogramLogWriter : histogramLogWriterMap.values()) {
+            histogramLogWriter.outputComment(endComment(lastUpdateMillis));
+        }
+        LOGGER.info(testId + " measurement window ended after "
+                + MILLISECONDS.toSeconds(lastUpdateMillis - measurementStartMillis) + "s");
     }
 
     PerformanceStats createPerformanceStats() {
-        return new PerformanceStats(
+        return createPerformanceStats(false);
+    }
+
+    /**
+     * Creates the PerformanceStats of the last interval.
+     *
+     * @param includeLatencyHistogram true if the latency histograms of the interval should be merged into the stats, so
+     *                                the coordinator can build a live report.
+     * @return the created PerformanceStats.
+     */
+    PerformanceStats createPerformanceStats(boolean includeLatencyHistogram) {
+        PerformanceStats performanceStats = new PerformanceStats(
                 totalOperationCount,
                 intervalThroughput,
                 totalThroughput,
                 intervalLatencyAvgNanos,
                 intervalLatency999PercentileNanos,
-                intervalLatencyMaxNanos);
+                intervalLatencyMaxNanos,
+                intervalScheduleLagMaxNanos,
+                missedSlotCount,
+                errorCount,
+                timeoutCount,
+                intervalErrorThroughput,
+                intervalTimeoutThroughput);
+        if (intervalSlowestMember != null) {
+            performanceStats.setIntervalSlowestMember(intervalSlowestMember, intervalSlowestMemberLatency999PercentileNanos);
+        }
+        if (includeLatencyHistogram) {
+            Histogram latencyHistogram = mergeIntervalLatencyHistograms();
+            if (latencyHistogram != null) {
+                performanceStats.setIntervalLatencyHistogram(latencyHistogram);
+            }
+        }
+        return performanceStats;
     }
 
-    HistogramLogWriter createHistogramLogWriter(String probeName) {
+    private Histogram mergeIntervalLatencyHistograms() {
+        if (intervalHistogramMap == null) {
+            return null;
+        }
+
+        Histogram merged = null;
+        for (String probeName : testContext.getLatencyProbes().keySet()) {
+            Histogram histogram = intervalHistogramMap.get(probeName);
+            if (histogram == null) {
+                continue;
+            }
+
+            if (merged == null) {
+                merged = new Histogram(
+                        histogram.getLowestDiscernibleValue(),
+                        histogram.getHighestTrackableValue(),
+                        histogram.getNumberOfSignificantValueDigits());
+            }
+            merged.add(histogram);
+        }
+        if (merged != null) {
+            // the coordinator puts the histograms of the workers in buckets based on the interval they describe
+            merged.setStartTimeStamp(intervalStartMillis);
+            merged.setEndTimeStamp(intervalEndMillis);
+        }
+        return merged;
+    }
+
+    HistogramLogWriter createHistogramLogWriter(String probeName, String kind) {
         String testId = testContainer.getTestCase().getId();
         try {
             File latencyFile = getLatencyFile(testId, probeName);
             HistogramLogWriter histogramLogWriter = new HistogramLogWriter(latencyFile);
             histogramLogWriter.setBaseTime(testContainer.getRunStartedMillis());
             histogramLogWriter.outputStartTime(testContainer.getRunStartedMillis());
-            histogramLogWriter.outputComment("[Latency histograms for " + testId + '.' + probeName + ']');
+            histogramLogWriter.outputComment("[" + kind + " histograms for " + testId + '.' + probeName + ']');
             histogramLogWriter.outputLogFormatVersion();
             histogramLogWriter.outputLegend();
+            if (measurementStartMillis > 0 && !measurementStartPending) {
+                histogramLogWriter.outputComment(startComment(measurementStartMillis));
+            }
             return histogramLogWriter;
         } catch (IOException e) {
             throw new TestException("Could not initialize HistogramLogWriter for test " + testId, e);
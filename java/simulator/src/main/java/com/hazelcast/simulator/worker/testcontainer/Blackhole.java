@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Consumes the results of the timestep methods, so the JIT can't eliminate the code that produces them.
+ * <p>
+ * Works like the Blackhole of JMH: every consume compares the value to two volatile fields that never hold the same
+ * value, so the store in the branch never happens. Nothing is written to shared memory and primitives are not boxed.
+ * Objects are not retained: only a sample of them is kept using a weak reference, with a sampling rate that drops
+ * after every sample.
+ * <p>
+ * A Blackhole is not thread-safe; every timestep thread creates its own.
+ */
+public final class Blackhole {
+
+    // the pairs are volatile so the JIT can't predict them, and they are never equal.
+    private volatile boolean b1;
+    private volatile boolean b2 = true;
+    private volatile int i1 = 1;
+    private volatile int i2 = 2;
+    private volatile long l1 = 1;
+    private volatile long l2 = 2;
+    private volatile float f1 = 1;
+    private volatile float f2 = 2;
+    private volatile double d1 = 1;
+    private volatile double d2 = 2;
+
+    private int tlr = (int) System.nanoTime();
+    private int tlrMask = 1;
+    private Object bait;
+
+    public void consume(boolean value) {
+        if (value == b1 & value == b2) {
+            bait = value;
+        }
+    }
+
+    public void consume(int value) {
+        if (value == i1 & value == i2) {
+            bait = value;
+        }
+    }
+
+    public void consume(long value) {
+        if (value == l1 & value == l2) {
+            bait = value;
+        }
+    }
+
+    public void consume(float value) {
+        if (value == f1 & value == f2) {
+            bait = value;
+        }
+    }
+
+    public void consume(double value) {
+        if (value == d1 & value == d2) {
+            bait = value;
+        }
+    }
+
+    public void consume(Object value) {
+        // a cheap linear congruential generator decides when to sample the object
+        int tlr = this.tlr * 1664525 + 1013904223;
+        this.tlr = tlr;
+        if ((tlr & tlrMask) == 0) {
+            bait = new WeakReference<>(value);
+            tlrMask = (tlrMask << 1) + 1;
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
 import com.hazelcast.simulator.worker.metronome.Metronome;
+import com.hazelcast.simulator.worker.metronome.SharedRateMetronome;
 import com.hazelcast.simulator.worker.metronome.SleepingMetronome;
 
 import java.lang.reflect.Constructor;
@@ -58,8 +59,14 @@ public class MetronomeSupplier implements Supplier<Metronome> {
         Class<SleepingMetronome> configuredMetronomeClass = binding.loadAsClass(
                 toPropertyName(executionGroup, "metronomeClass"), SleepingMetronome.class);
 
+        // with a shared rate, the test draws from the rate budget of the worker; also when it has no rate of its own.
+        boolean sharedRate = binding.loadAsDouble(toPropertyName(executionGroup, "sharedRatePerSecond"), 0) > 0;
+
         this.intervalNanos = intervalNanos;
-        if (intervalNanos == 0) {
+        if (sharedRate) {
+            this.metronomeClass = SharedRateMetronome.class;
+            this.masterMetronome = new SharedRateMetronome(intervalNanos, threadCount, binding, executionGroup);
+        } else if (intervalNanos == 0) {
             this.metronomeClass = EmptyMetronome.class;
             this.masterMetronome = EmptyMetronome.INSTANCE;
         } else {
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.probes.impl.OutcomeProbe.Outcome;
+import com.hazelcast.simulator.test.StopException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Classifies the exceptions thrown by timestep methods as an error or a timeout, see
+ * {@link PropertyBinding#errorExceptions} and {@link PropertyBinding#timeoutExceptions}.
+ * <p>
+ * An exception matches a configured exception type if the exception or one of its causes is an instance of that type,
+ * so exceptions that are wrapped, e.g. by a {@link java.util.concurrent.CompletionException}, are classified as well.
+ * Timeouts take precedence over errors.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class OutcomeClassifier {
+
+    private final Class<?>[] errorTypes;
+    private final Class<?>[] timeoutTypes;
+
+    OutcomeClassifier(Class<?>[] errorTypes, Class<?>[] timeoutTypes) {
+        this.errorTypes = errorTypes;
+        this.timeoutTypes = timeoutTypes;
+    }
+
+    /**
+     * Creates an OutcomeClassifier.
+     *
+     * @param errorExceptions   comma separated class names of the exceptions that are errors, or null.
+     * @param timeoutExceptions comma separated class names of the exceptions that are timeouts, or null.
+     * @return the created OutcomeClassifier, or null if no exceptions are configured.
+     * @throws IllegalTestException if a class can't be found or isn't a Throwable.
+     */
+    static OutcomeClassifier create(String errorExceptions, String timeoutExceptions) {
+        Class<?>[] errorTypes = loadTypes("errorExceptions", errorExceptions);
+        Class<?>[] timeoutTypes = loadTypes("timeoutExceptions", timeoutExceptions);
+        if (errorTypes.length == 0 && timeoutTypes.length == 0) {
+            return null;
+        }
+        return new OutcomeClassifier(errorTypes, timeoutTypes);
+    }
+
+    private static Class<?>[] loadTypes(String property, String classNames) {
+        List<Class<?>> types = new ArrayList<>();
+        if (classNames != null) {
+            for (String className : classNames.split(",")) {
+                className = className.trim();
+                if (className.isEmpty()) {
+                    continue;
+                }
+
+                Class<?> type;
+                try {
+                    type = Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalTestException(format("%s: class [%s] not found", property, className));
+                }
+                if (!Throwable.class.isAssignableFrom(type)) {
+                    throw new IllegalTestException(format("%s: class [%s] is not a Throwable", property, className));
+                }
+                types.add(type);
+            }
+        }
+        return types.toArray(new Class<?>[0]);
+    }
+
+    /**
+     * Classifies an exception thrown by a timestep method.
+     *
+     * @param throwable the exception.
+     * @return the outcome, or null if the exception isn't an expected error or timeout; so it should fail the test.
+     */
+    public Outcome classify(Throwable throwable) {
+        if (throwable instanceof StopException) {
+            return null;
+        }
+        if (matches(throwable, timeoutTypes)) {
+            return Outcome.TIMEOUT;
+        }
+        if (matches(throwable, errorTypes)) {
+            return Outcome.ERROR;
+        }
+        return null;
+    }
+
+    private static boolean matches(Throwable throwable, Class<?>[] types) {
+        for (Throwable t = throwable; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            for (Class<?> type : types) {
+                if (type.isInstance(t)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.probes.impl.PauseProbe;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.Closeable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.simulator.probes.impl.PauseProbe.Pause.GC;
+import static com.hazelcast.simulator.probes.impl.PauseProbe.Pause.SAFEPOINT;
+import static com.hazelcast.simulator.probes.impl.PauseProbe.Pause.TIME_TO_SAFEPOINT;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Tracks the pauses of the JVM of the worker during the run phase and records them in a {@link PauseProbe}.
+ * <p>
+ * The gc pauses come from the notifications of the {@link GarbageCollectorMXBean}s. The collectors that run
+ * concurrently with the application, like the 'G1 Concurrent GC' or the 'ZGC Cycles', are skipped since their
+ * duration isn't a pause. The safepoints come from the JFR safepoint events of an in-process recording stream. JFR
+ * delivers its events about once a second, so a safepoint can be recorded an interval after it happened.
+ * <p>
+ * Unlike the {@link JitterThread}, which only sees the pauses of a spinning thread, the tracker knows the cause of a
+ * pause.
+ */
+public class PauseTracker implements Closeable {
+
+    static final String SAFEPOINT_BEGIN_EVENT = "jdk.SafepointBegin";
+    static final String SAFEPOINT_END_EVENT = "jdk.SafepointEnd";
+
+    private static final Logger LOGGER = LogManager.getLogger(PauseTracker.class);
+    private static final int MAX_PENDING_SAFEPOINTS = 1000;
+
+    private final PauseProbe probe;
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener gcListener = this::onGcNotification;
+    // the start of the safepoints by their id; only accessed by the thread of the recording stream
+    private final Map<Long, Instant> pendingSafepoints = new HashMap<>();
+    private RecordingStream recordingStream;
+
+    public PauseTracker(PauseProbe probe) {
+        this.probe = probe;
+    }
+
+    public void start() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter emitter && !isConcurrent(bean.getName())) {
+                emitter.addNotificationListener(gcListener, null, null);
+                emitters.add(emitter);
+            }
+        }
+
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(SAFEPOINT_BEGIN_EVENT).withThreshold(Duration.ZERO);
+            recordingStream.enable(SAFEPOINT_END_EVENT).withThreshold(Duration.ZERO);
+            recordingStream.onEvent(SAFEPOINT_BEGIN_EVENT, this::onSafepointBegin);
+            recordingStream.onEvent(SAFEPOINT_END_EVENT, this::onSafepointEnd);
+            recordingStream.startAsync();
+        } catch (Exception e) {
+            // e.g. when JFR is disabled for the JVM; the gc pauses are still tracked
+            LOGGER.warn("Failed to track the safepoints using JFR", e);
+            recordingStream = null;
+        }
+    }
+
+    static boolean isConcurrent(String collectorName) {
+        return collectorName.contains("Concurrent") || collectorName.contains("Cycles");
+    }
+
+    private void onGcNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                (CompositeData) notification.getUserData());
+        probe.record(GC, MILLISECONDS.toNanos(info.getGcInfo().getDuration()));
+    }
+
+    private void onSafepointBegin(RecordedEvent event) {
+        if (pendingSafepoints.size() >= MAX_PENDING_SAFEPOINTS) {
+            // the end events got lost
+            pendingSafepoints.clear();
+        }
+        pendingSafepoints.put(event.getLong("safepointId"), event.getStartTime());
+        probe.record(TIME_TO_SAFEPOINT, event.getDuration().toNanos());
+    }
+
+    private void onSafepointEnd(RecordedEvent event) {
+        Instant start = pendingSafepoints.remove(event.getLong("safepointId"));
+        if (start != null) {
+            probe.record(SAFEPOINT, Duration.between(start, event.getEndTime()).toNanos());
+        }
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException e) {
+                LOGGER.debug(e);
+            }
+        }
+        emitters.clear();
+
+        if (recordingStream != null) {
+            recordingStream.close();
+            recordingStream = null;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.utils.BashCommand;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Profiles the worker during a window of the run phase, so that profiles are taken at the same moment of every run and
+ * can be compared between runs.
+ * <p>
+ * The profile is written to the worker directory and named after the test id; so it is downloaded with the other
+ * artifacts of the worker.
+ */
+public class ProfilerThread extends Thread {
+
+    /**
+     * The available profilers.
+     */
+    public enum Profiler {
+        /**
+         * No profiling.
+         */
+        NONE,
+        /**
+         * The Java Flight Recorder. The settings are the name of a JFR configuration, e.g. 'default' or 'profile', or
+         * the path to a .jfc file.
+         */
+        JFR,
+        /**
+         * The async-profiler. The settings are passed to 'asprof start'. The asprof executable is looked up in
+         * ASYNC_PROFILER_HOME/bin or else on the PATH.
+         */
+        ASYNC
+    }
+
+    static final String DEFAULT_JFR_SETTINGS = "profile";
+    static final String DEFAULT_ASYNC_SETTINGS = "-e cpu";
+
+    private static final Logger LOGGER = LogManager.getLogger(ProfilerThread.class);
+
+    private final String testId;
+    private final Profiler profiler;
+    private final String settings;
+    private final long startDelayMillis;
+    private final long durationMillis;
+    private Recording recording;
+
+    /**
+     * Creates a ProfilerThread.
+     *
+     * @param testId          the id of the test.
+     * @param profiler        the profiler to use.
+     * @param settings        the profiler specific settings, or null to use the defaults.
+     * @param startSeconds    the offset in seconds from the start of the run phase when profiling begins.
+     * @param durationSeconds the duration of the profiling in seconds; 0 means profiling until the end of the run phase.
+     */
+    public ProfilerThread(String testId, Profiler profiler, String settings, int startSeconds, int durationSeconds) {
+        super("ProfilerThread-" + testId);
+        setDaemon(true);
+        this.testId = testId;
+        this.profiler = profiler;
+        this.settings = settings != null ? settings : profiler == Profiler.JFR ? DEFAULT_JFR_SETTINGS : DEFAULT_ASYNC_SETTINGS;
+        this.startDelayMillis = SECONDS.toMillis(startSeconds);
+        this.durationMillis = durationSeconds == 0 ? Long.MAX_VALUE : SECONDS.toMillis(durationSeconds);
+    }
+
+    /**
+     * Ends the profiling if it is still running and waits for the profile to be written.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void shutdown() throws InterruptedException {
+        interrupt();
+        join();
+    }
+
+    File getProfileFile() {
+        String extension = profiler == Profiler.JFR ? ".jfr" : ".async-profiler.html";
+        return new File(getUserDir(), testId + extension);
+    }
+
+    @Override
+    public void run() {
+        try {
+            Thread.sleep(startDelayMillis);
+        } catch (InterruptedException e) {
+            LOGGER.info("Run phase of " + testId + " completed before the profiling started");
+            return;
+        }
+
+        try {
+            startProfiling();
+        } catch (Exception e) {
+            LOGGER.warn("Failed to start " + profiler + " profiling of " + testId, e);
+            return;
+        }
+        LOGGER.info("Started " + profiler + " profiling of " + testId + " with settings [" + settings + "]");
+
+        try {
+            Thread.sleep(durationMillis);
+        } catch (InterruptedException e) {
+            LOGGER.info("Run phase of " + testId + " completed, ending the profiling");
+        }
+
+        File file = getProfileFile();
+        try {
+            stopProfiling(file);
+            LOGGER.info("Written " + profiler + " profile of " + testId + " to " + file.getAbsolutePath());
+        } catch (Exception e) {
+            LOGGER.warn("Failed to stop " + profiler + " profiling of " + testId, e);
+        }
+    }
+
+    private void startProfiling() throws Exception {
+        switch (profiler) {
+            case JFR:
+                Configuration configuration = settings.endsWith(".jfc")
+                        ? Configuration.create(Paths.get(settings))
+                        : Configuration.getConfiguration(settings);
+                recording = new Recording(configuration);
+                recording.setName(testId);
+                recording.start();
+                break;
+            case ASYNC:
+                asprof("start " + settings);
+                break;
+            default:
+                throw new IllegalStateException("Unhandled profiler: " + profiler);
+        }
+    }
+
+    private void stopProfiling(File file) throws Exception {
+        switch (profiler) {
+            case JFR:
+                try {
+                    recording.stop();
+                    recording.dump(file.toPath());
+                } finally {
+                    recording.close();
+                }
+                break;
+            case ASYNC:
+                asprof("stop -f " + file.getAbsolutePath());
+                break;
+            default:
+                throw new IllegalStateException("Unhandled profiler: " + profiler);
+        }
+    }
+
+    private static void asprof(String args) {
+        long pid = ProcessHandle.current().pid();
+        new BashCommand("${ASYNC_PROFILER_HOME:+$ASYNC_PROFILER_HOME/bin/}asprof " + args + " " + pid)
+                .setThrowsExceptionOnError(true)
+                .execute();
+    }
+}
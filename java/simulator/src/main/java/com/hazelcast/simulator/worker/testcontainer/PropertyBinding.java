@@ -52,6 +52,10 @@ public class PropertyBinding {
 
     static final int DEFAULT_THREAD_COUNT = 10;
     static final int DEFAULT_RECORD_JITTER_THRESHOLD_NS = 1000;
+    static final int DEFAULT_STEADY_STATE_WINDOW = 5;
+    static final double DEFAULT_STEADY_STATE_MAX_THROUGHPUT_CV = 0.05;
+    static final double DEFAULT_STEADY_STATE_MAX_LATENCY_CV = 0.25;
+    static final double DEFAULT_RESOURCE_USAGE_SAMPLE_RATE = 0.01;
 
     // if we want to measure latency. Normally this is always true; but in its current setting, hdr can cause contention
     // and I want a switch that turns of hdr recording. Perhaps that with some tuning this isn't needed.
@@ -60,6 +64,39 @@ public class PropertyBinding {
     public boolean recordJitter;
     // configures the minimum value for the jitter sample to be recorded.
     public int recordJitterThresholdNs = DEFAULT_RECORD_JITTER_THRESHOLD_NS;
+    // flag to enable recording the gc and safepoint pauses of the worker JVM.
+    public boolean recordPauses;
+    // flag to enable the automatic detection of the measurement window. When disabled, only the first interval is
+    // considered to be warmup.
+    public boolean detectSteadyState;
+    // the number of consecutive intervals that need to be stable before the steady state is reached.
+    public int steadyStateWindow = DEFAULT_STEADY_STATE_WINDOW;
+    // the maximum coefficient of variation of the interval throughput within the steady state window.
+    public double steadyStateMaxThroughputCv = DEFAULT_STEADY_STATE_MAX_THROUGHPUT_CV;
+    // the maximum coefficient of variation of the interval p99 latency within the steady state window.
+    public double steadyStateMaxLatencyCv = DEFAULT_STEADY_STATE_MAX_LATENCY_CV;
+    // flag to enable recording the allocated bytes and CPU time per timestep call.
+    public boolean recordResourceUsage;
+    // the fraction of the timestep calls for which the resource usage is recorded.
+    public double resourceUsageSampleRate = DEFAULT_RESOURCE_USAGE_SAMPLE_RATE;
+    // the profiler to run during the run phase.
+    public ProfilerThread.Profiler profiler = ProfilerThread.Profiler.NONE;
+    // the profiler specific settings; if not set, the defaults of the profiler are used.
+    public String profilerSettings;
+    // the offset in seconds from the start of the run phase when the profiler is started.
+    public int profilerStartSeconds;
+    // the number of seconds the profiler runs; 0 means until the end of the run phase.
+    public int profilerDurationSeconds;
+    // flag to enable recording a trace of the operations of every timestep thread.
+    public boolean recordTrace;
+    // the directory containing the traces to replay instead of running the generated timestep loops.
+    public String replayTrace;
+    // the speed of the replay relative to the recording; e.g. 2 replays the trace twice as fast.
+    public double replaySpeed = 1;
+    // comma separated class names of exceptions that are counted as errors instead of failing the test.
+    public String errorExceptions;
+    // comma separated class names of exceptions that are counted as timeouts instead of failing the test.
+    public String timeoutExceptions;
 
     // this can be removed as soon as the @InjectMetronome/worker functionality is dropped
     private MetronomeSupplier workerMetronomeConstructor;
@@ -75,6 +112,11 @@ public class PropertyBinding {
         unusedProperties.remove("class");
         unusedProperties.remove("rampupSeconds");
         unusedProperties.remove("id");
+        // the faults are injected by the coordinator
+        unusedProperties.remove("faults");
+        unusedProperties.remove("faultTarget");
+        // the proxies are shaped by the coordinator
+        unusedProperties.remove("proxyShaping");
 
         bind(this);
 
@@ -82,6 +124,34 @@ public class PropertyBinding {
             throw new IllegalTestException("recordJitterThresholdNs can't be smaller than 0");
         }
 
+        if (steadyStateWindow < 1) {
+            throw new IllegalTestException("steadyStateWindow can't be smaller than 1");
+        }
+
+        if (resourceUsageSampleRate <= 0 || resourceUsageSampleRate > 1) {
+            throw new IllegalTestException("resourceUsageSampleRate should be larger than 0 and not larger than 1");
+        }
+
+        if (profiler == null) {
+            throw new IllegalTestException("profiler can't be null");
+        }
+
+        if (profilerStartSeconds < 0) {
+            throw new IllegalTestException("profilerStartSeconds can't be smaller than 0");
+        }
+
+        if (profilerDurationSeconds < 0) {
+            throw new IllegalTestException("profilerDurationSeconds can't be smaller than 0");
+        }
+
+        if (recordTrace && replayTrace != null) {
+            throw new IllegalTestException("recordTrace and replayTrace can't be combined");
+        }
+
+        if (replaySpeed <= 0) {
+            throw new IllegalTestException("replaySpeed should be larger than 0");
+        }
+
         this.workerMetronomeConstructor = new MetronomeSupplier(
                 "", this, loadAsInt("threadCount", DEFAULT_THREAD_COUNT));
         this.probeClass = loadProbeClass();
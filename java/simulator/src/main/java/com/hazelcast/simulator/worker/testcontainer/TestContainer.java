@@ -223,7 +223,32 @@ public class TestContainer {
                     LatencyProbe probe = testContext.getLatencyProbe("jitter", false);
                     new JitterThread(testContext, probe, propertyBinding.recordJitterThresholdNs).start();
                 }
-                runner.run();
+
+                PauseTracker pauseTracker = null;
+                if (propertyBinding.recordPauses) {
+                    pauseTracker = new PauseTracker(testContext.getPauseProbe("pause"));
+                    pauseTracker.start();
+                }
+
+                ProfilerThread profilerThread = null;
+                if (propertyBinding.profiler != ProfilerThread.Profiler.NONE) {
+                    profilerThread = new ProfilerThread(testCase.getId(), propertyBinding.profiler,
+                            propertyBinding.profilerSettings, propertyBinding.profilerStartSeconds,
+                            propertyBinding.profilerDurationSeconds);
+                    profilerThread.start();
+                }
+
+                try {
+                    runner.run();
+                } finally {
+                    if (profilerThread != null) {
+                        profilerThread.shutdown();
+                    }
+                    if (pauseTracker != null) {
+                        pauseTracker.close();
+                    }
+                    testOperationsTracker.closeMeasurementWindow();
+                }
                 return null;
             });
 
@@ -18,31 +18,81 @@ package com.hazelcast.simulator.worker.testcontainer;
 import com.hazelcast.simulator.probes.LatencyProbe;
 import com.hazelcast.simulator.probes.impl.NoopLatencyProbe;
 import com.hazelcast.simulator.probes.impl.HdrLatencyProbe;
+import com.hazelcast.simulator.probes.impl.OutcomeProbe;
+import com.hazelcast.simulator.probes.impl.PauseProbe;
+import com.hazelcast.simulator.probes.impl.ResourceUsageProbe;
+import com.hazelcast.simulator.probes.impl.ScheduleLagProbe;
 import com.hazelcast.simulator.protocol.Server;
 import com.hazelcast.simulator.protocol.message.LogMessage;
 import com.hazelcast.simulator.test.TestContext;
+import com.hazelcast.simulator.worker.GlobalClock;
+import com.hazelcast.simulator.worker.metronome.RateGovernors;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
 
 import static java.lang.String.format;
 
 public class TestContextImpl implements TestContext {
 
+    /**
+     * Separates the name of the probe and the member in the name of a member latency probe.
+     */
+    public static final char MEMBER_SEPARATOR = '@';
+
     private final String testId;
     private final String publicIpAddress;
     private final Server server;
+    private final GlobalClock globalClock;
+    private final RateGovernors rateGovernors;
     private final ConcurrentMap<String, LatencyProbe> latencyProbes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyProbe> memberLatencyProbes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ResourceUsageProbe> resourceUsageProbes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ScheduleLagProbe> scheduleLagProbes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, OutcomeProbe> outcomeProbes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PauseProbe> pauseProbes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DoubleSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final List<Runnable> intervalListeners = new CopyOnWriteArrayList<>();
     private volatile boolean stopped;
     private Class latencyProbeClass;
 
     public TestContextImpl(String testId,
                            String publicIpAddress,
                            Server server) {
+        this(testId, publicIpAddress, server, new GlobalClock());
+    }
+
+    public TestContextImpl(String testId,
+                           String publicIpAddress,
+                           Server server,
+                           GlobalClock globalClock) {
+        this(testId, publicIpAddress, server, globalClock, new RateGovernors());
+    }
+
+    public TestContextImpl(String testId,
+                           String publicIpAddress,
+                           Server server,
+                           GlobalClock globalClock,
+                           RateGovernors rateGovernors) {
         this.testId = testId;
         this.publicIpAddress = publicIpAddress;
         this.server = server;
+        this.globalClock = globalClock;
+        this.rateGovernors = rateGovernors;
+    }
+
+    /**
+     * Returns the rate budgets of the worker, shared with the other tests running in the worker.
+     *
+     * @return the rate governors.
+     */
+    public RateGovernors getRateGovernors() {
+        return rateGovernors;
     }
 
     public void setLatencyProbeClass(Class latencyProbeClass) {
@@ -73,6 +123,114 @@ public class TestContextImpl implements TestContext {
         return probe;
     }
 
+    /**
+     * Returns the member latency probes by their '&lt;probe&gt;@&lt;member&gt;' name.
+     *
+     * @return the member latency probes
+     */
+    public Map<String, LatencyProbe> getMemberLatencyProbes() {
+        return memberLatencyProbes;
+    }
+
+    @Override
+    public LatencyProbe getMemberLatencyProbe(String probeName, String member) {
+        if (probeName == null) {
+            throw new NullPointerException("probeName can't be null");
+        }
+        if (member == null) {
+            throw new NullPointerException("member can't be null");
+        }
+
+        if (latencyProbeClass == null) {
+            return NoopLatencyProbe.INSTANCE;
+        }
+
+        return memberLatencyProbes.computeIfAbsent(probeName + MEMBER_SEPARATOR + member,
+                name -> new HdrLatencyProbe(name, false));
+    }
+
+    public Map<String, ResourceUsageProbe> getResourceUsageProbes() {
+        return resourceUsageProbes;
+    }
+
+    public ResourceUsageProbe getResourceUsageProbe(String probeName) {
+        if (probeName == null) {
+            throw new RuntimeException("probeName can't be null");
+        }
+
+        return resourceUsageProbes.computeIfAbsent(probeName, ResourceUsageProbe::new);
+    }
+
+    public Map<String, ScheduleLagProbe> getScheduleLagProbes() {
+        return scheduleLagProbes;
+    }
+
+    public ScheduleLagProbe getScheduleLagProbe(String probeName, long slotNanos) {
+        if (probeName == null) {
+            throw new RuntimeException("probeName can't be null");
+        }
+
+        return scheduleLagProbes.computeIfAbsent(probeName, name -> new ScheduleLagProbe(name, slotNanos));
+    }
+
+    public Map<String, OutcomeProbe> getOutcomeProbes() {
+        return outcomeProbes;
+    }
+
+    public OutcomeProbe getOutcomeProbe(String probeName) {
+        if (probeName == null) {
+            throw new RuntimeException("probeName can't be null");
+        }
+
+        return outcomeProbes.computeIfAbsent(probeName, OutcomeProbe::new);
+    }
+
+    public Map<String, PauseProbe> getPauseProbes() {
+        return pauseProbes;
+    }
+
+    public PauseProbe getPauseProbe(String probeName) {
+        if (probeName == null) {
+            throw new RuntimeException("probeName can't be null");
+        }
+
+        return pauseProbes.computeIfAbsent(probeName, PauseProbe::new);
+    }
+
+    /**
+     * Returns the registered gauges sorted by name.
+     *
+     * @return the gauges
+     */
+    public Map<String, DoubleSupplier> getGauges() {
+        return gauges;
+    }
+
+    @Override
+    public void registerGauge(String name, DoubleSupplier gauge) {
+        if (name == null) {
+            throw new NullPointerException("name can't be null");
+        }
+        if (gauge == null) {
+            throw new NullPointerException("gauge can't be null");
+        }
+
+        gauges.put(name, gauge);
+    }
+
+    public List<Runnable> getIntervalListeners() {
+        return intervalListeners;
+    }
+
+    @Override
+    public void registerIntervalListener(Runnable listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener can't be null");
+        }
+
+        intervalListeners.add(listener);
+    }
+
     @Override
     public String getTestId() {
         return testId;
@@ -93,6 +251,16 @@ public class TestContextImpl implements TestContext {
         stopped = true;
     }
 
+    @Override
+    public long globalNanoTime() {
+        return globalClock.nanoTime();
+    }
+
+    @Override
+    public long globalNanoTimeErrorBound() {
+        return globalClock.errorBoundNanos();
+    }
+
     @Override
     public void echoCoordinator(String msg, Object... args) {
         String message = format(msg, args);
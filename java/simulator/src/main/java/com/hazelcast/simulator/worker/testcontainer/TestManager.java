@@ -21,6 +21,8 @@ import com.hazelcast.simulator.protocol.Promise;
 import com.hazelcast.simulator.protocol.Server;
 import com.hazelcast.simulator.utils.ExceptionReporter;
 import com.hazelcast.simulator.drivers.Driver;
+import com.hazelcast.simulator.worker.GlobalClock;
+import com.hazelcast.simulator.worker.metronome.RateGovernors;
 import com.hazelcast.simulator.worker.messages.CreateTestMessage;
 import com.hazelcast.simulator.worker.messages.StartPhaseMessage;
 import com.hazelcast.simulator.worker.messages.StopRunMessage;
@@ -48,10 +50,17 @@ public class TestManager {
     private final ConcurrentMap<String, TestContainer> tests = new ConcurrentHashMap<>();
     private final Server server;
     private final Driver driver;
+    private final GlobalClock globalClock;
+    private final RateGovernors rateGovernors = new RateGovernors();
 
     public TestManager(Server server, Driver driver) {
+        this(server, driver, new GlobalClock());
+    }
+
+    public TestManager(Server server, Driver driver, GlobalClock globalClock) {
         this.server = server;
         this.driver = driver;
+        this.globalClock = globalClock;
     }
 
     public Collection<TestContainer> getContainers() {
@@ -72,9 +81,14 @@ public class TestManager {
 
         LOGGER.info(format("%s Initializing test %s %s%n%s", DASHES, testId, DASHES, testCase));
 
-        TestContextImpl testContext = new TestContextImpl(testId, null, server);
+        TestContextImpl testContext = new TestContextImpl(testId, null, server, globalClock, rateGovernors);
 
-        testContainer = new TestContainer(testContext, testCase, driver.getDriverInstance());
+        try {
+            testContainer = new TestContainer(testContext, testCase, driver.getDriverInstance());
+        } catch (RuntimeException e) {
+            rateGovernors.release(testId);
+            throw e;
+        }
 
         tests.put(testId, testContainer);
     }
@@ -135,6 +149,7 @@ public class TestManager {
             } finally {
                 if (testPhase == getLastTestPhase()) {
                     tests.remove(testId);
+                    rateGovernors.release(testId);
                 }
             }
         }
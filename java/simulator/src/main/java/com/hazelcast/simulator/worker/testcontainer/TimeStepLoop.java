@@ -17,7 +17,12 @@ package com.hazelcast.simulator.worker.testcontainer;
 
 
 import com.hazelcast.simulator.probes.LatencyProbe;
+import com.hazelcast.simulator.probes.impl.OutcomeProbe;
+import com.hazelcast.simulator.probes.impl.ResourceUsageProbe;
+import com.hazelcast.simulator.probes.impl.ScheduleLagProbe;
+import com.hazelcast.simulator.test.BaseThreadState;
 import com.hazelcast.simulator.test.StopException;
+import com.hazelcast.simulator.utils.ScriptException;
 import com.hazelcast.simulator.worker.metronome.Metronome;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -27,12 +32,10 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static com.hazelcast.simulator.utils.CommonUtils.rethrow;
+import static com.hazelcast.simulator.utils.NativeUtils.setThreadAffinity;
 import static java.lang.String.format;
 
 /**
@@ -53,14 +56,17 @@ public abstract class TimeStepLoop implements Runnable {
     protected final TimeStepModel timeStepModel;
     protected final byte[] timeStepProbabilities;
     protected final Map<String, LatencyProbe> probeMap = new HashMap<>();
+    protected final Map<String, ResourceUsageProbe.Sampler> samplerMap = new HashMap<>();
+    protected final Map<String, OutcomeProbe> outcomeProbeMap = new HashMap<>();
     protected long maxIterations;
     protected long delayMillis;
-
-    // There are used to prevent dead code optimization
-    protected final AtomicReference atomicReference = new AtomicReference();
-    protected final AtomicBoolean atomicBoolean = new AtomicBoolean();
-    protected final AtomicInteger atomicInteger = new AtomicInteger();
-    protected final AtomicLong atomicLong = new AtomicLong();
+    protected TraceRecorder traceRecorder;
+    // records how far the thread falls behind the metronome; only set when there is a metronome
+    protected ScheduleLagProbe scheduleLagProbe;
+    // the cpus the thread is bound to, or null if the OS decides
+    protected int[] affinity;
+    // classifies the exceptions of the timestep methods; only set when errorExceptions or timeoutExceptions are configured
+    protected OutcomeClassifier outcomeClassifier;
 
     public TimeStepLoop(Object testInstance, TimeStepModel timeStepModel, String executionGroup) {
         this.testInstance = testInstance;
@@ -80,7 +86,30 @@ public abstract class TimeStepLoop implements Runnable {
             if (probe != null) {
                 probeMap.put(method.getName(), probe);
             }
+
+            if (binding.recordResourceUsage) {
+                ResourceUsageProbe resourceUsageProbe = testContext.getResourceUsageProbe(method.getName());
+                samplerMap.put(method.getName(), resourceUsageProbe.newSampler(binding.resourceUsageSampleRate));
+            }
+
+            if (outcomeClassifier != null) {
+                outcomeProbeMap.put(method.getName(), testContext.getOutcomeProbe(method.getName()));
+            }
+        }
+    }
+
+    /**
+     * Seeds the random of the thread state, so the test draws the same random values on every run.
+     *
+     * @param seed the seed.
+     * @return true if the thread state was seeded, false if the thread state isn't a {@link BaseThreadState}.
+     */
+    boolean seedThreadState(long seed) {
+        if (!(threadState instanceof BaseThreadState)) {
+            return false;
         }
+        ((BaseThreadState) threadState).random.setSeed(seed);
+        return true;
     }
 
     public long iteration() {
@@ -100,6 +129,10 @@ public abstract class TimeStepLoop implements Runnable {
             }
         }
 
+        if (affinity != null) {
+            bindToCpus(threadName);
+        }
+
         logger.info(threadName + " started");
         try {
             beforeRun();
@@ -110,6 +143,10 @@ public abstract class TimeStepLoop implements Runnable {
             } catch (StopException e) {
                 explicitStop = true;
                 logger.info(threadName + " stopped using StopException");
+            } finally {
+                if (traceRecorder != null) {
+                    traceRecorder.close();
+                }
             }
 
             afterRun();
@@ -122,6 +159,15 @@ public abstract class TimeStepLoop implements Runnable {
         }
     }
 
+    private void bindToCpus(String threadName) {
+        try {
+            String cpus = setThreadAffinity(affinity);
+            logger.info(threadName + " bound to cpus [" + cpus + "]");
+        } catch (ScriptException e) {
+            logger.warn(threadName + " failed to bind to cpus: " + e.getMessage());
+        }
+    }
+
     private Object initThreadState() {
         Constructor constructor = timeStepModel.getThreadStateConstructor(executionGroup);
         if (constructor == null) {
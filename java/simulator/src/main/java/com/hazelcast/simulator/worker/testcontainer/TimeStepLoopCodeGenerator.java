@@ -66,7 +66,10 @@ class TimeStepLoopCodeGenerator {
             Class<? extends LatencyProbe> probeClass,
             long logFrequency,
             long logRateMs,
-            boolean hasIterationCap) {
+            boolean hasIterationCap,
+            boolean recordResourceUsage,
+            boolean recordTrace,
+            boolean classifyOutcomes) {
 
         ensureExistingDirectory(targetDirectory);
 
@@ -81,7 +84,8 @@ class TimeStepLoopCodeGenerator {
             className += testCaseId;
         }
         JavaFileObject file = createJavaFileObject(
-                className, executionGroup, metronomeClass, timeStepModel, probeClass, logFrequency, logRateMs, hasIterationCap);
+                className, executionGroup, metronomeClass, timeStepModel, probeClass, logFrequency, logRateMs, hasIterationCap,
+                recordResourceUsage, recordTrace, classifyOutcomes);
         return compile(javaCompiler, file, className);
     }
 
@@ -131,7 +135,10 @@ class TimeStepLoopCodeGenerator {
             Class<? extends LatencyProbe> probeClass,
             long logFrequency,
             long logRateMs,
-            boolean hasIterationCap) {
+            boolean hasIterationCap,
+            boolean recordResourceUsage,
+            boolean recordTrace,
+            boolean classifyOutcomes) {
         try {
             Configuration cfg = new Configuration(Configuration.VERSION_2_3_24);
             cfg.setClassForTemplateLoading(this.getClass(), "/");
@@ -163,6 +170,18 @@ class TimeStepLoopCodeGenerator {
                 root.put("hasIterationCap", "true");
             }
 
+            if (recordResourceUsage) {
+                root.put("recordResourceUsage", "true");
+            }
+
+            if (recordTrace) {
+                root.put("recordTrace", "true");
+            }
+
+            if (classifyOutcomes) {
+                root.put("classifyOutcomes", "true");
+            }
+
             Template temp = cfg.getTemplate("TimeStepLoop.ftl");
             StringWriter out = new StringWriter();
             temp.process(root, out);
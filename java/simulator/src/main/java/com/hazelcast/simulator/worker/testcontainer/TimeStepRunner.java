@@ -16,15 +16,21 @@
 
 package com.hazelcast.simulator.worker.testcontainer;
 
-import com.hazelcast.simulator.test.TestContext;
+import com.hazelcast.simulator.probes.impl.ScheduleLagProbe;
 import com.hazelcast.simulator.utils.ThreadSpawner;
+import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.File;
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
+import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static com.hazelcast.simulator.utils.NativeUtils.parseAffinity;
 import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.MINUTES;
@@ -43,17 +49,21 @@ class TimeStepRunner extends TestRunner {
 
     private static final Logger LOGGER = LogManager.getLogger(TimeStepRunner.class);
 
-    private final TestContext testContext;
+    private final TestContextImpl testContext;
     private final Object testInstance;
     private final TimeStepModel timeStepModel;
     private final PropertyBinding binding;
     private final ThreadSpawner spawner;
+    private final OutcomeClassifier outcomeClassifier;
     private volatile TimeStepLoop[] loops;
     private final Map<String, MetronomeSupplier> metronomeSettingsMap = new HashMap<>();
     private final Map<String, Class> loopClassMap = new HashMap<>();
     private final Map<String, Integer> threadCountMap = new HashMap<>();
+    private final Map<String, int[][]> affinityMap = new HashMap<>();
     private final Map<String, Long> runIterationMap = new HashMap<>();
     private int totalThreadCount;
+    private File[] traceFiles;
+    private TraceWriter traceWriter;
 
     TimeStepRunner(TestContainer testContainer) {
         this.binding = testContainer.getPropertyBinding();
@@ -61,6 +71,7 @@ class TimeStepRunner extends TestRunner {
         this.testInstance = testContainer.getTestInstance();
         this.timeStepModel = new TimeStepModel(testInstance.getClass(), binding);
         this.spawner = new ThreadSpawner(testContext.getTestId());
+        this.outcomeClassifier = OutcomeClassifier.create(binding.errorExceptions, binding.timeoutExceptions);
 
         for (String executionGroup : timeStepModel.getExecutionGroups()) {
             int threadCount = binding.loadAsInt(toPropertyName(executionGroup, "threadCount"), DEFAULT_THREAD_COUNT);
@@ -79,6 +90,8 @@ class TimeStepRunner extends TestRunner {
             long iterations = binding.loadAsLong(toPropertyName(executionGroup, "iterations"), 0);
             runIterationMap.put(executionGroup, iterations);
 
+            loadAffinity(executionGroup, threadCount);
+
             Class loopClass = new TimeStepLoopCodeGenerator().compile(
                     testContainer.getTestCase().getId(),
                     executionGroup,
@@ -87,10 +100,57 @@ class TimeStepRunner extends TestRunner {
                     binding.getProbeClass(),
                     logFrequency,
                     logRateMs,
-                    iterations > 0);
+                    iterations > 0,
+                    binding.recordResourceUsage,
+                    binding.recordTrace,
+                    outcomeClassifier != null);
 
             loopClassMap.put(executionGroup, loopClass);
         }
+
+        if (binding.replayTrace != null) {
+            traceFiles = listTraceFiles(new File(binding.replayTrace));
+            totalThreadCount = traceFiles.length;
+        }
+    }
+
+    /**
+     * Loads the cpus every thread of the execution group is bound to. With a cpu list, every thread gets its own cpu
+     * in a round robin fashion so the placement is the same in every run. With a NUMA node, the threads are bound to
+     * all cpus of the node.
+     */
+    private void loadAffinity(String executionGroup, int threadCount) {
+        String property = toPropertyName(executionGroup, "affinity");
+        String affinity = binding.load(property);
+        if (affinity == null) {
+            return;
+        }
+
+        int[] cpus;
+        try {
+            cpus = parseAffinity(affinity);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalTestException(property + " is invalid: " + e.getMessage());
+        }
+
+        boolean numaNode = affinity.trim().startsWith("node");
+        int[][] threadCpus = new int[threadCount][];
+        for (int threadIndex = 0; threadIndex < threadCount; threadIndex++) {
+            threadCpus[threadIndex] = numaNode ? cpus : new int[]{cpus[threadIndex % cpus.length]};
+        }
+        affinityMap.put(executionGroup, threadCpus);
+
+        LOGGER.info(format("executionGroup [%s] using affinity [%s]", executionGroup, affinity));
+    }
+
+    private static File[] listTraceFiles(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".trace"));
+        if (files == null || files.length == 0) {
+            throw new IllegalTestException("replayTrace directory [" + directory.getAbsolutePath()
+                    + "] doesn't contain any .trace files");
+        }
+        Arrays.sort(files);
+        return files;
     }
 
     @Override
@@ -113,7 +173,11 @@ class TimeStepRunner extends TestRunner {
             if (totalThreadCount <= 0) {
                 return;
             }
-            loops = createTimestepLoops();
+            if (binding.recordTrace) {
+                traceWriter = new TraceWriter(testContext.getTestId());
+                traceWriter.start();
+            }
+            loops = traceFiles == null ? createTimestepLoops() : createReplayLoops();
             onRunStarted();
 
             for (TimeStepLoop loop : loops) {
@@ -127,11 +191,26 @@ class TimeStepRunner extends TestRunner {
             }
 
             spawner.awaitCompletion();
+            logMissedSlots();
         } finally {
+            if (traceWriter != null) {
+                traceWriter.shutdown();
+            }
             onRunCompleted();
         }
     }
 
+    private void logMissedSlots() {
+        for (ScheduleLagProbe probe : testContext.getScheduleLagProbes().values()) {
+            long missedSlots = probe.missedSlotCount();
+            if (missedSlots > 0) {
+                LOGGER.warn(format("%s %s: %d missed slots, the load generator could not keep up with the "
+                        + "configured rate",
+                        testContext.getTestId(), probe.name(), missedSlots));
+            }
+        }
+    }
+
     @Override
     public void stop() {
         super.stop();
@@ -174,8 +253,23 @@ class TimeStepRunner extends TestRunner {
                 runner.testContext = binding.getTestContext();
                 runner.maxIterations = runIterationMap.get(executionGroup);
                 runner.metronome = metronomeSupplier.get();
+                if (metronomeSupplier.getMetronomeClass() != EmptyMetronome.class) {
+                    runner.scheduleLagProbe = testContext.getScheduleLagProbe(scheduleLagProbeName(executionGroup),
+                            metronomeSupplier.getIntervalNanos() * threadCount);
+                }
                 runner.delayMillis = delayMs * threadIndex;
+                if (affinityMap.containsKey(executionGroup)) {
+                    runner.affinity = affinityMap.get(executionGroup)[threadIndex];
+                }
+                runner.outcomeClassifier = outcomeClassifier;
                 runner.bind(binding);
+                if (binding.recordTrace) {
+                    long seed = ThreadLocalRandom.current().nextLong();
+                    boolean seeded = runner.seedThreadState(seed);
+                    File traceFile = new File(getUserDir(), testContext.getTestId() + "-" + k + ".trace");
+                    runner.traceRecorder = new TraceRecorder(traceFile, traceWriter, executionGroup,
+                            timeStepModel.getActiveTimeStepMethods(executionGroup), seeded, seed);
+                }
                 runnables[k] = runner;
                 k++;
             }
@@ -183,4 +277,28 @@ class TimeStepRunner extends TestRunner {
 
         return runnables;
     }
+
+    private static String scheduleLagProbeName(String executionGroup) {
+        return executionGroup.equals("") ? "scheduleLag" : executionGroup + ".scheduleLag";
+    }
+
+    private TimeStepLoop[] createReplayLoops() throws Exception {
+        TimeStepLoop[] runnables = new TimeStepLoop[traceFiles.length];
+        for (int k = 0; k < traceFiles.length; k++) {
+            TraceReader reader = new TraceReader(traceFiles[k]);
+            if (!timeStepModel.getExecutionGroups().contains(reader.getExecutionGroup())) {
+                reader.close();
+                throw new IllegalTestException(format("Trace %s belongs to unknown execution group [%s]",
+                        traceFiles[k], reader.getExecutionGroup()));
+            }
+
+            LOGGER.info(format("Replaying %s at speed %s", traceFiles[k], binding.replaySpeed));
+            TimeStepLoop runner = new TraceReplayLoop(testInstance, timeStepModel, reader, binding.replaySpeed);
+            runner.testContext = binding.getTestContext();
+            runner.outcomeClassifier = outcomeClassifier;
+            runner.bind(binding);
+            runnables[k] = runner;
+        }
+        return runnables;
+    }
 }
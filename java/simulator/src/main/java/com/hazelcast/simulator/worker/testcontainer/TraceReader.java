@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hazelcast.simulator.worker.testcontainer.TraceRecorder.FLAG_KEY;
+import static com.hazelcast.simulator.worker.testcontainer.TraceRecorder.FLAG_VALUE_SIZE;
+import static com.hazelcast.simulator.worker.testcontainer.TraceRecorder.MAGIC;
+import static com.hazelcast.simulator.worker.testcontainer.TraceRecorder.VERSION;
+
+/**
+ * Reads a trace written by the {@link TraceRecorder}.
+ * <p>
+ * The header is read on construction; the records are read one by one using {@link #next()}.
+ */
+public final class TraceReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final DataInputStream in;
+    private final String executionGroup;
+    private final boolean seeded;
+    private final long seed;
+    private final List<String> methodNames;
+
+    private long deltaNanos;
+    private int methodIndex;
+    private boolean hasKey;
+    private long key;
+    private boolean hasValueSize;
+    private int valueSize;
+
+    public TraceReader(File file) throws IOException {
+        this.file = file;
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a trace file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported trace version " + version);
+            }
+            this.executionGroup = in.readUTF();
+            this.seeded = in.readBoolean();
+            this.seed = in.readLong();
+            int methodCount = in.readInt();
+            List<String> names = new ArrayList<>(methodCount);
+            for (int i = 0; i < methodCount; i++) {
+                names.add(in.readUTF());
+            }
+            this.methodNames = Collections.unmodifiableList(names);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getExecutionGroup() {
+        return executionGroup;
+    }
+
+    /**
+     * @return true if the random of the thread state was seeded while recording; so the replay should seed it
+     * with {@link #getSeed()}.
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public List<String> getMethodNames() {
+        return methodNames;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return true if a record was read, false if the end of the trace has been reached.
+     * @throws IOException if the trace could not be read or is truncated.
+     */
+    public boolean next() throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            return false;
+        }
+
+        try {
+            deltaNanos = readVarLong(first);
+            methodIndex = in.readUnsignedByte();
+            int flags = in.readUnsignedByte();
+            hasKey = (flags & FLAG_KEY) != 0;
+            if (hasKey) {
+                long zigzag = readVarLong(in.readUnsignedByte());
+                key = (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            hasValueSize = (flags & FLAG_VALUE_SIZE) != 0;
+            if (hasValueSize) {
+                valueSize = (int) readVarLong(in.readUnsignedByte());
+            }
+        } catch (EOFException e) {
+            throw new IOException(file + " is truncated", e);
+        }
+        return true;
+    }
+
+    /**
+     * @return the nanoseconds between the start of the previous operation and the start of this operation.
+     */
+    public long getDeltaNanos() {
+        return deltaNanos;
+    }
+
+    public int getMethodIndex() {
+        return methodIndex;
+    }
+
+    public boolean hasKey() {
+        return hasKey;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public boolean hasValueSize() {
+        return hasValueSize;
+    }
+
+    public int getValueSize() {
+        return valueSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private long readVarLong(int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while ((b & 0x80) != 0) {
+            if (shift > 63) {
+                throw new IOException(file + " contains a malformed varint");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.test.BaseThreadState;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.simulator.test.BaseThreadState.NO_TRACED_KEY;
+import static com.hazelcast.simulator.test.BaseThreadState.NO_TRACED_VALUE_SIZE;
+import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Records the operations of a single timestep thread in a compact binary trace, so the same sequence of operations
+ * can be replayed by the {@link TraceReplayLoop}.
+ * <p>
+ * The trace starts with a header containing the execution group, the names of the timestep methods and the seed of
+ * the random of the thread state. Every record contains:
+ * <ol>
+ * <li>the nanoseconds since the start of the previous operation as a varint</li>
+ * <li>the index of the timestep method</li>
+ * <li>a flags byte indicating if a key and value size are present</li>
+ * <li>the zigzag encoded key as a varint, if reported with {@link BaseThreadState#traceOperation(long, int)}</li>
+ * <li>the value size as a varint, if reported with {@link BaseThreadState#traceOperation(long, int)}</li>
+ * </ol>
+ * The records are written to a buffer owned by the timestep thread. Full buffers are handed to the {@link TraceWriter},
+ * so the timestep thread doesn't do any I/O.
+ * <p>
+ * This class is not thread-safe; it should only be used by the timestep thread it belongs to.
+ */
+public final class TraceRecorder implements Closeable {
+
+    static final int MAGIC = 0x53494d54;
+    static final int VERSION = 1;
+    static final int FLAG_KEY = 1;
+    static final int FLAG_VALUE_SIZE = 2;
+
+    // delta (max 10 bytes), method index, flags, key (max 10 bytes) and value size (max 5 bytes)
+    private static final int MAX_RECORD_SIZE = 27;
+
+    private static final Logger LOGGER = LogManager.getLogger(TraceRecorder.class);
+
+    private final File file;
+    private final FileChannel channel;
+    private final TraceWriter writer;
+    private final AtomicInteger pendingBuffers = new AtomicInteger();
+    private volatile IOException failure;
+    private ByteBuffer buffer;
+    private long previousNanos;
+    private long recordCount;
+
+    TraceRecorder(File file, TraceWriter writer, String executionGroup, List<Method> methods, boolean seeded, long seed)
+            throws IOException {
+        this.file = file;
+        this.writer = writer;
+        this.channel = FileChannel.open(file.toPath(), CREATE, WRITE, TRUNCATE_EXISTING);
+        this.buffer = writer.takeBuffer();
+        this.previousNanos = System.nanoTime();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(executionGroup);
+        out.writeBoolean(seeded);
+        out.writeLong(seed);
+        out.writeInt(methods.size());
+        for (Method method : methods) {
+            out.writeUTF(method.getName());
+        }
+        out.flush();
+        channel.write(ByteBuffer.wrap(bos.toByteArray()));
+    }
+
+    public void record(long startNanos, int methodIndex) {
+        record(startNanos, methodIndex, null);
+    }
+
+    public void record(long startNanos, int methodIndex, Object threadState) {
+        if (buffer.remaining() < MAX_RECORD_SIZE) {
+            submitBuffer();
+            buffer = writer.takeBuffer();
+        }
+
+        long deltaNanos = startNanos - previousNanos;
+        previousNanos = startNanos;
+        // with a metronome the start time is the intended start time, which is never before the previous one;
+        // but a clock going backwards should not corrupt the trace
+        putVarLong(buffer, deltaNanos < 0 ? 0 : deltaNanos);
+        buffer.put((byte) methodIndex);
+
+        if (threadState instanceof BaseThreadState) {
+            BaseThreadState state = (BaseThreadState) threadState;
+            long key = state.tracedKey();
+            int valueSize = state.tracedValueSize();
+            int flags = (key == NO_TRACED_KEY ? 0 : FLAG_KEY) | (valueSize == NO_TRACED_VALUE_SIZE ? 0 : FLAG_VALUE_SIZE);
+            buffer.put((byte) flags);
+            if (flags != 0) {
+                if (key != NO_TRACED_KEY) {
+                    putVarLong(buffer, (key << 1) ^ (key >> 63));
+                }
+                if (valueSize != NO_TRACED_VALUE_SIZE) {
+                    putVarLong(buffer, valueSize);
+                }
+                state.traceOperation(NO_TRACED_KEY, NO_TRACED_VALUE_SIZE);
+            }
+        } else {
+            buffer.put((byte) 0);
+        }
+        recordCount++;
+    }
+
+    /**
+     * Writes the remaining records and waits till all records of this recorder have been written to disk.
+     *
+     * @throws IOException if the trace could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer.position() > 0) {
+            submitBuffer();
+        } else {
+            writer.releaseBuffer(buffer);
+        }
+        buffer = null;
+
+        try {
+            while (pendingBuffers.get() > 0) {
+                if (!writer.isAlive()) {
+                    throw new IOException(writer.getName() + " stopped before " + file + " was written");
+                }
+                sleepMillis(1);
+            }
+        } finally {
+            channel.close();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        LOGGER.info("Written " + recordCount + " records to trace " + file.getAbsolutePath());
+    }
+
+    // is called by the TraceWriter thread
+    void write(ByteBuffer buffer) {
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            pendingBuffers.decrementAndGet();
+        }
+    }
+
+    private void submitBuffer() {
+        buffer.flip();
+        pendingBuffers.incrementAndGet();
+        writer.submit(this, buffer);
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
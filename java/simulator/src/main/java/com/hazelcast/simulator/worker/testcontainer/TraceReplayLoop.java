@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.probes.LatencyProbe;
+import com.hazelcast.simulator.probes.impl.NoopLatencyProbe;
+import com.hazelcast.simulator.probes.impl.OutcomeProbe;
+import com.hazelcast.simulator.probes.impl.OutcomeProbe.Outcome;
+import com.hazelcast.simulator.test.BaseThreadState;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.hazelcast.simulator.test.BaseThreadState.NO_TRACED_KEY;
+import static com.hazelcast.simulator.test.BaseThreadState.NO_TRACED_VALUE_SIZE;
+import static com.hazelcast.simulator.utils.CommonUtils.rethrow;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A {@link TimeStepLoop} that replays a trace recorded by the {@link TraceRecorder} instead of selecting the timestep
+ * methods randomly.
+ * <p>
+ * The timestep methods are called in the recorded order and the recorded inter-arrival times are preserved, scaled by
+ * the replay speed. The latency is measured from the intended start of the operation, so a replay that can't keep up
+ * doesn't suffer from coordinated omission.
+ * <p>
+ * If the thread state was seeded while recording, it is seeded with the same seed; so a test that draws its keys and
+ * values from the thread state random issues the same operations. If the test reports its keys using
+ * {@link BaseThreadState#traceOperation(long, int)}, the replayed keys are compared against the trace.
+ */
+class TraceReplayLoop extends TimeStepLoop {
+
+    private static final long SPIN_THRESHOLD_NANOS = MICROSECONDS.toNanos(100);
+    private static final long MAX_PARK_NANOS = MILLISECONDS.toNanos(100);
+
+    private final TraceReader reader;
+    private final double speed;
+    private long divergedCount;
+
+    TraceReplayLoop(Object testInstance, TimeStepModel timeStepModel, TraceReader reader, double speed) {
+        super(testInstance, timeStepModel, reader.getExecutionGroup());
+        this.reader = reader;
+        this.speed = speed;
+        if (reader.isSeeded()) {
+            seedThreadState(reader.getSeed());
+        }
+    }
+
+    @Override
+    protected void timeStepLoop() throws Exception {
+        try {
+            ReplayedMethod[] methods = resolveMethods();
+
+            long intendedNanos = System.nanoTime();
+            long iteration = 0;
+            while (!testContext.isStopped() && reader.next()) {
+                int methodIndex = reader.getMethodIndex();
+                if (methodIndex >= methods.length) {
+                    throw new IOException(reader.getFile() + " contains unknown method index " + methodIndex);
+                }
+
+                intendedNanos += (long) (reader.getDeltaNanos() / speed);
+                if (!awaitIntendedStart(intendedNanos)) {
+                    break;
+                }
+
+                methods[methodIndex].invoke(intendedNanos);
+                checkKey();
+
+                iteration++;
+                iterations.lazySet(iteration);
+            }
+        } finally {
+            reader.close();
+            if (divergedCount > 0) {
+                logger.warn(format("Replay of %s diverged from the trace for %d operations",
+                        reader.getFile(), divergedCount));
+            }
+        }
+    }
+
+    long divergedCount() {
+        return divergedCount;
+    }
+
+    private ReplayedMethod[] resolveMethods() {
+        List<String> methodNames = reader.getMethodNames();
+        List<Method> activeMethods = timeStepModel.getActiveTimeStepMethods(executionGroup);
+        ReplayedMethod[] methods = new ReplayedMethod[methodNames.size()];
+        for (int i = 0; i < methods.length; i++) {
+            String methodName = methodNames.get(i);
+            for (Method method : activeMethods) {
+                if (method.getName().equals(methodName)) {
+                    methods[i] = new ReplayedMethod(method);
+                }
+            }
+            if (methods[i] == null) {
+                throw new IllegalTestException(format("Trace %s contains timestep method '%s' which isn't active"
+                        + " in execution group '%s'", reader.getFile(), methodName, executionGroup));
+            }
+        }
+        return methods;
+    }
+
+    private boolean awaitIntendedStart(long intendedNanos) {
+        for (; ; ) {
+            long remainingNanos = intendedNanos - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return true;
+            } else if (testContext.isStopped()) {
+                return false;
+            } else if (remainingNanos > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(Math.min(remainingNanos - SPIN_THRESHOLD_NANOS, MAX_PARK_NANOS));
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void checkKey() {
+        if (!(threadState instanceof BaseThreadState)) {
+            return;
+        }
+
+        BaseThreadState state = (BaseThreadState) threadState;
+        long key = state.tracedKey();
+        if (reader.hasKey() && key != NO_TRACED_KEY && key != reader.getKey()) {
+            divergedCount++;
+        }
+        state.traceOperation(NO_TRACED_KEY, NO_TRACED_VALUE_SIZE);
+    }
+
+    private final class ReplayedMethod {
+        private final Method method;
+        private final Object[] args;
+        private final LatencyProbe probe;
+        private final OutcomeProbe outcomeProbe;
+        private int startNanosIndex = -1;
+
+        private ReplayedMethod(Method method) {
+            this.method = method;
+            LatencyProbe probe = probeMap.get(method.getName());
+            boolean passesProbe = false;
+
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            this.args = new Object[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (timeStepModel.hasStartNanosAnnotation(method, i)) {
+                    startNanosIndex = i;
+                } else if (LatencyProbe.class.isAssignableFrom(parameterTypes[i])) {
+                    args[i] = probe == null ? NoopLatencyProbe.INSTANCE : probe;
+                    passesProbe = true;
+                } else {
+                    args[i] = threadState;
+                }
+            }
+            // if the probe is passed, the test records the latency itself
+            this.probe = passesProbe ? null : probe;
+            this.outcomeProbe = outcomeProbeMap.get(method.getName());
+        }
+
+        private void invoke(long startNanos) throws Exception {
+            if (startNanosIndex >= 0) {
+                args[startNanosIndex] = startNanos;
+            }
+
+            Object result;
+            try {
+                result = method.invoke(testInstance, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (recordOutcome(cause, startNanos)) {
+                    return;
+                }
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw rethrow(cause);
+            }
+
+            if (probe == null) {
+                return;
+            }
+
+            if (result instanceof CompletableFuture) {
+                ((CompletableFuture<?>) result).whenComplete((o, throwable) -> {
+                    if (throwable == null || !recordOutcome(throwable, startNanos)) {
+                        probe.recordValue(System.nanoTime() - startNanos);
+                    }
+                });
+            } else {
+                probe.recordValue(System.nanoTime() - startNanos);
+            }
+        }
+
+        private boolean recordOutcome(Throwable throwable, long startNanos) {
+            if (outcomeProbe == null) {
+                return false;
+            }
+
+            Outcome outcome = outcomeClassifier.classify(throwable);
+            if (outcome == null) {
+                return false;
+            }
+            outcomeProbe.record(outcome, System.nanoTime() - startNanos);
+            return true;
+        }
+    }
+}
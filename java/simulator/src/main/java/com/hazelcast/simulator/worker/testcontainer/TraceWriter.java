@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Writes the buffers filled by the {@link TraceRecorder} instances to disk, so the timestep threads never block on I/O.
+ * <p>
+ * The buffers are exchanged using lock-free queues and are recycled after they have been written.
+ */
+final class TraceWriter extends Thread {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Logger LOGGER = LogManager.getLogger(TraceWriter.class);
+    private static final long PARK_NANOS = MILLISECONDS.toNanos(1);
+
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private volatile boolean stop;
+
+    TraceWriter(String testId) {
+        super("TraceWriter-" + testId);
+        setDaemon(true);
+    }
+
+    ByteBuffer takeBuffer() {
+        ByteBuffer buffer = freeBuffers.poll();
+        return buffer == null ? ByteBuffer.allocateDirect(BUFFER_SIZE) : buffer;
+    }
+
+    void releaseBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        freeBuffers.offer(buffer);
+    }
+
+    void submit(TraceRecorder recorder, ByteBuffer buffer) {
+        pendingWrites.offer(new PendingWrite(recorder, buffer));
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * Writes the remaining buffers and waits for the writer to complete.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    void shutdown() throws InterruptedException {
+        stop = true;
+        LockSupport.unpark(this);
+        join();
+    }
+
+    @Override
+    public void run() {
+        for (; ; ) {
+            PendingWrite pendingWrite = pendingWrites.poll();
+            if (pendingWrite == null) {
+                if (stop) {
+                    LOGGER.info(getName() + " completed");
+                    return;
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+                continue;
+            }
+
+            pendingWrite.recorder.write(pendingWrite.buffer);
+            releaseBuffer(pendingWrite.buffer);
+        }
+    }
+
+    private static final class PendingWrite {
+        private final TraceRecorder recorder;
+        private final ByteBuffer buffer;
+
+        private PendingWrite(TraceRecorder recorder, ByteBuffer buffer) {
+            this.recorder = recorder;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -14,8 +14,6 @@ import java.util.concurrent.atomic.*;
 
 public class ${className} extends TimeStepLoop {
 
-<#if metronomeClass??>
-</#if>
     public ${className}(${testInstanceClass} testInstance, TimeStepModel model, String executionGroup) {
         super(testInstance, model, executionGroup);
     }
@@ -28,17 +26,40 @@ public class ${className} extends TimeStepLoop {
         final AtomicLong iterations = this.iterations;
         final TestContextImpl testContext = (TestContextImpl)this.testContext;
         final ${testInstanceClass} testInstance = (${testInstanceClass})this.testInstance;
+        final Blackhole blackhole = new Blackhole();
 <#if metronomeClass??>
         final ${metronomeClass} metronome = (${metronomeClass})this.metronome;
+        final com.hazelcast.simulator.probes.impl.ScheduleLagProbe scheduleLagProbe = this.scheduleLagProbe;
 </#if>
 <#if probeClass??>
     <#list timeStepMethods as method>
         final ${probeClass} ${method.name}Probe = (${probeClass})probeMap.get("${method.name}");
     </#list>
 </#if>
+<#if recordResourceUsage??>
+    <#list timeStepMethods as method>
+        final com.hazelcast.simulator.probes.impl.ResourceUsageProbe.Sampler ${method.name}Sampler = samplerMap.get("${method.name}");
+    </#list>
+    <#if timeStepMethods?size gt 1>
+        final com.hazelcast.simulator.probes.impl.ResourceUsageProbe.Sampler[] samplers = {
+        <#list timeStepMethods as method>
+                ${method.name}Sampler<#sep>,</#sep>
+        </#list>
+        };
+    </#if>
+</#if>
+<#if classifyOutcomes??>
+        final OutcomeClassifier outcomeClassifier = this.outcomeClassifier;
+    <#list timeStepMethods as method>
+        final com.hazelcast.simulator.probes.impl.OutcomeProbe ${method.name}OutcomeProbe = outcomeProbeMap.get("${method.name}");
+    </#list>
+</#if>
 <#if threadStateClass??>
         final ${threadStateClass} threadState = (${threadStateClass})this.threadState;
 </#if>
+<#if recordTrace??>
+        final TraceRecorder traceRecorder = this.traceRecorder;
+</#if>
 <#if logFrequency??>
         long logCounter = 0;
 </#if>
@@ -56,15 +77,28 @@ public class ${className} extends TimeStepLoop {
 
         long iteration = 0;
         while (!testContext.isStopped()) {
-<#if probeClass??>
-    <#if metronomeClass??>
+<#if timeStepMethods?size gt 1>
+            final byte methodIndex = probs[random.nextInt(probs.length)];
+</#if>
+<#if recordResourceUsage??>
+            final com.hazelcast.simulator.probes.impl.ResourceUsageProbe.Sampler sampler = <#if timeStepMethods?size gt 1>samplers[methodIndex]<#else>${timeStepMethods?first.name}Sampler</#if>;
+</#if>
+<#-- the sampler reads the cpu time and allocated bytes of the thread; that overhead is kept out of the latency -->
+<#if metronomeClass?? && recordResourceUsage??>
+            final long expectedStartNanos = metronome.waitForNext();
+            scheduleLagProbe.record(expectedStartNanos);
+            final long sampleBeginNanos = System.nanoTime();
+            final boolean sampled = sampler.begin();
+            final long startNanos = sampled ? expectedStartNanos + (System.nanoTime() - sampleBeginNanos) : expectedStartNanos;
+<#elseif metronomeClass??>
             final long startNanos = metronome.waitForNext();
-    <#else>
-            final long startNanos = System.nanoTime();
-    </#if>
+            scheduleLagProbe.record(startNanos);
 <#else>
-    <#if metronomeClass??>
-            metronome.waitForNext();
+    <#if recordResourceUsage??>
+            final boolean sampled = sampler.begin();
+    </#if>
+    <#if probeClass?? || recordTrace?? || classifyOutcomes??>
+            final long startNanos = System.nanoTime();
     </#if>
 </#if>
 
@@ -73,32 +107,46 @@ public class ${className} extends TimeStepLoop {
     <#assign resultType=method.getReturnType().getName()>
     <#if hasProbe(method)|| !probeClass?? || isAsyncResult(resultType)>
             <#assign resultName = "result">
+            <@beginTry/>
             <#if isAsyncResult(resultType)>${resultType} ${resultName} = </#if><@timestepMethodCall m=method/>
             <#if isAsyncResult(resultType)>
                 <@handleAsyncResult m=method/>
             </#if>
+            <@endSample/>
+            <@endTry m=method/>
     <#else>
+            <@beginTry/>
             <@timestepMethodCall m=method/>
             ${method.name}Probe.recordValue(System.nanoTime() - startNanos);
+            <@endSample/>
+            <@endTry m=method/>
     </#if>
+            <@traceCall index=0/>
 <#else>
 
-            switch(probs[random.nextInt(probs.length)]){
+            switch(methodIndex){
     <#list timeStepMethods as method>
         <#assign index = method?counter-1>
                 case ${index}:
         <#assign resultType=method.getReturnType().getName()>
         <#if hasProbe(method) || !probeClass?? || isAsyncResult(resultType)>
             <#assign resultName = "result" + index>
+                    <@beginTry/>
             <#if isAsyncResult(resultType)>
                     ${resultType} ${resultName} = </#if><@timestepMethodCall m=method/>
             <#if isAsyncResult(resultType)>
                     <@handleAsyncResult m=method/>
             </#if>
+                    <@endSample/>
+                    <@endTry m=method/>
         <#else>
+                    <@beginTry/>
                     <@timestepMethodCall m=method/>
                     ${method.name}Probe.recordValue(System.nanoTime() - startNanos);
+                    <@endSample/>
+                    <@endTry m=method/>
         </#if>
+                    <@traceCall index=index/>
                     break;
     </#list>
             }
@@ -126,7 +174,53 @@ public class ${className} extends TimeStepLoop {
     }
 
 <#macro handleAsyncResult m>
+<#if classifyOutcomes??>
+                    ${resultName}.whenCompleteAsync((o, throwable) -> {
+                        final com.hazelcast.simulator.probes.impl.OutcomeProbe.Outcome outcome
+                                = throwable == null ? null : outcomeClassifier.classify((Throwable) throwable);
+                        if (outcome == null) {
+                            ${m.getName()}Probe.recordValue(System.nanoTime() - startNanos);
+                        } else {
+                            ${m.getName()}OutcomeProbe.record(outcome, System.nanoTime() - startNanos);
+                        }
+                    }, Runnable::run);
+<#else>
                     ${resultName}.whenCompleteAsync((o, throwable) ->  ${m.getName()}Probe.recordValue(System.nanoTime() - startNanos), Runnable::run);
+</#if>
+</#macro>
+
+<#-- with outcome classification, the expected exceptions are recorded in the outcome probe instead of failing the test -->
+<#macro beginTry>
+<#if classifyOutcomes??>
+                    try {
+</#if>
+</#macro>
+
+<#macro endTry m>
+<#if classifyOutcomes??>
+                    } catch (Throwable t) {
+                        final com.hazelcast.simulator.probes.impl.OutcomeProbe.Outcome outcome = outcomeClassifier.classify(t);
+                        if (outcome == null) {
+                            throw t;
+                        }
+                        ${m.getName()}OutcomeProbe.record(outcome, System.nanoTime() - startNanos);
+                    }
+</#if>
+</#macro>
+
+<#-- the sampler ends after the latency is recorded, so its overhead isn't part of the latency -->
+<#macro endSample>
+<#if recordResourceUsage??>
+                    if (sampled) {
+                        sampler.end();
+                    }
+</#if>
+</#macro>
+
+<#macro traceCall index>
+<#if recordTrace??>
+                    traceRecorder.record(startNanos, ${index}<#if threadStateClass??>, threadState</#if>);
+</#if>
 </#macro>
 
 <#macro timestepMethodCall m>
@@ -134,17 +228,7 @@ public class ${className} extends TimeStepLoop {
        <#assign resultType=m.getReturnType().getName()>
 
        <#if resultType != "void" && !isAsyncResult(resultType)>
-            <#if resultType == "boolean">
-                   atomicBoolean.lazySet(
-            <#elseif resultType == "byte" || resultType == "char" || resultType == "int" || resultType == "short">
-                   atomicInteger.lazySet(
-            <#elseif resultType == "long">
-                   atomicLong.lazySet(
-            <#elseif resultType == "double" || resultType == "float">
-                   atomicLong.lazySet(Double.doubleToLongBits(
-            <#else>
-                   atomicReference.lazySet(
-            </#if>
+                   blackhole.consume(
        </#if>
 
        testInstance.${m.getName()}(
@@ -160,8 +244,6 @@ public class ${className} extends TimeStepLoop {
             </#if>
         </#list>
      <#if resultType != "void" && !isAsyncResult(resultType)>
-        <#if resultType == "double" || resultType == "float">)</#if>
-
      )
      </#if>
     );
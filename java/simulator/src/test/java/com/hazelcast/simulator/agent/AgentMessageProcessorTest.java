@@ -1,8 +1,11 @@
 package com.hazelcast.simulator.agent;
 
 import com.hazelcast.simulator.agent.messages.CreateWorkerMessage;
+import com.hazelcast.simulator.agent.messages.InjectFaultMessage;
+import com.hazelcast.simulator.agent.messages.ShapeProxyMessage;
 import com.hazelcast.simulator.agent.messages.StartTimeoutDetectionMessage;
 import com.hazelcast.simulator.agent.messages.StopTimeoutDetectionMessage;
+import com.hazelcast.simulator.agent.proxy.ProxyManager;
 import com.hazelcast.simulator.agent.workerprocess.WorkerParameters;
 import com.hazelcast.simulator.agent.workerprocess.WorkerProcessFailureMonitor;
 import com.hazelcast.simulator.agent.workerprocess.WorkerProcessManager;
@@ -13,14 +16,20 @@ import com.hazelcast.simulator.worker.messages.CreateTestMessage;
 import org.junit.Before;
 import org.junit.Test;
 
+import static com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault.KILL;
+import static com.hazelcast.simulator.protocol.core.SimulatorAddress.workerAddress;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class AgentMessageProcessorTest {
 
     private AgentMessageHandler processor;
     private WorkerProcessManager processManager;
     private WorkerProcessFailureMonitor failureMonitor;
+    private ProxyManager proxyManager;
     private Promise promise;
     private SimulatorAddress source;
 
@@ -28,7 +37,8 @@ public class AgentMessageProcessorTest {
     public void before() {
         processManager = mock(WorkerProcessManager.class);
         failureMonitor = mock(WorkerProcessFailureMonitor.class);
-        processor = new AgentMessageHandler(processManager, failureMonitor);
+        proxyManager = mock(ProxyManager.class);
+        processor = new AgentMessageHandler(processManager, failureMonitor, proxyManager);
         promise = mock(Promise.class);
         source = SimulatorAddress.coordinatorAddress();
     }
@@ -40,6 +50,34 @@ public class AgentMessageProcessorTest {
         processor.process(msg, source, promise);
 
         verify(processManager).launch(msg, promise);
+        verify(proxyManager, never()).start(anyString(), anyString());
+    }
+
+    @Test
+    public void testCreateWorkerOperation_clientWithProxyRoutes() throws Exception {
+        WorkerParameters parameters = new WorkerParameters()
+                .set("WORKER_TYPE", "javaclient")
+                .set("PROXY_ROUTES", "7701=10.0.0.1:5701")
+                .set("PROXY_SHAPING", "delay=1ms");
+        CreateWorkerMessage msg = new CreateWorkerMessage(parameters, 1);
+
+        processor.process(msg, source, promise);
+
+        verify(proxyManager).start("7701=10.0.0.1:5701", "delay=1ms");
+        verify(processManager).launch(msg, promise);
+    }
+
+    @Test
+    public void testCreateWorkerOperation_memberWithProxyRoutes() throws Exception {
+        WorkerParameters parameters = new WorkerParameters()
+                .set("WORKER_TYPE", "member")
+                .set("PROXY_ROUTES", "7701=10.0.0.1:5701");
+        CreateWorkerMessage msg = new CreateWorkerMessage(parameters, 1);
+
+        processor.process(msg, source, promise);
+
+        verify(proxyManager, never()).start(anyString(), anyString());
+        verify(processManager).launch(msg, promise);
     }
 
     @Test
@@ -48,7 +86,8 @@ public class AgentMessageProcessorTest {
 
         processor.process(msg, source, promise);
 
-        verify(failureMonitor).startTimeoutDetection();
+        verify(promise).answer("ok");
+        verifyZeroInteractions(failureMonitor);
     }
 
     @Test
@@ -57,7 +96,28 @@ public class AgentMessageProcessorTest {
 
         processor.process(msg, source, promise);
 
-        verify(failureMonitor).stopTimeoutDetection();
+        verify(promise).answer("ok");
+        verifyZeroInteractions(failureMonitor);
+    }
+
+    @Test
+    public void testInjectFaultOperation() throws Exception {
+        InjectFaultMessage msg = new InjectFaultMessage("A1_W2", KILL);
+
+        processor.process(msg, source, promise);
+
+        verify(processManager).injectFault(workerAddress(1, 2), KILL);
+        verify(promise).answer("ok");
+    }
+
+    @Test
+    public void testShapeProxyOperation() throws Exception {
+        ShapeProxyMessage msg = new ShapeProxyMessage("delay=10ms");
+
+        processor.process(msg, source, promise);
+
+        verify(proxyManager).setShaping("delay=10ms");
+        verify(promise).answer("ok");
     }
 
     @Test(expected = HandleException.class)
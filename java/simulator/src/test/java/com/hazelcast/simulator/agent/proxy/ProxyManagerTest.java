@@ -0,0 +1,91 @@
+package com.hazelcast.simulator.agent.proxy;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProxyManagerTest {
+
+    private final ProxyManager proxyManager = new ProxyManager();
+
+    @After
+    public void after() {
+        proxyManager.shutdown();
+    }
+
+    @Test
+    public void testStart() {
+        proxyManager.start("0=127.0.0.1:5701,0=127.0.0.1:5702", "delay=10ms");
+
+        List<ShapingProxy> proxies = proxyManager.getProxies();
+        assertEquals(2, proxies.size());
+        assertEquals(5701, proxies.get(0).getTarget().getPort());
+        assertEquals(5702, proxies.get(1).getTarget().getPort());
+        assertEquals(MILLISECONDS.toNanos(10), proxies.get(0).getShaping().delayNanos());
+        assertTrue(proxies.get(0).getLocalPort() > 0);
+    }
+
+    @Test
+    public void testStart_whenAlreadyStarted_thenIgnored() {
+        proxyManager.start("0=127.0.0.1:5701", null);
+        proxyManager.start("0=127.0.0.1:5701,0=127.0.0.1:5702", null);
+
+        assertEquals(1, proxyManager.getProxies().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStart_invalidRoute() {
+        proxyManager.start("127.0.0.1:5701", null);
+    }
+
+    @Test
+    public void testStart_invalidRoute_stopsStartedProxies() {
+        try {
+            proxyManager.start("0=127.0.0.1:5701,5702", null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals(0, proxyManager.getProxies().size());
+        }
+    }
+
+    @Test
+    public void testSetShaping() {
+        proxyManager.start("0=127.0.0.1:5701", "delay=10ms");
+
+        proxyManager.setShaping("delay=50ms");
+        assertEquals(MILLISECONDS.toNanos(50), proxyManager.getProxies().get(0).getShaping().delayNanos());
+
+        proxyManager.setShaping(null);
+        assertEquals(MILLISECONDS.toNanos(10), proxyManager.getProxies().get(0).getShaping().delayNanos());
+    }
+
+    @Test
+    public void testSetShaping_withoutProxies() {
+        proxyManager.setShaping("delay=50ms");
+
+        assertEquals(0, proxyManager.getProxies().size());
+    }
+
+    @Test
+    public void testShutdown() {
+        proxyManager.start("0=127.0.0.1:5701", null);
+
+        proxyManager.shutdown();
+
+        assertEquals(0, proxyManager.getProxies().size());
+    }
+
+    @Test
+    public void testSetShaping_none() {
+        proxyManager.start("0=127.0.0.1:5701", "none");
+
+        assertSame(Shaping.NONE, proxyManager.getProxies().get(0).getShaping());
+    }
+}
@@ -0,0 +1,170 @@
+package com.hazelcast.simulator.agent.proxy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShapingProxyTest {
+
+    private ServerSocket echoServer;
+    private Thread echoThread;
+    private ShapingProxy proxy;
+    private Socket socket;
+
+    @Before
+    public void before() throws IOException {
+        echoServer = new ServerSocket(0);
+        echoThread = new Thread(() -> {
+            try {
+                for (; ; ) {
+                    Socket accepted = echoServer.accept();
+                    Thread thread = new Thread(() -> echo(accepted));
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+            } catch (IOException ignore) {
+                // the server is closed
+            }
+        });
+        echoThread.setDaemon(true);
+        echoThread.start();
+    }
+
+    private static void echo(Socket accepted) {
+        try (Socket s = accepted) {
+            InputStream in = s.getInputStream();
+            OutputStream out = s.getOutputStream();
+            byte[] buffer = new byte[8192];
+            int bytes;
+            while ((bytes = in.read(buffer)) != -1) {
+                out.write(buffer, 0, bytes);
+            }
+        } catch (IOException ignore) {
+            // the connection is closed
+        }
+    }
+
+    @After
+    public void after() {
+        closeQuietly(socket);
+        closeQuietly(proxy);
+        closeQuietly(echoServer);
+    }
+
+    private void startProxy(Shaping shaping) throws IOException {
+        proxy = new ShapingProxy(0, new InetSocketAddress("127.0.0.1", echoServer.getLocalPort()), shaping).start();
+        socket = new Socket("127.0.0.1", proxy.getLocalPort());
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(30000);
+    }
+
+    @Test
+    public void testPassThrough() throws Exception {
+        startProxy(Shaping.NONE);
+
+        byte[] data = new byte[1024 * 1024];
+        new Random().nextBytes(data);
+
+        byte[] received = sendAndReceive(data);
+
+        assertArrayEquals(data, received);
+    }
+
+    @Test
+    public void testDelay() throws Exception {
+        startProxy(Shaping.parse("delay=50ms"));
+
+        long durationNanos = roundTripNanos();
+
+        // the delay is added to both directions
+        assertTrue("round trip took " + NANOSECONDS.toMillis(durationNanos) + " ms",
+                NANOSECONDS.toMillis(durationNanos) >= 100);
+    }
+
+    @Test
+    public void testBandwidth() throws Exception {
+        startProxy(Shaping.parse("bandwidth=8mbit"));
+
+        byte[] data = new byte[256 * 1024];
+        new Random().nextBytes(data);
+
+        long startNanos = System.nanoTime();
+        byte[] received = sendAndReceive(data);
+        long durationMillis = NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertArrayEquals(data, received);
+        // 256 KB at 1 MB/s takes at least 250 ms
+        assertTrue("transfer took " + durationMillis + " ms", durationMillis >= 240);
+    }
+
+    @Test
+    public void testSetShaping() throws Exception {
+        startProxy(Shaping.NONE);
+        assertTrue(NANOSECONDS.toMillis(roundTripNanos()) < 100);
+
+        proxy.setShaping(Shaping.parse("delay=100ms"));
+
+        assertEquals(Shaping.parse("delay=100ms").delayNanos(), proxy.getShaping().delayNanos());
+        assertTrue(NANOSECONDS.toMillis(roundTripNanos()) >= 200);
+    }
+
+    @Test
+    public void testClose_closesConnections() throws Exception {
+        startProxy(Shaping.NONE);
+        roundTripNanos();
+
+        proxy.close();
+
+        assertEquals(-1, socket.getInputStream().read());
+    }
+
+    @Test
+    public void testTargetUnavailable() throws Exception {
+        int port = echoServer.getLocalPort();
+        echoServer.close();
+        proxy = new ShapingProxy(0, new InetSocketAddress("127.0.0.1", port), Shaping.NONE).start();
+        socket = new Socket("127.0.0.1", proxy.getLocalPort());
+        socket.setSoTimeout(30000);
+
+        assertEquals(-1, socket.getInputStream().read());
+    }
+
+    private long roundTripNanos() throws IOException {
+        long startNanos = System.nanoTime();
+        socket.getOutputStream().write(1);
+        assertEquals(1, socket.getInputStream().read());
+        return System.nanoTime() - startNanos;
+    }
+
+    private byte[] sendAndReceive(byte[] data) throws Exception {
+        Thread writer = new Thread(() -> {
+            try {
+                socket.getOutputStream().write(data);
+                socket.getOutputStream().flush();
+            } catch (IOException ignore) {
+                // the read fails as well
+            }
+        });
+        writer.start();
+
+        byte[] received = new byte[data.length];
+        new DataInputStream(socket.getInputStream()).readFully(received);
+        writer.join();
+        return received;
+    }
+}
@@ -0,0 +1,117 @@
+package com.hazelcast.simulator.agent.proxy;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ShapingTest {
+
+    @Test
+    public void testParse_none() {
+        assertSame(Shaping.NONE, Shaping.parse(null));
+        assertSame(Shaping.NONE, Shaping.parse(""));
+        assertSame(Shaping.NONE, Shaping.parse("none"));
+    }
+
+    @Test
+    public void testParse() {
+        Shaping shaping = Shaping.parse("delay=20ms, jitter=500us, bandwidth=100mbit, stall=0.001:1s");
+
+        assertEquals(MILLISECONDS.toNanos(20), shaping.delayNanos());
+        assertEquals(MICROSECONDS.toNanos(500), shaping.jitterNanos());
+        assertEquals(100 * 1000 * 1000, shaping.bandwidthBitsPerSecond());
+        assertEquals(0.001, shaping.stallProbability(), 0);
+        assertEquals(SECONDS.toNanos(1), shaping.stallNanos());
+    }
+
+    @Test
+    public void testParse_bandwidthUnits() {
+        assertEquals(10, Shaping.parse("bandwidth=10bit").bandwidthBitsPerSecond());
+        assertEquals(10 * 1000, Shaping.parse("bandwidth=10kbit").bandwidthBitsPerSecond());
+        assertEquals(10L * 1000 * 1000 * 1000, Shaping.parse("bandwidth=10gbit").bandwidthBitsPerSecond());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_unknownSetting() {
+        Shaping.parse("loss=1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_missingValue() {
+        Shaping.parse("delay");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_missingDurationUnit() {
+        Shaping.parse("delay=20");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_invalidDuration() {
+        Shaping.parse("delay=fastms");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_missingBandwidthUnit() {
+        Shaping.parse("bandwidth=100");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_stallWithoutDuration() {
+        Shaping.parse("stall=0.1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_stallProbabilityTooLarge() {
+        Shaping.parse("stall=2:10ms");
+    }
+
+    @Test
+    public void testNextDelayNanos_jitter() {
+        Shaping shaping = Shaping.parse("delay=10ms,jitter=5ms");
+        Random random = new Random();
+
+        for (int k = 0; k < 1000; k++) {
+            long delay = shaping.nextDelayNanos(random);
+            assertTrue(delay >= MILLISECONDS.toNanos(5));
+            assertTrue(delay <= MILLISECONDS.toNanos(15));
+        }
+    }
+
+    @Test
+    public void testNextDelayNanos_jitterNeverNegative() {
+        Shaping shaping = Shaping.parse("delay=1ms,jitter=5ms");
+        Random random = new Random();
+
+        for (int k = 0; k < 1000; k++) {
+            assertTrue(shaping.nextDelayNanos(random) >= 0);
+        }
+    }
+
+    @Test
+    public void testNextDelayNanos_stall() {
+        Shaping shaping = Shaping.parse("delay=1ms,stall=1:100ms");
+
+        assertEquals(MILLISECONDS.toNanos(101), shaping.nextDelayNanos(new Random()));
+    }
+
+    @Test
+    public void testTransmissionNanos() {
+        assertEquals(SECONDS.toNanos(1), Shaping.parse("bandwidth=8kbit").transmissionNanos(1000));
+        assertEquals(0, Shaping.NONE.transmissionNanos(1000));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("none", Shaping.NONE.toString());
+        assertEquals("delay=20000us,jitter=0us,bandwidth=1000bit,stall=0.0:0us",
+                Shaping.parse("delay=20ms,bandwidth=1kbit").toString());
+    }
+}
@@ -0,0 +1,100 @@
+package com.hazelcast.simulator.agent.workerprocess;
+
+import com.hazelcast.simulator.agent.EmbeddedAgent;
+import com.hazelcast.simulator.agent.messages.CreateWorkerMessage;
+import com.hazelcast.simulator.coordinator.messages.FailureMessage;
+import com.hazelcast.simulator.fake.FakeDriver;
+import com.hazelcast.simulator.protocol.CoordinatorClient;
+import com.hazelcast.simulator.protocol.InMemoryBroker;
+import com.hazelcast.simulator.protocol.InMemoryCoordinatorClient;
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import com.hazelcast.simulator.worker.messages.TerminateWorkerMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+
+import static com.hazelcast.simulator.common.FailureType.WORKER_NORMAL_EXIT;
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static com.hazelcast.simulator.utils.TestUtils.createTmpDirectory;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class EmbeddedWorkerLauncherTest {
+
+    private final SimulatorAddress workerAddress = SimulatorAddress.fromString("A1_W1");
+    private final CountDownLatch normalExit = new CountDownLatch(1);
+
+    private InMemoryBroker broker;
+    private EmbeddedAgent agent;
+    private CoordinatorClient client;
+    private File runPath;
+
+    @Before
+    public void before() throws Exception {
+        runPath = createTmpDirectory();
+        broker = new InMemoryBroker();
+
+        agent = new EmbeddedAgent(1, "127.0.0.1", broker);
+        agent.start();
+
+        client = new InMemoryCoordinatorClient(broker)
+                .setProcessor((msg, source, promise) -> {
+                    if (msg instanceof FailureMessage && ((FailureMessage) msg).getType() == WORKER_NORMAL_EXIT) {
+                        normalExit.countDown();
+                    }
+                })
+                .start()
+                .connectToAgentBroker(SimulatorAddress.fromString("A1"), "127.0.0.1");
+    }
+
+    @After
+    public void after() {
+        closeQuietly(client);
+        closeQuietly(agent);
+        closeQuietly(broker);
+        deleteQuiet(runPath);
+    }
+
+    @Test
+    public void testLaunchAndTerminate() throws Exception {
+        String response = client.submit(SimulatorAddress.fromString("A1"), new CreateWorkerMessage(newParameters(), 0))
+                .get(30, SECONDS);
+        assertEquals("SUCCESS", response);
+
+        File workerHome = new File(runPath, "A1_W1-127.0.0.1-javaclient");
+        assertEquals("bar", fileAsText(new File(workerHome, "foo.txt")));
+        assertTrue(new File(workerHome, "worker.pid").exists());
+        assertTrue(broker.isRegistered(workerAddress));
+
+        WorkerProcess workerProcess = agent.getProcessManager().getWorkerProcesses().iterator().next();
+        assertNotNull(workerProcess.getEmbeddedWorker());
+
+        client.send(workerAddress, new TerminateWorkerMessage(true));
+
+        assertTrue(normalExit.await(30, SECONDS));
+        assertTrue(agent.getProcessManager().getWorkerProcesses().isEmpty());
+        assertFalse(broker.isRegistered(workerAddress));
+    }
+
+    private WorkerParameters newParameters() {
+        return new WorkerParameters()
+                .set("WORKER_ADDRESS", workerAddress)
+                .set("WORKER_INDEX", 1)
+                .set("WORKER_NAME", "A1_W1-127.0.0.1-javaclient")
+                .set("WORKER_TYPE", "javaclient")
+                .set("PUBLIC_ADDRESS", "127.0.0.1")
+                .set("loadgenerator_driver_class", FakeDriver.class.getName())
+                .set("performance_monitor_interval_seconds", 0)
+                .set("WORKER_ORPHAN_INTERVAL_SECONDS", 0)
+                .set("run_path", runPath.getAbsolutePath())
+                .set("file:foo.txt", "bar");
+    }
+}
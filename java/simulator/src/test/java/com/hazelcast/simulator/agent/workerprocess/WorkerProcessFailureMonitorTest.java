@@ -6,52 +6,48 @@ import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.utils.AssertTask;
 import org.junit.After;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.mockito.verification.VerificationMode;
 
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
 
-import static com.hazelcast.simulator.TestEnvironmentUtils.setupFakeEnvironment;
-import static com.hazelcast.simulator.TestEnvironmentUtils.tearDownFakeEnvironment;
+import static com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault.SHUTDOWN;
 import static com.hazelcast.simulator.common.FailureType.WORKER_ABNORMAL_EXIT;
 import static com.hazelcast.simulator.common.FailureType.WORKER_EXCEPTION;
 import static com.hazelcast.simulator.common.FailureType.WORKER_NORMAL_EXIT;
 import static com.hazelcast.simulator.common.FailureType.WORKER_OOME;
-import static com.hazelcast.simulator.common.FailureType.WORKER_TIMEOUT;
 import static com.hazelcast.simulator.protocol.core.SimulatorAddress.workerAddress;
 import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
 import static com.hazelcast.simulator.utils.CommonUtils.throwableToString;
 import static com.hazelcast.simulator.utils.FileUtils.appendText;
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
 import static com.hazelcast.simulator.utils.FileUtils.ensureExistingDirectory;
 import static com.hazelcast.simulator.utils.FileUtils.ensureExistingFile;
 import static com.hazelcast.simulator.utils.FileUtils.rename;
 import static com.hazelcast.simulator.utils.FormatUtils.NEW_LINE;
 import static com.hazelcast.simulator.utils.TestUtils.assertTrueEventually;
-import static java.lang.System.currentTimeMillis;
-import static java.util.concurrent.TimeUnit.HOURS;
+import static com.hazelcast.simulator.utils.TestUtils.createTmpDirectory;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
-@Ignore
 public class WorkerProcessFailureMonitorTest {
 
     private static final int DEFAULT_TIMEOUT = 30000;
 
-    private static final int DEFAULT_LAST_SEEN_TIMEOUT_SECONDS = 30;
-    private static final int DEFAULT_CHECK_INTERVAL = 30;
     private static final int DEFAULT_SLEEP_TIME = 100;
 
     private static int addressIndex;
@@ -65,8 +61,7 @@ public class WorkerProcessFailureMonitorTest {
 
     @Before
     public void before() {
-        File simulatorHome = setupFakeEnvironment();
-        workersHome = new File(simulatorHome, "workers");
+        workersHome = createTmpDirectory();
 
         failureHandler = mock(WorkerProcessFailureHandler.class);
         Server server = mock(Server.class);
@@ -74,9 +69,7 @@ public class WorkerProcessFailureMonitorTest {
 
         workerProcessFailureMonitor = new WorkerProcessFailureMonitor(
                 failureHandler,
-                workerProcessManager,
-                DEFAULT_LAST_SEEN_TIMEOUT_SECONDS,
-                DEFAULT_CHECK_INTERVAL);
+                workerProcessManager);
         workerProcessFailureMonitor.start();
     }
 
@@ -86,13 +79,12 @@ public class WorkerProcessFailureMonitorTest {
             workerProcessFailureMonitor.shutdown();
         }
 
-        tearDownFakeEnvironment();
+        deleteQuiet(workersHome);
     }
 
     @Test
     public void testConstructor() {
-        workerProcessFailureMonitor = new WorkerProcessFailureMonitor(failureHandler, workerProcessManager,
-                DEFAULT_LAST_SEEN_TIMEOUT_SECONDS);
+        workerProcessFailureMonitor = new WorkerProcessFailureMonitor(failureHandler, workerProcessManager);
         workerProcessFailureMonitor.start();
 
         verifyZeroInteractions(failureHandler);
@@ -108,13 +100,13 @@ public class WorkerProcessFailureMonitorTest {
     @Test(timeout = DEFAULT_TIMEOUT)
     public void testRun_shouldContinueAfterExceptionDuringDetection() {
         WorkerProcess workerProcess = addRunningWorkerProcess();
-        Process process = workerProcess.getProcess();
-        reset(process);
-        when(process.exitValue()).thenThrow(new IllegalArgumentException("expected exception"));
+
+        // an exception file without a testId line can't be parsed
+        ensureExistingFile(workerProcess.getWorkerHome(), "1.exception");
 
         sleepMillis(5 * DEFAULT_SLEEP_TIME);
 
-        // when we place an oome file; the processing will stop
+        // the OOME should still be detected
         ensureExistingFile(workerProcess.getWorkerHome(), "worker.oome");
 
         assertTrueEventually(new AssertTask() {
@@ -125,6 +117,20 @@ public class WorkerProcessFailureMonitorTest {
         });
     }
 
+    @Test
+    public void testRun_shouldDetectException_existingBeforeRegistration() {
+        SimulatorAddress address = createWorkerAddress();
+        File workerHome = createWorkerHome(address);
+
+        String cause = throwableToString(new RuntimeException());
+        File exceptionFile = createExceptionFile(workerHome, "WorkerProcessFailureMonitorTest", cause);
+
+        addWorkerProcess(address, workerHome, null);
+
+        assertFailureTypeAtLeastOnce(failureHandler, WORKER_EXCEPTION);
+        assertThatExceptionFileDoesNotExist(exceptionFile);
+    }
+
     @Test
     public void testRun_shouldDetectException_withTestId() {
         WorkerProcess workerProcess = addRunningWorkerProcess();
@@ -188,86 +194,72 @@ public class WorkerProcessFailureMonitorTest {
         assertFailureType(failureHandler, WORKER_OOME);
     }
 
-    //@Test
-    public void testRun_shouldDetectInactivity() {
-        WorkerProcess workerProcess = addRunningWorkerProcess();
-
-        workerProcessFailureMonitor.startTimeoutDetection();
-        workerProcess.setLastSeen(currentTimeMillis() - HOURS.toMillis(1));
+    @Test(timeout = DEFAULT_TIMEOUT)
+    public void testRun_shouldDetectWorkerFinished_whenExitValueIsZero() {
+        WorkerProcess workerProcess = addWorkerProcess(0);
 
-        sleepMillis(DEFAULT_SLEEP_TIME);
+        do {
+            sleepMillis(DEFAULT_SLEEP_TIME);
+        } while (!workerProcess.isFinished());
 
-        assertFailureTypeAtLeastOnce(failureHandler, WORKER_TIMEOUT);
+        assertTrue(workerProcess.isFinished());
+        assertFailureType(failureHandler, WORKER_NORMAL_EXIT);
     }
 
     @Test
-    public void testRun_shouldNotDetectInactivity_ifDetectionDisabled() {
-        WorkerProcess workerProcess = addRunningWorkerProcess();
-
-        workerProcessFailureMonitor = new WorkerProcessFailureMonitor(failureHandler, workerProcessManager, -1,
-                DEFAULT_CHECK_INTERVAL);
-        workerProcessFailureMonitor.start();
-
-        workerProcessFailureMonitor.startTimeoutDetection();
-        workerProcess.setLastSeen(currentTimeMillis() - HOURS.toMillis(1));
-
-        sleepMillis(DEFAULT_SLEEP_TIME);
-
-        workerProcessFailureMonitor.stopTimeoutDetection();
-        workerProcess.setLastSeen(currentTimeMillis() - HOURS.toMillis(1));
+    public void testRun_shouldDetectUnexpectedExit_whenExitValueIsNonZero() {
+        WorkerProcess workerProcess = addWorkerProcess(34);
 
         sleepMillis(DEFAULT_SLEEP_TIME);
 
-        verifyZeroInteractions(failureHandler);
+        assertFalse(workerProcess.isFinished());
+        assertFailureType(failureHandler, WORKER_ABNORMAL_EXIT);
     }
 
     @Test
-    public void testRun_shouldNotDetectInactivity_ifDetectionNotStarted() {
-        WorkerProcess workerProcess = addRunningWorkerProcess();
+    public void testRun_shouldDetectUnexpectedExit_whenProcessExitsLater() {
+        SimulatorAddress address = createWorkerAddress();
+        CompletableFuture<Process> onExit = new CompletableFuture<>();
+        Process process = mock(Process.class);
+        when(process.onExit()).thenReturn(onExit);
+        when(process.exitValue()).thenReturn(1);
 
-        workerProcess.setLastSeen(currentTimeMillis() - HOURS.toMillis(1));
+        WorkerProcess workerProcess = new WorkerProcess(address, "WorkerProcessFailureMonitorTest", createWorkerHome(address));
+        workerProcess.setProcess(process);
+        workerProcessManager.add(address, workerProcess);
 
         sleepMillis(DEFAULT_SLEEP_TIME);
-
         verifyZeroInteractions(failureHandler);
-    }
 
-    @Test
-    public void testRun_shouldNotDetectInactivity_afterDetectionIsStopped() {
-        WorkerProcess workerProcess = addRunningWorkerProcess();
+        onExit.complete(process);
 
-        workerProcessFailureMonitor.startTimeoutDetection();
+        assertFailureType(failureHandler, WORKER_ABNORMAL_EXIT);
+        assertFalse(workerProcessManager.getWorkerProcesses().contains(workerProcess));
+    }
 
-        sleepMillis(DEFAULT_SLEEP_TIME);
+    @Test
+    public void testRun_shouldNotDetectUnexpectedExit_whenWorkerIsShutdown() {
+        WorkerProcess workerProcess = addTerminatingWorkerProcess();
 
-        workerProcessFailureMonitor.stopTimeoutDetection();
-        workerProcess.setLastSeen(currentTimeMillis() - HOURS.toMillis(1));
+        workerProcessManager.shutdown(workerProcess);
 
         sleepMillis(DEFAULT_SLEEP_TIME);
 
+        verify(workerProcess.getProcess(), times(1)).destroy();
         verifyZeroInteractions(failureHandler);
     }
 
-    @Test(timeout = DEFAULT_TIMEOUT)
-    public void testRun_shouldDetectWorkerFinished_whenExitValueIsZero() {
-        WorkerProcess workerProcess = addWorkerProcess(0);
-
-        do {
-            sleepMillis(DEFAULT_SLEEP_TIME);
-        } while (!workerProcess.isFinished());
-
-        assertTrue(workerProcess.isFinished());
-        assertFailureType(failureHandler, WORKER_NORMAL_EXIT);
-    }
-
     @Test
-    public void testRun_shouldDetectUnexpectedExit_whenExitValueIsNonZero() {
-        WorkerProcess workerProcess = addWorkerProcess(34);
+    public void testRun_shouldDetectWorkerFinished_whenFaultIsInjected() {
+        WorkerProcess workerProcess = addTerminatingWorkerProcess();
+
+        workerProcessManager.injectFault(workerProcess.getAddress(), SHUTDOWN);
 
         sleepMillis(DEFAULT_SLEEP_TIME);
 
-        assertFalse(workerProcess.isFinished());
-        assertFailureType(failureHandler, WORKER_ABNORMAL_EXIT);
+        verify(workerProcess.getProcess(), times(1)).destroy();
+        assertFailureType(failureHandler, WORKER_NORMAL_EXIT);
+        assertFalse(workerProcessManager.getWorkerProcesses().contains(workerProcess));
     }
 
     @Test
@@ -294,19 +286,42 @@ public class WorkerProcessFailureMonitorTest {
 
     private WorkerProcess addWorkerProcess(Integer exitCode) {
         SimulatorAddress address = createWorkerAddress();
+        return addWorkerProcess(address, createWorkerHome(address), exitCode);
+    }
+
+    // a running worker process that exits with SIGTERM's exit code when it is destroyed
+    private WorkerProcess addTerminatingWorkerProcess() {
+        SimulatorAddress address = createWorkerAddress();
+        CompletableFuture<Process> onExit = new CompletableFuture<>();
+        Process process = mock(Process.class);
+        when(process.onExit()).thenReturn(onExit);
+        when(process.exitValue()).thenReturn(143);
+        doAnswer(invocation -> onExit.complete(process)).when(process).destroy();
 
+        WorkerProcess workerProcess = new WorkerProcess(address, "WorkerProcessFailureMonitorTest", createWorkerHome(address));
+        workerProcess.setProcess(process);
+        workerProcessManager.add(address, workerProcess);
+        return workerProcess;
+    }
+
+    private File createWorkerHome(SimulatorAddress address) {
         File sessionHome = new File(workersHome, "sessions");
         File workerHome = new File(sessionHome, "worker" + address.getAddressIndex());
         ensureExistingDirectory(workerHome);
+        return workerHome;
+    }
 
+    private WorkerProcess addWorkerProcess(SimulatorAddress address, File workerHome, Integer exitCode) {
         WorkerProcess workerProcess = new WorkerProcess(address, "WorkerProcessFailureMonitorTest" + address.getAddressIndex(), workerHome);
         Process process = mock(Process.class);
 
         if (exitCode == null) {
             // this is needed for the failure monitor to believe the process is still running.
             when(process.exitValue()).thenThrow(new IllegalThreadStateException());
+            when(process.onExit()).thenReturn(new CompletableFuture<>());
         } else {
             when(process.exitValue()).thenReturn(exitCode);
+            when(process.onExit()).thenReturn(CompletableFuture.completedFuture(process));
         }
 
         workerProcess.setProcess(process);
@@ -339,8 +354,8 @@ public class WorkerProcessFailureMonitorTest {
         verify(failureHandler, mode).handle(anyString(),
                 eq(failureType),
                 any(WorkerProcess.class),
-                any(String.class),
-                any(String.class));
+                nullable(String.class),
+                nullable(String.class));
         verifyNoMoreInteractions(failureHandler);
     }
 
@@ -7,6 +7,8 @@ import org.junit.Test;
 
 import java.util.Collection;
 
+import static com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault.KILL;
+import static com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault.SHUTDOWN;
 import static com.hazelcast.simulator.protocol.core.SimulatorAddress.coordinatorAddress;
 import static com.hazelcast.simulator.protocol.core.SimulatorAddress.workerAddress;
 import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
@@ -129,6 +131,25 @@ public class WorkerProcessManagerTest {
         verifyShutdownOfWorkerJvm(workerProcess2);
     }
 
+    @Test
+    public void testInjectFault_kill() {
+        workerProcessManager.injectFault(workerAddress1, KILL);
+
+        verify(workerProcess1.getProcess()).destroyForcibly();
+    }
+
+    @Test
+    public void testInjectFault_shutdown() {
+        workerProcessManager.injectFault(workerAddress2, SHUTDOWN);
+
+        verify(workerProcess2.getProcess()).destroy();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInjectFault_unknownWorker() {
+        workerProcessManager.injectFault(workerAddress(2, 1), KILL);
+    }
+
     private static void verifyShutdownOfWorkerJvm(WorkerProcess workerProcess) {
         Process process = workerProcess.getProcess();
         verify(process).destroy();
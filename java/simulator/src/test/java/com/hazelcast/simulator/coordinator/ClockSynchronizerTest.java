@@ -0,0 +1,59 @@
+package com.hazelcast.simulator.coordinator;
+
+import com.hazelcast.simulator.coordinator.ClockSynchronizer.Sample;
+import com.hazelcast.simulator.coordinator.ClockSynchronizer.WorkerClock;
+import com.hazelcast.simulator.worker.messages.ClockOffsetMessage;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+
+public class ClockSynchronizerTest {
+
+    private final WorkerClock clock = new WorkerClock();
+
+    @Test
+    public void test_singleSample() {
+        ClockOffsetMessage msg = clock.add(new Sample(1000, 5000, 20));
+
+        assertEquals(1000, msg.getRefNanos());
+        assertEquals(5000, msg.getOffsetNanos());
+        assertEquals(20, msg.getErrorBoundNanos());
+        assertEquals(0, msg.getDriftPpm(), 0);
+    }
+
+    @Test
+    public void test_drift() {
+        // the offset grows 20 microseconds per second: 20 ppm
+        ClockOffsetMessage msg = null;
+        for (int k = 0; k < 10; k++) {
+            msg = clock.add(new Sample(SECONDS.toNanos(k), 5000 + k * 20_000L, 20));
+        }
+
+        assertEquals(SECONDS.toNanos(9), msg.getRefNanos());
+        assertEquals(5000 + 9 * 20_000L, msg.getOffsetNanos());
+        assertEquals(20, msg.getDriftPpm(), 0.001);
+    }
+
+    @Test
+    public void test_drift_notEnoughSpan() {
+        clock.add(new Sample(0, 0, 20));
+        ClockOffsetMessage msg = clock.add(new Sample(ClockSynchronizer.MIN_DRIFT_SPAN_NANOS - 1, 1000, 20));
+
+        assertEquals(0, msg.getDriftPpm(), 0);
+    }
+
+    @Test
+    public void test_oldSamplesDropped() {
+        // a steep drift that is replaced by a constant offset
+        for (int k = 0; k < ClockSynchronizer.MAX_SAMPLES; k++) {
+            clock.add(new Sample(SECONDS.toNanos(k), k * 1_000_000L, 20));
+        }
+        ClockOffsetMessage msg = null;
+        for (int k = 0; k < ClockSynchronizer.MAX_SAMPLES; k++) {
+            msg = clock.add(new Sample(SECONDS.toNanos(100 + k), 0, 20));
+        }
+
+        assertEquals(0, msg.getDriftPpm(), 0.001);
+    }
+}
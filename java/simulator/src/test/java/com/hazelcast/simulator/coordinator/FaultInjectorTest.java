@@ -0,0 +1,244 @@
+package com.hazelcast.simulator.coordinator;
+
+import com.hazelcast.simulator.agent.messages.InjectFaultMessage;
+import com.hazelcast.simulator.agent.workerprocess.WorkerParameters;
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.coordinator.FaultInjector.Recovery;
+import com.hazelcast.simulator.coordinator.FaultInjector.Sample;
+import com.hazelcast.simulator.coordinator.FaultInjector.ScheduledFault;
+import com.hazelcast.simulator.coordinator.registry.Registry;
+import com.hazelcast.simulator.coordinator.registry.WorkerData;
+import com.hazelcast.simulator.protocol.CoordinatorClient;
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import com.hazelcast.simulator.utils.CommandLineExitException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault.KILL;
+import static com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault.PAUSE;
+import static com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault.RESUME;
+import static com.hazelcast.simulator.agent.messages.InjectFaultMessage.Fault.SHUTDOWN;
+import static com.hazelcast.simulator.protocol.core.SimulatorAddress.workerAddress;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FaultInjectorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Registry registry = new Registry();
+    private WorkerData member1;
+    private WorkerData member2;
+    private WorkerData client;
+
+    @Before
+    public void before() {
+        registry.addAgent("192.168.0.1", "192.168.0.1");
+        registry.addAgent("192.168.0.2", "192.168.0.2");
+        member1 = addWorker(1, "member");
+        member2 = addWorker(2, "member");
+        client = addWorker(1, "javaclient");
+    }
+
+    private WorkerData addWorker(int agentIndex, String workerType) {
+        int workerIndex = registry.getWorkers().size() + 1;
+        WorkerParameters parameters = new WorkerParameters()
+                .set("WORKER_TYPE", workerType)
+                .set("WORKER_INDEX", workerIndex)
+                .set("WORKER_ADDRESS", workerAddress(agentIndex, workerIndex));
+        return registry.addWorkers(Collections.singletonList(parameters)).get(0);
+    }
+
+    @Test
+    public void testParse() {
+        List<ScheduledFault> schedule = FaultInjector.parse("shutdown@2m, pause@30s:10s,kill@45");
+
+        assertEquals(4, schedule.size());
+        assertScheduledFault(schedule.get(0), PAUSE, 30);
+        assertScheduledFault(schedule.get(1), RESUME, 40);
+        assertScheduledFault(schedule.get(2), KILL, 45);
+        assertScheduledFault(schedule.get(3), SHUTDOWN, 120);
+    }
+
+    private static void assertScheduledFault(ScheduledFault scheduledFault, InjectFaultMessage.Fault fault, int offsetSeconds) {
+        assertEquals(fault, scheduledFault.fault);
+        assertEquals(SECONDS.toMillis(offsetSeconds), scheduledFault.offsetMs);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_unknownFault() {
+        FaultInjector.parse("reboot@10s");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_resumeNotAllowed() {
+        FaultInjector.parse("resume@10s");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_withoutOffset() {
+        FaultInjector.parse("kill");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_pauseWithoutDuration() {
+        FaultInjector.parse("pause@10s");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_killWithDuration() {
+        FaultInjector.parse("kill@10s:5s");
+    }
+
+    @Test(expected = CommandLineExitException.class)
+    public void testParse_invalidOffset() {
+        FaultInjector.parse("kill@soon");
+    }
+
+    @Test
+    public void testCreate_withoutFaults() {
+        TestCase testCase = new TestCase("test");
+
+        assertNull(FaultInjector.create(testCase, asList(client), registry, mock(CoordinatorClient.class),
+                new PerformanceStatsCollector(), folder.getRoot().getAbsolutePath()));
+    }
+
+    @Test
+    public void testFindTarget_default() {
+        assertSame(member2, FaultInjector.findTarget(null, asList(client), registry));
+        assertSame(member1, FaultInjector.findTarget(null, asList(client, member2), registry));
+    }
+
+    @Test
+    public void testFindTarget_configured() {
+        assertSame(member1, FaultInjector.findTarget(member1.getAddress().toString(), asList(client), registry));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindTarget_unknownWorker() {
+        FaultInjector.findTarget("A5_W1", asList(client), registry);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindTarget_runningTheTest() {
+        FaultInjector.findTarget(member1.getAddress().toString(), asList(member1, member2), registry);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindTarget_noMemberLeft() {
+        FaultInjector.findTarget(null, asList(member1, member2), registry);
+    }
+
+    @Test
+    public void testAnalyze() {
+        List<Sample> samples = samples(100, 100, 100, 20, 40, 95, 80, 100, 100);
+
+        Recovery recovery = FaultInjector.analyze(samples, SECONDS.toMillis(3), SECONDS.toMillis(9));
+
+        assertEquals(100, recovery.baselineThroughput, 0.01);
+        assertEquals(20, recovery.minThroughput, 0.01);
+        assertEquals(80, recovery.dipPercent(), 0.01);
+        assertEquals(SECONDS.toMillis(4), recovery.recoveryMs);
+        assertEquals(1000, recovery.baselineLatencyNanos, 0.01);
+        assertEquals(1800, recovery.maxLatencyNanos);
+    }
+
+    @Test
+    public void testAnalyze_withoutDip() {
+        List<Sample> samples = samples(100, 100, 100, 95, 100);
+
+        Recovery recovery = FaultInjector.analyze(samples, SECONDS.toMillis(2), SECONDS.toMillis(5));
+
+        assertEquals(5, recovery.dipPercent(), 0.01);
+        assertEquals(0, recovery.recoveryMs);
+    }
+
+    @Test
+    public void testAnalyze_notRecovered() {
+        List<Sample> samples = samples(100, 100, 50, 60);
+
+        Recovery recovery = FaultInjector.analyze(samples, SECONDS.toMillis(2), SECONDS.toMillis(4));
+
+        assertEquals(-1, recovery.recoveryMs);
+    }
+
+    @Test
+    public void testAnalyze_withoutBaseline() {
+        List<Sample> samples = samples(100, 100);
+
+        assertNull(FaultInjector.analyze(samples, 0, SECONDS.toMillis(2)));
+    }
+
+    @Test
+    public void testTickAndComplete() throws Exception {
+        CoordinatorClient coordinatorClient = mock(CoordinatorClient.class);
+        when(coordinatorClient.submit(any(SimulatorAddress.class), any(InjectFaultMessage.class)))
+                .thenReturn(CompletableFuture.completedFuture("ok"));
+        PerformanceStatsCollector collector = new PerformanceStatsCollector();
+        TestCase testCase = new TestCase("test")
+                .setProperty("faults", "pause@2s:1s");
+        FaultInjector faultInjector = FaultInjector.create(testCase, asList(client), registry, coordinatorClient, collector,
+                folder.getRoot().getAbsolutePath());
+
+        long[] throughputs = {100, 100, 10, 100, 100};
+        for (int second = 0; second < throughputs.length; second++) {
+            update(collector, client, throughputs[second]);
+            faultInjector.tick(SECONDS.toMillis(second));
+            if (second == 2) {
+                assertTrue(member2.isIgnoreFailures());
+            }
+        }
+        faultInjector.complete(SECONDS.toMillis(throughputs.length));
+
+        ArgumentCaptor<InjectFaultMessage> captor = ArgumentCaptor.forClass(InjectFaultMessage.class);
+        verify(coordinatorClient, times(2)).submit(eq(member2.getAddress().getParent()), captor.capture());
+        assertEquals(PAUSE, captor.getAllValues().get(0).getFault());
+        assertEquals(RESUME, captor.getAllValues().get(1).getFault());
+        assertEquals(member2.getAddress().toString(), captor.getAllValues().get(0).getWorkerAddress());
+        assertFalse(member2.isIgnoreFailures());
+
+        String csv = fileAsText(new File(folder.getRoot(), "faults.csv"));
+        String[] lines = csv.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0], lines[0].startsWith("test_id,fault,worker,offset_seconds"));
+        assertTrue(lines[1], lines[1].startsWith("test,pause," + member2.getAddress() + ",2,100.00,10.00,90.00,1.000,"));
+    }
+
+    private static void update(PerformanceStatsCollector collector, WorkerData worker, long throughput) {
+        PerformanceStats performanceStats = new PerformanceStats(throughput, throughput, throughput, 1000, 1000, 1000);
+        collector.update(worker.getAddress(), Collections.singletonMap("test", performanceStats));
+    }
+
+    private static List<Sample> samples(long... throughputs) {
+        List<Sample> samples = new ArrayList<>();
+        for (int k = 0; k < throughputs.length; k++) {
+            // the latency goes up when the throughput goes down
+            long latencyNanos = (200 - throughputs[k]) * 10;
+            samples.add(new Sample(SECONDS.toMillis(k), throughputs[k], latencyNanos));
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,143 @@
+package com.hazelcast.simulator.coordinator;
+
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.ensureExistingDirectory;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static com.hazelcast.simulator.utils.TestUtils.createTmpDirectory;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LiveReportTest {
+
+    private File runDir;
+    private LiveReport liveReport;
+
+    @Before
+    public void before() {
+        runDir = createTmpDirectory();
+        liveReport = new LiveReport(1, 1, runDir.getAbsolutePath());
+        ensureExistingDirectory(liveReport.getDirectory());
+    }
+
+    @After
+    public void after() {
+        deleteQuiet(runDir);
+    }
+
+    @Test
+    public void test_whenNoHistograms() {
+        liveReport.update(Map.of("test", new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500)));
+
+        liveReport.write(Long.MAX_VALUE);
+
+        assertNull(liveReport.getTestReport("test"));
+        assertTrue(fileAsText(new File(liveReport.getDirectory(), "index.html")).contains("No latency histograms"));
+    }
+
+    @Test
+    public void test_histogramsOfWorkersMerged() throws Exception {
+        // the intervals of the workers are not aligned, but they end in the same bucket
+        liveReport.update(Map.of("test", stats(10_000, 100, MILLISECONDS.toNanos(1))));
+        liveReport.update(Map.of("test", stats(9_700, 50, MILLISECONDS.toNanos(3))));
+
+        // the interval isn't completed yet
+        liveReport.write(9_999);
+        assertEquals(0, liveReport.getTestReport("test").getIntervalCount());
+
+        liveReport.write(Long.MAX_VALUE);
+
+        LiveReport.TestReport testReport = liveReport.getTestReport("test");
+        assertEquals(150, testReport.getTotalCount());
+
+        List<String> lines = fileAsText(new File(liveReport.getDirectory(), "test.csv")).lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("epoch,timestamp,operations"));
+        String[] row = lines.get(1).split(",");
+        assertEquals("150", row[2]);
+        // the max of the merged histogram is the max of the slowest worker
+        assertEquals(3000, Long.parseLong(row[7]), 5);
+
+        Histogram histogram = (Histogram) new HistogramLogReader(new File(liveReport.getDirectory(), "test.hdr"))
+                .nextIntervalHistogram();
+        assertEquals(150, histogram.getTotalCount());
+
+        String html = fileAsText(new File(liveReport.getDirectory(), "index.html"));
+        assertTrue(html.contains("<h2>test</h2>"));
+        assertTrue(html.contains("<polyline"));
+        assertFalse(new File(liveReport.getDirectory(), "index.html.tmp").exists());
+    }
+
+    @Test
+    public void test_intervalsOfWorkerArrivingTogether_notMerged() {
+        // the first interval was sent late, so both arrive at the same time
+        liveReport.update(Map.of("test", stats(10_300, 10, MILLISECONDS.toNanos(1))));
+        liveReport.update(Map.of("test", stats(11_300, 20, MILLISECONDS.toNanos(1))));
+
+        liveReport.write(Long.MAX_VALUE);
+
+        List<String> lines = fileAsText(new File(liveReport.getDirectory(), "test.csv")).lines().toList();
+        assertEquals(3, lines.size());
+        assertEquals("10", lines.get(1).split(",")[2]);
+        assertEquals("20", lines.get(2).split(",")[2]);
+    }
+
+    @Test
+    public void test_histogramOfWrittenInterval_dropped() {
+        liveReport.update(Map.of("test", stats(10_300, 10, MILLISECONDS.toNanos(1))));
+        liveReport.write(11_000);
+
+        liveReport.update(Map.of("test", stats(10_500, 20, MILLISECONDS.toNanos(1))));
+        liveReport.update(Map.of("test", stats(9_500, 30, MILLISECONDS.toNanos(1))));
+        liveReport.update(Map.of("test", stats(11_300, 40, MILLISECONDS.toNanos(1))));
+        liveReport.write(Long.MAX_VALUE);
+
+        LiveReport.TestReport testReport = liveReport.getTestReport("test");
+        assertEquals(2, testReport.getDroppedCount());
+        assertEquals(2, testReport.getIntervalCount());
+        assertEquals(50, testReport.getTotalCount());
+
+        // the epochs are increasing and unique
+        List<String> lines = fileAsText(new File(liveReport.getDirectory(), "test.csv")).lines().toList();
+        assertEquals(3, lines.size());
+        assertTrue(Long.parseLong(lines.get(1).split(",")[0]) < Long.parseLong(lines.get(2).split(",")[0]));
+    }
+
+    @Test
+    public void test_chartDownsampled() {
+        for (int i = 1; i <= 3 * LiveReport.MAX_CHART_POINTS; i++) {
+            liveReport.update(Map.of("test", stats(i * 1000L, 1, MILLISECONDS.toNanos(1))));
+        }
+
+        liveReport.write(Long.MAX_VALUE);
+
+        assertEquals(3 * LiveReport.MAX_CHART_POINTS, liveReport.getTestReport("test").getIntervalCount());
+        String html = fileAsText(new File(liveReport.getDirectory(), "index.html"));
+        String points = html.substring(html.indexOf("points=\"") + 8);
+        points = points.substring(0, points.indexOf('"'));
+        assertTrue(points.trim().split(" ").length <= LiveReport.MAX_CHART_POINTS);
+    }
+
+    private static PerformanceStats stats(long intervalEndMillis, int count, long latencyNanos) {
+        Histogram histogram = new Histogram(1000, MILLISECONDS.toNanos(10_000), 3);
+        histogram.recordValueWithCount(latencyNanos, count);
+        histogram.setStartTimeStamp(intervalEndMillis - 1000);
+        histogram.setEndTimeStamp(intervalEndMillis);
+        PerformanceStats performanceStats = new PerformanceStats(count, count, count, latencyNanos, latencyNanos, latencyNanos);
+        performanceStats.setIntervalLatencyHistogram(histogram);
+        return performanceStats;
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Map;
 import static com.hazelcast.simulator.protocol.core.SimulatorAddress.workerAddress;
 import static com.hazelcast.simulator.worker.performance.PerformanceStats.aggregateAll;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -82,6 +83,42 @@ public class PerformanceStatsCollectorTest {
         assertEquals("           800 ops       100.00 ops/s      3,000 ms (avg)      2,400 µs (99.9th)      2,500 µs (max)", s);
     }
 
+    @Test
+    public void testFormatPerformanceNumbers_scheduleLag() {
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(
+                800, 100, 300, 1900.0d, 1800, 2500, MILLISECONDS.toNanos(20), 42));
+
+        String s = performanceStatsCollector.formatIntervalPerformanceNumbers(TEST_CASE_ID_1);
+        assertTrue(s, s.endsWith("         20 ms (max lag)             42 missed"));
+    }
+
+    @Test
+    public void testFormatPerformanceNumbers_outcomes() {
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(
+                800, 100, 300, 1900.0d, 1800, 2500, 0, 0, 30, 10, 15, 5));
+
+        String s = performanceStatsCollector.formatIntervalPerformanceNumbers(TEST_CASE_ID_1);
+        assertTrue(s, s.endsWith("        80.00 ops/s (goodput)  20.00% (errors)"));
+    }
+
+    @Test
+    public void testFormatPerformanceNumbers_withoutOutcomes() {
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(1000, 200, 500, 1900.0d, 1800, 2500));
+
+        String s = performanceStatsCollector.formatIntervalPerformanceNumbers(TEST_CASE_ID_1);
+        assertFalse(s, s.contains("goodput"));
+    }
+
+    @Test
+    public void testFormatPerformanceNumbers_slowestMember() {
+        PerformanceStats performanceStats = new PerformanceStats(800, 100, 300, 1900.0d, 1800, 2500);
+        performanceStats.setIntervalSlowestMember("10.0.0.1_5701", MILLISECONDS.toNanos(30));
+        update(a1w1, TEST_CASE_ID_1, performanceStats);
+
+        String s = performanceStatsCollector.formatIntervalPerformanceNumbers(TEST_CASE_ID_1);
+        assertTrue(s, s.endsWith("         30 ms (99.9th) 10.0.0.1_5701 (slowest member)"));
+    }
+
     private void update(SimulatorAddress address, String testId, PerformanceStats performanceStats) {
         Map<String, PerformanceStats> performanceStatsMap = new HashMap<String, PerformanceStats>();
         performanceStatsMap.put(testId, performanceStats);
@@ -0,0 +1,57 @@
+package com.hazelcast.simulator.probes.impl;
+
+import com.hazelcast.simulator.probes.impl.OutcomeProbe.Outcome;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OutcomeProbeTest {
+
+    private final OutcomeProbe probe = new OutcomeProbe("timeStep");
+
+    @Test
+    public void testRecord() {
+        probe.record(Outcome.ERROR, MICROSECONDS.toNanos(100));
+        probe.record(Outcome.TIMEOUT, MICROSECONDS.toNanos(200));
+        probe.record(Outcome.TIMEOUT, MICROSECONDS.toNanos(300));
+
+        Histogram errors = probe.getErrorRecorder().getIntervalHistogram();
+        assertEquals(1, errors.getTotalCount());
+        assertEquals(MICROSECONDS.toNanos(100), errors.getMaxValue(), MICROSECONDS.toNanos(1));
+
+        Histogram timeouts = probe.getTimeoutRecorder().getIntervalHistogram();
+        assertEquals(2, timeouts.getTotalCount());
+        assertEquals(MICROSECONDS.toNanos(300), timeouts.getMaxValue(), MICROSECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testRecord_negative() {
+        probe.record(Outcome.ERROR, -100);
+
+        Histogram histogram = probe.getErrorRecorder().getIntervalHistogram();
+        assertEquals(1, histogram.getTotalCount());
+        assertEquals(0, histogram.getMaxValue());
+    }
+
+    @Test
+    public void testRecord_tooLarge() {
+        probe.record(Outcome.TIMEOUT, Long.MAX_VALUE);
+
+        Histogram histogram = probe.getTimeoutRecorder().getIntervalHistogram();
+        assertTrue(histogram.valuesAreEquivalent(OutcomeProbe.HIGHEST_TRACKABLE_VALUE_NANOS, histogram.getMaxValue()));
+    }
+
+    @Test
+    public void testReset() {
+        probe.record(Outcome.ERROR, 100);
+        probe.record(Outcome.TIMEOUT, 100);
+
+        probe.reset();
+
+        assertEquals(0, probe.getErrorRecorder().getIntervalHistogram().getTotalCount());
+        assertEquals(0, probe.getTimeoutRecorder().getIntervalHistogram().getTotalCount());
+    }
+}
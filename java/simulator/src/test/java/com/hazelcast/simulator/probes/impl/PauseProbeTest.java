@@ -0,0 +1,61 @@
+package com.hazelcast.simulator.probes.impl;
+
+import com.hazelcast.simulator.probes.impl.PauseProbe.Pause;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PauseProbeTest {
+
+    private final PauseProbe probe = new PauseProbe("pause");
+
+    @Test
+    public void testRecord() {
+        probe.record(Pause.GC, MILLISECONDS.toNanos(10));
+        probe.record(Pause.SAFEPOINT, MILLISECONDS.toNanos(11));
+        probe.record(Pause.SAFEPOINT, MILLISECONDS.toNanos(2));
+
+        Histogram gc = probe.getRecorder(Pause.GC).getIntervalHistogram();
+        assertEquals(1, gc.getTotalCount());
+        assertTrue(gc.valuesAreEquivalent(MILLISECONDS.toNanos(10), gc.getMaxValue()));
+
+        Histogram safepoint = probe.getRecorder(Pause.SAFEPOINT).getIntervalHistogram();
+        assertEquals(2, safepoint.getTotalCount());
+        assertTrue(safepoint.valuesAreEquivalent(MILLISECONDS.toNanos(11), safepoint.getMaxValue()));
+
+        assertEquals(0, probe.getRecorder(Pause.TIME_TO_SAFEPOINT).getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testRecord_negative() {
+        probe.record(Pause.GC, -100);
+
+        Histogram histogram = probe.getRecorder(Pause.GC).getIntervalHistogram();
+        assertEquals(1, histogram.getTotalCount());
+        assertEquals(0, histogram.getMaxValue());
+    }
+
+    @Test
+    public void testRecord_tooLarge() {
+        probe.record(Pause.SAFEPOINT, Long.MAX_VALUE);
+
+        Histogram histogram = probe.getRecorder(Pause.SAFEPOINT).getIntervalHistogram();
+        assertTrue(histogram.valuesAreEquivalent(PauseProbe.HIGHEST_TRACKABLE_VALUE_NANOS, histogram.getMaxValue()));
+    }
+
+    @Test
+    public void testReset() {
+        for (Pause pause : Pause.values()) {
+            probe.record(pause, 100);
+        }
+
+        probe.reset();
+
+        for (Pause pause : Pause.values()) {
+            assertEquals(0, probe.getRecorder(pause).getIntervalHistogram().getTotalCount());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.hazelcast.simulator.probes.impl;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class ResourceUsageProbeTest {
+
+    private final ResourceUsageProbe probe = new ResourceUsageProbe("foo");
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewSampler_zeroSampleRate() {
+        probe.newSampler(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewSampler_tooLargeSampleRate() {
+        probe.newSampler(1.1);
+    }
+
+    @Test
+    public void testSampler_everyOperation() {
+        ResourceUsageProbe.Sampler sampler = probe.newSampler(1);
+
+        int sampled = run(sampler, 100);
+
+        assertEquals(100, sampled);
+        assertRecorded(100);
+    }
+
+    @Test
+    public void testSampler_fraction() {
+        ResourceUsageProbe.Sampler sampler = probe.newSampler(0.1);
+
+        int sampled = run(sampler, 1000);
+
+        assertEquals(100, sampled);
+        assertRecorded(100);
+    }
+
+    @Test
+    public void testSampler_allocation() {
+        assumeTrue(probe.isAllocationSupported());
+        ResourceUsageProbe.Sampler sampler = probe.newSampler(1);
+
+        byte[] bytes = null;
+        if (sampler.begin()) {
+            bytes = new byte[1024 * 1024];
+            sampler.end();
+        }
+
+        assertEquals(1024 * 1024, bytes.length);
+        Histogram histogram = probe.getAllocatedBytesRecorder().getIntervalHistogram();
+        assertEquals(1, histogram.getTotalCount());
+        assertTrue(histogram.getMaxValue() >= 1024 * 1024);
+    }
+
+    @Test
+    public void testReset() {
+        run(probe.newSampler(1), 10);
+
+        probe.reset();
+
+        assertEquals(0, probe.getAllocatedBytesRecorder().getIntervalHistogram().getTotalCount());
+        assertEquals(0, probe.getCpuNanosRecorder().getIntervalHistogram().getTotalCount());
+    }
+
+    private static int run(ResourceUsageProbe.Sampler sampler, int operations) {
+        int sampled = 0;
+        for (int i = 0; i < operations; i++) {
+            if (sampler.begin()) {
+                sampled++;
+                sampler.end();
+            }
+        }
+        return sampled;
+    }
+
+    private void assertRecorded(int expected) {
+        if (probe.isAllocationSupported()) {
+            assertEquals(expected, probe.getAllocatedBytesRecorder().getIntervalHistogram().getTotalCount());
+        }
+        if (probe.isCpuTimeSupported()) {
+            assertEquals(expected, probe.getCpuNanosRecorder().getIntervalHistogram().getTotalCount());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.hazelcast.simulator.probes.impl;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduleLagProbeTest {
+
+    private final ScheduleLagProbe probe = new ScheduleLagProbe("scheduleLag", MILLISECONDS.toNanos(1));
+
+    @Test
+    public void testRecordLag() {
+        probe.recordLag(MICROSECONDS.toNanos(100));
+        probe.recordLag(MICROSECONDS.toNanos(200));
+
+        Histogram histogram = probe.getRecorder().getIntervalHistogram();
+        assertEquals(2, histogram.getTotalCount());
+        assertEquals(MICROSECONDS.toNanos(200), histogram.getMaxValue(), MICROSECONDS.toNanos(1));
+        assertEquals(0, probe.missedSlotCount());
+    }
+
+    @Test
+    public void testRecordLag_negative() {
+        probe.recordLag(-100);
+
+        Histogram histogram = probe.getRecorder().getIntervalHistogram();
+        assertEquals(1, histogram.getTotalCount());
+        assertEquals(0, histogram.getMaxValue());
+    }
+
+    @Test
+    public void testRecordLag_tooLarge() {
+        probe.recordLag(Long.MAX_VALUE);
+
+        Histogram histogram = probe.getRecorder().getIntervalHistogram();
+        assertTrue(histogram.valuesAreEquivalent(ScheduleLagProbe.HIGHEST_TRACKABLE_VALUE_NANOS, histogram.getMaxValue()));
+    }
+
+    @Test
+    public void testMissedSlots() {
+        probe.recordLag(MILLISECONDS.toNanos(1) - 1);
+        probe.recordLag(MILLISECONDS.toNanos(1));
+        probe.recordLag(MILLISECONDS.toNanos(5));
+
+        assertEquals(2, probe.missedSlotCount());
+    }
+
+    @Test
+    public void testMissedSlots_unknownSlot() {
+        ScheduleLagProbe probe = new ScheduleLagProbe("scheduleLag", 0);
+
+        probe.recordLag(MILLISECONDS.toNanos(5));
+
+        assertEquals(0, probe.missedSlotCount());
+    }
+
+    @Test
+    public void testRecord() {
+        probe.record(System.nanoTime() - MILLISECONDS.toNanos(2));
+
+        assertTrue(probe.getRecorder().getIntervalHistogram().getMaxValue() >= MILLISECONDS.toNanos(2));
+        assertEquals(1, probe.missedSlotCount());
+    }
+
+    @Test
+    public void testReset() {
+        probe.recordLag(MILLISECONDS.toNanos(5));
+
+        probe.reset();
+
+        assertEquals(0, probe.getRecorder().getIntervalHistogram().getTotalCount());
+        assertEquals(0, probe.missedSlotCount());
+    }
+}
@@ -0,0 +1,152 @@
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import com.hazelcast.simulator.protocol.message.LogMessage;
+import com.hazelcast.simulator.protocol.message.SimulatorMessage;
+import org.apache.logging.log4j.Level;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.hazelcast.simulator.protocol.core.SimulatorAddress.coordinatorAddress;
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class InMemoryMessagingTest {
+
+    private final SimulatorAddress agentAddress = SimulatorAddress.fromString("A1");
+
+    private InMemoryBroker broker;
+    private Server agentServer;
+    private CoordinatorClient client;
+
+    @Before
+    public void before() {
+        broker = new InMemoryBroker();
+    }
+
+    @After
+    public void after() {
+        closeQuietly(client);
+        closeQuietly(agentServer);
+        closeQuietly(broker);
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        AtomicReference<SimulatorMessage> received = new AtomicReference<>();
+        LogMessage msg = new LogMessage("foo", Level.DEBUG);
+        agentServer = new InMemoryServer("agents", broker)
+                .setSelfAddress(agentAddress)
+                .setProcessor((m, source, promise) -> {
+                    received.set(m);
+                    promise.answer("OK:" + source);
+                })
+                .start();
+
+        client = new InMemoryCoordinatorClient(broker)
+                .setProcessor(mock(MessageHandler.class))
+                .start()
+                .connectToAgentBroker(agentAddress, "127.0.0.1");
+
+        Future<String> f = client.submit(agentAddress, msg);
+
+        assertEquals("OK:" + coordinatorAddress(), f.get(10, SECONDS));
+        assertEquals("foo", ((LogMessage) received.get()).getMessage());
+        assertNotSame(msg, received.get());
+    }
+
+    @Test
+    public void testSubmit_whenHandlerFails() throws Exception {
+        agentServer = new InMemoryServer("agents", broker)
+                .setSelfAddress(agentAddress)
+                .setProcessor((m, source, promise) -> {
+                    throw new IllegalStateException("failure");
+                })
+                .start();
+
+        client = new InMemoryCoordinatorClient(broker)
+                .setProcessor(mock(MessageHandler.class))
+                .start()
+                .connectToAgentBroker(agentAddress, "127.0.0.1");
+
+        Future<String> f = client.submit(agentAddress, new LogMessage("foo", Level.DEBUG));
+        try {
+            f.get(10, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("failure", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testSubmit_whenNoEndpoint() throws Exception {
+        Future<String> f = broker.submit(coordinatorAddress(), agentAddress, new LogMessage("foo", Level.DEBUG));
+        try {
+            f.get(10, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testSendCoordinator() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        client = new InMemoryCoordinatorClient(broker)
+                .setProcessor((m, source, promise) -> {
+                    if (agentAddress.equals(source)) {
+                        received.countDown();
+                    }
+                })
+                .start();
+
+        agentServer = new InMemoryServer("agents", broker)
+                .setSelfAddress(agentAddress)
+                .setProcessor(mock(MessageHandler.class))
+                .start();
+
+        agentServer.sendCoordinator(new LogMessage("foo", Level.DEBUG));
+
+        assertTrue(received.await(10, SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testConnectToAgentBroker_whenAgentNotStarted() throws Exception {
+        client = new InMemoryCoordinatorClient(broker)
+                .setProcessor(mock(MessageHandler.class))
+                .start()
+                .connectToAgentBroker(agentAddress, "127.0.0.1");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegister_whenAlreadyRegistered() {
+        broker.register(agentAddress, mock(MessageHandler.class));
+        broker.register(agentAddress, mock(MessageHandler.class));
+    }
+
+    @Test
+    public void testInvokeOnAllAgents() throws Exception {
+        agentServer = new InMemoryServer("agents", broker)
+                .setSelfAddress(agentAddress)
+                .setProcessor((m, source, promise) -> promise.answer("OK"))
+                .start();
+
+        client = new InMemoryCoordinatorClient(broker)
+                .setProcessor(mock(MessageHandler.class))
+                .start()
+                .connectToAgentBroker(agentAddress, "127.0.0.1");
+
+        assertEquals(1, client.invokeOnAllAgents(new LogMessage("foo", Level.DEBUG), SECONDS.toMillis(10)).size());
+    }
+}
@@ -0,0 +1,56 @@
+package com.hazelcast.simulator.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntArrayListTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_whenNegativeCapacity() {
+        new IntArrayList(-1);
+    }
+
+    @Test
+    public void testAdd_whenGrowing() {
+        IntArrayList list = new IntArrayList(0);
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+
+        assertEquals(100, list.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, list.get(i));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGet_whenBeyondSize() {
+        IntArrayList list = IntArrayList.of(1, 2);
+
+        list.get(2);
+    }
+
+    @Test
+    public void testClear() {
+        IntArrayList list = IntArrayList.of(1, 2, 3);
+
+        list.clear();
+
+        assertTrue(list.isEmpty());
+        list.add(4);
+        assertArrayEquals(new int[]{4}, list.toArray());
+    }
+
+    @Test
+    public void testOf() {
+        IntArrayList list = IntArrayList.of(3, 1, 2);
+
+        assertFalse(list.isEmpty());
+        assertArrayEquals(new int[]{3, 1, 2}, list.toArray());
+        assertEquals("[3, 1, 2]", list.toString());
+    }
+}
@@ -0,0 +1,103 @@
+package com.hazelcast.simulator.utils;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntHashSetTest {
+
+    private final IntHashSet set = new IntHashSet();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_whenNegativeExpectedSize() {
+        new IntHashSet(-1);
+    }
+
+    @Test
+    public void testAdd() {
+        assertTrue(set.add(10));
+        assertFalse(set.add(10));
+
+        assertTrue(set.contains(10));
+        assertFalse(set.contains(11));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testZero() {
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+
+        assertTrue(set.remove(0));
+        assertFalse(set.remove(0));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        set.add(1);
+        set.add(-1);
+
+        assertTrue(set.remove(1));
+        assertFalse(set.remove(1));
+
+        assertFalse(set.contains(1));
+        assertTrue(set.contains(-1));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testClear() {
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+
+        set.clear();
+
+        assertTrue(set.isEmpty());
+        for (int i = 0; i < 100; i++) {
+            assertFalse(set.contains(i));
+        }
+    }
+
+    @Test
+    public void testForEach() {
+        set.add(0);
+        set.add(5);
+        set.add(Integer.MIN_VALUE);
+
+        Set<Integer> found = new HashSet<>();
+        set.forEach(found::add);
+
+        assertEquals(Set.of(0, 5, Integer.MIN_VALUE), found);
+    }
+
+    @Test
+    public void testRandomOperations_whenComparedWithHashSet() {
+        // a small range of values causes a lot of collisions, so the probing and the removal get exercised
+        Random random = new Random(42);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(200) - 100;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+
+        for (int value = -100; value < 100; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
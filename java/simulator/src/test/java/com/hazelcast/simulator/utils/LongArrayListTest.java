@@ -0,0 +1,56 @@
+package com.hazelcast.simulator.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongArrayListTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_whenNegativeCapacity() {
+        new LongArrayList(-1);
+    }
+
+    @Test
+    public void testAdd_whenGrowing() {
+        LongArrayList list = new LongArrayList(0);
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+
+        assertEquals(100, list.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, list.get(i));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGet_whenBeyondSize() {
+        LongArrayList list = LongArrayList.of(1, 2);
+
+        list.get(2);
+    }
+
+    @Test
+    public void testClear() {
+        LongArrayList list = LongArrayList.of(1, 2, 3);
+
+        list.clear();
+
+        assertTrue(list.isEmpty());
+        list.add(4);
+        assertArrayEquals(new long[]{4}, list.toArray());
+    }
+
+    @Test
+    public void testOf() {
+        LongArrayList list = LongArrayList.of(3, 1, 2);
+
+        assertFalse(list.isEmpty());
+        assertArrayEquals(new long[]{3, 1, 2}, list.toArray());
+        assertEquals("[3, 1, 2]", list.toString());
+    }
+}
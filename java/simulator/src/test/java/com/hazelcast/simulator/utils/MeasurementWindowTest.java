@@ -0,0 +1,62 @@
+package com.hazelcast.simulator.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.writeText;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MeasurementWindowTest {
+
+    private File hdrFile;
+
+    @Before
+    public void before() throws Exception {
+        hdrFile = File.createTempFile("MeasurementWindowTest", ".hdr");
+    }
+
+    @After
+    public void after() {
+        deleteQuiet(hdrFile);
+    }
+
+    @Test
+    public void testRead() {
+        writeText("#[Latency histograms for test.probe]\n"
+                + "#" + MeasurementWindow.startComment(12500) + "\n"
+                + "0.127,1.007,2.769,HISTFAAAAEV42pNpmSzMwMCgyAABTBDKT4GBgdnNYMcCBvsPEBEJISEuATEZMQ8uFTEFHjEGIQ==\n"
+                + "#" + MeasurementWindow.endComment(300000) + "\n", hdrFile);
+
+        MeasurementWindow window = MeasurementWindow.read(hdrFile);
+
+        assertEquals(12.5, window.getStartSec(), 0.0001);
+        assertEquals(300, window.getEndSec(), 0.0001);
+    }
+
+    @Test
+    public void testRead_withoutMarkers() {
+        writeText("#[Latency histograms for test.probe]\n", hdrFile);
+
+        MeasurementWindow window = MeasurementWindow.read(hdrFile);
+
+        assertFalse(window.hasStart());
+        assertFalse(window.hasEnd());
+    }
+
+    @Test
+    public void testIntersect() {
+        MeasurementWindow window = new MeasurementWindow(10, 100)
+                .intersect(new MeasurementWindow(20, 90))
+                .intersect(new MeasurementWindow(Double.NaN, Double.NaN));
+
+        assertTrue(window.hasStart());
+        assertEquals(20, window.getStartSec(), 0.0001);
+        assertEquals(90, window.getEndSec(), 0.0001);
+    }
+}
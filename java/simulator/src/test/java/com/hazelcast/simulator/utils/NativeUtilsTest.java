@@ -6,6 +6,10 @@ import static com.hazelcast.simulator.utils.NativeUtils.getPID;
 import static com.hazelcast.simulator.utils.NativeUtils.getPidFromBeanString;
 import static com.hazelcast.simulator.utils.NativeUtils.getPidFromManagementBean;
 import static com.hazelcast.simulator.utils.NativeUtils.getPidViaReflection;
+import static com.hazelcast.simulator.utils.NativeUtils.parseAffinity;
+import static com.hazelcast.simulator.utils.NativeUtils.parseCpuList;
+import static com.hazelcast.simulator.utils.NativeUtils.toCpuList;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -59,4 +63,30 @@ public class NativeUtilsTest {
         Integer pid = getPidFromBeanString("test@localhost");
         assertNull(pid);
     }
+
+    @Test
+    public void testParseCpuList() {
+        assertArrayEquals(new int[]{0, 1, 2, 3, 8, 10, 11}, parseCpuList("0-3,8,10-11"));
+        assertArrayEquals(new int[]{5}, parseCpuList(" 5 "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseCpuList_notNumeric() {
+        parseCpuList("a-b");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseCpuList_reversedRange() {
+        parseCpuList("3-1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseAffinity_unknownNumaNode() {
+        parseAffinity("node100000");
+    }
+
+    @Test
+    public void testToCpuList() {
+        assertEquals("1,4,5", toCpuList(new int[]{1, 4, 5}));
+    }
 }
@@ -0,0 +1,106 @@
+package com.hazelcast.simulator.utils;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadPoolTest {
+
+    private final Random random = new Random();
+    private File file;
+
+    @After
+    public void after() {
+        deleteQuiet(file);
+    }
+
+    @Test
+    public void testNext() {
+        PayloadPool pool = new PayloadPool(SizeDistribution.parse("uniform(10,20)"), 100, random);
+
+        for (int i = 0; i < 1000; i++) {
+            byte[] payload = pool.next(random);
+            assertTrue(payload.length >= 10 && payload.length <= 20);
+        }
+
+        assertEquals(100, pool.getPoolSize());
+        assertTrue(pool.getPooledBytes() >= 1000 && pool.getPooledBytes() <= 2000);
+        // the realized sizes are those of the payloads in the pool
+        Histogram histogram = pool.getSizeHistogram();
+        assertEquals(100, histogram.getTotalCount());
+        assertTrue(histogram.getMinValue() >= 10);
+        assertTrue(histogram.getMaxValue() <= 20);
+    }
+
+    @Test
+    public void testNext_doesNotAllocate() {
+        PayloadPool pool = new PayloadPool(SizeDistribution.parse("fixed(10)"), 1, random);
+
+        assertSame(pool.next(random), pool.next(random));
+    }
+
+    @Test
+    public void testNextBuffer() {
+        PayloadPool pool = new PayloadPool(SizeDistribution.parse("fixed(64)"), 10, random, true);
+
+        ByteBuffer buffer = pool.nextBuffer(random);
+
+        assertTrue(buffer.isDirect());
+        assertTrue(buffer.isReadOnly());
+        assertEquals(64, buffer.remaining());
+        assertEquals(10, pool.getSizeHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testMaxSize() {
+        PayloadPool pool = new PayloadPool(SizeDistribution.parse("lognormal(1000,3)"), 1000, 2000, random, false);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(pool.next(random).length <= 2000);
+        }
+        assertTrue(pool.getClampedCount() > 0);
+        assertEquals(2000, pool.getSizeHistogram().getMaxValue(), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxSize_whenZero() {
+        new PayloadPool(SizeDistribution.parse("fixed(64)"), 10, 0, random, false);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNext_whenOffHeap() {
+        new PayloadPool(SizeDistribution.parse("fixed(64)"), 10, random, true).next(random);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNextBuffer_whenOnHeap() {
+        PayloadPool.create("fixed(64)", 10).nextBuffer(random);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPool() {
+        PayloadPool.create("fixed(64)", 0);
+    }
+
+    @Test
+    public void testWriteSizeHistogram() throws Exception {
+        PayloadPool pool = PayloadPool.create("fixed(64)", 10);
+        file = new File("payload-pool-test.hdr");
+
+        pool.writeSizeHistogram(file);
+
+        Histogram histogram = (Histogram) new HistogramLogReader(file).nextIntervalHistogram();
+        assertEquals(10, histogram.getTotalCount());
+        assertEquals(64, histogram.getMaxValue());
+    }
+}
@@ -0,0 +1,143 @@
+package com.hazelcast.simulator.utils;
+
+import org.HdrHistogram.Histogram;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Random;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.writeText;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SizeDistributionTest {
+
+    private static final int SAMPLES = 100000;
+
+    private final Random random = new Random(42);
+    private File cdfFile;
+
+    @After
+    public void after() {
+        deleteQuiet(cdfFile);
+    }
+
+    @Test
+    public void testFixed() {
+        Histogram histogram = sample("fixed(100)");
+
+        assertEquals(100, histogram.getMinValue());
+        assertEquals(100, histogram.getMaxValue());
+    }
+
+    @Test
+    public void testUniform() {
+        Histogram histogram = sample(" uniform( 10 , 20 ) ");
+
+        assertEquals(10, histogram.getMinValue());
+        assertEquals(20, histogram.getMaxValue());
+        assertEquals(15, histogram.getMean(), 0.1);
+    }
+
+    @Test
+    public void testLogNormal() {
+        Histogram histogram = sample("lognormal(1000,0.5)");
+
+        assertEquals(1000, histogram.getValueAtPercentile(50), 20);
+        // the 84th percentile is one sigma above the median
+        assertEquals(1000 * Math.exp(0.5), histogram.getValueAtPercentile(84.13), 40);
+    }
+
+    @Test
+    public void testBimodal() {
+        Histogram histogram = sample("bimodal(100,10000,0.1)");
+
+        assertEquals(100, histogram.getValueAtPercentile(45), 10);
+        assertEquals(10000, histogram.getValueAtPercentile(95), 500);
+        long small = histogram.getCountBetweenValues(0, 1000);
+        assertEquals(0.9, small / (double) SAMPLES, 0.01);
+    }
+
+    @Test
+    public void testPareto() {
+        Histogram histogram = sample("pareto(100,100000,1.5)");
+
+        assertTrue(histogram.getMinValue() >= 100);
+        assertTrue(histogram.getMaxValue() <= histogram.highestEquivalentValue(100000));
+        // P(X > x) = (min/x)^alpha, so the median is min * 2^(1/alpha)
+        assertEquals(100 * Math.pow(2, 1 / 1.5), histogram.getValueAtPercentile(50), 3);
+    }
+
+    @Test
+    public void testEmpirical() {
+        Histogram histogram = sample("empirical(100:0.5,1000:0.9,10000:1)");
+
+        assertEquals(100, histogram.getMinValue());
+        assertEquals(10000, histogram.getMaxValue(), 10);
+        assertEquals(0.5, histogram.getCountBetweenValues(0, 100) / (double) SAMPLES, 0.01);
+        assertEquals(0.9, histogram.getCountBetweenValues(0, 1000) / (double) SAMPLES, 0.01);
+    }
+
+    @Test
+    public void testEmpirical_fromFile() {
+        cdfFile = new File("size-distribution-test.cdf");
+        writeText("# size cumulativeProbability\n100 0.5\n200 1\n", cdfFile);
+
+        Histogram histogram = sample("empirical(" + cdfFile.getPath() + ")");
+
+        assertEquals(100, histogram.getMinValue());
+        assertEquals(200, histogram.getMaxValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmpirical_notEndingAtOne() {
+        SizeDistribution.parse("empirical(100:0.5,200:0.9)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmpirical_decreasing() {
+        SizeDistribution.parse("empirical(100:0.5,50:1)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknown() {
+        SizeDistribution.parse("gaussian(100,10)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingParentheses() {
+        SizeDistribution.parse("uniform");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongArgumentCount() {
+        SizeDistribution.parse("uniform(10)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSize() {
+        SizeDistribution.parse("fixed(-1)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMinLargerThanMax() {
+        SizeDistribution.parse("uniform(20,10)");
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("lognormal(1000,0.5)", SizeDistribution.parse("lognormal(1000, 0.5)").toString());
+        assertEquals("fixed(10)", SizeDistribution.parse("fixed(10)").toString());
+    }
+
+    private Histogram sample(String spec) {
+        SizeDistribution distribution = SizeDistribution.parse(spec);
+        Histogram histogram = new Histogram(3);
+        for (int i = 0; i < SAMPLES; i++) {
+            histogram.recordValue(distribution.nextSize(random));
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,49 @@
+package com.hazelcast.simulator.worker;
+
+import com.hazelcast.simulator.worker.messages.ClockOffsetMessage;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GlobalClockTest {
+
+    private final GlobalClock clock = new GlobalClock();
+
+    @Test
+    public void test_notSynchronized() {
+        long wallNanos = MILLISECONDS.toNanos(System.currentTimeMillis());
+
+        assertEquals(GlobalClock.UNKNOWN_ERROR_BOUND, clock.errorBoundNanos());
+        assertEquals(wallNanos, clock.nanoTime(), SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void test_offset() {
+        long refNanos = System.nanoTime();
+        clock.update(new ClockOffsetMessage(refNanos, 1_000_000_000L, 0, 100));
+
+        long before = System.nanoTime();
+        long global = clock.nanoTime();
+        long after = System.nanoTime();
+
+        assertTrue(global >= before + 1_000_000_000L);
+        assertTrue(global <= after + 1_000_000_000L);
+        assertEquals(100, clock.errorBoundNanos());
+    }
+
+    @Test
+    public void test_drift() {
+        // the reference is 100 seconds ago, so a drift of 10 ppm adds 1 millisecond
+        long refNanos = System.nanoTime() - SECONDS.toNanos(100);
+        clock.update(new ClockOffsetMessage(refNanos, 0, 10, 100));
+
+        long before = System.nanoTime();
+        long global = clock.nanoTime();
+
+        assertEquals(before + MILLISECONDS.toNanos(1), global, MILLISECONDS.toNanos(100));
+        assertTrue(global - before >= 999_000);
+    }
+}
@@ -8,6 +8,8 @@ import com.hazelcast.simulator.protocol.StubPromise;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.protocol.exception.HandleException;
 import com.hazelcast.simulator.utils.ExceptionReporter;
+import com.hazelcast.simulator.worker.messages.ClockOffsetMessage;
+import com.hazelcast.simulator.worker.messages.ClockProbeMessage;
 import com.hazelcast.simulator.worker.messages.CreateTestMessage;
 import com.hazelcast.simulator.worker.messages.ExecuteScriptMessage;
 import com.hazelcast.simulator.worker.messages.StartPhaseMessage;
@@ -24,6 +26,7 @@ import static com.hazelcast.simulator.TestEnvironmentUtils.setupFakeUserDir;
 import static com.hazelcast.simulator.TestEnvironmentUtils.teardownFakeUserDir;
 import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
 import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -39,6 +42,7 @@ public class WorkerMessageHandlerTest {
     private SimulatorAddress sourceAddress = SimulatorAddress.coordinatorAddress();
     private StubPromise promise;
     private ScriptExecutor scriptExecutor;
+    private GlobalClock globalClock;
 
     @Before
     public void before() {
@@ -47,7 +51,8 @@ public class WorkerMessageHandlerTest {
         testManager = mock(TestManager.class);
         worker = mock(Worker.class);
         scriptExecutor = mock(ScriptExecutor.class);
-        processor = new WorkerMessageHandler(worker, testManager, scriptExecutor);
+        globalClock = new GlobalClock();
+        processor = new WorkerMessageHandler(worker, testManager, scriptExecutor, globalClock);
         promise = new StubPromise();
     }
 
@@ -105,6 +110,27 @@ public class WorkerMessageHandlerTest {
         assertTrue(promise.hasAnswer());
     }
 
+    @Test
+    public void test_ClockProbe() throws Exception {
+        long before = System.nanoTime();
+
+        processor.process(new ClockProbeMessage(), sourceAddress, promise);
+
+        long workerNanos = Long.parseLong((String) promise.getAnswer());
+        assertTrue(workerNanos >= before);
+        assertTrue(workerNanos <= System.nanoTime());
+    }
+
+    @Test
+    public void test_ClockOffset() throws Exception {
+        ClockOffsetMessage op = new ClockOffsetMessage(System.nanoTime(), 1000, 0, 50);
+
+        processor.process(op, sourceAddress, promise);
+
+        assertEquals(50, globalClock.errorBoundNanos());
+        assertTrue(promise.hasAnswer());
+    }
+
     // make sure that unhandled exceptions are trapped.
     @Test
     public void test_unhandledException() throws Exception {
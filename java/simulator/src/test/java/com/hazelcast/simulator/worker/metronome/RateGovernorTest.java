@@ -0,0 +1,83 @@
+package com.hazelcast.simulator.worker.metronome;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+
+public class RateGovernorTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroRate() {
+        new RateGovernor(0);
+    }
+
+    @Test
+    public void testConsecutiveSlots() {
+        RateGovernor governor = new RateGovernor(10);
+        long slotNanos = governor.getSlotNanos();
+        assertEquals(MILLISECONDS.toNanos(100), slotNanos);
+
+        long next = governor.acquire(0) + slotNanos;
+
+        assertEquals(next, governor.acquire(0));
+        next += slotNanos;
+        assertEquals(next, governor.acquire(1));
+        next += slotNanos;
+        assertEquals(next, governor.acquire(0));
+    }
+
+    @Test
+    public void testTotalRate() {
+        RateGovernor governor = new RateGovernor(1000, 0);
+        long slotNanos = governor.getSlotNanos();
+        long durationNanos = MILLISECONDS.toNanos(500);
+
+        long total = 0;
+        for (long now = 0; now <= durationNanos; now += slotNanos / 10) {
+            for (int priority = 0; priority <= 1; priority++) {
+                while (governor.tryAcquire(priority, now) != RateGovernor.NO_SLOT) {
+                    total++;
+                }
+            }
+        }
+
+        // 500 slots in the duration, the slot at the start and the slots the higher priority class claimed ahead
+        assertEquals(501 + RateGovernor.LOOKAHEAD_SLOTS, total);
+    }
+
+    @Test
+    public void testPriority() {
+        RateGovernor governor = new RateGovernor(1000, 0);
+        long slotNanos = governor.getSlotNanos();
+
+        assertEquals(0, governor.tryAcquire(0, 0));
+        // the next slot isn't due yet, so the lowest priority class has to wait
+        assertEquals(RateGovernor.NO_SLOT, governor.tryAcquire(0, 0));
+        // while a higher priority class claims the slots ahead
+        for (int i = 1; i <= RateGovernor.LOOKAHEAD_SLOTS; i++) {
+            assertEquals(i * slotNanos, governor.tryAcquire(1, 0));
+        }
+        assertEquals(RateGovernor.NO_SLOT, governor.tryAcquire(1, 0));
+        // and an even higher priority class reaches even further ahead
+        assertEquals((RateGovernor.LOOKAHEAD_SLOTS + 1) * slotNanos, governor.tryAcquire(2, 0));
+
+        // the lowest priority class gets the first slot that is left once it is due
+        long next = (RateGovernor.LOOKAHEAD_SLOTS + 2) * slotNanos;
+        assertEquals(RateGovernor.NO_SLOT, governor.tryAcquire(0, next - 1));
+        assertEquals(next, governor.tryAcquire(0, next));
+    }
+
+    @Test
+    public void testBurst() {
+        RateGovernor governor = new RateGovernor(1000, 0);
+        long slotNanos = governor.getSlotNanos();
+        long now = 100 * slotNanos;
+
+        // the unused capacity older than the burst is lost
+        for (int i = RateGovernor.BURST_SLOTS; i >= 0; i--) {
+            assertEquals(now - i * slotNanos, governor.tryAcquire(0, now));
+        }
+        assertEquals(RateGovernor.NO_SLOT, governor.tryAcquire(0, now));
+    }
+}
@@ -0,0 +1,50 @@
+package com.hazelcast.simulator.worker.metronome;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RateGovernorsTest {
+
+    private final RateGovernors governors = new RateGovernors();
+
+    @Test
+    public void testAcquire_sameName() {
+        RateGovernor governor = governors.acquire("budget", 100, "test1");
+
+        assertSame(governor, governors.acquire("budget", 100, "test2"));
+        assertEquals(1, governors.size());
+    }
+
+    @Test
+    public void testAcquire_otherName() {
+        RateGovernor governor = governors.acquire("budget1", 100, "test1");
+
+        assertNotSame(governor, governors.acquire("budget2", 100, "test2"));
+        assertEquals(2, governors.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAcquire_rateConflict() {
+        governors.acquire("budget", 100, "test1");
+        governors.acquire("budget", 200, "test2");
+    }
+
+    @Test
+    public void testRelease() {
+        RateGovernor governor = governors.acquire("budget", 100, "test1");
+        governors.acquire("budget", 100, "test2");
+
+        governors.release("test1");
+        assertSame(governor, governors.acquire("budget", 100, "test3"));
+
+        governors.release("test2");
+        governors.release("test3");
+        assertEquals(0, governors.size());
+
+        // the next test gets a fresh budget, also with another rate
+        assertEquals(200, governors.acquire("budget", 200, "test4").getRatePerSecond(), 0);
+    }
+}
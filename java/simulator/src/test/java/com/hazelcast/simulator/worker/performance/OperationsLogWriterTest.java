@@ -0,0 +1,95 @@
+package com.hazelcast.simulator.worker.performance;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static org.junit.Assert.assertEquals;
+
+public class OperationsLogWriterTest {
+
+    @Rule
+    public TemporaryFolder dir = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws IOException {
+        File file = dir.newFile();
+        OperationsLogWriter writer = new OperationsLogWriter(file);
+
+        writer.write(1500, "ts", 100, 10, 10.5);
+
+        assertEquals("epoch,timestamp,operations,operations-delta,operations/second\n"
+                + "1.5,ts,100,10,10.5\n", fileAsText(file));
+    }
+
+    @Test
+    public void testWrite_withGauges() throws IOException {
+        File file = dir.newFile();
+        OperationsLogWriter writer = new OperationsLogWriter(file);
+
+        Map<String, Double> gauges = new LinkedHashMap<>();
+        gauges.put("hits", 5d);
+        gauges.put("ratio", 0.25);
+        writer.write(1000, "ts", 100, 10, 10, gauges);
+
+        gauges.put("ratio", Double.NaN);
+        gauges.put("late", 1d);
+        writer.write(2000, "ts", 110, 10, 10, gauges);
+
+        gauges.remove("hits");
+        writer.write(3000, "ts", 120, 10, 10, gauges);
+
+        assertEquals("epoch,timestamp,operations,operations-delta,operations/second,hits,ratio\n"
+                + "1,ts,100,10,10,5,0.25\n"
+                + "2,ts,110,10,10,5,\n"
+                + "3,ts,120,10,10,,\n", fileAsText(file));
+    }
+
+    @Test
+    public void testWrite_withMeasurementWindow() throws IOException {
+        File file = dir.newFile();
+        OperationsLogWriter writer = new OperationsLogWriter(file, 2);
+
+        Map<String, Double> gauges = new LinkedHashMap<>();
+        gauges.put("hits", 5d);
+        writer.write(1000, "ts", 10, 10, 10, gauges);
+        writer.write(2000, "ts", 20, 10, 10, gauges);
+        writer.write(3000, "ts", 30, 10, 10, gauges);
+        // only the row that can't be part of the window anymore has been written
+        assertEquals("epoch,timestamp,operations,operations-delta,operations/second,measurement-window,hits\n"
+                + "1,ts,10,10,10,0,5\n", fileAsText(file));
+
+        // the steady state is detected after the third row, the window starts at the start of the third interval
+        writer.startMeasurementWindow(2000);
+        writer.write(4000, "ts", 40, 10, 10, gauges);
+        writer.endMeasurementWindow(4000);
+        writer.write(5000, "ts", 50, 10, 10, gauges);
+
+        assertEquals("epoch,timestamp,operations,operations-delta,operations/second,measurement-window,hits\n"
+                + "1,ts,10,10,10,0,5\n"
+                + "2,ts,20,10,10,0,5\n"
+                + "3,ts,30,10,10,1,5\n"
+                + "4,ts,40,10,10,1,5\n"
+                + "5,ts,50,10,10,0,5\n", fileAsText(file));
+    }
+
+    @Test
+    public void testWrite_withMeasurementWindow_neverStarted() throws IOException {
+        File file = dir.newFile();
+        OperationsLogWriter writer = new OperationsLogWriter(file, 2);
+
+        writer.write(1000, "ts", 10, 10, 10);
+        writer.write(2000, "ts", 20, 10, 10);
+        writer.endMeasurementWindow(2000);
+
+        assertEquals("epoch,timestamp,operations,operations-delta,operations/second,measurement-window\n"
+                + "1,ts,10,10,10,0\n"
+                + "2,ts,20,10,10,0\n", fileAsText(file));
+    }
+}
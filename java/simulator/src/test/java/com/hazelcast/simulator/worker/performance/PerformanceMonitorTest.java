@@ -11,10 +11,13 @@ import com.hazelcast.simulator.worker.messages.PerformanceStatsMessage;
 import com.hazelcast.simulator.worker.testcontainer.TestContainer;
 import com.hazelcast.simulator.worker.testcontainer.TestContextImpl;
 import com.hazelcast.simulator.worker.testcontainer.TestManager;
+import org.HdrHistogram.Histogram;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.io.File;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -23,7 +26,10 @@ import static com.hazelcast.simulator.TestEnvironmentUtils.teardownFakeUserDir;
 import static com.hazelcast.simulator.utils.CommonUtils.joinThread;
 import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
 import static com.hazelcast.simulator.utils.EmptyStatement.ignore;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
 import static com.hazelcast.simulator.utils.TestUtils.assertTrueEventually;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
@@ -119,12 +125,69 @@ public class PerformanceMonitorTest {
         performanceMonitor.close();
     }
 
+    @Test
+    public void test_whenRecordPauses_thenPausesPersisted() {
+        performanceMonitor.start();
+
+        TestCase testCase = new TestCase(TEST_NAME);
+        testCase.setProperty("recordPauses", true);
+        TestContext testContext = addTest(new DummyTest(), 0, testCase);
+
+        Thread runTestThread = new RunTestThread();
+        runTestThread.start();
+
+        File operationsFile = new File(getUserDir(), TEST_NAME + ".operations.csv");
+        assertTrueEventually(() -> {
+            assertTrue(operationsFile.exists());
+            assertTrue(new File(getUserDir(), TEST_NAME + ".pause.gc.hdr").exists());
+            assertTrue(new File(getUserDir(), TEST_NAME + ".pause.safepoint.hdr").exists());
+        });
+
+        testContext.stop();
+        joinThread(runTestThread);
+
+        performanceMonitor.close();
+
+        String header = fileAsText(operationsFile).split("\n")[0];
+        assertTrue(header, header.endsWith(
+                ",pause-gc-ms,pause-safepoint-ms,pause-ttsp-ms,pause-max-ms,pause-explains-p99.9"));
+    }
+
+    @Test
+    public void test_whenSendLatencyHistograms_thenHistogramSent() {
+        performanceMonitor.close();
+        performanceMonitor = new OperationsMonitor(server, containerManager, 1, true);
+        performanceMonitor.start();
+
+        TestContext testContext = addTest(new DummyTest());
+
+        Thread runTestThread = new RunTestThread();
+        runTestThread.start();
+
+        assertTrueEventually(() -> {
+            ArgumentCaptor<PerformanceStatsMessage> captor = ArgumentCaptor.forClass(PerformanceStatsMessage.class);
+            verify(server, atLeastOnce()).sendCoordinator(captor.capture());
+            boolean histogramSent = false;
+            for (PerformanceStatsMessage msg : captor.getAllValues()) {
+                Histogram histogram = msg.getPerformanceStats().get(TEST_NAME).getIntervalLatencyHistogram();
+                histogramSent |= histogram != null && histogram.getTotalCount() > 0;
+            }
+            assertTrue(histogramSent);
+        });
+
+        testContext.stop();
+        joinThread(runTestThread);
+    }
+
     private TestContext addTest(Object test) {
         return addTest(test, 0);
     }
 
     private DelayTestContext addTest(Object test, int delayMillis) {
-        TestCase testCase = new TestCase(TEST_NAME);
+        return addTest(test, delayMillis, new TestCase(TEST_NAME));
+    }
+
+    private DelayTestContext addTest(Object test, int delayMillis, TestCase testCase) {
         testCase.setProperty("threadCount", 1);
         DelayTestContext testContext = new DelayTestContext(delayMillis);
         TestContainer testContainer = new TestContainer(testContext, test, testCase);
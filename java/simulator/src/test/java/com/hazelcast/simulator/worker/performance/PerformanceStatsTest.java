@@ -1,9 +1,13 @@
 package com.hazelcast.simulator.worker.performance;
 
+import com.hazelcast.simulator.protocol.message.SimulatorMessageCodec;
+import com.hazelcast.simulator.worker.messages.PerformanceStatsMessage;
+import org.HdrHistogram.Histogram;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class PerformanceStatsTest {
@@ -55,6 +59,48 @@ public class PerformanceStatsTest {
         assertEquals(500, addState.getIntervalLatencyMaxNanos());
     }
 
+    @Test
+    public void testAdd_scheduleLag() {
+        PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200, 300, 4);
+
+        addState.add(new PerformanceStats(150, 6.0, 12.0, 90.0d, 80, 100, 500, 6));
+
+        assertEquals(500, addState.getIntervalScheduleLagMaxNanos());
+        assertEquals(10, addState.getMissedSlotCount());
+    }
+
+    @Test
+    public void testAdd_scheduleLag_withoutAddOperationCountAndThroughput() {
+        PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200, 300, 4);
+
+        addState.add(new PerformanceStats(150, 6.0, 12.0, 90.0d, 80, 100, 200, 6), false);
+
+        assertEquals(300, addState.getIntervalScheduleLagMaxNanos());
+        assertEquals(6, addState.getMissedSlotCount());
+    }
+
+    @Test
+    public void testAdd_outcomes() {
+        PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200, 0, 0, 3, 1, 1.5, 0.5);
+
+        addState.add(new PerformanceStats(150, 6.0, 12.0, 90.0d, 80, 100, 0, 0, 4, 2, 2.0, 1.0));
+
+        assertEquals(7, addState.getErrorCount());
+        assertEquals(3, addState.getTimeoutCount());
+        assertEquals(3.5, addState.getIntervalErrorThroughput(), 0.00001);
+        assertEquals(1.5, addState.getIntervalTimeoutThroughput(), 0.00001);
+        assertEquals(6.0, addState.getIntervalGoodput(), 0.00001);
+    }
+
+    @Test
+    public void testCopy_outcomes() {
+        PerformanceStats copy = new PerformanceStats(new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200, 0, 0, 3, 1, 1.5, 0.5));
+
+        assertEquals(3, copy.getErrorCount());
+        assertEquals(1, copy.getTimeoutCount());
+        assertEquals(3.0, copy.getIntervalGoodput(), 0.00001);
+    }
+
     @Test
     public void testAdd_withoutAddOperationCountAndThroughput() {
         PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200);
@@ -97,6 +143,48 @@ public class PerformanceStatsTest {
         assertEquals(500, addState.getIntervalLatencyMaxNanos());
     }
 
+    @Test
+    public void testAdd_slowestMember() {
+        PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500);
+        addState.setIntervalSlowestMember("10.0.0.1_5701", 300);
+
+        PerformanceStats other = new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500);
+        other.setIntervalSlowestMember("10.0.0.2_5701", 700);
+        addState.add(other);
+        addState.add(new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500));
+
+        assertEquals("10.0.0.2_5701", addState.getIntervalSlowestMember());
+        assertEquals(700, addState.getIntervalSlowestMemberLatency999PercentileNanos());
+        assertEquals("10.0.0.2_5701", new PerformanceStats(addState).getIntervalSlowestMember());
+    }
+
+    @Test
+    public void testIntervalLatencyHistogram_whenNotSet() {
+        assertNull(new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500).getIntervalLatencyHistogram());
+    }
+
+    @Test
+    public void testIntervalLatencyHistogram_whenSentAsJson() {
+        Histogram histogram = new Histogram(1000, 10_000_000L, 3);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordValue(i * 1000L);
+        }
+        histogram.setStartTimeStamp(10_000);
+        histogram.setEndTimeStamp(11_000);
+        PerformanceStats performanceStats = new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500);
+        performanceStats.setIntervalLatencyHistogram(histogram);
+        PerformanceStatsMessage msg = new PerformanceStatsMessage();
+        msg.addPerformanceStats("test", performanceStats);
+
+        PerformanceStatsMessage found = (PerformanceStatsMessage) SimulatorMessageCodec.fromJson(
+                SimulatorMessageCodec.toJson(msg), PerformanceStatsMessage.class);
+
+        Histogram foundHistogram = found.getPerformanceStats().get("test").getIntervalLatencyHistogram();
+        assertEquals(histogram, foundHistogram);
+        assertEquals(10_000, foundHistogram.getStartTimeStamp());
+        assertEquals(11_000, foundHistogram.getEndTimeStamp());
+    }
+
     @Test
     public void testToString() {
         assertNotNull(new PerformanceStats().toString());
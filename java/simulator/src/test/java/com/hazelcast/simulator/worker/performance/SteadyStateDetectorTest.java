@@ -0,0 +1,77 @@
+package com.hazelcast.simulator.worker.performance;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SteadyStateDetectorTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_whenWindowSizeZero() {
+        new SteadyStateDetector(0, 0.05, 0.25);
+    }
+
+    @Test
+    public void testAdd_whenWindowNotFilled() {
+        SteadyStateDetector detector = new SteadyStateDetector(3, 0.05, 0.25);
+
+        assertEquals(-1, detector.add(1000, 100, 10));
+        assertEquals(-1, detector.add(2000, 100, 10));
+    }
+
+    @Test
+    public void testAdd_whenStable() {
+        SteadyStateDetector detector = new SteadyStateDetector(3, 0.05, 0.25);
+
+        detector.add(1000, 100, 10);
+        detector.add(2000, 101, 10);
+
+        assertEquals(1000, detector.add(3000, 99, 11));
+    }
+
+    @Test
+    public void testAdd_whenThroughputWarmingUp() {
+        SteadyStateDetector detector = new SteadyStateDetector(3, 0.05, 0.25);
+
+        assertEquals(-1, detector.add(1000, 10, 10));
+        assertEquals(-1, detector.add(2000, 50, 10));
+        assertEquals(-1, detector.add(3000, 100, 10));
+        assertEquals(-1, detector.add(4000, 100, 10));
+        assertEquals(3000, detector.add(5000, 100, 10));
+    }
+
+    @Test
+    public void testAdd_whenLatencyUnstable() {
+        SteadyStateDetector detector = new SteadyStateDetector(3, 0.05, 0.25);
+
+        detector.add(1000, 100, 1000);
+        detector.add(2000, 100, 100);
+
+        assertEquals(-1, detector.add(3000, 100, 10));
+    }
+
+    @Test
+    public void testAdd_whenNoLatency() {
+        SteadyStateDetector detector = new SteadyStateDetector(2, 0.05, 0.25);
+
+        detector.add(1000, 100, -1);
+
+        assertEquals(1000, detector.add(2000, 100, -1));
+    }
+
+    @Test
+    public void testAdd_whenNoThroughput() {
+        SteadyStateDetector detector = new SteadyStateDetector(2, 0.05, 0.25);
+
+        detector.add(1000, 0, 10);
+
+        assertEquals(-1, detector.add(2000, 0, 10));
+    }
+
+    @Test
+    public void testCoefficientOfVariation() {
+        assertEquals(0, SteadyStateDetector.coefficientOfVariation(new double[]{5, 5, 5}), 0.00001);
+        assertEquals(0, SteadyStateDetector.coefficientOfVariation(new double[]{0, 0}), 0.00001);
+        assertEquals(0.5, SteadyStateDetector.coefficientOfVariation(new double[]{1, 3}), 0.00001);
+    }
+}
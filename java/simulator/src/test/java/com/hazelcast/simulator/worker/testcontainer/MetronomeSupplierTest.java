@@ -1,9 +1,12 @@
 package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.worker.GlobalClock;
 import com.hazelcast.simulator.worker.metronome.BusySpinningMetronome;
 import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
 import com.hazelcast.simulator.worker.metronome.Metronome;
+import com.hazelcast.simulator.worker.metronome.RateGovernors;
+import com.hazelcast.simulator.worker.metronome.SharedRateMetronome;
 import com.hazelcast.simulator.worker.metronome.SleepingMetronome;
 import org.junit.Test;
 
@@ -15,6 +18,7 @@ import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class MetronomeSupplierTest {
 
@@ -93,4 +97,95 @@ public class MetronomeSupplierTest {
         Metronome m = supplier.get();
         assertEquals(EmptyMetronome.class, m.getClass());
     }
+
+    @Test
+    public void withSharedRate() {
+        PropertyBinding propertyBinding = new PropertyBinding(
+                new TestCase("foo")
+                        .setProperty("sharedRateName", "budget")
+                        .setProperty("sharedRatePerSecond", 1000)
+                        .setProperty("ratePriority", 2));
+        MetronomeSupplier supplier = new MetronomeSupplier("", propertyBinding, 5);
+
+        Metronome m = supplier.get();
+        assertEquals(SharedRateMetronome.class, m.getClass());
+        SharedRateMetronome metronome = (SharedRateMetronome) m;
+        assertEquals(0, metronome.getIntervalNanos());
+        assertEquals(2, metronome.getPriority());
+        assertEquals(1000, metronome.getGovernor().getRatePerSecond(), 0);
+    }
+
+    @Test
+    public void withSharedRate_perExecutionGroup() {
+        PropertyBinding propertyBinding = new PropertyBinding(
+                new TestCase("foo")
+                        .setProperty("sharedRateName", "budget")
+                        .setProperty("sharedRatePerSecond", 1000)
+                        .setProperty("groupSharedRateName", "groupBudget")
+                        .setProperty("groupSharedRatePerSecond", 2000)
+                        .setProperty("groupRatePriority", 1));
+        MetronomeSupplier supplier = new MetronomeSupplier("group", propertyBinding, 5);
+
+        SharedRateMetronome metronome = (SharedRateMetronome) supplier.get();
+        assertEquals(1, metronome.getPriority());
+        assertEquals(2000, metronome.getGovernor().getRatePerSecond(), 0);
+    }
+
+    @Test
+    public void withSharedRate_andOwnRate() {
+        PropertyBinding propertyBinding = new PropertyBinding(
+                new TestCase("foo")
+                        .setProperty("sharedRateName", "budget")
+                        .setProperty("sharedRatePerSecond", 1000)
+                        .setProperty("interval", "10ms"));
+        MetronomeSupplier supplier = new MetronomeSupplier("", propertyBinding, 5);
+
+        SharedRateMetronome metronome = (SharedRateMetronome) supplier.get();
+        assertEquals(MILLISECONDS.toNanos(50), metronome.getIntervalNanos());
+        assertEquals(0, metronome.getPriority());
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void withSharedRate_negativePriority() {
+        PropertyBinding propertyBinding = new PropertyBinding(
+                new TestCase("foo")
+                        .setProperty("sharedRateName", "budget")
+                        .setProperty("sharedRatePerSecond", 1000)
+                        .setProperty("ratePriority", -1));
+        new MetronomeSupplier("", propertyBinding, 1);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void withSharedRate_missingName() {
+        PropertyBinding propertyBinding = new PropertyBinding(
+                new TestCase("foo")
+                        .setProperty("sharedRatePerSecond", 1000));
+        new MetronomeSupplier("", propertyBinding, 1);
+    }
+
+    @Test
+    public void withSharedRate_sharedBySameName() {
+        RateGovernors rateGovernors = new RateGovernors();
+        SharedRateMetronome metronome1 = newSharedRateMetronome(rateGovernors, "test1", "budget", 1000);
+        SharedRateMetronome metronome2 = newSharedRateMetronome(rateGovernors, "test2", "budget", 1000);
+
+        assertSame(metronome1.getGovernor(), metronome2.getGovernor());
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void withSharedRate_rateConflict() {
+        RateGovernors rateGovernors = new RateGovernors();
+        newSharedRateMetronome(rateGovernors, "test1", "budget", 1000);
+        newSharedRateMetronome(rateGovernors, "test2", "budget", 2000);
+    }
+
+    private static SharedRateMetronome newSharedRateMetronome(RateGovernors rateGovernors, String testId, String name,
+                                                              double ratePerSecond) {
+        PropertyBinding propertyBinding = new PropertyBinding(
+                new TestCase(testId)
+                        .setProperty("sharedRateName", name)
+                        .setProperty("sharedRatePerSecond", ratePerSecond))
+                .setTestContext(new TestContextImpl(testId, null, null, new GlobalClock(), rateGovernors));
+        return (SharedRateMetronome) new MetronomeSupplier("", propertyBinding, 1).get();
+    }
 }
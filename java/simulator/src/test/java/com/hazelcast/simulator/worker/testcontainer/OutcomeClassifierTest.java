@@ -0,0 +1,51 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.probes.impl.OutcomeProbe.Outcome;
+import com.hazelcast.simulator.test.StopException;
+import org.junit.Test;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OutcomeClassifierTest {
+
+    private final OutcomeClassifier classifier = OutcomeClassifier.create(
+            "java.lang.IllegalStateException, java.lang.RuntimeException", TimeoutException.class.getName());
+
+    @Test
+    public void testCreate_whenNothingConfigured() {
+        assertNull(OutcomeClassifier.create(null, " "));
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testCreate_whenClassNotFound() {
+        OutcomeClassifier.create("com.example.NoSuchException", null);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testCreate_whenNotThrowable() {
+        OutcomeClassifier.create("java.lang.String", null);
+    }
+
+    @Test
+    public void testClassify() {
+        assertEquals(Outcome.ERROR, classifier.classify(new IllegalStateException()));
+        assertEquals(Outcome.ERROR, classifier.classify(new IllegalArgumentException()));
+        assertEquals(Outcome.TIMEOUT, classifier.classify(new TimeoutException()));
+        assertNull(classifier.classify(new Exception()));
+        assertNull(classifier.classify(new Error()));
+    }
+
+    @Test
+    public void testClassify_whenWrapped() {
+        assertEquals(Outcome.TIMEOUT, classifier.classify(new CompletionException(new TimeoutException())));
+    }
+
+    @Test
+    public void testClassify_whenStopException() {
+        assertNull(classifier.classify(new StopException()));
+    }
+}
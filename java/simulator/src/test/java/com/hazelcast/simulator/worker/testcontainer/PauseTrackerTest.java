@@ -0,0 +1,58 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.probes.impl.PauseProbe;
+import com.hazelcast.simulator.probes.impl.PauseProbe.Pause;
+import org.HdrHistogram.Histogram;
+import org.junit.After;
+import org.junit.Test;
+
+import static com.hazelcast.simulator.utils.TestUtils.assertTrueEventually;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PauseTrackerTest {
+
+    private final PauseProbe probe = new PauseProbe("pause");
+    private final PauseTracker tracker = new PauseTracker(probe);
+
+    @After
+    public void after() {
+        tracker.close();
+    }
+
+    @Test
+    public void testGcAndSafepoint() {
+        tracker.start();
+
+        Histogram gc = new Histogram(3);
+        Histogram safepoint = new Histogram(3);
+        assertTrueEventually(() -> {
+            System.gc();
+            gc.add(probe.getRecorder(Pause.GC).getIntervalHistogram());
+            safepoint.add(probe.getRecorder(Pause.SAFEPOINT).getIntervalHistogram());
+            assertTrue(gc.getTotalCount() > 0);
+            assertTrue(safepoint.getTotalCount() > 0);
+        }, 30);
+    }
+
+    @Test
+    public void testClose() {
+        tracker.start();
+        tracker.close();
+        probe.reset();
+
+        System.gc();
+
+        assertEquals(0, probe.getRecorder(Pause.GC).getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testIsConcurrent() {
+        assertTrue(PauseTracker.isConcurrent("G1 Concurrent GC"));
+        assertTrue(PauseTracker.isConcurrent("ZGC Cycles"));
+        assertTrue(PauseTracker.isConcurrent("Shenandoah Cycles"));
+        assertFalse(PauseTracker.isConcurrent("G1 Young Generation"));
+        assertFalse(PauseTracker.isConcurrent("ZGC Pauses"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProfilerThreadTest {
+
+    private ProfilerThread profilerThread;
+
+    @After
+    public void after() {
+        if (profilerThread != null) {
+            deleteQuiet(profilerThread.getProfileFile());
+        }
+    }
+
+    @Test
+    public void testJfr_untilEndOfRun() throws Exception {
+        profilerThread = new ProfilerThread("ProfilerThreadTest", ProfilerThread.Profiler.JFR, "default", 0, 0);
+        profilerThread.start();
+
+        Thread.sleep(1000);
+        profilerThread.shutdown();
+
+        File file = profilerThread.getProfileFile();
+        assertTrue(file.exists());
+        assertTrue(file.length() > 0);
+    }
+
+    @Test
+    public void testJfr_runCompletedBeforeStart() throws Exception {
+        profilerThread = new ProfilerThread("ProfilerThreadTest", ProfilerThread.Profiler.JFR, null, 60, 10);
+        profilerThread.start();
+
+        profilerThread.shutdown();
+
+        assertFalse(profilerThread.getProfileFile().exists());
+    }
+}
@@ -0,0 +1,60 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class TestContainer_TimeStep_AffinityTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+        AffinityTest testInstance = new AffinityTest();
+        TestCase testCase = new TestCase("affinity")
+                .setProperty("threadCount", 2)
+                .setProperty("iterations", 100)
+                .setProperty("affinity", "0")
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+
+        // binding to a cpu never fails the test; on platforms without taskset a warning is logged
+        assertNoExceptions();
+        assertEquals(200, testInstance.runCount.get());
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void test_invalidAffinity() throws Exception {
+        AffinityTest testInstance = new AffinityTest();
+        TestCase testCase = new TestCase("affinity")
+                .setProperty("affinity", "0-a")
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(TestPhase.RUN);
+    }
+
+    public static class AffinityTest {
+        private final AtomicLong runCount = new AtomicLong(0);
+
+        @TimeStep
+        public void timeStep() {
+            runCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.probes.impl.HdrLatencyProbe;
+import com.hazelcast.simulator.probes.impl.OutcomeProbe;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import static com.hazelcast.simulator.TestSupport.spawn;
+import static com.hazelcast.simulator.common.TestPhase.RUN;
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.TestUtils.assertCompletesEventually;
+import static com.hazelcast.simulator.utils.TestUtils.assertException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class TestContainer_TimeStep_OutcomeTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void testSync() throws Exception {
+        SyncTest testInstance = new SyncTest();
+        TestContextImpl testContext = run(testInstance, 9);
+
+        assertOutcomes(testContext, 3, 3, 3);
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        AsyncTest testInstance = new AsyncTest();
+        TestContextImpl testContext = run(testInstance, 9);
+
+        assertOutcomes(testContext, 3, 3, 3);
+    }
+
+    @Test
+    public void testWithoutClassification() throws Exception {
+        SyncTest testInstance = new SyncTest();
+        TestCase testCase = new TestCase("test")
+                .setProperty("iterations", 3)
+                .setProperty("threadCount", 1)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+
+        Future f = spawn((Callable) () -> {
+            container.invoke(RUN);
+            return null;
+        });
+
+        assertCompletesEventually(f);
+        assertTrue(testContext.getOutcomeProbes().isEmpty());
+        assertException("TimeoutException", 1);
+    }
+
+    @Test
+    public void testUnclassifiedException() throws Exception {
+        SyncTest testInstance = new SyncTest();
+        TestCase testCase = new TestCase("test")
+                .setProperty("iterations", 3)
+                .setProperty("threadCount", 1)
+                .setProperty("errorExceptions", IllegalArgumentException.class.getName())
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+
+        Future f = spawn((Callable) () -> {
+            container.invoke(RUN);
+            return null;
+        });
+
+        assertCompletesEventually(f);
+        assertException("TimeoutException", 1);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testUnknownExceptionClass() throws Exception {
+        run(new SyncTest(), 1, "errorExceptions", "com.example.NoSuchException");
+    }
+
+    private TestContextImpl run(Object testInstance, int iterations) throws Exception {
+        return run(testInstance, iterations, "errorExceptions", IllegalArgumentException.class.getName());
+    }
+
+    private TestContextImpl run(Object testInstance, int iterations, String property, String value) throws Exception {
+        TestCase testCase = new TestCase("test")
+                .setProperty("iterations", iterations)
+                .setProperty("threadCount", 1)
+                .setProperty(property, value)
+                .setProperty("timeoutExceptions", TimeoutException.class.getName())
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+        return testContext;
+    }
+
+    private static void assertOutcomes(TestContextImpl testContext, long success, long errors, long timeouts) {
+        OutcomeProbe outcomeProbe = testContext.getOutcomeProbes().get("timeStep");
+        assertNotNull(outcomeProbe);
+        assertEquals(errors, outcomeProbe.getErrorRecorder().getIntervalHistogram().getTotalCount());
+        assertEquals(timeouts, outcomeProbe.getTimeoutRecorder().getIntervalHistogram().getTotalCount());
+
+        HdrLatencyProbe latencyProbe = (HdrLatencyProbe) testContext.getLatencyProbes().get("timeStep");
+        assertEquals(success, latencyProbe.getRecorder().getIntervalHistogram().getTotalCount());
+    }
+
+    public static class SyncTest {
+
+        private int counter;
+
+        @TimeStep
+        public void timeStep() throws Exception {
+            switch (counter++ % 3) {
+                case 0:
+                    return;
+                case 1:
+                    throw new TimeoutException();
+                default:
+                    throw new IllegalArgumentException();
+            }
+        }
+    }
+
+    public static class AsyncTest {
+
+        private int counter;
+
+        @TimeStep
+        public CompletableFuture<Object> timeStep() {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            switch (counter++ % 3) {
+                case 0:
+                    future.complete(null);
+                    break;
+                case 1:
+                    future.completeExceptionally(new TimeoutException());
+                    break;
+                default:
+                    future.completeExceptionally(new IllegalArgumentException());
+                    break;
+            }
+            return future;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.fake.FakeInstance;
+import com.hazelcast.simulator.probes.impl.ResourceUsageProbe;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.StopException;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class TestContainer_TimeStep_ResourceUsageTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+        ResourceUsageTest testInstance = new ResourceUsageTest();
+        TestCase testCase = new TestCase("test")
+                .setProperty("recordResourceUsage", true)
+                .setProperty("resourceUsageSampleRate", 1)
+                .setProperty("threadCount", 1)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase, mock(FakeInstance.class));
+
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+
+        assertEquals(1, testContext.getResourceUsageProbes().size());
+        ResourceUsageProbe probe = testContext.getResourceUsageProbes().get("timeStep");
+        assertNotNull(probe);
+        if (probe.isCpuTimeSupported()) {
+            // the last call throws the StopException and isn't recorded
+            assertEquals(ResourceUsageTest.ITERATIONS - 1, probe.getCpuNanosRecorder().getIntervalHistogram().getTotalCount());
+        }
+        if (probe.isAllocationSupported()) {
+            assertTrue(probe.getAllocatedBytesRecorder().getIntervalHistogram().getMaxValue() >= 1024);
+        }
+    }
+
+    @Test
+    public void test_multipleMethods_withMetronome() throws Exception {
+        MultipleMethodsTest testInstance = new MultipleMethodsTest();
+        TestCase testCase = new TestCase("test")
+                .setProperty("recordResourceUsage", true)
+                .setProperty("resourceUsageSampleRate", 1)
+                .setProperty("threadCount", 1)
+                .setProperty("interval", "10us")
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase, mock(FakeInstance.class));
+
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+
+        assertEquals(2, testContext.getResourceUsageProbes().size());
+        long sampled = 0;
+        for (ResourceUsageProbe probe : testContext.getResourceUsageProbes().values()) {
+            if (!probe.isCpuTimeSupported()) {
+                return;
+            }
+            sampled += probe.getCpuNanosRecorder().getIntervalHistogram().getTotalCount();
+        }
+        // the last call throws the StopException and isn't recorded
+        assertEquals(MultipleMethodsTest.ITERATIONS - 1, sampled);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void test_invalidSampleRate() {
+        ResourceUsageTest testInstance = new ResourceUsageTest();
+        TestCase testCase = new TestCase("test")
+                .setProperty("recordResourceUsage", true)
+                .setProperty("resourceUsageSampleRate", 0)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        new TestContainer(testContext, testInstance, testCase, mock(FakeInstance.class));
+    }
+
+    public static class MultipleMethodsTest extends AbstractTest {
+
+        static final int ITERATIONS = 100;
+
+        private int iteration;
+
+        @TimeStep(prob = 0.5)
+        public byte[] timeStep1() {
+            return timeStep();
+        }
+
+        @TimeStep(prob = 0.5)
+        public byte[] timeStep2() {
+            return timeStep();
+        }
+
+        private byte[] timeStep() {
+            if (++iteration == ITERATIONS) {
+                throw new StopException();
+            }
+            return new byte[1024];
+        }
+    }
+
+    public static class ResourceUsageTest extends AbstractTest {
+
+        static final int ITERATIONS = 100;
+
+        private int iteration;
+
+        @TimeStep
+        public byte[] timeStep() {
+            if (++iteration == ITERATIONS) {
+                throw new StopException();
+            }
+            return new byte[1024];
+        }
+    }
+}
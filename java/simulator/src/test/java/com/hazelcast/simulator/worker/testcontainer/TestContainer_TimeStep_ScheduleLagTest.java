@@ -0,0 +1,69 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.probes.impl.ScheduleLagProbe;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class TestContainer_TimeStep_ScheduleLagTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void testWithMetronome() throws Exception {
+        // every operation takes 5ms while the interval is 1ms, so the thread falls behind
+        ScheduleLagTest testInstance = new ScheduleLagTest();
+        TestCase testCase = new TestCase("test")
+                .setProperty("iterations", 20)
+                .setProperty("interval", "1ms")
+                .setProperty("threadCount", 1)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+
+        ScheduleLagProbe probe = testContext.getScheduleLagProbes().get("scheduleLag");
+        assertNotNull(probe);
+        assertEquals(20, probe.getRecorder().getIntervalHistogram().getTotalCount());
+        // the first operation starts on time, the others are behind schedule
+        assertTrue(probe.missedSlotCount() >= 18);
+    }
+
+    @Test
+    public void testWithoutMetronome() throws Exception {
+        ScheduleLagTest testInstance = new ScheduleLagTest();
+        TestCase testCase = new TestCase("test")
+                .setProperty("iterations", 2)
+                .setProperty("threadCount", 1)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+
+        assertTrue(testContext.getScheduleLagProbes().isEmpty());
+    }
+
+    public static class ScheduleLagTest {
+
+        @TimeStep
+        public void timeStep() {
+            sleepMillis(5);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.fake.FakeInstance;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.BaseThreadState;
+import com.hazelcast.simulator.test.StopException;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class TestContainer_TimeStep_TraceTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        TraceTest recorded = new TraceTest();
+        run(recorded, new TestCase("test")
+                .setProperty("recordTrace", true)
+                .setProperty("threadCount", 1)
+                .setProperty("class", recorded.getClass()));
+
+        File traceFile = new File(userDir, "test-0.trace");
+        assertTrue(traceFile.exists());
+
+        TraceTest replayed = new TraceTest();
+        run(replayed, new TestCase("test")
+                .setProperty("replayTrace", userDir.getAbsolutePath())
+                .setProperty("replaySpeed", 100)
+                .setProperty("class", replayed.getClass()));
+
+        // the last call of the recording threw the StopException and isn't in the trace
+        assertEquals(recorded.operations.subList(0, TraceTest.ITERATIONS - 1), replayed.operations);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testReplay_noTraces() {
+        TraceTest testInstance = new TraceTest();
+        TestCase testCase = new TestCase("test")
+                .setProperty("replayTrace", userDir.getAbsolutePath())
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        new TestContainer(testContext, testInstance, testCase, mock(FakeInstance.class));
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testRecordAndReplayCombined() {
+        TraceTest testInstance = new TraceTest();
+        TestCase testCase = new TestCase("test")
+                .setProperty("recordTrace", true)
+                .setProperty("replayTrace", userDir.getAbsolutePath())
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        new TestContainer(testContext, testInstance, testCase, mock(FakeInstance.class));
+    }
+
+    private static void run(Object testInstance, TestCase testCase) throws Exception {
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase, mock(FakeInstance.class));
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+    }
+
+    public static class TraceTest extends AbstractTest {
+
+        static final int ITERATIONS = 200;
+
+        final List<String> operations = new ArrayList<>();
+
+        @TimeStep(prob = 0.7)
+        public void put(BaseThreadState state) {
+            operation("put", state);
+        }
+
+        @TimeStep(prob = 0.3)
+        public void get(BaseThreadState state) {
+            operation("get", state);
+        }
+
+        private void operation(String name, BaseThreadState state) {
+            long key = state.randomLong(1000);
+            state.traceOperation(key, 100);
+            operations.add(name + ":" + key);
+            if (operations.size() == ITERATIONS) {
+                throw new StopException();
+            }
+        }
+    }
+}
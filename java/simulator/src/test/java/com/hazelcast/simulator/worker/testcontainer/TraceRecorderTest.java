@@ -0,0 +1,122 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.test.BaseThreadState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.hazelcast.simulator.TestEnvironmentUtils.setupFakeUserDir;
+import static com.hazelcast.simulator.TestEnvironmentUtils.teardownFakeUserDir;
+import static com.hazelcast.simulator.test.BaseThreadState.NO_TRACED_KEY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TraceRecorderTest {
+
+    private File file;
+    private TraceWriter writer;
+    private List<Method> methods;
+
+    @Before
+    public void before() throws Exception {
+        File userDir = setupFakeUserDir();
+        file = new File(userDir, "test-0.trace");
+        writer = new TraceWriter("test");
+        writer.start();
+        methods = Arrays.asList(
+                TraceRecorderTest.class.getMethod("before"),
+                TraceRecorderTest.class.getMethod("after"));
+    }
+
+    @After
+    public void after() throws Exception {
+        writer.shutdown();
+        teardownFakeUserDir();
+    }
+
+    @Test
+    public void testHeader() throws Exception {
+        new TraceRecorder(file, writer, "group", methods, true, 42).close();
+
+        try (TraceReader reader = new TraceReader(file)) {
+            assertEquals("group", reader.getExecutionGroup());
+            assertTrue(reader.isSeeded());
+            assertEquals(42, reader.getSeed());
+            assertEquals(Arrays.asList("before", "after"), reader.getMethodNames());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testRecords() throws Exception {
+        BaseThreadState state = new BaseThreadState();
+        TraceRecorder recorder = new TraceRecorder(file, writer, "", methods, false, 0);
+        long startNanos = System.nanoTime();
+        recorder.record(startNanos, 0);
+        state.traceOperation(-5, 100);
+        recorder.record(startNanos + 1000, 1, state);
+        state.traceOperation(Long.MAX_VALUE, BaseThreadState.NO_TRACED_VALUE_SIZE);
+        recorder.record(startNanos + 500, 1, state);
+        recorder.close();
+
+        try (TraceReader reader = new TraceReader(file)) {
+            assertTrue(reader.next());
+            assertEquals(0, reader.getMethodIndex());
+            assertFalse(reader.hasKey());
+            assertFalse(reader.hasValueSize());
+
+            assertTrue(reader.next());
+            assertEquals(1000, reader.getDeltaNanos());
+            assertEquals(1, reader.getMethodIndex());
+            assertEquals(-5, reader.getKey());
+            assertEquals(100, reader.getValueSize());
+
+            assertTrue(reader.next());
+            // going back in time is recorded as no delay
+            assertEquals(0, reader.getDeltaNanos());
+            assertEquals(Long.MAX_VALUE, reader.getKey());
+            assertFalse(reader.hasValueSize());
+
+            assertFalse(reader.next());
+        }
+        // the recorder resets the traced operation
+        assertEquals(NO_TRACED_KEY, state.tracedKey());
+    }
+
+    @Test
+    public void testManyRecords() throws Exception {
+        int count = 100000;
+        BaseThreadState state = new BaseThreadState();
+        TraceRecorder recorder = new TraceRecorder(file, writer, "", methods, false, 0);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            state.traceOperation(i, i % 1000);
+            recorder.record(startNanos + i * 1000L, i % 2, state);
+        }
+        recorder.close();
+
+        try (TraceReader reader = new TraceReader(file)) {
+            for (int i = 0; i < count; i++) {
+                assertTrue(reader.next());
+                assertEquals(i % 2, reader.getMethodIndex());
+                assertEquals(i, reader.getKey());
+                assertEquals(i % 1000, reader.getValueSize());
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReader_notATrace() throws Exception {
+        com.hazelcast.simulator.utils.FileUtils.writeText("not a trace", file);
+
+        new TraceReader(file);
+    }
+}
@@ -207,9 +207,11 @@ class PerfTest:
 
             self.exitcode = self.__shell(f"{simulator_home}/bin/hidden/coordinator {coordinator_param} {tmp.name}")
             del test['run_path']
-            hosts = load_hosts(inventory_path=inventory_path, host_pattern="all:!mc:!load_balancers")
-            agents_download(hosts, run_path, test['RUN_ID'])
-            agents_clean(hosts)
+            # embedded workers run in the coordinator and write their files directly into the run_path
+            if str(test.get('embedded', False)).lower() != 'true':
+                hosts = load_hosts(inventory_path=inventory_path, host_pattern="all:!mc:!load_balancers")
+                agents_download(hosts, run_path, test['RUN_ID'])
+                agents_clean(hosts)
 
 
             if driver is not None:
@@ -7,7 +7,8 @@ import glob
 import shutil
 
 from simulator.perftest_report_dstat import report_dstat, analyze_dstat
-from simulator.perftest_report_hdr import report_hdr, prepare_hdr, analyze_latency_history
+from simulator.perftest_report_hdr import report_hdr, prepare_hdr, analyze_latency_history, lookup_measurement_window
+from simulator.perftest_report_member_metrics import report_member_metrics, analyze_member_metrics
 from simulator.perftest_report_operations import report_operations, prepare_operation, analyze_operations
 from simulator.util import mkdir, exit_with_error
 from simulator.perftest_report_common import *
@@ -42,6 +43,14 @@ def analyze(config: ReportConfig):
             end_time_sec = round(period.end_time)
             if config.cooldown_seconds is not None:
                 end_time_sec = end_time_sec - config.cooldown_seconds
+
+            # the operations and other data are trimmed to the same measurement window as the hdr files.
+            window = config.measurement_windows.get(run_label)
+            if window is not None:
+                if window.start_time is not None:
+                    start_time_sec = round(window.start_time)
+                if window.end_time is not None:
+                    end_time_sec = round(window.end_time)
             run_data = df_trim_time(run_data, start_time_sec, end_time_sec)
             run_data = df_shift_time(run_data, -start_time_sec)
         
@@ -61,7 +70,8 @@ def analyze_run(config: ReportConfig, run_dir, run_label):
     result = concat_dataframe_columns([
         analyze_operations(run_dir, attributes),
         analyze_latency_history(config.report_dir, attributes),
-        analyze_dstat(run_dir, attributes)
+        analyze_dstat(run_dir, attributes),
+        analyze_member_metrics(run_dir, attributes)
     ])
 
     info(f"Analyzing run_path:{run_dir}: Done")
@@ -82,6 +92,7 @@ def report(config: ReportConfig, df: pd.DataFrame):
     report_operations(config, df)
     report_hdr(config, df)
     report_dstat(config, df)
+    report_member_metrics(config, df)
 
     html_report = HTMLReport(config)
     html_report.make()
@@ -126,6 +137,20 @@ def lookup_periods(config):
                     period = Period(min(period.start_time, start_time), max(period.end_time, end_time))
                 config.periods[run_label] = period
 
+
+# Without an explicit warmup/cooldown, the measurement window detected by the workers is used (if any); like for the
+# hdr files, see perftest_report_hdr.
+def lookup_measurement_windows(config):
+    if config.warmup_seconds > 0 or config.cooldown_seconds > 0:
+        return
+
+    for run_label, run_dir in config.runs.items():
+        window = lookup_measurement_window(run_dir)
+        if window is not None:
+            info(f"Using the measurement window {window.start_time} - {window.end_time} of run {run_label}")
+            config.measurement_windows[run_label] = window
+
+
 def collect_runs(benchmarks, config: ReportConfig):
     benchmark_dirs = []
     run_names = {}
@@ -253,6 +278,7 @@ class PerfTestReportCli:
 
         collect_runs(args.benchmarks, config)
         lookup_periods(config)
+        lookup_measurement_windows(config)
         prepare(config)
         df = analyze(config)
         report(config, df)
@@ -48,6 +48,7 @@ class ReportConfig:
         self.report_dir = report_dir
         self.runs = {}
         self.periods = {}
+        self.measurement_windows = {}
 
 
 class ColumnDesc:
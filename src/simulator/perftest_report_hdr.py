@@ -13,6 +13,9 @@ from simulator.log import warn
 from simulator.perftest_report_common import *
 from simulator.util import shell, simulator_home, read_file, write_file
 
+MEASUREMENT_WINDOW_START = "#[MeasurementWindowStart: "
+MEASUREMENT_WINDOW_END = "#[MeasurementWindowEnd: "
+
 
 def prepare_hdr(config: ReportConfig):
     for run_label, run_dir in config.runs.items():
@@ -20,6 +23,39 @@ def prepare_hdr(config: ReportConfig):
         __process_hdr(config, run_dir, run_label)
 
 
+# Returns the measurement window the workers marked in their hdr files as a Period in seconds since epoch, or None
+# if there are no markers. Like for the merged hdr files, the window is the intersection of the windows of all files.
+# The start or end time is None if it isn't marked.
+def lookup_measurement_window(run_dir):
+    start_time = None
+    end_time = None
+    for worker_dir_name in os.listdir(run_dir):
+        worker_dir = f"{run_dir}/{worker_dir_name}"
+        if not extract_worker_id(worker_dir):
+            continue
+
+        for file_name in os.listdir(worker_dir):
+            if not file_name.endswith(".hdr"):
+                continue
+
+            with open(f"{worker_dir}/{file_name}") as hdr_file:
+                for line in hdr_file:
+                    if line.startswith(MEASUREMENT_WINDOW_START):
+                        start = __parse_marker(line, MEASUREMENT_WINDOW_START)
+                        start_time = start if start_time is None else max(start_time, start)
+                    elif line.startswith(MEASUREMENT_WINDOW_END):
+                        end = __parse_marker(line, MEASUREMENT_WINDOW_END)
+                        end_time = end if end_time is None else min(end_time, end)
+
+    if start_time is None and end_time is None:
+        return None
+    return Period(start_time, end_time)
+
+
+def __parse_marker(line, prefix):
+    return float(line[len(prefix):].split(" ")[0])
+
+
 def __merge_worker_hdr(run_dir):
     dic = {}
     for worker_dir_name in os.listdir(run_dir):
@@ -122,8 +158,15 @@ def __prepare_hdr_file(config: ReportConfig, run_label, worker_id, hdr_file, bat
         duration = period.end_time - period.start_time
         end = duration - config.cooldown_seconds
         start_end += f" -end {end} "
+
+    # without an explicit warmup/cooldown, the measurement window detected by the worker is used (if any).
+    if config.warmup_seconds == 0 and config.cooldown_seconds == 0:
+        start_end = " -measurementWindow "
     
-    batch_process_output.write(f"{start_end} -i {hdr_file} -o {target_dir}/{hdr_file_name_no_ext} -outputValueUnitRatio 1000\n")
+    # allocation histograms are recorded in bytes, all other histograms in nanoseconds.
+    value_unit_ratio = 1 if hdr_file_name_no_ext.endswith(".alloc") else 1000
+    batch_process_output.write(f"{start_end} -i {hdr_file} -o {target_dir}/{hdr_file_name_no_ext} "
+                               f"-outputValueUnitRatio {value_unit_ratio}\n")
     return target_dir, hdr_file_name_no_ext
 
 
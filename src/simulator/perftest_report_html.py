@@ -84,6 +84,7 @@ class HTMLReport:
     def __import_images(self):
         result = []
         result += self.__import_images_dstat()
+        result += self.__import_images_member_metrics()
         result += self.__import_images_operations()
         result += self.__import_images_latency()
         return result
@@ -166,3 +167,23 @@ class HTMLReport:
                 result.append(("dstat", f"{agent_dir}/{image_filename}",
                                f"{agent_filename} {base_filename}"))
         return result
+
+    def __import_images_member_metrics(self):
+        result = []
+        dir = f"{self.config.report_dir}/member-metrics"
+
+        if not os.path.isdir(dir):
+            return result
+
+        for worker_filename in os.listdir(dir):
+            worker_dir = f"{dir}/{worker_filename}"
+
+            if not os.path.isdir(worker_dir):
+                continue
+            for image_filename in os.listdir(worker_dir):
+                if not image_filename.endswith(".png"):
+                    continue
+                base_filename = Path(image_filename).stem
+                result.append(("members", f"{worker_dir}/{image_filename}",
+                               f"{worker_filename} {base_filename}"))
+        return result
@@ -0,0 +1,169 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+
+import time
+
+from matplotlib.dates import DateFormatter
+
+from simulator.perftest_report_common import *
+import matplotlib.pyplot as plt
+
+# the latency the member metrics are correlated with
+correlated_latency_metric = "Int_p99.9"
+
+
+def analyze_member_metrics(run_dir, attributes):
+    log_section("Loading member metrics data: Start")
+    start_sec = time.time()
+
+    all_member_metrics_data = []
+    for outer_file_name in os.listdir(run_dir):
+        worker_dir = f"{run_dir}/{outer_file_name}"
+        worker_id = extract_worker_id(worker_dir)
+        if not worker_id:
+            continue
+
+        csv_path = f"{worker_dir}/member-metrics.csv"
+        if not os.path.isfile(csv_path):
+            continue
+
+        info(f"\tLoading {csv_path}")
+        df = pd.read_csv(csv_path)
+        if len(df.index) == 0:
+            continue
+
+        # the member samples are taken at whole seconds, so they line up with the rounded operations data
+        df['time'] = df['epoch'].round(0).astype(int)
+        df['time'] = pd.to_datetime(df['time'], unit='s')
+        df.set_index('time', inplace=True)
+        # get rid of duplicates
+        df = df.loc[~df.index.duplicated(keep='last')]
+        df.drop(['epoch'], inplace=True, axis=1)
+        df.drop(['timestamp'], inplace=True, axis=1)
+
+        new_attributes = attributes.copy()
+        new_attributes["worker_id"] = worker_id
+        for column_name in df.columns:
+            column_desc = ColumnDesc("MemberMetrics", column_name, new_attributes)
+            df.rename(columns={column_name: column_desc.to_string()}, inplace=True)
+
+        all_member_metrics_data.append(df)
+
+    result = concat_dataframe_columns(all_member_metrics_data)
+    duration_sec = time.time() - start_sec
+    log_section(f"Loading member metrics data: Done (duration {duration_sec:.2f} seconds)")
+    return result
+
+
+def report_member_metrics(config: ReportConfig, df: pd.DataFrame):
+    log_section("Plotting member metrics data: Start")
+    start_sec = time.time()
+
+    grouped_column_names = {}
+    for column_name in df.columns:
+        column_desc = ColumnDesc.from_string(column_name)
+        if column_desc.group != "MemberMetrics":
+            continue
+        key = (column_desc.attributes["worker_id"], column_desc.metric_id)
+        grouped_column_names.setdefault(key, []).append(column_name)
+
+    for (worker_id, metric_id), column_name_list in grouped_column_names.items():
+        target_dir = f"{config.report_dir}/member-metrics/{worker_id}"
+        mkdir(target_dir)
+
+        filtered_df = pd.DataFrame(index=df.index)
+        for column_name in column_name_list:
+            run_label = ColumnDesc.from_string(column_name).attributes["run_label"]
+            filtered_df[run_label] = df[column_name].copy()
+
+        filtered_df.dropna(how='all', inplace=True)
+        filtered_df.to_csv(f"{target_dir}/{metric_id}.csv")
+
+        fig, ax = plt.subplots(figsize=(config.image_width_px / config.image_dpi,
+                                        config.image_height_px / config.image_dpi),
+                               dpi=config.image_dpi)
+        for run_label in filtered_df.columns:
+            ax.plot(filtered_df.index, filtered_df[run_label], label=run_label)
+
+        plt.ticklabel_format(style='plain', axis='y')
+        plt.ylabel(metric_id)
+
+        # trim wasted space on both sides of the plot
+        plt.xlim(left=0, right=df.index[-1])
+
+        if config.y_start_from_zero:
+            plt.ylim(bottom=0)
+
+        if config.preserve_time:
+            plt.xlabel("Time")
+            ax.xaxis.set_major_formatter(DateFormatter('%Y-%m-%d %H:%M:%S'))
+        else:
+            plt.xlabel("Time minutes:seconds")
+            ax.xaxis.set_major_formatter(DateFormatter('%M:%S'))
+        plt.legend()
+
+        plt.title(f"Member {worker_id} : {metric_id}")
+        plt.grid()
+
+        path = f"{target_dir}/{metric_id}.png"
+        info(f"\tGenerating [{path}]")
+        plt.savefig(path)
+
+        if config.svg:
+            path = f"{target_dir}/{metric_id}.svg"
+            info(f"\tGenerating [{path}]")
+            plt.savefig(path)
+
+        plt.close()
+
+    if grouped_column_names:
+        __report_correlation(config, df)
+
+    duration_sec = time.time() - start_sec
+    log_section(f"Plotting member metrics data: Done (duration {duration_sec:.2f} seconds)")
+
+
+# Correlates the interval latency of every test with every member metric of the same run, so the member side
+# causes of a latency spike, e.g. a growing operation queue or a gc, show up at the top of the list.
+def __report_correlation(config: ReportConfig, df: pd.DataFrame):
+    latency_columns = []
+    member_metric_columns = []
+    for column_name in df.columns:
+        column_desc = ColumnDesc.from_string(column_name)
+        if column_desc.group == "MemberMetrics":
+            member_metric_columns.append((column_name, column_desc))
+        elif column_desc.group == "Latency" \
+                and column_desc.metric_id == correlated_latency_metric \
+                and column_desc.attributes.get("worker_id") is None:
+            latency_columns.append((column_name, column_desc))
+
+    rows = []
+    for latency_column, latency_desc in latency_columns:
+        run_label = latency_desc.attributes["run_label"]
+        test_id = latency_desc.attributes.get("test_id")
+        for member_metric_column, member_metric_desc in member_metric_columns:
+            if member_metric_desc.attributes["run_label"] != run_label:
+                continue
+
+            pair = df[[latency_column, member_metric_column]].dropna()
+            # a constant series has no correlation
+            if len(pair.index) < 3 or pair[member_metric_column].nunique() < 2 or pair[latency_column].nunique() < 2:
+                continue
+
+            correlation = pair[latency_column].corr(pair[member_metric_column])
+            rows.append([run_label, test_id, member_metric_desc.attributes["worker_id"],
+                         member_metric_desc.metric_id, correlation])
+
+    if not rows:
+        return
+
+    result = pd.DataFrame(rows, columns=["run_label", "test_id", "worker_id", "metric", "correlation"])
+    result = result.reindex(result["correlation"].abs().sort_values(ascending=False).index)
+    path = f"{config.report_dir}/member-metrics/correlation.csv"
+    info(f"\tGenerating [{path}]")
+    result.to_csv(path, index=False)
+
+    for (run_label, test_id), group in result.groupby(["run_label", "test_id"], sort=False):
+        info(f"\tMember metrics most correlated with the {correlated_latency_metric} latency of {test_id} ({run_label}):")
+        for _, row in group.head(3).iterrows():
+            info(f"\t\t{row['worker_id']} {row['metric']}: {row['correlation']:.2f}")